@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.mapper;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.script.ScriptCompiler;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses typical log documents with keyword, number, date and ip fields. Run
+ * with {@code -prof gc} to see the garbage produced per document.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(DocumentParserBenchmark.DOCS)
+@State(Scope.Benchmark)
+public class DocumentParserBenchmark {
+    static final int DOCS = 1000;
+
+    private static final String MAPPING = """
+        {
+          "_doc": {
+            "properties": {
+              "@timestamp": { "type": "date" },
+              "message": { "type": "text" },
+              "host": {
+                "properties": {
+                  "name": { "type": "keyword" },
+                  "ip": { "type": "ip" }
+                }
+              },
+              "http": {
+                "properties": {
+                  "request": { "properties": { "method": { "type": "keyword" } } },
+                  "response": {
+                    "properties": {
+                      "status_code": { "type": "integer" },
+                      "bytes": { "type": "long" }
+                    }
+                  }
+                }
+              },
+              "url": { "properties": { "path": { "type": "keyword" } } },
+              "event": { "properties": { "duration": { "type": "long" } } },
+              "user_agent": { "properties": { "original": { "type": "keyword" } } }
+            }
+          }
+        }
+        """;
+
+    private static final List<String> METHODS = List.of("GET", "POST", "PUT", "DELETE");
+    private static final List<String> HOSTS = List.of("web-01", "web-02", "web-03", "api-01");
+    private static final List<String> PATHS = List.of("/", "/index.html", "/api/v1/users", "/api/v1/orders", "/static/app.js");
+
+    private DocumentMapper documentMapper;
+    private BytesReference[] sources;
+
+    @Setup
+    public void setup() throws IOException {
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build();
+        IndexSettings indexSettings = new IndexSettings(IndexMetadata.builder("logs").settings(settings).build(), Settings.EMPTY);
+        NamedAnalyzer defaultAnalyzer = new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer());
+        MapperService mapperService = new MapperService(
+            indexSettings,
+            new IndexAnalyzers(Map.of("default", defaultAnalyzer), Map.of(), Map.of()),
+            NamedXContentRegistry.EMPTY,
+            new SimilarityService(indexSettings, null, Map.of()),
+            new IndicesModule(List.of()).getMapperRegistry(),
+            () -> { throw new UnsupportedOperationException(); },
+            IdFieldMapper.NO_FIELD_DATA,
+            ScriptCompiler.NONE
+        );
+        mapperService.merge("_doc", new CompressedXContent(MAPPING), MapperService.MergeReason.MAPPING_UPDATE);
+        documentMapper = mapperService.documentMapper();
+
+        Random random = new Random(0);
+        sources = new BytesReference[DOCS];
+        long timestamp = 1_640_995_200_000L;
+        for (int i = 0; i < DOCS; i++) {
+            timestamp += random.nextInt(1000);
+            sources[i] = logDocument(random, timestamp);
+        }
+    }
+
+    private static BytesReference logDocument(Random random, long timestamp) throws IOException {
+        String method = METHODS.get(random.nextInt(METHODS.size()));
+        String path = PATHS.get(random.nextInt(PATHS.size()));
+        int status = random.nextInt(10) == 0 ? 500 : 200;
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        builder.field("@timestamp", timestamp);
+        builder.field("message", method + " " + path + " HTTP/1.1 " + status);
+        builder.startObject("host")
+            .field("name", HOSTS.get(random.nextInt(HOSTS.size())))
+            .field("ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256))
+            .endObject();
+        builder.startObject("http");
+        builder.startObject("request").field("method", method).endObject();
+        builder.startObject("response").field("status_code", status).field("bytes", random.nextInt(100_000)).endObject();
+        builder.endObject();
+        builder.startObject("url").field("path", path).endObject();
+        builder.startObject("event").field("duration", random.nextInt(1_000_000)).endObject();
+        builder.startObject("user_agent").field("original", "Mozilla/5.0 (X11; Linux x86_64)").endObject();
+        return BytesReference.bytes(builder.endObject());
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < DOCS; i++) {
+            ParsedDocument doc = documentMapper.parse(new SourceToParse(Integer.toString(i), sources[i], XContentType.JSON));
+            bh.consume(doc);
+        }
+    }
+}
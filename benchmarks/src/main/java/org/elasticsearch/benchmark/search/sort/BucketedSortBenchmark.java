@@ -0,0 +1,124 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.sort;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.sort.BucketedSort;
+import org.elasticsearch.search.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting into a {@link BucketedSort} the way {@code top_metrics}
+ * does underneath a {@code terms} aggregation, either one doc at a time or in
+ * blocks.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(BucketedSortBenchmark.DOCS)
+@State(Scope.Benchmark)
+public class BucketedSortBenchmark {
+    static final int DOCS = 1_000_000;
+    private static final int BLOCK_SIZE = 1024;
+
+    private final BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), null, "REQUEST");
+
+    @Param({ "100", "10000", "100000" })
+    public int buckets;
+
+    @Param({ "1", "10" })
+    public int bucketSize;
+
+    private double[] values;
+    private long[] bucketOrds;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        values = new double[DOCS];
+        bucketOrds = new long[DOCS];
+        for (int doc = 0; doc < DOCS; doc++) {
+            values[doc] = random.nextDouble();
+            bucketOrds[doc] = random.nextInt(buckets);
+        }
+    }
+
+    @Benchmark
+    public void oneAtATime(Blackhole bh) throws IOException {
+        try (BucketedSort sort = sort()) {
+            BucketedSort.Leaf leaf = sort.forLeaf(null);
+            for (int doc = 0; doc < DOCS; doc++) {
+                leaf.collect(doc, bucketOrds[doc]);
+            }
+            bh.consume(sort.getValues(0));
+        }
+    }
+
+    @Benchmark
+    public void blocks(Blackhole bh) throws IOException {
+        try (BucketedSort sort = sort()) {
+            BucketedSort.Leaf leaf = sort.forLeaf(null);
+            int[] docs = new int[BLOCK_SIZE];
+            long[] blockBuckets = new long[BLOCK_SIZE];
+            for (int start = 0; start < DOCS; start += BLOCK_SIZE) {
+                int count = Math.min(BLOCK_SIZE, DOCS - start);
+                for (int i = 0; i < count; i++) {
+                    docs[i] = start + i;
+                }
+                System.arraycopy(bucketOrds, start, blockBuckets, 0, count);
+                leaf.collect(docs, blockBuckets, count);
+            }
+            bh.consume(sort.getValues(0));
+        }
+    }
+
+    private BucketedSort sort() {
+        return new BucketedSort.ForDoubles(bigArrays, SortOrder.DESC, DocValueFormat.RAW, bucketSize, BucketedSort.NOOP_EXTRA_DATA) {
+            @Override
+            public Leaf forLeaf(LeafReaderContext ctx) {
+                return new Leaf(ctx) {
+                    private int doc;
+
+                    @Override
+                    protected boolean advanceExact(int doc) {
+                        this.doc = doc;
+                        return true;
+                    }
+
+                    @Override
+                    protected double docValue() {
+                        return values[doc];
+                    }
+                };
+            }
+        };
+    }
+}
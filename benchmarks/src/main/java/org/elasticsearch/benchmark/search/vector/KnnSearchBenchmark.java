@@ -0,0 +1,125 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.vector;
+
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
+import org.apache.lucene.codecs.lucene90.Lucene90HnswVectorsFormat;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnVectorQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of approximate kNN search over a synthetic dataset
+ * for different HNSW settings.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class KnnSearchBenchmark {
+    private static final String FIELD = "vector";
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+
+    @Param({ "100000" })
+    public int docs;
+
+    @Param({ "128" })
+    public int dims;
+
+    @Param({ "16", "32" })
+    public int m;
+
+    @Param({ "100", "200" })
+    public int efConstruction;
+
+    @Param({ "10", "100" })
+    public int numCandidates;
+
+    private float[][] queries;
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private int query;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(0);
+        float[][] vectors = randomVectors(random, docs);
+        queries = randomVectors(random, QUERIES);
+
+        directory = new ByteBuffersDirectory();
+        IndexWriterConfig config = new IndexWriterConfig().setCodec(new Lucene90Codec() {
+            @Override
+            public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                return new Lucene90HnswVectorsFormat(m, efConstruction);
+            }
+        });
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (float[] vector : vectors) {
+                Document doc = new Document();
+                doc.add(new KnnVectorField(FIELD, vector, VectorSimilarityFunction.EUCLIDEAN));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public TopDocs search() throws IOException {
+        float[] q = queries[query++ % QUERIES];
+        return searcher.search(new KnnVectorQuery(FIELD, q, numCandidates), K);
+    }
+
+    private float[][] randomVectors(Random random, int count) {
+        float[][] result = new float[count][dims];
+        for (int i = 0; i < count; i++) {
+            for (int d = 0; d < dims; d++) {
+                result[i][d] = random.nextFloat() * 2 - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.xcontent;
+
+import org.elasticsearch.action.bulk.BulkRequestParser;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses bulk requests with the action and metadata lines that are parsed straight from the bytes ({@code simple}) and with lines
+ * that have to go through the regular parser because of an empty {@code _source} parameter ({@code regular}).
+ */
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BulkRequestParserBenchmark {
+
+    @Param({ "simple", "regular" })
+    private String actionLines;
+
+    @Param({ "1000" })
+    private int docs;
+
+    @Param({ "100", "1000" })
+    private int docSize;
+
+    private BytesReference data;
+    private BulkRequestParser parser;
+
+    @Setup
+    public void setup() {
+        final String extraParams = actionLines.equals("simple") ? "" : "\"_source\":{},";
+        final String doc = "{\"message\":\"" + "x".repeat(Math.max(0, docSize - 16)) + "\"}\n";
+        final StringBuilder bulk = new StringBuilder();
+        for (int i = 0; i < docs; i++) {
+            bulk.append("{\"index\":{")
+                .append(extraParams)
+                .append("\"_index\":\"logs-")
+                .append(i % 3)
+                .append("\",\"_id\":\"")
+                .append(i)
+                .append("\",\"routing\":\"shard-")
+                .append(i % 5)
+                .append("\"}}\n");
+            bulk.append(doc);
+        }
+        data = new BytesArray(bulk.toString());
+        parser = new BulkRequestParser(false, RestApiVersion.current());
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) throws IOException {
+        parser.parse(
+            data,
+            null,
+            null,
+            null,
+            null,
+            null,
+            true,
+            XContentType.JSON,
+            (indexRequest, type) -> bh.consume(indexRequest),
+            bh::consume,
+            bh::consume
+        );
+    }
+
+    @Benchmark
+    public int findNewlines() {
+        int count = 0;
+        int from = 0;
+        int next;
+        while ((next = data.indexOf((byte) '\n', from)) != -1) {
+            count++;
+            from = next + 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.core.Releasable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of concurrent updates to random document ids
+ * through the {@link LiveVersionMap} the way {@link InternalEngine} applies
+ * them: lock the uid, look up the current version and put the new one. The
+ * map is refreshed whenever it grows beyond a few megabytes, like the
+ * indexing memory controller would do.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+public class LiveVersionMapBenchmark {
+    private static final long REFRESH_BYTES = 4 * 1024 * 1024;
+
+    @Param({ "1000", "1000000" })
+    public int ids;
+
+    private final AtomicLong seqNo = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private LiveVersionMap map;
+    private BytesRef[] uids;
+
+    @Setup
+    public void setup() {
+        map = new LiveVersionMap(Runtime.getRuntime().availableProcessors());
+        map.enforceSafeAccess();
+        Random random = new Random(0);
+        uids = new BytesRef[ids];
+        for (int i = 0; i < ids; i++) {
+            uids[i] = new BytesRef(UUIDs.randomBase64UUID(random).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public VersionValue update() throws IOException {
+        BytesRef uid = uids[ThreadLocalRandom.current().nextInt(uids.length)];
+        VersionValue next;
+        try (Releasable ignored = map.acquireLock(uid)) {
+            VersionValue current = map.getUnderLock(uid);
+            next = new IndexVersionValue(null, current == null ? 1 : current.version + 1, seqNo.incrementAndGet(), 1);
+            map.putIndexUnderLock(uid, (IndexVersionValue) next);
+        }
+        if (map.ramBytesUsedForRefresh() > REFRESH_BYTES && refreshing.compareAndSet(false, true)) {
+            try {
+                map.beforeRefresh();
+                // keep updating the safe map after the refresh
+                map.enforceSafeAccess();
+                map.afterRefresh(true);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return next;
+    }
+}
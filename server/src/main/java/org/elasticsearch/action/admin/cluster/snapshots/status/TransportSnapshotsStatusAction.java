@@ -13,6 +13,7 @@ import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.StepListener;
 import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.master.TransportMasterNodeAction;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.cluster.ClusterState;
@@ -54,9 +55,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -396,6 +400,7 @@ public class TransportSnapshotsStatusAction extends TransportMasterNodeAction<Sn
     ) throws IOException {
         final Repository repository = repositoriesService.repository(repositoryName);
         final Map<ShardId, IndexShardSnapshotStatus> shardStatus = new HashMap<>();
+        final Map<ShardId, IndexId> shardsToLoad = new LinkedHashMap<>();
         for (String index : snapshotInfo.indices()) {
             IndexId indexId = repositoryData.resolveIndexId(index);
             task.ensureNotCancelled();
@@ -408,7 +413,6 @@ public class TransportSnapshotsStatusAction extends TransportMasterNodeAction<Sn
                     if (shardFailure != null) {
                         shardStatus.put(shardId, IndexShardSnapshotStatus.newFailed(shardFailure.reason()));
                     } else {
-                        final IndexShardSnapshotStatus shardSnapshotStatus;
                         if (snapshotInfo.state() == SnapshotState.FAILED) {
                             // If the snapshot failed, but the shard's snapshot does
                             // not have an exception, it means that partial snapshots
@@ -417,19 +421,62 @@ public class TransportSnapshotsStatusAction extends TransportMasterNodeAction<Sn
                             // snapshot status will throw an exception. Instead, we create
                             // a status for the shard to indicate that the shard snapshot
                             // could not be taken due to partial being set to false.
-                            shardSnapshotStatus = IndexShardSnapshotStatus.newFailed("skipped");
+                            shardStatus.put(shardId, IndexShardSnapshotStatus.newFailed("skipped"));
                         } else {
-                            task.ensureNotCancelled();
-                            shardSnapshotStatus = repository.getShardSnapshotStatus(snapshotInfo.snapshotId(), indexId, shardId);
+                            shardsToLoad.put(shardId, indexId);
                         }
-                        shardStatus.put(shardId, shardSnapshotStatus);
                     }
                 }
             }
         }
+        shardStatus.putAll(loadShardSnapshotStatuses(repository, snapshotInfo.snapshotId(), shardsToLoad, task));
         return unmodifiableMap(shardStatus);
     }
 
+    /**
+     * Loads the status of the given shard snapshots from the repository, in parallel on up to as many threads as the snapshot meta pool
+     * has. The calling thread loads shard snapshots too, and it only waits for the ones that other threads already started to load, so
+     * this completes even if the pool is busy with other requests.
+     */
+    private Map<ShardId, IndexShardSnapshotStatus> loadShardSnapshotStatuses(
+        final Repository repository,
+        final SnapshotId snapshotId,
+        final Map<ShardId, IndexId> shards,
+        final CancellableTask task
+    ) {
+        final Map<ShardId, PlainActionFuture<IndexShardSnapshotStatus>> futures = new LinkedHashMap<>();
+        final BlockingQueue<ShardId> queue = new LinkedBlockingQueue<>();
+        for (ShardId shardId : shards.keySet()) {
+            futures.put(shardId, PlainActionFuture.newFuture());
+            queue.add(shardId);
+        }
+        final Runnable loader = () -> {
+            ShardId shardId;
+            while ((shardId = queue.poll()) != null) {
+                final PlainActionFuture<IndexShardSnapshotStatus> future = futures.get(shardId);
+                try {
+                    task.ensureNotCancelled();
+                    future.onResponse(repository.getShardSnapshotStatus(snapshotId, shards.get(shardId), shardId));
+                } catch (Exception e) {
+                    // the shards that are not loaded yet come after this one, so the calling thread never waits for them
+                    queue.clear();
+                    future.onFailure(e);
+                }
+            }
+        };
+        final int loaders = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT_META).getMax(), shards.size());
+        for (int i = 1; i < loaders; i++) {
+            threadPool.executor(ThreadPool.Names.SNAPSHOT_META).execute(loader);
+        }
+        loader.run();
+
+        final Map<ShardId, IndexShardSnapshotStatus> statuses = new HashMap<>();
+        for (Map.Entry<ShardId, PlainActionFuture<IndexShardSnapshotStatus>> future : futures.entrySet()) {
+            statuses.put(future.getKey(), future.getValue().actionGet());
+        }
+        return statuses;
+    }
+
     private static SnapshotShardFailure findShardFailure(List<SnapshotShardFailure> shardFailures, ShardId shardId) {
         for (SnapshotShardFailure shardFailure : shardFailures) {
             if (shardId.getIndexName().equals(shardFailure.index()) && shardId.getId() == shardFailure.shardId()) {
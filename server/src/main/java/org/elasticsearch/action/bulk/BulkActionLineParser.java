@@ -0,0 +1,327 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the action and metadata lines of JSON bulk requests, like {@code {"index":{"_index":"logs","_id":"1"}}}, straight from
+ * the bytes of the request without going through a generic {@link org.elasticsearch.xcontent.XContentParser}. Only the common
+ * shape of these lines is supported: one of the supported actions with string, integer and boolean values for the well known
+ * parameters, without escapes, comments, {@code null}s or duplicate keys. For anything else {@link #parse} returns {@code false}
+ * and the line has to be parsed by the regular parser, which also takes care of reporting errors.
+ * <p>
+ * Bulk requests usually repeat the same index, routing and pipeline on every line so the last value of these parameters is
+ * reused instead of creating a new string for every line. Instances are not thread safe and are meant to be used for the lines
+ * of a single bulk request.
+ */
+final class BulkActionLineParser {
+
+    private static final String[] ACTIONS = { "create", "index", "update", "delete" };
+    private static final byte[][] ACTION_BYTES = toBytes(ACTIONS);
+
+    private static final int INDEX = 0;
+    private static final int ID = 1;
+    private static final int ROUTING = 2;
+    private static final int OP_TYPE = 3;
+    private static final int VERSION = 4;
+    private static final int VERSION_TYPE = 5;
+    private static final int IF_SEQ_NO = 6;
+    private static final int IF_PRIMARY_TERM = 7;
+    private static final int RETRY_ON_CONFLICT = 8;
+    private static final int PIPELINE = 9;
+    private static final int REQUIRE_ALIAS = 10;
+    private static final byte[][] FIELD_BYTES = toBytes(
+        new String[] {
+            "_index",
+            "_id",
+            "routing",
+            "op_type",
+            "version",
+            "version_type",
+            "if_seq_no",
+            "if_primary_term",
+            "retry_on_conflict",
+            "pipeline",
+            "require_alias" }
+    );
+
+    // the values of the last parsed line, null or the default if the line doesn't have them
+    String action;
+    String index;
+    String id;
+    String routing;
+    String opType;
+    long version;
+    VersionType versionType;
+    long ifSeqNo;
+    long ifPrimaryTerm;
+    int retryOnConflict;
+    String pipeline;
+    Boolean requireAlias;
+
+    private final CachedString cachedIndex = new CachedString();
+    private final CachedString cachedRouting = new CachedString();
+    private final CachedString cachedPipeline = new CachedString();
+
+    private byte[] bytes;
+    private int pos;
+    private int end;
+
+    /**
+     * Parses the line in {@code bytes} from {@code from} (inclusive) to {@code to} (exclusive). Returns {@code false} if the line
+     * isn't in the supported shape, the values of the fields are undefined in that case.
+     */
+    boolean parse(byte[] bytes, int from, int to) {
+        this.bytes = bytes;
+        this.pos = from;
+        this.end = to;
+        action = null;
+        index = null;
+        id = null;
+        routing = null;
+        opType = null;
+        version = Versions.MATCH_ANY;
+        versionType = VersionType.INTERNAL;
+        ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        ifPrimaryTerm = SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
+        retryOnConflict = 0;
+        pipeline = null;
+        requireAlias = null;
+
+        if (consume('{') == false) {
+            return false;
+        }
+        int actionIndex = parseKey(ACTION_BYTES);
+        if (actionIndex < 0 || consume(':') == false || consume('{') == false) {
+            return false;
+        }
+        action = ACTIONS[actionIndex];
+        if (consume('}') == false) {
+            int seen = 0;
+            do {
+                final int field = parseKey(FIELD_BYTES);
+                if (field < 0 || (seen & (1 << field)) != 0 || consume(':') == false || parseValue(field) == false) {
+                    return false;
+                }
+                seen |= 1 << field;
+            } while (consume(','));
+            if (consume('}') == false) {
+                return false;
+            }
+        }
+        if (consume('}') == false) {
+            return false;
+        }
+        skipWhitespace();
+        return pos == end;
+    }
+
+    private boolean parseValue(int field) {
+        skipWhitespace();
+        switch (field) {
+            case INDEX:
+                return (index = parseString(cachedIndex)) != null;
+            case ID:
+                return (id = parseString(null)) != null;
+            case ROUTING:
+                return (routing = parseString(cachedRouting)) != null;
+            case OP_TYPE:
+                return (opType = parseString(null)) != null;
+            case VERSION_TYPE:
+                final String type = parseString(null);
+                if (type == null) {
+                    return false;
+                }
+                versionType = VersionType.fromString(type);
+                return true;
+            case PIPELINE:
+                return (pipeline = parseString(cachedPipeline)) != null;
+            case VERSION:
+            case IF_SEQ_NO:
+            case IF_PRIMARY_TERM:
+            case RETRY_ON_CONFLICT:
+                final int start = pos;
+                final long value = parseLong();
+                if (pos == start) {
+                    return false;
+                }
+                if (field == VERSION) {
+                    version = value;
+                } else if (field == IF_SEQ_NO) {
+                    ifSeqNo = value;
+                } else if (field == IF_PRIMARY_TERM) {
+                    ifPrimaryTerm = value;
+                } else {
+                    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                        return false;
+                    }
+                    retryOnConflict = (int) value;
+                }
+                return true;
+            case REQUIRE_ALIAS:
+                if (matches("true")) {
+                    requireAlias = Boolean.TRUE;
+                    return true;
+                } else if (matches("false")) {
+                    requireAlias = Boolean.FALSE;
+                    return true;
+                }
+                return false;
+            default:
+                throw new AssertionError("unknown field [" + field + "]");
+        }
+    }
+
+    /**
+     * Skips whitespace and the given character. Returns {@code false} if the next character is a different one.
+     */
+    private boolean consume(char c) {
+        skipWhitespace();
+        if (pos < end && bytes[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && (bytes[pos] == ' ' || bytes[pos] == '\t' || bytes[pos] == '\r' || bytes[pos] == '\n')) {
+            pos++;
+        }
+    }
+
+    /**
+     * Parses a quoted key and returns its index in {@code keys} or {@code -1} if it isn't one of them.
+     */
+    private int parseKey(byte[][] keys) {
+        skipWhitespace();
+        final int start = pos + 1;
+        final int stringEnd = stringEnd();
+        if (stringEnd < 0) {
+            return -1;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (Arrays.equals(bytes, start, stringEnd, keys[i], 0, keys[i].length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a string value, reusing the previous value of {@code cache} if it has the same bytes. Returns {@code null} if the
+     * next value isn't a plain string.
+     */
+    private String parseString(CachedString cache) {
+        final int start = pos + 1;
+        final int stringEnd = stringEnd();
+        if (stringEnd < 0) {
+            return null;
+        }
+        if (cache == null) {
+            return new String(bytes, start, stringEnd - start, StandardCharsets.UTF_8);
+        }
+        return cache.get(bytes, start, stringEnd);
+    }
+
+    /**
+     * Moves past the string that starts at the current position and returns the position of its closing quote, or {@code -1}
+     * if there is no string without escapes and control characters at the current position.
+     */
+    private int stringEnd() {
+        if (pos >= end || bytes[pos] != '"') {
+            return -1;
+        }
+        for (int i = pos + 1; i < end; i++) {
+            final byte b = bytes[i];
+            if (b == '"') {
+                pos = i + 1;
+                return i;
+            }
+            if (b == '\\' || (b >= 0 && b < 0x20)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses an integer without exponent, fraction or leading zeros. Leaves the position untouched if there is none.
+     */
+    private long parseLong() {
+        final int start = pos;
+        int i = pos;
+        final boolean negative = i < end && bytes[i] == '-';
+        if (negative) {
+            i++;
+        }
+        final int digitsStart = i;
+        long value = 0;
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            if (i - digitsStart >= 18) {
+                // might overflow, leave it to the parser
+                return 0;
+            }
+            value = value * 10 + (bytes[i] - '0');
+            i++;
+        }
+        if (i == digitsStart
+            || (bytes[digitsStart] == '0' && i - digitsStart > 1)
+            || (i < end && (bytes[i] == '.' || bytes[i] == 'e' || bytes[i] == 'E'))) {
+            pos = start;
+            return 0;
+        }
+        pos = i;
+        return negative ? -value : value;
+    }
+
+    private boolean matches(String literal) {
+        final int length = literal.length();
+        if (end - pos < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        pos += length;
+        return true;
+    }
+
+    private static byte[][] toBytes(String[] strings) {
+        final byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            bytes[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    /**
+     * The last value of a parameter together with its bytes.
+     */
+    private static final class CachedString {
+        private byte[] bytes = new byte[0];
+        private String value;
+
+        String get(byte[] source, int from, int to) {
+            if (value == null || Arrays.equals(bytes, 0, bytes.length, source, from, to) == false) {
+                bytes = Arrays.copyOfRange(source, from, to);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parses the documents of the index requests of a shard level bulk request on other threads, ahead of the thread that applies
+ * the items to the shard. Parsing, mapping and analysis is the CPU heavy part of indexing and it doesn't depend on the state of
+ * the engine, so it can run concurrently while the items are still applied to the engine one by one and in order.
+ * <p>
+ * Every item is parsed at most once ahead of time. The applying thread claims items that no helper has started on and parses
+ * them itself, so it never waits on a helper that hasn't been scheduled yet. A parsed document is only handed out if the shard's
+ * mapping hasn't changed since it was parsed. Otherwise, and if parsing failed, the item is parsed again by the applying thread,
+ * which keeps the ordering, dynamic mapping updates and failure reporting exactly as if nothing was parsed ahead.
+ * <p>
+ * Helpers run on the bounded executor that applies the request and are only submitted while that executor has an idle thread, so
+ * they never queue up behind other requests. They run with the thread context of the request, and the response headers, such as
+ * deprecation warnings, that parsing a document adds are added to the applying thread's context when it takes the document.
+ */
+final class BulkParseAhead {
+    /**
+     * Requests with fewer items than this are applied without any help.
+     */
+    static final int MIN_ITEMS = 16;
+    /**
+     * How many items helpers may parse ahead of the applying thread. This bounds the memory held by parsed documents.
+     */
+    static final int MAX_ITEMS_AHEAD = 256;
+
+    private static final Object CLAIMED = new Object();
+    private static final Object PARSING = new Object();
+    private static final Object FAILED = new Object();
+
+    private final BulkItemRequest[] items;
+    private final IndexShard primary;
+    private final ExecutorService executor;
+    private final ThreadContext threadContext;
+    private final int maxHelpers;
+    /**
+     * The state of every item, either {@code null} if nobody has claimed it yet, one of the marker objects or a {@link Parsed} doc.
+     */
+    private final AtomicReferenceArray<Object> slots;
+    private final AtomicInteger nextToParse = new AtomicInteger();
+    private final AtomicInteger activeHelpers = new AtomicInteger();
+    private volatile int applying;
+    private volatile boolean closed;
+
+    private BulkParseAhead(BulkShardRequest request, IndexShard primary, ThreadPool threadPool, String executorName, int maxHelpers) {
+        this.items = request.items();
+        this.primary = primary;
+        this.executor = threadPool.executor(executorName);
+        this.threadContext = threadPool.getThreadContext();
+        this.maxHelpers = maxHelpers;
+        this.slots = new AtomicReferenceArray<>(items.length);
+    }
+
+    /**
+     * Start parsing the documents of {@code request} with up to {@code maxHelpers} tasks on the {@code executorName} executor. Returns
+     * {@code null} if the request is too small to be worth it or parsing ahead is disabled.
+     */
+    @Nullable
+    static BulkParseAhead start(BulkShardRequest request, IndexShard primary, ThreadPool threadPool, String executorName, int maxHelpers) {
+        if (maxHelpers <= 0 || request.items().length < MIN_ITEMS) {
+            return null;
+        }
+        BulkParseAhead parseAhead = new BulkParseAhead(request, primary, threadPool, executorName, maxHelpers);
+        parseAhead.maybeStartHelpers();
+        return parseAhead;
+    }
+
+    /**
+     * Take the document parsed ahead for the item at {@code index}. Returns {@code null} if the caller has to parse it itself.
+     * Must be called by the applying thread in item order.
+     */
+    @Nullable
+    ParsedDocument take(int index) {
+        applying = index;
+        maybeStartHelpers();
+        Object state = slots.get(index);
+        if (state == null && slots.compareAndSet(index, null, CLAIMED)) {
+            return null;
+        }
+        if (state == PARSING || slots.get(index) == PARSING) {
+            synchronized (this) {
+                try {
+                    while (slots.get(index) == PARSING) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+        state = slots.getAndSet(index, CLAIMED);
+        if (state instanceof Parsed == false) {
+            return null;
+        }
+        Parsed parsed = (Parsed) state;
+        if (parsed.mapper != primary.mapperService().documentMapper()) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> header : parsed.responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                threadContext.addResponseHeader(header.getKey(), value);
+            }
+        }
+        return parsed.doc;
+    }
+
+    /**
+     * Stop parsing ahead, the applying thread is done with the request.
+     */
+    void close() {
+        closed = true;
+    }
+
+    private void maybeStartHelpers() {
+        while (closed == false && nextToParse.get() < Math.min(items.length, applying + MAX_ITEMS_AHEAD)) {
+            int helpers = activeHelpers.get();
+            if (helpers >= maxHelpers || hasIdleThread() == false) {
+                return;
+            }
+            if (activeHelpers.compareAndSet(helpers, helpers + 1)) {
+                final boolean[] rejected = new boolean[1];
+                executor.execute(threadContext.preserveContext(new AbstractRunnable() {
+                    @Override
+                    protected void doRun() {
+                        parseAhead();
+                    }
+
+                    @Override
+                    public void onRejection(Exception e) {
+                        rejected[0] = true;
+                        onFailure(e);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        // a rejected or failed helper just means the applying thread parses more items itself
+                    }
+
+                    @Override
+                    public void onAfter() {
+                        activeHelpers.decrementAndGet();
+                    }
+                }));
+                if (rejected[0]) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helpers are only worth submitting if a thread can pick them up right away, otherwise the applying thread is faster on its own.
+     */
+    private boolean hasIdleThread() {
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+            return threadPoolExecutor.getActiveCount() < threadPoolExecutor.getMaximumPoolSize();
+        }
+        return true;
+    }
+
+    private void parseAhead() {
+        while (closed == false) {
+            if (nextToParse.get() >= applying + MAX_ITEMS_AHEAD) {
+                // far enough ahead, the applying thread starts us again once it catches up
+                return;
+            }
+            int index = nextToParse.getAndIncrement();
+            if (index >= items.length) {
+                return;
+            }
+            DocWriteRequest<?> request = items[index].request();
+            if (request instanceof IndexRequest == false || slots.compareAndSet(index, null, PARSING) == false) {
+                continue;
+            }
+            Object result = FAILED;
+            // parse in a fresh copy of the request's context to keep the response headers of every document apart
+            try (ThreadContext.StoredContext ignored = threadContext.newStoredContext(false)) {
+                DocumentMapper mapper = primary.mapperService().documentMapper();
+                if (mapper != null) {
+                    ParsedDocument doc = mapper.parse(sourceToParse((IndexRequest) request));
+                    result = new Parsed(mapper, doc, threadContext.getResponseHeaders());
+                }
+            } catch (Exception e) {
+                // the applying thread parses the document again and reports the failure in order
+            } finally {
+                slots.set(index, result);
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    static SourceToParse sourceToParse(IndexRequest request) {
+        return new SourceToParse(
+            request.id(),
+            request.source(),
+            request.getContentType(),
+            request.routing(),
+            request.getDynamicTemplates()
+        );
+    }
+
+    private static final class Parsed {
+        final DocumentMapper mapper;
+        final ParsedDocument doc;
+        final Map<String, List<String>> responseHeaders;
+
+        Parsed(DocumentMapper mapper, ParsedDocument doc, Map<String, List<String>> responseHeaders) {
+            this.mapper = mapper;
+            this.doc = doc;
+            this.responseHeaders = responseHeaders;
+        }
+    }
+}
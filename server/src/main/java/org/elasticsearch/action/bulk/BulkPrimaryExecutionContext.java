@@ -14,7 +14,9 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
 
@@ -64,10 +66,16 @@ class BulkPrimaryExecutionContext {
     private DocWriteRequest<?> requestToExecute;
     private BulkItemResponse executionResult;
     private int retryCounter;
+    private final BulkParseAhead parseAhead;
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
+        this(request, primary, null);
+    }
+
+    BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary, @Nullable BulkParseAhead parseAhead) {
         this.request = request;
         this.primary = primary;
+        this.parseAhead = parseAhead;
         advance();
     }
 
@@ -95,6 +103,21 @@ class BulkPrimaryExecutionContext {
         assert assertInvariants(ItemProcessingState.INITIAL);
     }
 
+    /**
+     * returns the document of the current item if it was parsed ahead against the current mapping, {@code null} if it
+     * needs to be parsed
+     */
+    ParsedDocument takeParsedAhead() {
+        return parseAhead == null ? null : parseAhead.take(currentIndex);
+    }
+
+    /** stop parsing documents ahead */
+    void closeParseAhead() {
+        if (parseAhead != null) {
+            parseAhead.close();
+        }
+    }
+
     /** gets the current, untranslated item request */
     public DocWriteRequest<?> getCurrent() {
         return getCurrentItem().request();
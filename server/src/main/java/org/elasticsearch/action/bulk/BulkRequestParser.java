@@ -140,7 +140,9 @@ public final class BulkRequestParser {
         // deduplicate duplicate strings parsed for these parameters. While it does not prevent instantiating the duplicate strings, it
         // reduces their lifetime to the lifetime of this parse call instead of the lifetime of the full bulk request.
         final Map<String, String> stringDeduplicator = new HashMap<>();
-        boolean typesDeprecationLogged = false;
+        final ActionMetadata metadata = new ActionMetadata();
+        // the action and metadata lines of JSON requests are parsed straight from the bytes unless they use anything unusual
+        final BulkActionLineParser actionLineParser = xContentType.canonical() == XContentType.JSON ? new BulkActionLineParser() : null;
 
         while (true) {
             int nextMarker = findNextMarker(marker, from, data);
@@ -149,275 +151,304 @@ public final class BulkRequestParser {
             }
             line++;
 
-            // now parse the action
-            try (XContentParser parser = createParser(xContent, data, from, nextMarker)) {
+            metadata.reset(defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline, defaultRequireAlias);
+            if (actionLineParser != null && parseSimpleActionLine(actionLineParser, data, from, nextMarker)) {
                 // move pointers
                 from = nextMarker + 1;
-
-                // Move to START_OBJECT
-                XContentParser.Token token = parser.nextToken();
-                if (token == null) {
-                    continue;
+                metadata.action = actionLineParser.action;
+                if (actionLineParser.index != null) {
+                    if (allowExplicitIndex == false) {
+                        throw new IllegalArgumentException("explicit index in bulk is not allowed");
+                    }
+                    metadata.index = actionLineParser.index;
                 }
-                if (token != XContentParser.Token.START_OBJECT) {
-                    throw new IllegalArgumentException(
-                        "Malformed action/metadata line ["
-                            + line
-                            + "], expected "
-                            + XContentParser.Token.START_OBJECT
-                            + " but found ["
-                            + token
-                            + "]"
-                    );
+                metadata.id = actionLineParser.id;
+                if (actionLineParser.routing != null) {
+                    metadata.routing = actionLineParser.routing;
+                }
+                metadata.opType = actionLineParser.opType;
+                metadata.version = actionLineParser.version;
+                metadata.versionType = actionLineParser.versionType;
+                metadata.ifSeqNo = actionLineParser.ifSeqNo;
+                metadata.ifPrimaryTerm = actionLineParser.ifPrimaryTerm;
+                metadata.retryOnConflict = actionLineParser.retryOnConflict;
+                if (actionLineParser.pipeline != null) {
+                    metadata.pipeline = actionLineParser.pipeline;
+                }
+                if (actionLineParser.requireAlias != null) {
+                    metadata.requireAlias = actionLineParser.requireAlias;
+                }
+            } else {
+                // now parse the action
+                try (XContentParser parser = createParser(xContent, data, from, nextMarker)) {
+                    // move pointers
+                    from = nextMarker + 1;
+                    if (parseActionLine(parser, line, allowExplicitIndex, stringDeduplicator, metadata) == false) {
+                        continue;
+                    }
                 }
-                // Move to FIELD_NAME, that's the action
-                token = parser.nextToken();
-                if (token != XContentParser.Token.FIELD_NAME) {
+            }
+
+            if ("delete".equals(metadata.action)) {
+                if (metadata.dynamicTemplates.isEmpty() == false) {
                     throw new IllegalArgumentException(
-                        "Malformed action/metadata line ["
-                            + line
-                            + "], expected "
-                            + XContentParser.Token.FIELD_NAME
-                            + " but found ["
-                            + token
-                            + "]"
+                        "Delete request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
                     );
                 }
-                String action = parser.currentName();
-                if (SUPPORTED_ACTIONS.contains(action) == false) {
-                    deprecationLogger.compatibleCritical(
-                        STRICT_ACTION_PARSING_WARNING_KEY,
-                        "Unsupported action: [{}]. Supported values are [create], [delete], [index], and [update]. "
-                            + "Unsupported actions are currently accepted but will be rejected in a future version.",
-                        action
+                deleteRequestConsumer.accept(
+                    new DeleteRequest(metadata.index).id(metadata.id)
+                        .routing(metadata.routing)
+                        .version(metadata.version)
+                        .versionType(metadata.versionType)
+                        .setIfSeqNo(metadata.ifSeqNo)
+                        .setIfPrimaryTerm(metadata.ifPrimaryTerm)
+                );
+            } else {
+                nextMarker = findNextMarker(marker, from, data);
+                if (nextMarker == -1) {
+                    break;
+                }
+                line++;
+
+                // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
+                // of index request.
+                if ("index".equals(metadata.action)) {
+                    if (metadata.opType == null) {
+                        indexRequestConsumer.accept(
+                            new IndexRequest(metadata.index).id(metadata.id)
+                                .routing(metadata.routing)
+                                .version(metadata.version)
+                                .versionType(metadata.versionType)
+                                .setPipeline(metadata.pipeline)
+                                .setIfSeqNo(metadata.ifSeqNo)
+                                .setIfPrimaryTerm(metadata.ifPrimaryTerm)
+                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                                .setDynamicTemplates(metadata.dynamicTemplates)
+                                .setRequireAlias(metadata.requireAlias),
+                            metadata.type
+                        );
+                    } else {
+                        indexRequestConsumer.accept(
+                            new IndexRequest(metadata.index).id(metadata.id)
+                                .routing(metadata.routing)
+                                .version(metadata.version)
+                                .versionType(metadata.versionType)
+                                .create("create".equals(metadata.opType))
+                                .setPipeline(metadata.pipeline)
+                                .setIfSeqNo(metadata.ifSeqNo)
+                                .setIfPrimaryTerm(metadata.ifPrimaryTerm)
+                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                                .setRequireAlias(metadata.requireAlias),
+                            metadata.type
+                        );
+                    }
+                } else if ("create".equals(metadata.action)) {
+                    indexRequestConsumer.accept(
+                        new IndexRequest(metadata.index).id(metadata.id)
+                            .routing(metadata.routing)
+                            .version(metadata.version)
+                            .versionType(metadata.versionType)
+                            .create(true)
+                            .setPipeline(metadata.pipeline)
+                            .setIfSeqNo(metadata.ifSeqNo)
+                            .setIfPrimaryTerm(metadata.ifPrimaryTerm)
+                            .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
+                            .setDynamicTemplates(metadata.dynamicTemplates)
+                            .setRequireAlias(metadata.requireAlias),
+                        metadata.type
                     );
+                } else if ("update".equals(metadata.action)) {
+                    if (metadata.version != Versions.MATCH_ANY || metadata.versionType != VersionType.INTERNAL) {
+                        throw new IllegalArgumentException(
+                            "Update requests do not support versioning. " + "Please use `if_seq_no` and `if_primary_term` instead"
+                        );
+                    }
+                    // TODO: support dynamic_templates in update requests
+                    if (metadata.dynamicTemplates.isEmpty() == false) {
+                        throw new IllegalArgumentException(
+                            "Update request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
+                        );
+                    }
+                    UpdateRequest updateRequest = new UpdateRequest().index(metadata.index)
+                        .id(metadata.id)
+                        .routing(metadata.routing)
+                        .retryOnConflict(metadata.retryOnConflict)
+                        .setIfSeqNo(metadata.ifSeqNo)
+                        .setIfPrimaryTerm(metadata.ifPrimaryTerm)
+                        .setRequireAlias(metadata.requireAlias)
+                        .routing(metadata.routing);
+                    try (
+                        XContentParser sliceParser = createParser(
+                            xContent,
+                            sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType)
+                        )
+                    ) {
+                        updateRequest.fromXContent(sliceParser);
+                    }
+                    if (metadata.fetchSourceContext != null) {
+                        updateRequest.fetchSource(metadata.fetchSourceContext);
+                    }
+                    IndexRequest upsertRequest = updateRequest.upsertRequest();
+                    if (upsertRequest != null) {
+                        upsertRequest.setPipeline(defaultPipeline);
+                    }
+
+                    updateRequestConsumer.accept(updateRequest);
                 }
+                // move pointers
+                from = nextMarker + 1;
+            }
+        }
+    }
 
-                String index = defaultIndex;
-                String type = null;
-                String id = null;
-                String routing = defaultRouting;
-                FetchSourceContext fetchSourceContext = defaultFetchSourceContext;
-                String opType = null;
-                long version = Versions.MATCH_ANY;
-                VersionType versionType = VersionType.INTERNAL;
-                long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
-                long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
-                int retryOnConflict = 0;
-                String pipeline = defaultPipeline;
-                boolean requireAlias = defaultRequireAlias != null && defaultRequireAlias;
-                Map<String, String> dynamicTemplates = Map.of();
+    /**
+     * Parses an action and metadata line with a regular parser. Returns {@code false} if the line is empty.
+     */
+    private boolean parseActionLine(
+        XContentParser parser,
+        int line,
+        boolean allowExplicitIndex,
+        Map<String, String> stringDeduplicator,
+        ActionMetadata metadata
+    ) throws IOException {
+        // Move to START_OBJECT
+        XContentParser.Token token = parser.nextToken();
+        if (token == null) {
+            return false;
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException(
+                "Malformed action/metadata line ["
+                    + line
+                    + "], expected "
+                    + XContentParser.Token.START_OBJECT
+                    + " but found ["
+                    + token
+                    + "]"
+            );
+        }
+        // Move to FIELD_NAME, that's the action
+        token = parser.nextToken();
+        if (token != XContentParser.Token.FIELD_NAME) {
+            throw new IllegalArgumentException(
+                "Malformed action/metadata line ["
+                    + line
+                    + "], expected "
+                    + XContentParser.Token.FIELD_NAME
+                    + " but found ["
+                    + token
+                    + "]"
+            );
+        }
+        metadata.action = parser.currentName();
+        if (SUPPORTED_ACTIONS.contains(metadata.action) == false) {
+            deprecationLogger.compatibleCritical(
+                STRICT_ACTION_PARSING_WARNING_KEY,
+                "Unsupported action: [{}]. Supported values are [create], [delete], [index], and [update]. "
+                    + "Unsupported actions are currently accepted but will be rejected in a future version.",
+                metadata.action
+            );
+        }
 
-                // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
-                // or START_OBJECT which will have another set of parameters
-                token = parser.nextToken();
+        // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
+        // or START_OBJECT which will have another set of parameters
+        token = parser.nextToken();
 
-                if (token == XContentParser.Token.START_OBJECT) {
-                    String currentFieldName = null;
-                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
-                        if (token == XContentParser.Token.FIELD_NAME) {
-                            currentFieldName = parser.currentName();
-                        } else if (token.isValue()) {
-                            if (INDEX.match(currentFieldName, parser.getDeprecationHandler())) {
-                                if (allowExplicitIndex == false) {
-                                    throw new IllegalArgumentException("explicit index in bulk is not allowed");
-                                }
-                                index = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                if (parser.getRestApiVersion().matches(RestApiVersion.equalTo(RestApiVersion.V_7))) {
-                                    // for bigger bulks, deprecation throttling might not be enough
-                                    if (deprecateOrErrorOnType && typesDeprecationLogged == false) {
-                                        deprecationLogger.compatibleCritical("bulk_with_types", RestBulkAction.TYPES_DEPRECATION_MESSAGE);
-                                        typesDeprecationLogged = true;
-                                    }
-                                } else if (parser.getRestApiVersion().matches(RestApiVersion.onOrAfter(RestApiVersion.V_8))
-                                    && deprecateOrErrorOnType) {
-                                        throw new IllegalArgumentException(
-                                            "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
-                                        );
-                                    }
-                                type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
-                                id = parser.text();
-                            } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
-                                routing = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                opType = parser.text();
-                            } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
-                                version = parser.longValue();
-                            } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                versionType = VersionType.fromString(parser.text());
-                            } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifSeqNo = parser.longValue();
-                            } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifPrimaryTerm = parser.longValue();
-                            } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
-                                retryOnConflict = parser.intValue();
-                            } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                pipeline = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                fetchSourceContext = FetchSourceContext.fromXContent(parser);
-                            } else if (REQUIRE_ALIAS.match(currentFieldName, parser.getDeprecationHandler())) {
-                                requireAlias = parser.booleanValue();
-                            } else {
+        if (token == XContentParser.Token.START_OBJECT) {
+            String currentFieldName = null;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    currentFieldName = parser.currentName();
+                } else if (token.isValue()) {
+                    if (INDEX.match(currentFieldName, parser.getDeprecationHandler())) {
+                        if (allowExplicitIndex == false) {
+                            throw new IllegalArgumentException("explicit index in bulk is not allowed");
+                        }
+                        metadata.index = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        if (parser.getRestApiVersion().matches(RestApiVersion.equalTo(RestApiVersion.V_7))) {
+                            // for bigger bulks, deprecation throttling might not be enough
+                            if (deprecateOrErrorOnType && metadata.typesDeprecationLogged == false) {
+                                deprecationLogger.compatibleCritical("bulk_with_types", RestBulkAction.TYPES_DEPRECATION_MESSAGE);
+                                metadata.typesDeprecationLogged = true;
+                            }
+                        } else if (parser.getRestApiVersion().matches(RestApiVersion.onOrAfter(RestApiVersion.V_8))
+                            && deprecateOrErrorOnType) {
                                 throw new IllegalArgumentException(
                                     "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
                                 );
                             }
-                        } else if (token == XContentParser.Token.START_ARRAY) {
-                            throw new IllegalArgumentException(
-                                "Malformed action/metadata line ["
-                                    + line
-                                    + "], expected a simple value for field ["
-                                    + currentFieldName
-                                    + "] but found ["
-                                    + token
-                                    + "]"
-                            );
-                        } else if (token == XContentParser.Token.START_OBJECT
-                            && DYNAMIC_TEMPLATES.match(currentFieldName, parser.getDeprecationHandler())) {
-                                dynamicTemplates = parser.mapStrings();
-                            } else if (token == XContentParser.Token.START_OBJECT
-                                && SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                    fetchSourceContext = FetchSourceContext.fromXContent(parser);
-                                } else if (token != XContentParser.Token.VALUE_NULL) {
-                                    throw new IllegalArgumentException(
-                                        "Malformed action/metadata line ["
-                                            + line
-                                            + "], expected a simple value for field ["
-                                            + currentFieldName
-                                            + "] but found ["
-                                            + token
-                                            + "]"
-                                    );
-                                }
+                        metadata.type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.id = parser.text();
+                    } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.routing = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.opType = parser.text();
+                    } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.version = parser.longValue();
+                    } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.versionType = VersionType.fromString(parser.text());
+                    } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.ifSeqNo = parser.longValue();
+                    } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.ifPrimaryTerm = parser.longValue();
+                    } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.retryOnConflict = parser.intValue();
+                    } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.pipeline = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                    } else if (REQUIRE_ALIAS.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.requireAlias = parser.booleanValue();
+                    } else {
+                        throw new IllegalArgumentException(
+                            "Action/metadata line [" + line + "] contains an unknown parameter [" + currentFieldName + "]"
+                        );
                     }
-                } else if (token != XContentParser.Token.END_OBJECT) {
+                } else if (token == XContentParser.Token.START_ARRAY) {
                     throw new IllegalArgumentException(
                         "Malformed action/metadata line ["
                             + line
-                            + "], expected "
-                            + XContentParser.Token.START_OBJECT
-                            + " or "
-                            + XContentParser.Token.END_OBJECT
-                            + " but found ["
+                            + "], expected a simple value for field ["
+                            + currentFieldName
+                            + "] but found ["
                             + token
                             + "]"
                     );
-                }
-                checkBulkActionIsProperlyClosed(parser);
-
-                if ("delete".equals(action)) {
-                    if (dynamicTemplates.isEmpty() == false) {
-                        throw new IllegalArgumentException(
-                            "Delete request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
-                        );
-                    }
-                    deleteRequestConsumer.accept(
-                        new DeleteRequest(index).id(id)
-                            .routing(routing)
-                            .version(version)
-                            .versionType(versionType)
-                            .setIfSeqNo(ifSeqNo)
-                            .setIfPrimaryTerm(ifPrimaryTerm)
-                    );
-                } else {
-                    nextMarker = findNextMarker(marker, from, data);
-                    if (nextMarker == -1) {
-                        break;
-                    }
-                    line++;
-
-                    // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
-                    // of index request.
-                    if ("index".equals(action)) {
-                        if (opType == null) {
-                            indexRequestConsumer.accept(
-                                new IndexRequest(index).id(id)
-                                    .routing(routing)
-                                    .version(version)
-                                    .versionType(versionType)
-                                    .setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo)
-                                    .setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setDynamicTemplates(dynamicTemplates)
-                                    .setRequireAlias(requireAlias),
-                                type
-                            );
-                        } else {
-                            indexRequestConsumer.accept(
-                                new IndexRequest(index).id(id)
-                                    .routing(routing)
-                                    .version(version)
-                                    .versionType(versionType)
-                                    .create("create".equals(opType))
-                                    .setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo)
-                                    .setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setRequireAlias(requireAlias),
-                                type
-                            );
-                        }
-                    } else if ("create".equals(action)) {
-                        indexRequestConsumer.accept(
-                            new IndexRequest(index).id(id)
-                                .routing(routing)
-                                .version(version)
-                                .versionType(versionType)
-                                .create(true)
-                                .setPipeline(pipeline)
-                                .setIfSeqNo(ifSeqNo)
-                                .setIfPrimaryTerm(ifPrimaryTerm)
-                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                .setDynamicTemplates(dynamicTemplates)
-                                .setRequireAlias(requireAlias),
-                            type
-                        );
-                    } else if ("update".equals(action)) {
-                        if (version != Versions.MATCH_ANY || versionType != VersionType.INTERNAL) {
-                            throw new IllegalArgumentException(
-                                "Update requests do not support versioning. " + "Please use `if_seq_no` and `if_primary_term` instead"
-                            );
-                        }
-                        // TODO: support dynamic_templates in update requests
-                        if (dynamicTemplates.isEmpty() == false) {
+                } else if (token == XContentParser.Token.START_OBJECT
+                    && DYNAMIC_TEMPLATES.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.dynamicTemplates = parser.mapStrings();
+                    } else if (token == XContentParser.Token.START_OBJECT
+                        && SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
+                            metadata.fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                        } else if (token != XContentParser.Token.VALUE_NULL) {
                             throw new IllegalArgumentException(
-                                "Update request in line [" + line + "] does not accept " + DYNAMIC_TEMPLATES.getPreferredName()
+                                "Malformed action/metadata line ["
+                                    + line
+                                    + "], expected a simple value for field ["
+                                    + currentFieldName
+                                    + "] but found ["
+                                    + token
+                                    + "]"
                             );
                         }
-                        UpdateRequest updateRequest = new UpdateRequest().index(index)
-                            .id(id)
-                            .routing(routing)
-                            .retryOnConflict(retryOnConflict)
-                            .setIfSeqNo(ifSeqNo)
-                            .setIfPrimaryTerm(ifPrimaryTerm)
-                            .setRequireAlias(requireAlias)
-                            .routing(routing);
-                        try (
-                            XContentParser sliceParser = createParser(
-                                xContent,
-                                sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType)
-                            )
-                        ) {
-                            updateRequest.fromXContent(sliceParser);
-                        }
-                        if (fetchSourceContext != null) {
-                            updateRequest.fetchSource(fetchSourceContext);
-                        }
-                        IndexRequest upsertRequest = updateRequest.upsertRequest();
-                        if (upsertRequest != null) {
-                            upsertRequest.setPipeline(defaultPipeline);
-                        }
-
-                        updateRequestConsumer.accept(updateRequest);
-                    }
-                    // move pointers
-                    from = nextMarker + 1;
-                }
             }
+        } else if (token != XContentParser.Token.END_OBJECT) {
+            throw new IllegalArgumentException(
+                "Malformed action/metadata line ["
+                    + line
+                    + "], expected "
+                    + XContentParser.Token.START_OBJECT
+                    + " or "
+                    + XContentParser.Token.END_OBJECT
+                    + " but found ["
+                    + token
+                    + "]"
+            );
         }
+        checkBulkActionIsProperlyClosed(parser);
+        return true;
     }
 
     private void checkBulkActionIsProperlyClosed(XContentParser parser) throws IOException {
@@ -449,6 +480,19 @@ public final class BulkRequestParser {
         }
     }
 
+    /**
+     * Parses the action and metadata line between {@code from} and {@code nextMarker} with the given {@link BulkActionLineParser}.
+     * Returns {@code false} if the line has to be parsed with a regular parser instead.
+     */
+    private static boolean parseSimpleActionLine(BulkActionLineParser actionLineParser, BytesReference data, int from, int nextMarker) {
+        if (data.hasArray()) {
+            final int offset = data.arrayOffset();
+            return actionLineParser.parse(data.array(), offset + from, offset + nextMarker);
+        }
+        final BytesReference slice = data.slice(from, nextMarker - from);
+        return slice.hasArray() && actionLineParser.parse(slice.array(), slice.arrayOffset(), slice.arrayOffset() + slice.length());
+    }
+
     private XContentParser createParser(XContent xContent, BytesReference data) throws IOException {
         if (data.hasArray()) {
             return parseBytesArray(xContent, data, 0, data.length());
@@ -478,4 +522,51 @@ public final class BulkRequestParser {
         final int offset = array.arrayOffset();
         return xContent.createParser(config, array.array(), offset + from, nextMarker - from);
     }
+
+    /**
+     * The action and metadata of a line of a bulk request.
+     */
+    private static final class ActionMetadata {
+        String action;
+        String index;
+        String type;
+        String id;
+        String routing;
+        FetchSourceContext fetchSourceContext;
+        String opType;
+        long version;
+        VersionType versionType;
+        long ifSeqNo;
+        long ifPrimaryTerm;
+        int retryOnConflict;
+        String pipeline;
+        boolean requireAlias;
+        Map<String, String> dynamicTemplates;
+        // not reset between lines so that the deprecation of types is only logged once per request
+        boolean typesDeprecationLogged;
+
+        void reset(
+            String defaultIndex,
+            String defaultRouting,
+            FetchSourceContext defaultFetchSourceContext,
+            String defaultPipeline,
+            Boolean defaultRequireAlias
+        ) {
+            action = null;
+            index = defaultIndex;
+            type = null;
+            id = null;
+            routing = defaultRouting;
+            fetchSourceContext = defaultFetchSourceContext;
+            opType = null;
+            version = Versions.MATCH_ANY;
+            versionType = VersionType.INTERNAL;
+            ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+            ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
+            retryOnConflict = 0;
+            pipeline = defaultPipeline;
+            requireAlias = defaultRequireAlias != null && defaultRequireAlias;
+            dynamicTemplates = Map.of();
+        }
+    }
 }
@@ -37,6 +37,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.TimeValue;
@@ -74,8 +75,22 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     private static final Logger logger = LogManager.getLogger(TransportShardBulkAction.class);
 
+    /**
+     * The number of tasks per shard level bulk request that parse documents on the write thread pool ahead of the thread that
+     * applies them to the shard. Zero disables parsing ahead. Helpers are only submitted while the pool has an idle thread, so they
+     * never take a slot in its queue away from the shard level bulk requests that are waiting to be applied.
+     */
+    public static final Setting<Integer> PARSE_AHEAD_THREADS_SETTING = Setting.intSetting(
+        "indices.bulk.parse_ahead_threads",
+        0,
+        0,
+        Setting.Property.NodeScope,
+        Setting.Property.Dynamic
+    );
+
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
+    private volatile int parseAheadThreads;
 
     @Inject
     public TransportShardBulkAction(
@@ -109,6 +124,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         );
         this.updateHelper = updateHelper;
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.parseAheadThreads = PARSE_AHEAD_THREADS_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(PARSE_AHEAD_THREADS_SETTING, v -> this.parseAheadThreads = v);
     }
 
     @Override
@@ -147,7 +164,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             public void onTimeout(TimeValue timeout) {
                 mappingUpdateListener.onFailure(new MapperException("timed out while waiting for a dynamic mapping update"));
             }
-        }), listener, threadPool, executor(primary));
+        }), listener, threadPool, executor(primary), parseAheadThreads);
     }
 
     @Override
@@ -170,12 +187,46 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
         ThreadPool threadPool,
         String executorName
+    ) {
+        performOnPrimary(
+            request,
+            primary,
+            updateHelper,
+            nowInMillisSupplier,
+            mappingUpdater,
+            waitForMappingUpdate,
+            listener,
+            threadPool,
+            executorName,
+            0
+        );
+    }
+
+    /**
+     * Performs the bulk request on the primary, parsing the documents of upcoming index requests with up to
+     * {@code parseAheadThreads} tasks on the {@code executorName} executor while the items are applied to the shard in order.
+     */
+    public static void performOnPrimary(
+        BulkShardRequest request,
+        IndexShard primary,
+        UpdateHelper updateHelper,
+        LongSupplier nowInMillisSupplier,
+        MappingUpdatePerformer mappingUpdater,
+        Consumer<ActionListener<Void>> waitForMappingUpdate,
+        ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
+        ThreadPool threadPool,
+        String executorName,
+        int parseAheadThreads
     ) {
         new ActionRunnable<>(listener) {
 
             private final Executor executor = threadPool.executor(executorName);
 
-            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
+            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(
+                request,
+                primary,
+                BulkParseAhead.start(request, primary, threadPool, executorName, parseAheadThreads)
+            );
 
             final long startBulkTime = System.nanoTime();
 
@@ -235,6 +286,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             }
 
             private void finishRequest() {
+                context.closeParseAhead();
                 ActionListener.completeWith(
                     listener,
                     () -> new WritePrimaryResult<>(
@@ -310,13 +362,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             );
         } else {
             final IndexRequest request = context.getRequestToExecute();
-            final SourceToParse sourceToParse = new SourceToParse(
-                request.id(),
-                request.source(),
-                request.getContentType(),
-                request.routing(),
-                request.getDynamicTemplates()
-            );
+            final SourceToParse sourceToParse = BulkParseAhead.sourceToParse(request);
             result = primary.applyIndexOperationOnPrimary(
                 version,
                 request.versionType(),
@@ -324,7 +370,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 request.ifSeqNo(),
                 request.ifPrimaryTerm(),
                 request.getAutoGeneratedTimestamp(),
-                request.isRetry()
+                request.isRetry(),
+                updateResult == null ? context.takeParsedAhead() : null
             );
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
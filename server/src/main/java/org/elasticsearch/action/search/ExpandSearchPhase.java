@@ -9,7 +9,9 @@
 package org.elasticsearch.action.search;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.InnerHitBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
@@ -17,10 +19,16 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.aggregations.bucket.filter.Filters;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.TopHits;
+import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseBuilder;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -28,9 +36,21 @@ import java.util.List;
 /**
  * This search phase is an optional phase that will be executed once all hits are fetched from the shards that executes
  * field-collapsing on the inner hits. This phase only executes if field collapsing is requested in the search request and otherwise
- * forwards to the next phase immediately.
+ * forwards to the next phase immediately. The inner hits of all groups on the page are fetched with a single search per inner hit
+ * definition, a {@code top_hits} aggregation per group. We fall back to one search per group if the definition collapses again, if
+ * its {@code from + size} exceeds the default {@code index.max_inner_result_window} that {@code top_hits} enforces, or if the single
+ * search fails, for instance because an index lowered that limit.
  */
 final class ExpandSearchPhase extends SearchPhase {
+    static final String GROUPS_AGG_NAME = "groups";
+    static final String TOP_HITS_AGG_NAME = "top_hits";
+
+    /**
+     * The largest inner hits window that is expanded with a {@code top_hits} aggregation. Collapse inner hits are only subject to the
+     * {@code index.max_result_window} of their indices, larger windows are expanded with one search per group.
+     */
+    static final int MAX_GROUPED_INNER_RESULT_WINDOW = IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING.getDefault(Settings.EMPTY);
+
     private final SearchPhaseContext context;
     private final InternalSearchResponse searchResponse;
     private final AtomicArray<SearchPhaseResult> queryResults;
@@ -55,59 +75,208 @@ final class ExpandSearchPhase extends SearchPhase {
     @Override
     public void run() {
         if (isCollapseRequest() && searchResponse.hits().getHits().length > 0) {
-            SearchRequest searchRequest = context.getRequest();
-            CollapseBuilder collapseBuilder = searchRequest.source().collapse();
-            final List<InnerHitBuilder> innerHitBuilders = collapseBuilder.getInnerHits();
-            MultiSearchRequest multiRequest = new MultiSearchRequest();
-            if (collapseBuilder.getMaxConcurrentGroupRequests() > 0) {
-                multiRequest.maxConcurrentSearchRequests(collapseBuilder.getMaxConcurrentGroupRequests());
-            }
-            for (SearchHit hit : searchResponse.hits().getHits()) {
-                BoolQueryBuilder groupQuery = new BoolQueryBuilder();
-                Object collapseValue = hit.field(collapseBuilder.getField()).getValue();
-                if (collapseValue != null) {
-                    groupQuery.filter(QueryBuilders.matchQuery(collapseBuilder.getField(), collapseValue));
+            final List<InnerHitBuilder> innerHitBuilders = context.getRequest().source().collapse().getInnerHits();
+            final List<InnerHitBuilder> grouped = new ArrayList<>();
+            final List<InnerHitBuilder> perGroup = new ArrayList<>();
+            for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
+                if (canExpandWithTopHits(innerHitBuilder)) {
+                    grouped.add(innerHitBuilder);
                 } else {
-                    groupQuery.mustNot(QueryBuilders.existsQuery(collapseBuilder.getField()));
+                    perGroup.add(innerHitBuilder);
                 }
-                QueryBuilder origQuery = searchRequest.source().query();
-                if (origQuery != null) {
-                    groupQuery.must(origQuery);
+            }
+            expand(grouped, perGroup, true);
+        } else {
+            context.sendSearchResponse(searchResponse, queryResults);
+        }
+    }
+
+    private static boolean canExpandWithTopHits(InnerHitBuilder innerHitBuilder) {
+        // second level collapsing can't be computed by top_hits
+        return innerHitBuilder.getInnerCollapseBuilder() == null
+            && (long) innerHitBuilder.getFrom() + innerHitBuilder.getSize() <= MAX_GROUPED_INNER_RESULT_WINDOW;
+    }
+
+    /**
+     * Expands the hits with a single search for each of the {@code grouped} definitions and a search per hit for each of the
+     * {@code perGroup} definitions. If {@code fallBack} is set, grouped definitions whose search fails are expanded per group.
+     */
+    private void expand(List<InnerHitBuilder> grouped, List<InnerHitBuilder> perGroup, boolean fallBack) {
+        final SearchRequest searchRequest = context.getRequest();
+        final CollapseBuilder collapseBuilder = searchRequest.source().collapse();
+        final int numInnerHits = collapseBuilder.getInnerHits().size();
+        final SearchHit[] hits = searchResponse.hits().getHits();
+        final MultiSearchRequest multiRequest = new MultiSearchRequest();
+        if (collapseBuilder.getMaxConcurrentGroupRequests() > 0) {
+            multiRequest.maxConcurrentSearchRequests(collapseBuilder.getMaxConcurrentGroupRequests());
+        }
+        for (InnerHitBuilder innerHitBuilder : grouped) {
+            multiRequest.add(buildGroupedExpandRequest(searchRequest, collapseBuilder, innerHitBuilder, hits));
+        }
+        for (InnerHitBuilder innerHitBuilder : perGroup) {
+            for (SearchHit hit : hits) {
+                multiRequest.add(buildGroupExpandRequest(searchRequest, collapseBuilder, innerHitBuilder, hit));
+            }
+        }
+        context.getSearchTransport().sendExecuteMultiSearch(multiRequest, context.getTask(), ActionListener.wrap(response -> {
+            final Iterator<MultiSearchResponse.Item> it = response.iterator();
+            final List<InnerHitBuilder> failed = new ArrayList<>();
+            for (InnerHitBuilder innerHitBuilder : grouped) {
+                MultiSearchResponse.Item item = it.next();
+                if (item.isFailure()) {
+                    if (fallBack == false) {
+                        context.onPhaseFailure(this, "failed to expand hits", item.getFailure());
+                        return;
+                    }
+                    failed.add(innerHitBuilder);
+                    continue;
                 }
-                for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
-                    CollapseBuilder innerCollapseBuilder = innerHitBuilder.getInnerCollapseBuilder();
-                    SearchSourceBuilder sourceBuilder = buildExpandSearchSourceBuilder(innerHitBuilder, innerCollapseBuilder).query(
-                        groupQuery
-                    ).postFilter(searchRequest.source().postFilter()).runtimeMappings(searchRequest.source().runtimeMappings());
-                    SearchRequest groupRequest = new SearchRequest(searchRequest);
-                    groupRequest.source(sourceBuilder);
-                    multiRequest.add(groupRequest);
+                Filters groups = item.getResponse().getAggregations().get(GROUPS_AGG_NAME);
+                for (int i = 0; i < hits.length; i++) {
+                    TopHits topHits = groups.getBucketByKey(Integer.toString(i)).getAggregations().get(TOP_HITS_AGG_NAME);
+                    addInnerHits(hits[i], numInnerHits, innerHitBuilder.getName(), topHits.getHits());
                 }
             }
-            context.getSearchTransport().sendExecuteMultiSearch(multiRequest, context.getTask(), ActionListener.wrap(response -> {
-                Iterator<MultiSearchResponse.Item> it = response.iterator();
-                for (SearchHit hit : searchResponse.hits.getHits()) {
-                    for (InnerHitBuilder innerHitBuilder : innerHitBuilders) {
-                        MultiSearchResponse.Item item = it.next();
-                        if (item.isFailure()) {
-                            context.onPhaseFailure(this, "failed to expand hits", item.getFailure());
-                            return;
-                        }
-                        SearchHits innerHits = item.getResponse().getHits();
-                        if (hit.getInnerHits() == null) {
-                            hit.setInnerHits(new HashMap<>(innerHitBuilders.size()));
-                        }
-                        hit.getInnerHits().put(innerHitBuilder.getName(), innerHits);
+            for (InnerHitBuilder innerHitBuilder : perGroup) {
+                for (SearchHit hit : hits) {
+                    MultiSearchResponse.Item item = it.next();
+                    if (item.isFailure()) {
+                        context.onPhaseFailure(this, "failed to expand hits", item.getFailure());
+                        return;
                     }
+                    addInnerHits(hit, numInnerHits, innerHitBuilder.getName(), item.getResponse().getHits());
                 }
+            }
+            if (failed.isEmpty()) {
                 context.sendSearchResponse(searchResponse, queryResults);
-            }, context::onFailure));
-        } else {
-            context.sendSearchResponse(searchResponse, queryResults);
+            } else {
+                // expand the definitions that top_hits couldn't handle the way they were expanded before top_hits was used
+                expand(Collections.emptyList(), failed, false);
+            }
+        }, context::onFailure));
+    }
+
+    private static void addInnerHits(SearchHit hit, int expectedSize, String name, SearchHits innerHits) {
+        if (hit.getInnerHits() == null) {
+            hit.setInnerHits(new HashMap<>(expectedSize));
         }
+        hit.getInnerHits().put(name, innerHits);
     }
 
-    private SearchSourceBuilder buildExpandSearchSourceBuilder(InnerHitBuilder options, CollapseBuilder innerCollapseBuilder) {
+    /**
+     * Build a filter that matches all documents in the group of the collapsed hit.
+     */
+    private static QueryBuilder groupFilter(CollapseBuilder collapseBuilder, SearchHit hit) {
+        Object collapseValue = hit.field(collapseBuilder.getField()).getValue();
+        if (collapseValue != null) {
+            return QueryBuilders.matchQuery(collapseBuilder.getField(), collapseValue);
+        }
+        return new BoolQueryBuilder().mustNot(QueryBuilders.existsQuery(collapseBuilder.getField()));
+    }
+
+    /**
+     * Build a request that expands the group of a single collapsed hit.
+     */
+    private static SearchRequest buildGroupExpandRequest(
+        SearchRequest searchRequest,
+        CollapseBuilder collapseBuilder,
+        InnerHitBuilder innerHitBuilder,
+        SearchHit hit
+    ) {
+        BoolQueryBuilder groupQuery = new BoolQueryBuilder().filter(groupFilter(collapseBuilder, hit));
+        QueryBuilder origQuery = searchRequest.source().query();
+        if (origQuery != null) {
+            groupQuery.must(origQuery);
+        }
+        SearchSourceBuilder sourceBuilder = buildExpandSearchSourceBuilder(innerHitBuilder).query(groupQuery)
+            .postFilter(searchRequest.source().postFilter())
+            .runtimeMappings(searchRequest.source().runtimeMappings());
+        if (innerHitBuilder.getInnerCollapseBuilder() != null) {
+            sourceBuilder.collapse(innerHitBuilder.getInnerCollapseBuilder());
+        }
+        SearchRequest groupRequest = new SearchRequest(searchRequest);
+        groupRequest.source(sourceBuilder);
+        return groupRequest;
+    }
+
+    /**
+     * Build a single request that expands all of the groups on the page at once. Each group is
+     * a bucket in a {@code filters} aggregation and its inner hits are gathered by a
+     * {@code top_hits} sub-aggregation, so the shards compute the top hits of every group in a
+     * single pass rather than running one search per group.
+     */
+    private static SearchRequest buildGroupedExpandRequest(
+        SearchRequest searchRequest,
+        CollapseBuilder collapseBuilder,
+        InnerHitBuilder innerHitBuilder,
+        SearchHit[] hits
+    ) {
+        BoolQueryBuilder query = new BoolQueryBuilder();
+        QueryBuilder origQuery = searchRequest.source().query();
+        if (origQuery != null) {
+            query.must(origQuery);
+        }
+        if (searchRequest.source().postFilter() != null) {
+            // aggregations don't see the post_filter so fold it into the query
+            query.filter(searchRequest.source().postFilter());
+        }
+        QueryBuilder[] groupFilters = new QueryBuilder[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            groupFilters[i] = groupFilter(collapseBuilder, hits[i]);
+        }
+        FiltersAggregationBuilder groups = new FiltersAggregationBuilder(GROUPS_AGG_NAME, groupFilters);
+        groups.subAggregation(buildExpandTopHitsBuilder(buildExpandSearchSourceBuilder(innerHitBuilder)));
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder().query(query)
+            .size(0)
+            .trackTotalHits(false)
+            .aggregation(groups)
+            .runtimeMappings(searchRequest.source().runtimeMappings());
+        SearchRequest groupRequest = new SearchRequest(searchRequest);
+        groupRequest.source(sourceBuilder);
+        return groupRequest;
+    }
+
+    /**
+     * Build a {@code top_hits} aggregation that returns the same hits as the given source of a group search.
+     */
+    private static TopHitsAggregationBuilder buildExpandTopHitsBuilder(SearchSourceBuilder groupSource) {
+        TopHitsAggregationBuilder topHits = new TopHitsAggregationBuilder(TOP_HITS_AGG_NAME).from(groupSource.from())
+            .size(groupSource.size())
+            .trackScores(groupSource.trackScores())
+            .seqNoAndPrimaryTerm(groupSource.seqNoAndPrimaryTerm());
+        if (groupSource.fetchSource() != null) {
+            topHits.fetchSource(groupSource.fetchSource());
+        }
+        if (groupSource.highlighter() != null) {
+            topHits.highlighter(groupSource.highlighter());
+        }
+        if (groupSource.sorts() != null) {
+            topHits.sorts(groupSource.sorts());
+        }
+        if (groupSource.fetchFields() != null) {
+            groupSource.fetchFields().forEach(topHits::fetchField);
+        }
+        if (groupSource.docValueFields() != null) {
+            groupSource.docValueFields().forEach(ff -> topHits.docValueField(ff.field, ff.format));
+        }
+        if (groupSource.storedFields() != null && groupSource.storedFields().fieldNames() != null) {
+            topHits.storedFields(groupSource.storedFields().fieldNames());
+        }
+        if (groupSource.scriptFields() != null) {
+            for (SearchSourceBuilder.ScriptField field : groupSource.scriptFields()) {
+                topHits.scriptField(field.fieldName(), field.script(), field.ignoreFailure());
+            }
+        }
+        if (groupSource.explain() != null) {
+            topHits.explain(groupSource.explain());
+        }
+        if (groupSource.version() != null) {
+            topHits.version(groupSource.version());
+        }
+        return topHits;
+    }
+
+    private static SearchSourceBuilder buildExpandSearchSourceBuilder(InnerHitBuilder options) {
         SearchSourceBuilder groupSource = new SearchSourceBuilder();
         groupSource.from(options.getFrom());
         groupSource.size(options.getSize());
@@ -142,9 +311,6 @@ final class ExpandSearchPhase extends SearchPhase {
         groupSource.trackScores(options.isTrackScores());
         groupSource.version(options.isVersion());
         groupSource.seqNoAndPrimaryTerm(options.isSeqNoAndPrimaryTerm());
-        if (innerCollapseBuilder != null) {
-            groupSource.collapse(innerCollapseBuilder);
-        }
         return groupSource;
     }
 }
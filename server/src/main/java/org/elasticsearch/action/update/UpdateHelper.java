@@ -184,9 +184,13 @@ public class UpdateHelper {
     Result prepareUpdateIndexRequest(ShardId shardId, UpdateRequest request, GetResult getResult, boolean detectNoop) {
         final IndexRequest currentRequest = request.doc();
         final String routing = calculateRouting(getResult, currentRequest);
-        final Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(getResult.internalSourceRef(), true);
-        final XContentType updateSourceContentType = sourceAndContent.v1();
-        final Map<String, Object> updatedSourceAsMap = sourceAndContent.v2();
+        final XContentType updateSourceContentType = XContentHelper.xContentType(getResult.internalSourceRef());
+        // only the fields of the existing document that are changed by the partial update need to be parsed
+        final Map<String, Object> updatedSourceAsMap = XContentHelper.convertToLazyMap(
+            getResult.internalSourceRef(),
+            true,
+            updateSourceContentType
+        );
 
         final boolean noop = XContentHelper.update(updatedSourceAsMap, currentRequest.sourceAsMap(), detectNoop) == false;
 
@@ -8,6 +8,10 @@
 
 package org.elasticsearch.cluster.action.index;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.mapping.put.AutoPutMappingAction;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
@@ -23,15 +27,32 @@ import org.elasticsearch.common.util.concurrent.AdjustableSemaphore;
 import org.elasticsearch.common.util.concurrent.RunOnce;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.mapper.MapperService.MergeReason;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.xcontent.XContentType;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Called by shards in the cluster when their mapping was dynamically updated and it needs to be updated
  * in the cluster state meta data (and broadcast to all members).
+ * <p>
+ * Updates for an index that arrive while another update for the same index is still waiting for one of the
+ * {@link #INDICES_MAX_IN_FLIGHT_UPDATES_SETTING in flight slots} are merged into that update and sent to the master together.
+ * If the master rejects the merged mapping, its parts are retried one by one so that an update that would have been accepted on
+ * its own isn't failed because of another one. Updates that conflict with each other are sent one after the other. All of these
+ * requests use the single slot of the pending update, so they never exceed the limit of in flight updates.
  */
 public class MappingUpdatedAction {
 
+    private static final Logger logger = LogManager.getLogger(MappingUpdatedAction.class);
+
     public static final Setting<TimeValue> INDICES_MAPPING_DYNAMIC_TIMEOUT_SETTING = Setting.positiveTimeSetting(
         "indices.mapping.dynamic_timeout",
         TimeValue.timeValueSeconds(30),
@@ -51,6 +72,8 @@ public class MappingUpdatedAction {
     private IndicesAdminClient client;
     private volatile TimeValue dynamicMappingUpdateTimeout;
     private final AdjustableSemaphore semaphore;
+    // updates that are waiting for a permit, by index
+    private final Map<Index, PendingUpdate> pendingUpdates = new HashMap<>();
 
     @Inject
     public MappingUpdatedAction(Settings settings, ClusterSettings clusterSettings) {
@@ -79,17 +102,31 @@ public class MappingUpdatedAction {
      * potentially waiting for a master node to be available.
      */
     public void updateMappingOnMaster(Index index, Mapping mappingUpdate, ActionListener<Void> listener) {
+        final PendingUpdate pendingUpdate;
+        synchronized (pendingUpdates) {
+            final PendingUpdate existing = pendingUpdates.get(index);
+            if (existing != null) {
+                existing.add(mappingUpdate, listener);
+                return;
+            }
+            pendingUpdate = new PendingUpdate(mappingUpdate, listener);
+            pendingUpdates.put(index, pendingUpdate);
+        }
+
         final RunOnce release = new RunOnce(() -> semaphore.release());
         try {
             semaphore.acquire();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            listener.onFailure(e);
+            removePendingUpdate(index, pendingUpdate);
+            pendingUpdate.onFailure(e);
             return;
         }
+        // no more updates can be added from now on
+        removePendingUpdate(index, pendingUpdate);
         boolean successFullySent = false;
         try {
-            sendUpdateMapping(index, mappingUpdate, ActionListener.runBefore(listener, release::run));
+            pendingUpdate.send(index, release);
             successFullySent = true;
         } finally {
             if (successFullySent == false) {
@@ -98,11 +135,152 @@ public class MappingUpdatedAction {
         }
     }
 
+    private void removePendingUpdate(Index index, PendingUpdate pendingUpdate) {
+        synchronized (pendingUpdates) {
+            pendingUpdates.remove(index, pendingUpdate);
+        }
+    }
+
     // used by tests
     int blockedThreads() {
         return semaphore.getQueueLength();
     }
 
+    /**
+     * Whether the master rejected a mapping update because the mapping is invalid, e.g. because it has too many fields, rather than
+     * because the master is unavailable or this node is shutting down.
+     */
+    static boolean isMappingValidationFailure(Exception e) {
+        final Throwable cause = ExceptionsHelper.unwrapCause(e);
+        return cause instanceof IllegalArgumentException || cause instanceof MapperParsingException;
+    }
+
+    /**
+     * The mapping updates for an index that are waiting for a permit to be sent.
+     */
+    private class PendingUpdate {
+        private final List<Mapping> updates = new ArrayList<>();
+        private final List<ActionListener<Void>> listeners = new ArrayList<>();
+
+        PendingUpdate(Mapping mappingUpdate, ActionListener<Void> listener) {
+            add(mappingUpdate, listener);
+        }
+
+        /**
+         * Adds an update that is sent together with this one. Must be called under the lock of {@link #pendingUpdates}, the updates
+         * are only merged once they are sent so that merging doesn't block other indices.
+         */
+        void add(Mapping mappingUpdate, ActionListener<Void> listener) {
+            updates.add(mappingUpdate);
+            listeners.add(listener);
+        }
+
+        void onFailure(Exception e) {
+            ActionListener.onFailure(listeners, e);
+        }
+
+        /**
+         * Merges the updates and sends them to the master one merged update after the other, so that they only take the permit of
+         * this pending update. The {@code release} runnable is run once before the listeners of the last update are notified.
+         */
+        void send(Index index, RunOnce release) {
+            final Deque<Batch> batches = new ArrayDeque<>();
+            for (int i = 0; i < updates.size(); i++) {
+                boolean merged = false;
+                for (Batch batch : batches) {
+                    if (batch.tryAdd(updates.get(i), listeners.get(i))) {
+                        merged = true;
+                        break;
+                    }
+                }
+                if (merged == false) {
+                    batches.addLast(new Batch(updates.get(i), listeners.get(i)));
+                }
+            }
+            sendBatches(index, batches, release);
+        }
+    }
+
+    private void sendBatches(Index index, Deque<Batch> batches, RunOnce release) {
+        final Batch batch = batches.pollFirst();
+        if (batch == null) {
+            release.run();
+            return;
+        }
+        final ActionListener<Void> listener = new ActionListener<>() {
+            @Override
+            public void onResponse(Void unused) {
+                sendBatches(index, batches, release);
+                ActionListener.onResponse(batch.listeners, null);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (isMappingValidationFailure(e) == false) {
+                    // the remaining updates would fail in the same way, e.g. because no master is available, don't wait for them
+                    final List<ActionListener<Void>> failed = new ArrayList<>(batch.listeners);
+                    for (Batch remaining : batches) {
+                        failed.addAll(remaining.listeners);
+                    }
+                    batches.clear();
+                    release.run();
+                    ActionListener.onFailure(failed, e);
+                } else if (batch.updates.size() > 1) {
+                    logger.debug(new ParameterizedMessage("merged dynamic mapping update for {} failed, retrying its parts", index), e);
+                    for (int i = batch.updates.size() - 1; i >= 0; i--) {
+                        batches.addFirst(new Batch(batch.updates.get(i), batch.listeners.get(i)));
+                    }
+                    sendBatches(index, batches, release);
+                } else {
+                    sendBatches(index, batches, release);
+                    ActionListener.onFailure(batch.listeners, e);
+                }
+            }
+        };
+        try {
+            sendUpdateMapping(index, batch.mergedUpdate, listener);
+        } catch (Exception e) {
+            // the request was never sent, e.g. because the merged mapping couldn't be serialized, which only concerns this batch
+            logger.debug(new ParameterizedMessage("failed to send dynamic mapping update for {}", index), e);
+            sendBatches(index, batches, release);
+            ActionListener.onFailure(batch.listeners, e);
+        }
+    }
+
+    /**
+     * Mapping updates that are merged into a single update.
+     */
+    private static class Batch {
+        private final List<Mapping> updates = new ArrayList<>();
+        private final List<ActionListener<Void>> listeners = new ArrayList<>();
+        private Mapping mergedUpdate;
+
+        Batch(Mapping mappingUpdate, ActionListener<Void> listener) {
+            this.mergedUpdate = mappingUpdate;
+            updates.add(mappingUpdate);
+            listeners.add(listener);
+        }
+
+        /**
+         * Merges the given update into this one, returns {@code false} if they can't be merged and must be sent separately.
+         */
+        boolean tryAdd(Mapping mappingUpdate, ActionListener<Void> listener) {
+            if (mergedUpdate == null || mappingUpdate == null) {
+                return false;
+            }
+            try {
+                mergedUpdate = mergedUpdate.merge(mappingUpdate, MergeReason.MAPPING_UPDATE);
+            } catch (IllegalArgumentException e) {
+                // conflicting dynamic updates, e.g. the same field with different types, are left for the master to resolve
+                logger.trace("failed to merge dynamic mapping updates, sending them separately", e);
+                return false;
+            }
+            updates.add(mappingUpdate);
+            listeners.add(listener);
+            return true;
+        }
+    }
+
     // can be overridden by tests
     protected void sendUpdateMapping(Index index, Mapping mappingUpdate, ActionListener<Void> listener) {
         PutMappingRequest putMappingRequest = new PutMappingRequest();
@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.AckedClusterStateTaskListener;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateTaskConfig;
 import org.elasticsearch.cluster.ClusterStateTaskExecutor;
+import org.elasticsearch.cluster.LocalNodeMasterListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Priority;
@@ -33,6 +34,8 @@ import org.elasticsearch.index.mapper.MapperService.MergeReason;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.indices.IndicesService;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -50,10 +53,44 @@ public class MetadataMappingService {
 
     final PutMappingExecutor putMappingExecutor = new PutMappingExecutor();
 
+    /**
+     * The mapper services of the indices that were updated by the last batch of mapping updates. Used by the
+     * {@link #putMappingExecutor}, which runs on the master thread, and cleared when the local node stops being the master.
+     */
+    private final Map<Index, CachedMapperService> cachedMapperServices = new HashMap<>(); // guarded by itself
+
     @Inject
     public MetadataMappingService(ClusterService clusterService, IndicesService indicesService) {
         this.clusterService = clusterService;
         this.indicesService = indicesService;
+        clusterService.addLocalNodeMasterListener(new LocalNodeMasterListener() {
+            @Override
+            public void onMaster() {}
+
+            @Override
+            public void offMaster() {
+                clearCachedMapperServices();
+            }
+        });
+    }
+
+    /**
+     * Closes the cached mapper services, a node that isn't the master doesn't apply mapping updates so it has no use for them.
+     */
+    void clearCachedMapperServices() {
+        final List<CachedMapperService> cached;
+        synchronized (cachedMapperServices) {
+            cached = new ArrayList<>(cachedMapperServices.values());
+            cachedMapperServices.clear();
+        }
+        IOUtils.closeWhileHandlingException(cached);
+    }
+
+    // used by tests
+    int numCachedMapperServices() {
+        synchronized (cachedMapperServices) {
+            return cachedMapperServices.size();
+        }
     }
 
     class PutMappingExecutor implements ClusterStateTaskExecutor<PutMappingClusterStateUpdateRequest> {
@@ -62,7 +99,7 @@ public class MetadataMappingService {
             ClusterState currentState,
             List<PutMappingClusterStateUpdateRequest> tasks
         ) throws Exception {
-            Map<Index, MapperService> indexMapperServices = new HashMap<>();
+            Map<Index, CachedMapperService> indexMapperServices = new HashMap<>();
             ClusterTasksResult.Builder<PutMappingClusterStateUpdateRequest> builder = ClusterTasksResult.builder();
             try {
                 for (PutMappingClusterStateUpdateRequest request : tasks) {
@@ -70,10 +107,7 @@ public class MetadataMappingService {
                         for (Index index : request.indices()) {
                             final IndexMetadata indexMetadata = currentState.metadata().getIndexSafe(index);
                             if (indexMapperServices.containsKey(indexMetadata.getIndex()) == false) {
-                                MapperService mapperService = indicesService.createIndexMapperService(indexMetadata);
-                                indexMapperServices.put(index, mapperService);
-                                // add mappings for all types, we need them for cross-type validation
-                                mapperService.merge(indexMetadata, MergeReason.MAPPING_RECOVERY);
+                                getMapperService(indexMetadata, indexMapperServices);
                             }
                         }
                         currentState = applyRequest(currentState, request, indexMapperServices);
@@ -84,21 +118,57 @@ public class MetadataMappingService {
                 }
                 return builder.build(currentState);
             } finally {
-                IOUtils.close(indexMapperServices.values());
+                // keep the mapper services of this batch for the next one, which will most likely update the same indices, unless
+                // the local node stopped being the master in the meantime
+                final List<CachedMapperService> unused;
+                synchronized (cachedMapperServices) {
+                    unused = new ArrayList<>(cachedMapperServices.values());
+                    cachedMapperServices.clear();
+                    if (clusterService.state().nodes().isLocalNodeElectedMaster()) {
+                        cachedMapperServices.putAll(indexMapperServices);
+                    } else {
+                        unused.addAll(indexMapperServices.values());
+                    }
+                }
+                IOUtils.close(unused);
+            }
+        }
+
+        /**
+         * Adds the mapper service for the given index to {@code indexMapperServices}, reusing the mapper service of the previous
+         * batch if it has the same mapping and settings as the index still. Parsing the full mapping is the most expensive part of
+         * a mapping update for large mappings, so this makes a series of small dynamic mapping updates to an index a lot cheaper.
+         */
+        private void getMapperService(IndexMetadata indexMetadata, Map<Index, CachedMapperService> indexMapperServices)
+            throws IOException {
+            final CachedMapperService cached;
+            synchronized (cachedMapperServices) {
+                cached = cachedMapperServices.remove(indexMetadata.getIndex());
             }
+            if (cached != null) {
+                if (cached.isUpToDate(indexMetadata)) {
+                    indexMapperServices.put(indexMetadata.getIndex(), cached);
+                    return;
+                }
+                cached.close();
+            }
+            MapperService mapperService = indicesService.createIndexMapperService(indexMetadata);
+            indexMapperServices.put(indexMetadata.getIndex(), new CachedMapperService(mapperService, indexMetadata.getSettingsVersion()));
+            // add mappings for all types, we need them for cross-type validation
+            mapperService.merge(indexMetadata, MergeReason.MAPPING_RECOVERY);
         }
 
         private ClusterState applyRequest(
             ClusterState currentState,
             PutMappingClusterStateUpdateRequest request,
-            Map<Index, MapperService> indexMapperServices
+            Map<Index, CachedMapperService> indexMapperServices
         ) {
 
             final CompressedXContent mappingUpdateSource = request.source();
             final Metadata metadata = currentState.metadata();
             final List<IndexMetadata> updateList = new ArrayList<>();
             for (Index index : request.indices()) {
-                MapperService mapperService = indexMapperServices.get(index);
+                MapperService mapperService = indexMapperServices.get(index).mapperService;
                 // IMPORTANT: always get the metadata from the state since it get's batched
                 // and if we pull it from the indexService we might miss an update etc.
                 final IndexMetadata indexMetadata = currentState.getMetadata().getIndexSafe(index);
@@ -109,10 +179,13 @@ public class MetadataMappingService {
                 // this is paranoia... just to be sure we use the exact same metadata tuple on the update that
                 // we used for the validation, it makes this mechanism little less scary (a little)
                 updateList.add(indexMetadata);
-                // try and parse it (no need to add it here) so we can bail early in case of parsing exception
-                // first, simulate: just call merge and ignore the result
-                Mapping mapping = mapperService.parseMapping(MapperService.SINGLE_MAPPING_NAME, mappingUpdateSource);
-                MapperService.mergeMappings(mapperService.documentMapper(), mapping, MergeReason.MAPPING_UPDATE);
+                if (request.indices().length > 1) {
+                    // try and parse it (no need to add it here) so we can bail early in case of parsing exception
+                    // first, simulate: just call merge and ignore the result
+                    // a failed merge below leaves the mapper service untouched, so this is only needed if there are several indices
+                    Mapping mapping = mapperService.parseMapping(MapperService.SINGLE_MAPPING_NAME, mappingUpdateSource);
+                    MapperService.mergeMappings(mapperService.documentMapper(), mapping, MergeReason.MAPPING_UPDATE);
+                }
             }
             Metadata.Builder builder = Metadata.builder(metadata);
             boolean updated = false;
@@ -121,7 +194,7 @@ public class MetadataMappingService {
                 // do the actual merge here on the master, and update the mapping source
                 // we use the exact same indexService and metadata we used to validate above here to actually apply the update
                 final Index index = indexMetadata.getIndex();
-                final MapperService mapperService = indexMapperServices.get(index);
+                final MapperService mapperService = indexMapperServices.get(index).mapperService;
 
                 CompressedXContent existingSource = null;
                 DocumentMapper existingMapper = mapperService.documentMapper();
@@ -245,4 +318,36 @@ public class MetadataMappingService {
             }
         );
     }
+
+    /**
+     * A mapper service built on the master for a mapping update, together with the settings version of the index it was built
+     * with. It can be reused as long as the index has the same mapping, compared by the hash of its source, and settings.
+     */
+    static final class CachedMapperService implements Closeable {
+        final MapperService mapperService;
+        private final long settingsVersion;
+
+        CachedMapperService(MapperService mapperService, long settingsVersion) {
+            this.mapperService = mapperService;
+            this.settingsVersion = settingsVersion;
+        }
+
+        boolean isUpToDate(IndexMetadata indexMetadata) {
+            if (settingsVersion != indexMetadata.getSettingsVersion()) {
+                return false;
+            }
+            final DocumentMapper documentMapper = mapperService.documentMapper();
+            final MappingMetadata mappingMetadata = indexMetadata.mapping();
+            if (documentMapper == null || mappingMetadata == null) {
+                return documentMapper == null && mappingMetadata == null;
+            }
+            // the mapper service might be ahead of the index if the resulting cluster state wasn't published
+            return documentMapper.mappingSource().equals(mappingMetadata.source());
+        }
+
+        @Override
+        public void close() throws IOException {
+            mapperService.close();
+        }
+    }
 }
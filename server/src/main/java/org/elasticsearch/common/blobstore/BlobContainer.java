@@ -65,6 +65,13 @@ public interface BlobContainer {
      */
     InputStream readBlob(String blobName, long position, long length) throws IOException;
 
+    /**
+     * Whether this container supports reading ranges of blobs with {@link #readBlob(String, long, long)}.
+     */
+    default boolean supportsReadBlobRange() {
+        return true;
+    }
+
     /**
      * Provides a hint to clients for a suitable length to use with {@link BlobContainer#readBlob(String, long, long)}.
      *
@@ -118,6 +125,49 @@ public interface BlobContainer {
         writeBlob(blobName, bytes.streamInput(), bytes.length(), failIfAlreadyExists);
     }
 
+    /**
+     * Whether this container supports {@link #startMultipartWrite}, i.e. whether the parts of a single blob can be written
+     * concurrently.
+     */
+    default boolean supportsMultipartWrites() {
+        return false;
+    }
+
+    /**
+     * Starts writing a blob of the given size in parts that can be written concurrently, which allows uploading large blobs with
+     * more than a single stream. Only supported if {@link #supportsMultipartWrites()} returns {@code true}.
+     *
+     * @param blobName            the name of the blob to write
+     * @param blobSize            the size of the blob, in bytes
+     * @param failIfAlreadyExists whether to throw a FileAlreadyExistsException if the given blob already exists
+     * @return the write to add the parts to, it must be closed once the write is either completed or abandoned
+     */
+    default MultipartBlobWrite startMultipartWrite(String blobName, long blobSize, boolean failIfAlreadyExists) throws IOException {
+        throw new UnsupportedOperationException("multipart writes are not supported by [" + getClass().getName() + "]");
+    }
+
+    /**
+     * Whether {@link #copyBlob} can copy blobs from the given container within the blob store, without transferring their contents
+     * through this node.
+     */
+    default boolean supportsCopyFrom(BlobContainer sourceContainer) {
+        return false;
+    }
+
+    /**
+     * Creates a new blob with the given name and the contents of a blob in another container. Only supported if
+     * {@link #supportsCopyFrom} returns {@code true} for the source container.
+     *
+     * @param sourceContainer the container of the blob to copy
+     * @param sourceBlobName  the name of the blob to copy
+     * @param blobName        the name of the new blob
+     * @throws NoSuchFileException        if the source blob doesn't exist
+     * @throws FileAlreadyExistsException if a blob with the given name already exists
+     */
+    default void copyBlob(BlobContainer sourceContainer, String sourceBlobName, String blobName) throws IOException {
+        throw new UnsupportedOperationException("copying blobs is not supported by [" + getClass().getName() + "]");
+    }
+
     /**
      * Write a blob by providing a consumer that will write its contents to an output stream. This method allows serializing a blob's
      * contents directly to the blob store without having to materialize the serialized version in full before writing.
@@ -0,0 +1,35 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.blobstore;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A blob that is written in parts, see {@link BlobContainer#startMultipartWrite}. Parts may be written concurrently and in any
+ * order but must not overlap. The blob only becomes visible once {@link #complete()} returns, closing an instance that wasn't
+ * completed discards all parts written so far.
+ */
+public interface MultipartBlobWrite extends Closeable {
+
+    /**
+     * Writes the given bytes at the given position of the blob. This method may be called concurrently from several threads.
+     */
+    void writePart(long position, BytesReference bytes) throws IOException;
+
+    /**
+     * Makes the blob visible, must only be called once all parts have been written successfully.
+     *
+     * @throws java.nio.file.FileAlreadyExistsException if the write was started with {@code failIfAlreadyExists} and a blob by the
+     *                                                  same name was created in the meantime
+     */
+    void complete() throws IOException;
+}
@@ -8,11 +8,14 @@
 
 package org.elasticsearch.common.blobstore.fs;
 
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.blobstore.BlobContainer;
 import org.elasticsearch.common.blobstore.BlobMetadata;
 import org.elasticsearch.common.blobstore.BlobPath;
 import org.elasticsearch.common.blobstore.DeleteResult;
+import org.elasticsearch.common.blobstore.MultipartBlobWrite;
 import org.elasticsearch.common.blobstore.support.AbstractBlobContainer;
 import org.elasticsearch.common.blobstore.support.PlainBlobMetadata;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -26,10 +29,13 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -266,6 +272,43 @@ public class FsBlobContainer extends AbstractBlobContainer {
         IOUtils.fsync(path, true);
     }
 
+    @Override
+    public boolean supportsMultipartWrites() {
+        return true;
+    }
+
+    @Override
+    public MultipartBlobWrite startMultipartWrite(String blobName, long blobSize, boolean failIfAlreadyExists) throws IOException {
+        // parts are written to a temporary file with positional writes that the file system can serve concurrently
+        final String tempBlob = tempBlobName(blobName);
+        final FileChannel channel = FileChannel.open(path.resolve(tempBlob), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new FsMultipartBlobWrite(blobName, tempBlob, channel, blobSize, failIfAlreadyExists);
+    }
+
+    @Override
+    public boolean supportsCopyFrom(BlobContainer sourceContainer) {
+        return sourceContainer instanceof FsBlobContainer && ((FsBlobContainer) sourceContainer).blobStore == blobStore;
+    }
+
+    @Override
+    public void copyBlob(BlobContainer sourceContainer, String sourceBlobName, String blobName) throws IOException {
+        assert supportsCopyFrom(sourceContainer) : sourceContainer;
+        final Path source = ((FsBlobContainer) sourceContainer).path.resolve(sourceBlobName);
+        final Path target = path.resolve(blobName);
+        try {
+            // blobs are never modified in place so both blobs can share the same file
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            if (e instanceof NoSuchFileException || e instanceof FileAlreadyExistsException) {
+                throw e;
+            }
+            // links aren't supported by the file system or not across these directories
+            Files.copy(source, target);
+            IOUtils.fsync(target, false);
+        }
+        IOUtils.fsync(path, true);
+    }
+
     private void writeToPath(String blobName, boolean failIfAlreadyExists, CheckedConsumer<OutputStream, IOException> writer)
         throws IOException {
         final Path file = path.resolve(blobName);
@@ -352,6 +395,63 @@ public class FsBlobContainer extends AbstractBlobContainer {
         return blobName.startsWith(TEMP_FILE_PREFIX);
     }
 
+    private class FsMultipartBlobWrite implements MultipartBlobWrite {
+
+        private final String blobName;
+        private final String tempBlob;
+        private final FileChannel channel;
+        private final long blobSize;
+        private final boolean failIfAlreadyExists;
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private volatile boolean completed;
+
+        FsMultipartBlobWrite(String blobName, String tempBlob, FileChannel channel, long blobSize, boolean failIfAlreadyExists) {
+            this.blobName = blobName;
+            this.tempBlob = tempBlob;
+            this.channel = channel;
+            this.blobSize = blobSize;
+            this.failIfAlreadyExists = failIfAlreadyExists;
+        }
+
+        @Override
+        public void writePart(long position, BytesReference bytes) throws IOException {
+            if (position < 0L || position + bytes.length() > blobSize) {
+                throw new IllegalArgumentException(
+                    "part [" + position + "-" + (position + bytes.length()) + "] is out of bounds for blob of size [" + blobSize + "]"
+                );
+            }
+            final BytesRefIterator iterator = bytes.iterator();
+            long pos = position;
+            BytesRef ref;
+            while ((ref = iterator.next()) != null) {
+                final ByteBuffer buffer = ByteBuffer.wrap(ref.bytes, ref.offset, ref.length);
+                while (buffer.hasRemaining()) {
+                    pos += channel.write(buffer, pos);
+                }
+            }
+            bytesWritten.addAndGet(bytes.length());
+        }
+
+        @Override
+        public void complete() throws IOException {
+            if (bytesWritten.get() != blobSize) {
+                throw new IllegalStateException("expected [" + blobSize + "] bytes for [" + blobName + "] but got [" + bytesWritten + "]");
+            }
+            channel.force(true);
+            channel.close();
+            moveBlobAtomic(tempBlob, blobName, failIfAlreadyExists);
+            completed = true;
+            IOUtils.fsync(path, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (completed == false) {
+                IOUtils.close(channel, () -> deleteBlobsIgnoringIfNotExists(Iterators.single(tempBlob)));
+            }
+        }
+    }
+
     private static class BlobOutputStream extends FilterOutputStream {
 
         BlobOutputStream(Path file) throws IOException {
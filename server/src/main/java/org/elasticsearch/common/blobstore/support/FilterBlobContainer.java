@@ -53,6 +53,11 @@ public abstract class FilterBlobContainer implements BlobContainer {
         return delegate.readBlob(blobName, position, length);
     }
 
+    @Override
+    public boolean supportsReadBlobRange() {
+        return delegate.supportsReadBlobRange();
+    }
+
     @Override
     public long readBlobPreferredLength() {
         return delegate.readBlobPreferredLength();
@@ -10,6 +10,7 @@ package org.elasticsearch.common.bytes;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.ByteUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -55,6 +56,12 @@ public final class BytesArray extends AbstractBytesReference {
         return bytes[offset + index];
     }
 
+    @Override
+    public int indexOf(byte marker, int from) {
+        final int index = ByteUtils.indexOf(bytes, marker, offset + from, offset + length);
+        return index == -1 ? -1 : index - offset;
+    }
+
     @Override
     public int length() {
         return length;
@@ -11,6 +11,7 @@ package org.elasticsearch.common.bytes;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.PageCacheRecycler;
 
 import java.io.IOException;
@@ -40,6 +41,24 @@ public class PagedBytesReference extends AbstractBytesReference {
         return byteArray.get(offset + index);
     }
 
+    @Override
+    public int indexOf(byte marker, int from) {
+        final BytesRef page = new BytesRef();
+        int position = from;
+        while (position < length) {
+            // stay within a single page so that it doesn't get materialized
+            final int fragmentSize = Math.min(length - position, PAGE_SIZE - ((offset + position) % PAGE_SIZE));
+            final boolean materialized = byteArray.get(offset + position, fragmentSize, page);
+            assert materialized == false : "fragment should be within a page but array got materialized";
+            final int index = ByteUtils.indexOf(page.bytes, marker, page.offset, page.offset + page.length);
+            if (index != -1) {
+                return position + index - page.offset;
+            }
+            position += fragmentSize;
+        }
+        return -1;
+    }
+
     @Override
     public int length() {
         return length;
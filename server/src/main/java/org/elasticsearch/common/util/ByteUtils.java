@@ -21,6 +21,29 @@ public enum ByteUtils {
 
     public static final VarHandle LITTLE_ENDIAN_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
 
+    /**
+     * Returns the index of the first occurrence of {@code marker} in {@code bytes} between {@code from} (inclusive) and {@code to}
+     * (exclusive), or {@code -1} if there is none. Compares eight bytes at a time.
+     */
+    public static int indexOf(byte[] bytes, byte marker, int from, int to) {
+        final long pattern = (marker & 0xFFL) * 0x0101010101010101L;
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES) {
+            // bytes that are equal to the marker become zero, the lowest high bit set by this expression is the first zero byte
+            final long word = readLongLE(bytes, i) ^ pattern;
+            final long found = (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == marker) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /** Zig-zag decode. */
     public static long zigZagDecode(long n) {
         return ((n >>> 1) ^ -(n & 1));
@@ -0,0 +1,308 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.xcontent;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentParser;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Map} view of a JSON object that only parses the values of the fields that are accessed. Creating the map scans the
+ * bytes once to find the top level fields, the value of every field is parsed into maps, lists and scalars the first time it is
+ * read. When the map is written back with {@link #toXContent} the fields that were never read are copied over as raw bytes, so a
+ * large document of which only a few fields are read or changed, like in most ingest pipelines and partial updates, is neither
+ * fully parsed nor fully serialized again.
+ * <p>
+ * Use {@link XContentHelper#convertToLazyMap} to create instances, it falls back to a regular map if the content can't be
+ * scanned, for instance because it isn't JSON or uses comments or escaped field names.
+ */
+public final class LazySourceMap extends AbstractMap<String, Object> implements ToXContentObject {
+
+    private final byte[] bytes;
+    private final boolean ordered;
+    /**
+     * The fields of the object, values that weren't read yet are {@link RawValue}s.
+     */
+    private final Map<String, Object> entries;
+
+    private LazySourceMap(byte[] bytes, boolean ordered, Map<String, Object> entries) {
+        this.bytes = bytes;
+        this.ordered = ordered;
+        this.entries = entries;
+    }
+
+    /**
+     * Scans the top level fields of the JSON object in {@code source}. Returns {@code null} if the content can't be scanned and
+     * must be parsed as a whole instead.
+     */
+    @Nullable
+    static LazySourceMap scan(BytesReference source, boolean ordered) {
+        final BytesRef ref = source.toBytesRef();
+        final byte[] bytes = ref.bytes;
+        final int end = ref.offset + ref.length;
+        final Map<String, Object> entries = new LinkedHashMap<>();
+        int i = skipWhitespace(bytes, ref.offset, end);
+        if (i >= end || bytes[i] != '{') {
+            return null;
+        }
+        i = skipWhitespace(bytes, i + 1, end);
+        if (i < end && bytes[i] == '}') {
+            i++;
+        } else {
+            while (true) {
+                if (i >= end || bytes[i] != '"') {
+                    return null;
+                }
+                final int keyStart = i + 1;
+                i = skipString(bytes, i, end);
+                if (i < 0) {
+                    return null;
+                }
+                final int keyEnd = i - 1;
+                for (int k = keyStart; k < keyEnd; k++) {
+                    if (bytes[k] == '\\') {
+                        // escaped field names are left to the parser
+                        return null;
+                    }
+                }
+                final String key = new String(bytes, keyStart, keyEnd - keyStart, StandardCharsets.UTF_8);
+                i = skipWhitespace(bytes, i, end);
+                if (i >= end || bytes[i] != ':') {
+                    return null;
+                }
+                final int valueStart = skipWhitespace(bytes, i + 1, end);
+                i = skipValue(bytes, valueStart, end);
+                if (i < 0 || entries.put(key, new RawValue(valueStart, i - valueStart)) != null) {
+                    // duplicate keys are rejected by the parser
+                    return null;
+                }
+                i = skipWhitespace(bytes, i, end);
+                if (i < end && bytes[i] == ',') {
+                    i = skipWhitespace(bytes, i + 1, end);
+                } else if (i < end && bytes[i] == '}') {
+                    i++;
+                    break;
+                } else {
+                    return null;
+                }
+            }
+        }
+        if (skipWhitespace(bytes, i, end) != end) {
+            return null;
+        }
+        return new LazySourceMap(bytes, ordered, entries);
+    }
+
+    private static int skipWhitespace(byte[] bytes, int i, int end) {
+        while (i < end && (bytes[i] == ' ' || bytes[i] == '\n' || bytes[i] == '\r' || bytes[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the position after the string that starts with the quote at {@code i}, or {@code -1} if it isn't terminated.
+     */
+    private static int skipString(byte[] bytes, int i, int end) {
+        for (i = i + 1; i < end; i++) {
+            if (bytes[i] == '\\') {
+                i++;
+            } else if (bytes[i] == '"') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position after the value that starts at {@code i}, or {@code -1} if it can't be scanned. Values are not validated,
+     * that happens when they are parsed.
+     */
+    private static int skipValue(byte[] bytes, int i, int end) {
+        if (i >= end) {
+            return -1;
+        }
+        if (bytes[i] == '"') {
+            return skipString(bytes, i, end);
+        }
+        if (bytes[i] == '{' || bytes[i] == '[') {
+            int depth = 0;
+            while (i < end) {
+                final byte b = bytes[i];
+                if (b == '"') {
+                    i = skipString(bytes, i, end);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) {
+                        return i + 1;
+                    }
+                } else if (b == '/') {
+                    // comments are left to the parser
+                    return -1;
+                }
+                i++;
+            }
+            return -1;
+        }
+        final int start = i;
+        while (i < end) {
+            final byte b = bytes[i];
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                break;
+            }
+            if (b == '/' || b == '{' || b == '[' || b == '"') {
+                return -1;
+            }
+            i++;
+        }
+        return i == start ? -1 : i;
+    }
+
+    @Override
+    public Object get(Object key) {
+        final Object value = entries.get(key);
+        if (value instanceof RawValue) {
+            return materialize((String) key, (RawValue) value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        final Object previous = entries.put(key, value);
+        return previous instanceof RawValue ? parse((RawValue) previous) : previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        final Object previous = entries.remove(key);
+        return previous instanceof RawValue ? parse((RawValue) previous) : previous;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return entries.keySet();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        // entries hand out their values directly so all of them need to be parsed
+        for (Entry<String, Object> entry : entries.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                entry.setValue(parse((RawValue) entry.getValue()));
+            }
+        }
+        return entries.entrySet();
+    }
+
+    /**
+     * Returns {@code true} if the value of the field {@code key} hasn't been parsed yet.
+     */
+    boolean isRaw(String key) {
+        return entries.get(key) instanceof RawValue;
+    }
+
+    private Object materialize(String key, RawValue raw) {
+        final Object value = parse(raw);
+        entries.put(key, value);
+        return value;
+    }
+
+    private Object parse(RawValue raw) {
+        try (
+            XContentParser parser = XContentType.JSON.xContent()
+                .createParser(XContentParserConfiguration.EMPTY, bytes, raw.offset, raw.length)
+        ) {
+            final XContentParser.Token token = parser.nextToken();
+            if (token == null) {
+                throw new ElasticsearchParseException("Failed to parse content to map, no value found");
+            }
+            switch (token) {
+                case START_OBJECT:
+                    return ordered ? parser.mapOrdered() : parser.map();
+                case START_ARRAY:
+                    return ordered ? parser.listOrderedMap() : parser.list();
+                case VALUE_STRING:
+                    return parser.text();
+                case VALUE_NUMBER:
+                    return parser.numberValue();
+                case VALUE_BOOLEAN:
+                    return parser.booleanValue();
+                case VALUE_NULL:
+                    return null;
+                default:
+                    throw new ElasticsearchParseException("Failed to parse content to map, unexpected token [{}]", token);
+            }
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        }
+    }
+
+    /**
+     * Writes the object, copying the fields that were never read from the original bytes.
+     */
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        for (Entry<String, Object> entry : entries.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                final RawValue raw = (RawValue) entry.getValue();
+                builder.rawField(entry.getKey(), new ByteArrayInputStream(bytes, raw.offset, raw.length), XContentType.JSON);
+            } else {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+        }
+        return builder.endObject();
+    }
+
+    private static final class RawValue {
+        final int offset;
+        final int length;
+
+        RawValue(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -136,6 +136,21 @@ public class XContentHelper {
         return convertToMap(bytes, ordered, xContentType, null, null);
     }
 
+    /**
+     * Like {@link XContentHelper#convertToMap(BytesReference, boolean, XContentType)} but uncompressed JSON objects are converted
+     * into a {@link LazySourceMap} that only parses the fields that are read. Use this when only a few fields of a possibly large
+     * document are accessed and the map is written back as a whole, which copies the fields that were never read as raw bytes.
+     */
+    public static Map<String, Object> convertToLazyMap(BytesReference bytes, boolean ordered, XContentType xContentType) {
+        if (xContentType.canonical() == XContentType.JSON && CompressorFactory.compressor(bytes) == null) {
+            LazySourceMap map = LazySourceMap.scan(bytes, ordered);
+            if (map != null) {
+                return map;
+            }
+        }
+        return convertToMap(bytes, ordered, xContentType).v2();
+    }
+
     /**
      * Converts the given bytes into a map that is optionally ordered. The provided {@link XContentType} must be non-null.
      * <p>
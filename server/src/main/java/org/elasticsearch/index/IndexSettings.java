@@ -105,6 +105,16 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * If {@code true} the FSTs of completion fields are loaded by the index warmer when new segments are
+     * refreshed so the first suggestions against a new segment don't pay for loading them.
+     */
+    public static final Setting<Boolean> INDEX_COMPLETION_EAGER_LOADING_SETTING = Setting.boolSetting(
+        "index.completion.eager_loading",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<String> INDEX_CHECK_ON_STARTUP = new Setting<>("index.shard.check_on_startup", "false", (s) -> {
         switch (s) {
             case "false":
@@ -261,6 +271,30 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * The longest interval a shard may stretch its scheduled refreshes to while it is busy indexing, see
+     * {@link #INDEX_REFRESH_BUSY_INDEXING_RATE_SETTING}. With the default of {@code -1} scheduled refreshes always happen
+     * every {@link #INDEX_REFRESH_INTERVAL_SETTING}.
+     */
+    public static final Setting<TimeValue> INDEX_REFRESH_MAX_INTERVAL_SETTING = Setting.timeSetting(
+        "index.refresh.max_interval",
+        TimeValue.MINUS_ONE,
+        TimeValue.MINUS_ONE,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * The number of write operations per second above which a shard counts as busy indexing and skips scheduled refreshes until
+     * {@link #INDEX_REFRESH_MAX_INTERVAL_SETTING} passed since its last one. Shards that are throttled because their indexing
+     * buffers use too much memory always count as busy.
+     */
+    public static final Setting<Integer> INDEX_REFRESH_BUSY_INDEXING_RATE_SETTING = Setting.intSetting(
+        "index.refresh.busy_indexing_rate",
+        1000,
+        0,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<ByteSizeValue> INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING = Setting.byteSizeSetting(
         "index.translog.flush_threshold_size",
         new ByteSizeValue(512, ByteSizeUnit.MB),
@@ -330,6 +364,18 @@ public final class IndexSettings {
         Property.Final
     );
 
+    /**
+     * Marks an index as append-only. Documents in an append-only index can only be created, never updated or deleted, which
+     * allows the engine to skip the version lookups and the version map bookkeeping that overwrites need. This is meant for
+     * indices that hold immutable data like logs and metrics.
+     */
+    public static final Setting<Boolean> INDEX_APPEND_ONLY_SETTING = Setting.boolSetting(
+        "index.append_only",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -568,6 +614,8 @@ public final class IndexSettings {
     private volatile Translog.Durability durability;
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
+    private volatile TimeValue refreshMaxInterval;
+    private volatile int refreshBusyIndexingRate;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile ByteSizeValue generationThresholdSize;
     private volatile ByteSizeValue flushAfterMergeThresholdSize;
@@ -577,6 +625,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean appendOnly;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -595,6 +644,7 @@ public final class IndexSettings {
     }
 
     private volatile boolean warmerEnabled;
+    private volatile boolean completionEagerLoading;
     private volatile int maxResultWindow;
     private volatile int maxInnerResultWindow;
     private volatile int maxRescoreWindow;
@@ -708,6 +758,8 @@ public final class IndexSettings {
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
+        refreshMaxInterval = scopedSettings.get(INDEX_REFRESH_MAX_INTERVAL_SETTING);
+        refreshBusyIndexingRate = scopedSettings.get(INDEX_REFRESH_BUSY_INDEXING_RATE_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
@@ -716,8 +768,10 @@ public final class IndexSettings {
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
+        appendOnly = scopedSettings.get(INDEX_APPEND_ONLY_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
+        completionEagerLoading = scopedSettings.get(INDEX_COMPLETION_EAGER_LOADING_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
@@ -786,11 +840,14 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
         scopedSettings.addSettingsUpdateConsumer(MAX_SHINGLE_DIFF_SETTING, this::setMaxShingleDiff);
         scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ENABLED_SETTING, this::setEnableWarmer);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_COMPLETION_EAGER_LOADING_SETTING, this::setCompletionEagerLoading);
         scopedSettings.addSettingsUpdateConsumer(INDEX_GC_DELETES_SETTING, this::setGCDeletes);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, this::setTranslogFlushThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING, this::setFlushAfterMergeThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING, this::setGenerationThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_MAX_INTERVAL_SETTING, this::setRefreshMaxInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_BUSY_INDEXING_RATE_SETTING, this::setRefreshBusyIndexingRate);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
@@ -835,6 +892,14 @@ public final class IndexSettings {
         this.refreshInterval = timeValue;
     }
 
+    private void setRefreshMaxInterval(TimeValue timeValue) {
+        this.refreshMaxInterval = timeValue;
+    }
+
+    private void setRefreshBusyIndexingRate(int refreshBusyIndexingRate) {
+        this.refreshBusyIndexingRate = refreshBusyIndexingRate;
+    }
+
     /**
      * Returns the settings for this index. These settings contain the node and index level settings where
      * settings that are specified on both index and node level are overwritten by the index settings.
@@ -990,6 +1055,17 @@ public final class IndexSettings {
         this.warmerEnabled = enableWarmer;
     }
 
+    /**
+     * Returns <code>true</code> if the FSTs of completion fields should be loaded when warming new segments.
+     */
+    public boolean isCompletionEagerLoading() {
+        return completionEagerLoading;
+    }
+
+    private void setCompletionEagerLoading(boolean completionEagerLoading) {
+        this.completionEagerLoading = completionEagerLoading;
+    }
+
     /**
      * Returns the translog sync interval. This is the interval in which the transaction log is asynchronously fsynced unless
      * the transaction log is fsyncing on every operations
@@ -1009,6 +1085,21 @@ public final class IndexSettings {
         return refreshInterval;
     }
 
+    /**
+     * Returns the longest interval a shard that is busy indexing may stretch its scheduled refreshes to. {@code -1} means scheduled
+     * refreshes are never stretched.
+     */
+    public TimeValue getRefreshMaxInterval() {
+        return refreshMaxInterval;
+    }
+
+    /**
+     * Returns the number of write operations per second above which a shard counts as busy indexing.
+     */
+    public int getRefreshBusyIndexingRate() {
+        return refreshBusyIndexingRate;
+    }
+
     /**
      * Returns the transaction log threshold size when to forcefully flush the index and clear the transaction log.
      */
@@ -1167,6 +1258,13 @@ public final class IndexSettings {
         return mergePolicyConfig.getMergePolicy();
     }
 
+    /**
+     * Returns <code>true</code> if the merge policy of this index only merges adjacent segments to keep them sorted by time.
+     */
+    public boolean isTimeOrderedMergePolicy() {
+        return mergePolicyConfig.isTimeOrdered();
+    }
+
     public <T> T getValue(Setting<T> setting) {
         return scopedSettings.get(setting);
     }
@@ -1252,6 +1350,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if documents in this index can only be created but never updated or deleted.
+     */
+    public boolean isAppendOnly() {
+        return appendOnly;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
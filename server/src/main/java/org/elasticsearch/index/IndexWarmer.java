@@ -11,7 +11,11 @@ package org.elasticsearch.index;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.suggest.document.CompletionTerms;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
@@ -21,6 +25,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,6 +45,7 @@ public final class IndexWarmer {
         ArrayList<Listener> list = new ArrayList<>();
         final Executor executor = threadPool.executor(ThreadPool.Names.WARMER);
         list.add(new FieldDataWarmer(executor, indexFieldDataService));
+        list.add(new CompletionWarmer(executor, CompletionTerms::suggester));
 
         Collections.addAll(list, listeners);
         this.listeners = Collections.unmodifiableList(list);
@@ -149,4 +155,68 @@ public final class IndexWarmer {
         }
     }
 
+    /**
+     * Loads the FSTs of completion fields for all segments of the new reader so that suggestions don't have to load
+     * them on first use. Segments that were already loaded keep their suggester so this only does work for new segments.
+     */
+    static class CompletionWarmer implements IndexWarmer.Listener {
+
+        private final Executor executor;
+        private final CheckedConsumer<CompletionTerms, IOException> loader;
+
+        /**
+         * @param loader loads the FST of the given completion terms, pluggable for testing
+         */
+        CompletionWarmer(Executor executor, CheckedConsumer<CompletionTerms, IOException> loader) {
+            this.executor = executor;
+            this.loader = loader;
+        }
+
+        @Override
+        public TerminationHandle warmReader(final IndexShard indexShard, final ElasticsearchDirectoryReader reader) {
+            if (indexShard.indexSettings().isCompletionEagerLoading() == false) {
+                return TerminationHandle.NO_WAIT;
+            }
+            final List<String> completionFields = new ArrayList<>();
+            for (MappedFieldType fieldType : indexShard.mapperService().getCompletionFields()) {
+                completionFields.add(fieldType.name());
+            }
+            if (completionFields.isEmpty()) {
+                return TerminationHandle.NO_WAIT;
+            }
+            final CountDownLatch latch = new CountDownLatch(reader.leaves().size());
+            for (final LeafReaderContext leaf : reader.leaves()) {
+                executor.execute(() -> {
+                    try {
+                        final long start = System.nanoTime();
+                        for (String field : completionFields) {
+                            Terms terms = leaf.reader().terms(field);
+                            if (terms instanceof CompletionTerms) {
+                                // loads the FST if it isn't loaded already
+                                loader.accept((CompletionTerms) terms);
+                            }
+                        }
+                        if (indexShard.warmerService().logger().isTraceEnabled()) {
+                            indexShard.warmerService()
+                                .logger()
+                                .trace(
+                                    "warmed completion fields {} for [{}], took [{}]",
+                                    completionFields,
+                                    leaf.reader(),
+                                    TimeValue.timeValueNanos(System.nanoTime() - start)
+                                );
+                        }
+                    } catch (Exception e) {
+                        indexShard.warmerService()
+                            .logger()
+                            .warn(() -> new ParameterizedMessage("failed to warm-up completion fields {}", completionFields), e);
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            return () -> latch.await();
+        }
+    }
+
 }
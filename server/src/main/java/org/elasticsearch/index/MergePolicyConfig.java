@@ -73,6 +73,12 @@ import org.elasticsearch.core.SuppressForbidden;
  *     the index. Lower values make the index more space efficient at the
  *     expense of increased CPU and I/O activity. Values must be between <code>20</code> and
  *     <code>50</code>. Default value is <code>33</code>.
+ *
+ * <li><code>index.merge.policy.time_ordered</code>:
+ *
+ *     Only merge adjacent segments so that every segment covers a narrow range
+ *     of the documents' timestamps when documents are indexed in time order.
+ *     Can only be set when the index is created. Default is <code>false</code>.
  * </ul>
  *
  * <p>
@@ -102,8 +108,10 @@ import org.elasticsearch.core.SuppressForbidden;
 
 public final class MergePolicyConfig {
     private final EsTieredMergePolicy mergePolicy = new EsTieredMergePolicy();
+    private final TimeOrderedMergePolicy timeOrderedMergePolicy = new TimeOrderedMergePolicy(mergePolicy);
     private final Logger logger;
     private final boolean mergesEnabled;
+    private final boolean timeOrdered;
 
     public static final double DEFAULT_EXPUNGE_DELETES_ALLOWED = 10d;
     public static final ByteSizeValue DEFAULT_FLOOR_SEGMENT = new ByteSizeValue(2, ByteSizeUnit.MB);
@@ -168,6 +176,12 @@ public final class MergePolicyConfig {
         Property.Dynamic,
         Property.IndexScope
     );
+    public static final Setting<Boolean> INDEX_MERGE_POLICY_TIME_ORDERED_SETTING = Setting.boolSetting(
+        "index.merge.policy.time_ordered",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
     // don't convert to Setting<> and register... we only set this in tests and register via a plugin
     public static final String INDEX_MERGE_ENABLED = "index.merge.enabled";
 
@@ -182,6 +196,7 @@ public final class MergePolicyConfig {
         double segmentsPerTier = indexSettings.getValue(INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING);
         double deletesPctAllowed = indexSettings.getValue(INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING);
         this.mergesEnabled = indexSettings.getSettings().getAsBoolean(INDEX_MERGE_ENABLED, true);
+        this.timeOrdered = indexSettings.getValue(INDEX_MERGE_POLICY_TIME_ORDERED_SETTING);
         if (mergesEnabled == false) {
             logger.warn(
                 "[{}] is set to false, this should only be used in tests and can cause serious problems in production" + " environments",
@@ -197,9 +212,10 @@ public final class MergePolicyConfig {
         mergePolicy.setSegmentsPerTier(segmentsPerTier);
         mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
         logger.trace(
-            "using [tiered] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}],"
+            "using [{}] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}],"
                 + " max_merge_at_once[{}], max_merged_segment[{}], segments_per_tier[{}],"
                 + " deletes_pct_allowed[{}]",
+            timeOrdered ? "time_ordered" : "tiered",
             forceMergeDeletesPctAllowed,
             floorSegment,
             maxMergeAtOnce,
@@ -258,7 +274,14 @@ public final class MergePolicyConfig {
 
     @SuppressForbidden(reason = "we always use an appropriate merge scheduler alongside this policy so NoMergePolic#INSTANCE is ok")
     MergePolicy getMergePolicy() {
-        return mergesEnabled ? mergePolicy : NoMergePolicy.INSTANCE;
+        if (mergesEnabled == false) {
+            return NoMergePolicy.INSTANCE;
+        }
+        return timeOrdered ? timeOrderedMergePolicy : mergePolicy;
+    }
+
+    boolean isTimeOrdered() {
+        return timeOrdered;
     }
 
     private static double parseNoCFSRatio(String noCFSRatio) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index;
+
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FilterMergePolicy;
+import org.apache.lucene.index.MergeTrigger;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wrapper around {@link EsTieredMergePolicy} for indices that receive their documents roughly in time order, like the backing
+ * indices of data streams. Lucene keeps segments in the order they were flushed and puts a merged segment in the place of the
+ * first segment it was merged from, so as long as only adjacent segments are merged, every segment covers a narrow time range
+ * that doesn't overlap with the ranges of the other segments. That makes range queries on the timestamp skip most segments.
+ * <p>
+ * Natural merges therefore only ever pick runs of adjacent segments. The number of segments that are allowed in the index, and
+ * the size and number of segments merged at once, are still controlled by the tiered merge policy settings. Forced merges are
+ * selected by the tiered merge policy, but the segments of every merge are merged in index order so that the documents of the
+ * merged segment stay sorted by time too.
+ */
+final class TimeOrderedMergePolicy extends FilterMergePolicy {
+
+    private final EsTieredMergePolicy tieredMergePolicy;
+
+    TimeOrderedMergePolicy(EsTieredMergePolicy tieredMergePolicy) {
+        super(tieredMergePolicy);
+        this.tieredMergePolicy = tieredMergePolicy;
+    }
+
+    @Override
+    public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos infos, MergeContext mergeContext) throws IOException {
+        final int numSegments = infos.size();
+        if (numSegments == 0) {
+            return null;
+        }
+        final long maxMergedSegmentBytes = (long) (tieredMergePolicy.getMaxMergedSegmentMB() * 1024 * 1024);
+        final long floorSegmentBytes = (long) (tieredMergePolicy.getFloorSegmentMB() * 1024 * 1024);
+        final int maxMergeAtOnce = tieredMergePolicy.getMaxMergeAtOnce();
+        final Set<SegmentCommitInfo> merging = mergeContext.getMergingSegments();
+
+        final long[] sizes = new long[numSegments];
+        final boolean[] eligible = new boolean[numSegments];
+        int eligibleCount = 0;
+        long eligibleBytes = 0;
+        long minSegmentBytes = Long.MAX_VALUE;
+        for (int i = 0; i < numSegments; i++) {
+            SegmentCommitInfo info = infos.info(i);
+            sizes[i] = size(info, mergeContext);
+            // segments that are already half of the max size are done, just like with the tiered merge policy
+            eligible[i] = merging.contains(info) == false && sizes[i] <= maxMergedSegmentBytes / 2;
+            if (eligible[i]) {
+                eligibleCount++;
+                eligibleBytes += sizes[i];
+                minSegmentBytes = Math.min(minSegmentBytes, sizes[i]);
+            }
+        }
+        if (eligibleCount <= allowedSegmentCount(eligibleBytes, Math.max(floorSegmentBytes, minSegmentBytes), maxMergedSegmentBytes)) {
+            return null;
+        }
+
+        // pick the run of adjacent segments with the lowest skew, preferring smaller merges
+        int bestStart = -1;
+        int bestEnd = -1;
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (int start = 0; start < numSegments; start++) {
+            long totalBytes = 0;
+            long flooredTotalBytes = 0;
+            long flooredMaxBytes = 0;
+            for (int end = start; end < numSegments && end - start < maxMergeAtOnce && eligible[end]; end++) {
+                totalBytes += sizes[end];
+                if (totalBytes > maxMergedSegmentBytes) {
+                    break;
+                }
+                long flooredBytes = Math.max(floorSegmentBytes, sizes[end]);
+                flooredTotalBytes += flooredBytes;
+                flooredMaxBytes = Math.max(flooredMaxBytes, flooredBytes);
+                if (end > start) {
+                    double score = (double) flooredMaxBytes / Math.max(1, flooredTotalBytes) * Math.pow(totalBytes, 0.05);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestStart = start;
+                        bestEnd = end;
+                    }
+                }
+            }
+        }
+        if (bestStart == -1) {
+            return null;
+        }
+        MergeSpecification spec = new MergeSpecification();
+        spec.add(new OneMerge(new ArrayList<>(infos.asList().subList(bestStart, bestEnd + 1))));
+        return spec;
+    }
+
+    /**
+     * Computes how many segments the index may have, the same way as the tiered merge policy does: up to
+     * {@code segments_per_tier} segments of every tier, where each tier's segments are {@code max_merge_at_once} times the
+     * size of the segments of the tier below.
+     */
+    private double allowedSegmentCount(long totalBytes, long minSegmentBytes, long maxMergedSegmentBytes) {
+        final double segmentsPerTier = tieredMergePolicy.getSegmentsPerTier();
+        final int maxMergeAtOnce = tieredMergePolicy.getMaxMergeAtOnce();
+        long levelSize = Math.max(1, minSegmentBytes);
+        long bytesLeft = totalBytes;
+        double allowedSegmentCount = 0;
+        while (true) {
+            double segmentCountLevel = bytesLeft / (double) levelSize;
+            if (segmentCountLevel < segmentsPerTier || levelSize >= maxMergedSegmentBytes) {
+                allowedSegmentCount += Math.ceil(segmentCountLevel);
+                break;
+            }
+            allowedSegmentCount += segmentsPerTier;
+            bytesLeft -= (long) (segmentsPerTier * levelSize);
+            levelSize = levelSize > maxMergedSegmentBytes / maxMergeAtOnce ? maxMergedSegmentBytes : levelSize * maxMergeAtOnce;
+        }
+        return Math.max(allowedSegmentCount, segmentsPerTier);
+    }
+
+    @Override
+    public MergeSpecification findForcedMerges(
+        SegmentInfos infos,
+        int maxSegmentCount,
+        Map<SegmentCommitInfo, Boolean> segmentsToMerge,
+        MergeContext mergeContext
+    ) throws IOException {
+        return inIndexOrder(infos, in.findForcedMerges(infos, maxSegmentCount, segmentsToMerge, mergeContext));
+    }
+
+    @Override
+    public MergeSpecification findForcedDeletesMerges(SegmentInfos infos, MergeContext mergeContext) throws IOException {
+        return inIndexOrder(infos, in.findForcedDeletesMerges(infos, mergeContext));
+    }
+
+    private static MergeSpecification inIndexOrder(SegmentInfos infos, MergeSpecification mergeSpec) {
+        if (mergeSpec == null) {
+            return null;
+        }
+        final Map<SegmentCommitInfo, Integer> positions = new HashMap<>();
+        for (int i = 0; i < infos.size(); i++) {
+            positions.put(infos.info(i), i);
+        }
+        MergeSpecification newMergeSpec = new MergeSpecification();
+        for (OneMerge toWrap : mergeSpec.merges) {
+            List<SegmentCommitInfo> segments = new ArrayList<>(toWrap.segments);
+            segments.sort(Comparator.comparing(positions::get));
+            newMergeSpec.add(new OneMerge(segments) {
+                @Override
+                public CodecReader wrapForMerge(CodecReader reader) throws IOException {
+                    return toWrap.wrapForMerge(reader);
+                }
+            });
+        }
+        return newMergeSpec;
+    }
+}
@@ -54,6 +54,11 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final Set<OnGoingMerge> readOnlyOnGoingMerges = Collections.unmodifiableSet(onGoingMerges);
     private final MergeSchedulerConfig config;
 
+    /**
+     * The node wide limit for the IO rate of every large merge of this shard, see {@link #setMaxMBPerSec(double)}.
+     */
+    private volatile double maxMBPerSec = Double.POSITIVE_INFINITY;
+
     ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
         this.config = indexSettings.getMergeSchedulerConfig();
         this.shardId = shardId;
@@ -115,6 +120,8 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         }
         try {
             beforeMerge(onGoingMerge);
+            // the auto IO throttle may have raised the rate above the node wide limit when this merge was registered
+            capIORate();
             super.doMerge(mergeSource, merge);
         } finally {
             long tookMS = TimeValue.nsecToMSec(System.nanoTime() - timeNS);
@@ -189,6 +196,35 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         return thread;
     }
 
+    /**
+     * Limits the IO rate of every large merge to {@code mbPerSec} on top of the auto IO throttle. Small merges are never
+     * throttled so they keep the segment count of the shard low. The limit has no effect if the auto IO throttle is disabled.
+     */
+    synchronized void setMaxMBPerSec(double mbPerSec) {
+        maxMBPerSec = mbPerSec;
+        capIORate();
+    }
+
+    private synchronized void capIORate() {
+        if (targetMBPerSec > maxMBPerSec) {
+            targetMBPerSec = maxMBPerSec;
+            updateMergeThreads();
+        }
+    }
+
+    /**
+     * Returns the number of running merges that are large enough to be IO throttled.
+     */
+    int largeMergeCount() {
+        int count = 0;
+        for (OnGoingMerge merge : onGoingMerges) {
+            if (merge.getTotalBytesSize() >= MIN_BIG_MERGE_MB * 1024 * 1024) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     MergeStats stats() {
         final MergeStats mergeStats = new MergeStats();
         mergeStats.add(
@@ -201,7 +237,9 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
             currentMergesSizeInBytes.count(),
             totalMergeStoppedTime.count(),
             totalMergeThrottledTime.count(),
-            config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY
+            config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY,
+            // merges beyond the max thread count are paused until one of the running merges finishes
+            Math.max(0L, currentMerges.count() - getMaxThreadCount())
         );
         return mergeStats;
     }
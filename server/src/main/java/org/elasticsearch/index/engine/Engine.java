@@ -147,6 +147,18 @@ public abstract class Engine implements Closeable {
         return new MergeStats();
     }
 
+    /**
+     * Limits the IO rate of every large merge of this engine to {@code mbPerSec}. Engines that don't merge ignore the limit.
+     */
+    public void setMergeIORateLimit(double mbPerSec) {}
+
+    /**
+     * Returns the number of running merges that are large enough to be IO throttled.
+     */
+    public int getLargeMergeCount() {
+        return 0;
+    }
+
     /** returns the history uuid for the engine */
     public abstract String getHistoryUUID();
 
@@ -632,6 +644,12 @@ public abstract class Engine implements Closeable {
                     );
                 }
 
+                @Override
+                public IndexReader.CacheKey getReaderCacheKey() {
+                    final IndexReader.CacheHelper cacheHelper = acquire.getReaderCacheHelper();
+                    return cacheHelper == null ? null : cacheHelper.getKey();
+                }
+
                 @Override
                 protected void doClose() {
                     try {
@@ -1216,6 +1234,15 @@ public abstract class Engine implements Closeable {
         public String getSearcherId() {
             return null;
         }
+
+        /**
+         * Returns the cache key of the reader that searchers are acquired on if it is known without acquiring a searcher. Two
+         * suppliers with the same key acquire searchers on the very same reader.
+         */
+        @Nullable
+        public IndexReader.CacheKey getReaderCacheKey() {
+            return null;
+        }
     }
 
     public static final class Searcher extends IndexSearcher implements Releasable {
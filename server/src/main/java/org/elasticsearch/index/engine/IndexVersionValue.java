@@ -11,22 +11,35 @@ package org.elasticsearch.index.engine;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.index.translog.Translog;
 
-import java.util.Objects;
-
 final class IndexVersionValue extends VersionValue {
 
     private static final long RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IndexVersionValue.class);
 
-    private final Translog.Location translogLocation;
+    /** marks a value without a translog location, translog generations are never negative */
+    private static final long NO_TRANSLOG_GENERATION = -1;
+
+    // the translog location is stored inline rather than as a Translog.Location to save an object per entry of the version map
+    private final long translogGeneration;
+    private final long translogOffset;
+    private final int translogSize;
 
     IndexVersionValue(Translog.Location translogLocation, long version, long seqNo, long term) {
         super(version, seqNo, term);
-        this.translogLocation = translogLocation;
+        if (translogLocation == null) {
+            this.translogGeneration = NO_TRANSLOG_GENERATION;
+            this.translogOffset = 0;
+            this.translogSize = 0;
+        } else {
+            assert translogLocation.generation >= 0 : translogLocation;
+            this.translogGeneration = translogLocation.generation;
+            this.translogOffset = translogLocation.translogLocation;
+            this.translogSize = translogLocation.size;
+        }
     }
 
     @Override
     public long ramBytesUsed() {
-        return RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(translogLocation);
+        return RAM_BYTES_USED;
     }
 
     @Override
@@ -35,21 +48,28 @@ final class IndexVersionValue extends VersionValue {
         if (o == null || getClass() != o.getClass()) return false;
         if (super.equals(o) == false) return false;
         IndexVersionValue that = (IndexVersionValue) o;
-        return Objects.equals(translogLocation, that.translogLocation);
+        return translogGeneration == that.translogGeneration && translogOffset == that.translogOffset && translogSize == that.translogSize;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), translogLocation);
+        int result = super.hashCode();
+        result = 31 * result + Long.hashCode(translogGeneration);
+        result = 31 * result + Long.hashCode(translogOffset);
+        result = 31 * result + translogSize;
+        return result;
     }
 
     @Override
     public String toString() {
-        return "IndexVersionValue{" + "version=" + version + ", seqNo=" + seqNo + ", term=" + term + ", location=" + translogLocation + '}';
+        return "IndexVersionValue{" + "version=" + version + ", seqNo=" + seqNo + ", term=" + term + ", location=" + getLocation() + '}';
     }
 
     @Override
     public Translog.Location getLocation() {
-        return translogLocation;
+        if (translogGeneration == NO_TRANSLOG_GENERATION) {
+            return null;
+        }
+        return new Translog.Location(translogGeneration, translogOffset, translogSize);
     }
 }
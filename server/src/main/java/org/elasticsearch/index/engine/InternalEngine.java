@@ -129,7 +129,7 @@ public class InternalEngine extends Engine {
 
     // A uid (in the form of BytesRef) to the version map
     // we use the hashed variant since we iterate over it and check removal and additions on existing keys
-    private final LiveVersionMap versionMap = new LiveVersionMap();
+    private final LiveVersionMap versionMap;
 
     private volatile SegmentInfos lastCommittedSegmentInfos;
 
@@ -178,6 +178,11 @@ public class InternalEngine extends Engine {
 
     private final int maxDocs;
 
+    /**
+     * Documents of append-only indices are never updated or deleted, see {@link IndexSettings#INDEX_APPEND_ONLY_SETTING}.
+     */
+    private final boolean appendOnly;
+
     @Nullable
     private final String historyUUID;
 
@@ -194,6 +199,9 @@ public class InternalEngine extends Engine {
     InternalEngine(EngineConfig engineConfig, int maxDocs, BiFunction<Long, Long, LocalCheckpointTracker> localCheckpointTrackerSupplier) {
         super(engineConfig);
         this.maxDocs = maxDocs;
+        this.appendOnly = engineConfig.getIndexSettings().isAppendOnly();
+        final ThreadPool.Info writeThreadPool = engineConfig.getThreadPool().info(ThreadPool.Names.WRITE);
+        this.versionMap = new LiveVersionMap(writeThreadPool == null ? 1 : writeThreadPool.getMax());
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -723,9 +731,10 @@ public class InternalEngine extends Engine {
                     if (get.isReadFromTranslog()) {
                         // this is only used for updates - API _GET calls will always read form a reader for consistency
                         // the update call doesn't need the consistency since it's source only + _parent but parent can go away in 7.0
-                        if (versionValue.getLocation() != null) {
+                        final Translog.Location location = versionValue.getLocation();
+                        if (location != null) {
                             try {
-                                final Translog.Operation operation = translog.readOperation(versionValue.getLocation());
+                                final Translog.Operation operation = translog.readOperation(location);
                                 if (operation != null) {
                                     return getFromTranslog(get, (Translog.Index) operation, mappingLookup, documentParser, searcherWrapper);
                                 }
@@ -1058,9 +1067,7 @@ public class InternalEngine extends Engine {
     protected final IndexingStrategy planIndexingAsNonPrimary(Index index) throws IOException {
         assert assertNonPrimaryOrigin(index);
         // needs to maintain the auto_id timestamp in case this replica becomes primary
-        if (canOptimizeAddDocument(index)) {
-            mayHaveBeenIndexedBefore(index);
-        }
+        final boolean mayHaveBeenIndexedBefore = canOptimizeAddDocument(index) == false || mayHaveBeenIndexedBefore(index);
         final IndexingStrategy plan;
         // unlike the primary, replicas don't really care to about creation status of documents
         // this allows to ignore the case where a document was found in the live version maps in
@@ -1079,6 +1086,11 @@ public class InternalEngine extends Engine {
             // see Engine#getMaxSeqNoOfUpdatesOrDeletes for the explanation of the optimization using sequence numbers
             assert maxSeqNoOfUpdatesOrDeletes < index.seqNo() : index.seqNo() + ">=" + maxSeqNoOfUpdatesOrDeletes;
             plan = IndexingStrategy.optimizedAppendOnly(index.version(), 0);
+        } else if (appendOnly && mayHaveBeenIndexedBefore == false) {
+            // documents of append-only indices are never updated or deleted, so the only other operations on the same auto-generated
+            // id are retries of this operation and those are flagged as such. Copies of this very operation that were delivered
+            // before, for instance by a recovery, are caught by the sequence number check above.
+            plan = IndexingStrategy.optimizedAppendOnly(index.version(), 0);
         } else {
             versionMap.enforceSafeAccess();
             final OpVsLuceneDocStatus opVsLucene = compareOpToLuceneDocBasedOnSeqNo(index);
@@ -1106,7 +1118,17 @@ public class InternalEngine extends Engine {
         final IndexingStrategy plan;
         // resolve an external operation into an internal one which is safe to replay
         final boolean canOptimizeAddDocument = canOptimizeAddDocument(index);
-        if (canOptimizeAddDocument && mayHaveBeenIndexedBefore(index) == false) {
+        if (appendOnly && canOptimizeAddDocument == false && isCreate(index) == false) {
+            plan = IndexingStrategy.failAsNotAppendOnly(
+                new IllegalArgumentException(
+                    "index ["
+                        + shardId.getIndexName()
+                        + "] is append-only, documents with id ["
+                        + index.id()
+                        + "] can only be created but not updated"
+                )
+            );
+        } else if (canOptimizeAddDocument && mayHaveBeenIndexedBefore(index) == false) {
             final Exception reserveError = tryAcquireInFlightDocs(index, reservingDocs);
             if (reserveError != null) {
                 plan = IndexingStrategy.failAsTooManyDocs(reserveError);
@@ -1229,6 +1251,15 @@ public class InternalEngine extends Engine {
             || index.origin() == Operation.Origin.LOCAL_RESET;
     }
 
+    /**
+     * Returns true if the operation only creates the document and fails if it exists already.
+     */
+    private static boolean isCreate(Index index) {
+        return index.versionType() == VersionType.INTERNAL
+            && index.version() == Versions.MATCH_DELETED
+            && index.getIfSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
+    }
+
     /**
      * returns true if the indexing operation may have already be processed by this engine.
      * Note that it is OK to rarely return true even if this is not the case. However a `false`
@@ -1345,6 +1376,11 @@ public class InternalEngine extends Engine {
             final IndexResult result = new IndexResult(e, Versions.NOT_FOUND);
             return new IndexingStrategy(false, false, false, false, Versions.NOT_FOUND, 0, result);
         }
+
+        static IndexingStrategy failAsNotAppendOnly(Exception e) {
+            final IndexResult result = new IndexResult(e, Versions.NOT_FOUND);
+            return new IndexingStrategy(false, false, false, false, Versions.NOT_FOUND, 0, result);
+        }
     }
 
     /**
@@ -1528,6 +1564,13 @@ public class InternalEngine extends Engine {
 
     private DeletionStrategy planDeletionAsPrimary(Delete delete) throws IOException {
         assert delete.origin() == Operation.Origin.PRIMARY : "planing as primary but got " + delete.origin();
+        if (appendOnly) {
+            return DeletionStrategy.failAsNotAppendOnly(
+                new IllegalArgumentException(
+                    "index [" + shardId.getIndexName() + "] is append-only, document with id [" + delete.id() + "] can't be deleted"
+                )
+            );
+        }
         // resolve operation from external to internal
         final VersionValue versionValue = resolveDocVersion(delete, delete.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO);
         assert incrementVersionLookup();
@@ -1690,6 +1733,17 @@ public class InternalEngine extends Engine {
             );
             return new DeletionStrategy(false, false, false, Versions.NOT_FOUND, 0, deleteResult);
         }
+
+        static DeletionStrategy failAsNotAppendOnly(Exception e) {
+            final DeleteResult deleteResult = new DeleteResult(
+                e,
+                Versions.NOT_FOUND,
+                SequenceNumbers.UNASSIGNED_PRIMARY_TERM,
+                SequenceNumbers.UNASSIGNED_SEQ_NO,
+                false
+            );
+            return new DeletionStrategy(false, false, false, Versions.NOT_FOUND, 0, deleteResult);
+        }
     }
 
     @Override
@@ -2380,10 +2434,10 @@ public class InternalEngine extends Engine {
             )
         );
         boolean shuffleForcedMerge = Booleans.parseBoolean(System.getProperty("es.shuffle_forced_merge", Boolean.TRUE.toString()));
-        if (shuffleForcedMerge) {
+        if (shuffleForcedMerge && engineConfig.getIndexSettings().isTimeOrderedMergePolicy() == false) {
             // We wrap the merge policy for all indices even though it is mostly useful for time-based indices
             // but there should be no overhead for other type of indices so it's simpler than adding a setting
-            // to enable it.
+            // to enable it. Indices with a time ordered merge policy keep their merged segments sorted by time instead.
             mergePolicy = new ShuffleForcedMergePolicy(mergePolicy);
         }
         iwc.setMergePolicy(mergePolicy);
@@ -2629,6 +2683,16 @@ public class InternalEngine extends Engine {
         return mergeScheduler.stats();
     }
 
+    @Override
+    public void setMergeIORateLimit(double mbPerSec) {
+        mergeScheduler.setMaxMBPerSec(mbPerSec);
+    }
+
+    @Override
+    public int getLargeMergeCount() {
+        return mergeScheduler.largeMergeCount();
+    }
+
     LocalCheckpointTracker getLocalCheckpointTracker() {
         return localCheckpointTracker;
     }
@@ -13,7 +13,6 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
-import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
@@ -21,11 +20,40 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /** Maps _uid value to its version information. */
 final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
-    private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
+    /**
+     * The number of locks that guard the uids per thread that can write to the shard. Two uids that hash to the same stripe can't be
+     * modified concurrently, so this is large enough for collisions between the write threads of a node to be rare while keeping the
+     * locks of a shard small: roughly 500 bytes for every write thread.
+     */
+    static final int LOCK_STRIPES_PER_WRITE_THREAD = 8;
+
+    /**
+     * Striped rather than one lock per uid so that locking doesn't allocate or hit a shared map for every operation, which is
+     * what the write threads contend on when many of them update the same shard.
+     */
+    private final UidLock[] uidLocks;
+    private final int stripeMask;
+
+    LiveVersionMap() {
+        this(1);
+    }
+
+    /**
+     * @param writeThreads the number of threads that can write to the shard concurrently, the number of uid locks is derived from it
+     */
+    LiveVersionMap(int writeThreads) {
+        final int stripes = Integer.highestOneBit(Math.max(1, writeThreads) * LOCK_STRIPES_PER_WRITE_THREAD - 1) << 1;
+        uidLocks = new UidLock[stripes];
+        for (int i = 0; i < uidLocks.length; i++) {
+            uidLocks[i] = new UidLock();
+        }
+        stripeMask = stripes - 1;
+    }
 
     private static final class VersionLookup {
 
@@ -383,11 +411,12 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             // we won't collect the tombstone below since it must be newer than this one.
             if (canRemoveTombstone(maxTimestampToPrune, maxSeqNoToPrune, entry.getValue())) {
                 final BytesRef uid = entry.getKey();
-                try (Releasable lock = keyedLock.tryAcquire(uid)) {
-                    // we use tryAcquire here since this is a best effort and we try to be least disruptive
-                    // this method is also called under lock in the engine under certain situations such that this can lead to deadlocks
-                    // if we do use a blocking acquire. see #28714
-                    if (lock != null) { // did we get the lock?
+                final UidLock lock = uidLock(uid);
+                // we use tryLock here since this is a best effort and we try to be least disruptive
+                // this method is also called under lock in the engine under certain situations such that this can lead to deadlocks
+                // if we do use a blocking acquire. see #28714
+                if (lock.tryLock(uid)) { // did we get the lock?
+                    try {
                         // Must re-get it here, vs using entry.getValue(), in case the uid was indexed/deleted since we pulled the iterator:
                         final DeleteVersionValue versionValue = tombstones.get(uid);
                         if (versionValue != null) {
@@ -395,6 +424,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
                                 removeTombstoneUnderLock(uid);
                             }
                         }
+                    } finally {
+                        lock.close();
                     }
                 }
             }
@@ -457,14 +488,74 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Acquires a releaseable lock for the given uId. All *UnderLock methods require
      * this lock to be hold by the caller otherwise the visibility guarantees of this version
      * map are broken. We assert on this lock to be hold when calling these methods.
-     * @see KeyedLock
+     * The lock is shared with all uids that hash to the same stripe, so callers must not
+     * acquire the lock of another uid while holding one.
      */
     Releasable acquireLock(BytesRef uid) {
-        return keyedLock.acquire(uid);
+        final UidLock lock = uidLock(uid);
+        lock.lock(uid);
+        return lock;
     }
 
     boolean assertKeyedLockHeldByCurrentThread(BytesRef uid) {
-        assert keyedLock.isHeldByCurrentThread(uid) : "Thread [" + Thread.currentThread().getName() + "], uid [" + uid.utf8ToString() + "]";
+        assert uidLock(uid).isHeldByCurrentThread(uid)
+            : "Thread [" + Thread.currentThread().getName() + "], uid [" + uid.utf8ToString() + "]";
         return true;
     }
+
+    /**
+     * The number of locks that guard the uids.
+     */
+    int lockStripes() {
+        return uidLocks.length;
+    }
+
+    private UidLock uidLock(BytesRef uid) {
+        // BytesRef#hashCode is a murmur3 hash so the low bits are well distributed
+        return uidLocks[uid.hashCode() & stripeMask];
+    }
+
+    private static final class UidLock extends ReentrantLock implements Releasable {
+        /**
+         * The uid the lock is held for, so that holding the lock of another uid on the same stripe doesn't count as holding the
+         * lock of this uid. Only accessed by the thread that holds the lock.
+         */
+        private BytesRef uid;
+
+        void lock(BytesRef uid) {
+            lock();
+            if (getHoldCount() == 1) {
+                this.uid = uid;
+            } else {
+                assert uid.equals(this.uid)
+                    : "acquired the lock of uid [" + uid.utf8ToString() + "] while holding [" + this.uid.utf8ToString() + "]";
+            }
+        }
+
+        boolean tryLock(BytesRef uid) {
+            if (tryLock() == false) {
+                return false;
+            }
+            if (getHoldCount() == 1) {
+                this.uid = uid;
+            } else if (uid.equals(this.uid) == false) {
+                // the current thread holds the stripe for another uid
+                unlock();
+                return false;
+            }
+            return true;
+        }
+
+        boolean isHeldByCurrentThread(BytesRef uid) {
+            return isHeldByCurrentThread() && uid.equals(this.uid);
+        }
+
+        @Override
+        public void close() {
+            if (getHoldCount() == 1) {
+                uid = null;
+            }
+            unlock();
+        }
+    }
 }
@@ -12,7 +12,7 @@ public final class ContentPath {
 
     private static final char DELIMITER = '.';
 
-    private final StringBuilder sb;
+    private StringBuilder sb;
 
     private final int offset;
 
@@ -29,13 +29,11 @@ public final class ContentPath {
      * number of path elements to not be included in {@link #pathAsText(String)}.
      */
     public ContentPath(int offset) {
-        this.sb = new StringBuilder();
         this.offset = offset;
         this.index = 0;
     }
 
     public ContentPath(String path) {
-        this.sb = new StringBuilder();
         this.offset = 0;
         this.index = 0;
         add(path);
@@ -55,6 +53,14 @@ public final class ContentPath {
     }
 
     public String pathAsText(String name) {
+        if (index <= offset) {
+            // top level field, nothing to prepend
+            return name;
+        }
+        if (sb == null) {
+            // most documents never build a path so only allocate the builder on demand
+            sb = new StringBuilder();
+        }
         sb.setLength(0);
         for (int i = offset; i < index; i++) {
             sb.append(path[i]).append(DELIMITER);
@@ -241,6 +241,52 @@ public final class DocumentParser {
         }
     }
 
+    /**
+     * Performs the same checks as {@link #splitAndValidatePath} without allocating the parts. This runs for every field of
+     * every document so it is worth the duplication.
+     */
+    private static void validatePath(String fullFieldPath) {
+        if (fullFieldPath.indexOf('.') < 0) {
+            if (Strings.isEmpty(fullFieldPath)) {
+                throw new IllegalArgumentException("field name cannot be an empty string");
+            }
+            return;
+        }
+        // String#split drops trailing empty parts
+        int end = fullFieldPath.length();
+        while (end > 0 && fullFieldPath.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0) {
+            throw new IllegalArgumentException("field name cannot contain only dots");
+        }
+        int start = 0;
+        while (start <= end) {
+            int dot = fullFieldPath.indexOf('.', start);
+            if (dot < 0 || dot > end) {
+                dot = end;
+            }
+            if (hasText(fullFieldPath, start, dot) == false) {
+                if (dot > start) {
+                    throw new IllegalArgumentException("object field cannot contain only whitespace: ['" + fullFieldPath + "']");
+                }
+                throw new IllegalArgumentException(
+                    "object field starting or ending with a [.] makes object resolution ambiguous: [" + fullFieldPath + "]"
+                );
+            }
+            start = dot + 1;
+        }
+    }
+
+    private static boolean hasText(String str, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isWhitespace(str.charAt(i)) == false) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Creates a Mapping containing any dynamically added fields, or returns null if there were no dynamic mappings.
      */
@@ -461,7 +507,7 @@ public final class DocumentParser {
         while (token != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.FIELD_NAME) {
                 currentFieldName = context.parser().currentName();
-                splitAndValidatePath(currentFieldName);
+                validatePath(currentFieldName);
             } else if (token == XContentParser.Token.START_OBJECT) {
                 parseObject(context, mapper, currentFieldName);
             } else if (token == XContentParser.Token.START_ARRAY) {
@@ -650,7 +696,7 @@ public final class DocumentParser {
     ) throws IOException {
         XContentParser parser = context.parser();
         XContentParser.Token token;
-        splitAndValidatePath(lastFieldName);
+        validatePath(lastFieldName);
         while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
             if (token == XContentParser.Token.START_OBJECT) {
                 parseObject(context, mapper, lastFieldName);
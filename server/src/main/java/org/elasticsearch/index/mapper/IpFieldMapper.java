@@ -460,13 +460,15 @@ public class IpFieldMapper extends FieldMapper {
             Field field = new InetAddressPoint(fieldType().name(), address);
             context.doc().add(field);
         }
+        // doc values and stored fields don't modify the bytes so they can share a single encoding
+        BytesRef encoded = hasDocValues || stored ? new BytesRef(InetAddressPoint.encode(address)) : null;
         if (hasDocValues) {
-            context.doc().add(new SortedSetDocValuesField(fieldType().name(), new BytesRef(InetAddressPoint.encode(address))));
+            context.doc().add(new SortedSetDocValuesField(fieldType().name(), encoded));
         } else if (stored || indexed) {
             context.addToFieldNames(fieldType().name());
         }
         if (stored) {
-            context.doc().add(new StoredField(fieldType().name(), new BytesRef(InetAddressPoint.encode(address))));
+            context.doc().add(new StoredField(fieldType().name(), encoded));
         }
     }
 
@@ -476,6 +476,22 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Returns all the completion fields.
+     */
+    public Iterable<MappedFieldType> getCompletionFields() {
+        DocumentMapper mapper = this.mapper;
+        if (mapper == null) {
+            return Collections.emptySet();
+        }
+        MappingLookup mappingLookup = mapper.mappers();
+        return mappingLookup.getMatchingFieldNames("*")
+            .stream()
+            .map(mappingLookup::getFieldType)
+            .filter(fieldType -> fieldType instanceof CompletionFieldMapper.CompletionFieldType)
+            .collect(Collectors.toList());
+    }
+
     /**
      * Return the index-time analyzer associated with a particular field
      * @param field                     the field name
@@ -85,7 +85,7 @@ public class FieldUsageStats implements ToXContentObject, Writeable {
         return builder;
     }
 
-    PerFieldUsageStats total() {
+    public PerFieldUsageStats total() {
         PerFieldUsageStats total = PerFieldUsageStats.EMPTY;
         for (PerFieldUsageStats value : stats.values()) {
             total = total.add(value);
@@ -0,0 +1,74 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.search.stats;
+
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.util.CollectionUtils;
+import org.elasticsearch.search.suggest.completion.CompletionQueryFieldStats;
+import org.elasticsearch.search.suggest.completion.CompletionStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the number of completion suggestions and the time spent on them per field of a shard.
+ */
+public class ShardCompletionQueryStats {
+
+    private final Map<String, PerFieldStats> perFieldStats = new ConcurrentHashMap<>();
+
+    /**
+     * Record a completion suggestion against {@code field} that took {@code tookInNanos}.
+     */
+    public void onQuery(String field, long tookInNanos) {
+        PerFieldStats stats = perFieldStats.computeIfAbsent(field, f -> new PerFieldStats());
+        stats.count.increment();
+        stats.timeInNanos.add(tookInNanos);
+    }
+
+    /**
+     * Add the query stats to the completion stats of the shard. The per field stats are only
+     * included if {@code fieldNamePatterns} is not empty, just like the memory stats.
+     */
+    public CompletionStats addTo(CompletionStats completionStats, String... fieldNamePatterns) {
+        long count = 0;
+        long timeInNanos = 0;
+        Map<String, CompletionQueryFieldStats.Stats> fieldStats = null;
+        if (CollectionUtils.isEmpty(fieldNamePatterns) == false) {
+            fieldStats = new HashMap<>();
+        }
+        for (Map.Entry<String, PerFieldStats> entry : perFieldStats.entrySet()) {
+            long fieldCount = entry.getValue().count.sum();
+            long fieldTimeInNanos = entry.getValue().timeInNanos.sum();
+            count += fieldCount;
+            timeInNanos += fieldTimeInNanos;
+            if (fieldStats != null && Regex.simpleMatch(fieldNamePatterns, entry.getKey())) {
+                fieldStats.put(
+                    entry.getKey(),
+                    new CompletionQueryFieldStats.Stats(fieldCount, TimeUnit.NANOSECONDS.toMillis(fieldTimeInNanos))
+                );
+            }
+        }
+        return new CompletionStats(
+            completionStats.getSizeInBytes(),
+            completionStats.getFields(),
+            count,
+            TimeUnit.NANOSECONDS.toMillis(timeInNanos),
+            fieldStats == null ? null : new CompletionQueryFieldStats(fieldStats)
+        );
+    }
+
+    private static class PerFieldStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder timeInNanos = new LongAdder();
+    }
+}
@@ -115,6 +115,7 @@ import org.elasticsearch.index.recovery.RecoveryStats;
 import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.FieldUsageStats;
 import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.search.stats.ShardCompletionQueryStats;
 import org.elasticsearch.index.search.stats.ShardFieldUsageTracker;
 import org.elasticsearch.index.search.stats.ShardSearchStats;
 import org.elasticsearch.index.seqno.ReplicationTracker;
@@ -200,6 +201,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final InternalIndexingStats internalIndexingStats;
     private final ShardSearchStats searchStats = new ShardSearchStats();
     private final ShardFieldUsageTracker fieldUsageTracker;
+    private final ShardCompletionQueryStats completionQueryStats = new ShardCompletionQueryStats();
     private final String shardUuid = UUIDs.randomBase64UUID();
     private final long shardCreationTime;
     private final ShardGetService getService;
@@ -286,6 +288,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RefreshListeners refreshListeners;
 
     private final AtomicLong lastSearcherAccess = new AtomicLong();
+    private volatile long lastScheduledRefreshMillis;
+    private volatile long writeCountAtLastScheduledRefresh;
     private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
     private final RefreshPendingLocationListener refreshPendingLocationListener;
     private volatile boolean useRetentionLeasesInPeerRecovery;
@@ -395,6 +399,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         readerWrapper = indexReaderWrapper;
         refreshListeners = buildRefreshListeners();
         lastSearcherAccess.set(threadPool.relativeTimeInMillis());
+        lastScheduledRefreshMillis = threadPool.relativeTimeInMillis();
         persistMetadata(path, indexSettings, shardRouting, null, logger);
         this.useRetentionLeasesInPeerRecovery = replicationTracker.hasAllPeerRecoveryRetentionLeases();
         this.refreshPendingLocationListener = new RefreshPendingLocationListener();
@@ -886,6 +891,32 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long ifPrimaryTerm,
         long autoGeneratedTimestamp,
         boolean isRetry
+    ) throws IOException {
+        return applyIndexOperationOnPrimary(
+            version,
+            versionType,
+            sourceToParse,
+            ifSeqNo,
+            ifPrimaryTerm,
+            autoGeneratedTimestamp,
+            isRetry,
+            null
+        );
+    }
+
+    /**
+     * Index a document on the primary. If {@code parsedDocument} is not {@code null} it must be the result of parsing
+     * {@code sourceToParse} with the current {@link DocumentMapper} of this shard and it is indexed instead of parsing the source again.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(
+        long version,
+        VersionType versionType,
+        SourceToParse sourceToParse,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        long autoGeneratedTimestamp,
+        boolean isRetry,
+        @Nullable ParsedDocument parsedDocument
     ) throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(
@@ -899,7 +930,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimestamp,
             isRetry,
             Engine.Operation.Origin.PRIMARY,
-            sourceToParse
+            sourceToParse,
+            parsedDocument
         );
     }
 
@@ -922,7 +954,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimeStamp,
             isRetry,
             Engine.Operation.Origin.REPLICA,
-            sourceToParse
+            sourceToParse,
+            null
         );
     }
 
@@ -937,7 +970,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long autoGeneratedTimeStamp,
         boolean isRetry,
         Engine.Operation.Origin origin,
-        SourceToParse sourceToParse
+        SourceToParse sourceToParse,
+        @Nullable ParsedDocument parsedDocument
     ) throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
             : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
@@ -955,7 +989,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 autoGeneratedTimeStamp,
                 isRetry,
                 ifSeqNo,
-                ifPrimaryTerm
+                ifPrimaryTerm,
+                parsedDocument
             );
             Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
             if (update != null) {
@@ -985,6 +1020,36 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         boolean isRetry,
         long ifSeqNo,
         long ifPrimaryTerm
+    ) {
+        return prepareIndex(
+            mapperService,
+            source,
+            seqNo,
+            primaryTerm,
+            version,
+            versionType,
+            origin,
+            autoGeneratedIdTimestamp,
+            isRetry,
+            ifSeqNo,
+            ifPrimaryTerm,
+            null
+        );
+    }
+
+    private static Engine.Index prepareIndex(
+        MapperService mapperService,
+        SourceToParse source,
+        long seqNo,
+        long primaryTerm,
+        long version,
+        VersionType versionType,
+        Engine.Operation.Origin origin,
+        long autoGeneratedIdTimestamp,
+        boolean isRetry,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        @Nullable ParsedDocument parsedDocument
     ) {
         long startTime = System.nanoTime();
         assert source.dynamicTemplates().isEmpty() || origin == Engine.Operation.Origin.PRIMARY
@@ -995,7 +1060,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             documentMapper = DocumentMapper.createEmpty(mapperService);
             mapping = documentMapper.mapping();
         }
-        ParsedDocument doc = documentMapper.parse(source);
+        assert parsedDocument == null || mapping == null : "documents can't be parsed ahead without a mapping";
+        ParsedDocument doc = parsedDocument != null ? parsedDocument : documentMapper.parse(source);
         if (mapping != null) {
             // If we are indexing but there is no mapping we create one. This is to ensure that whenever at least a document is indexed
             // some mappings do exist. It covers for the case of indexing an empty doc (`{}`).
@@ -1328,7 +1394,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     public CompletionStats completionStats(String... fields) {
         readAllowed();
-        return getEngine().completionStats(fields);
+        return completionQueryStats.addTo(getEngine().completionStats(fields), fields);
+    }
+
+    /**
+     * Records the completion suggestions executed against this shard.
+     */
+    public ShardCompletionQueryStats completionQueryStats() {
+        return completionQueryStats;
     }
 
     public BulkStats bulkStats() {
@@ -1799,7 +1872,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     index.getAutoGeneratedIdTimestamp(),
                     true,
                     origin,
-                    new SourceToParse(index.id(), index.source(), XContentHelper.xContentType(index.source()), index.routing(), Map.of())
+                    new SourceToParse(index.id(), index.source(), XContentHelper.xContentType(index.source()), index.routing(), Map.of()),
+                    null
                 );
                 break;
             case DELETE:
@@ -2382,6 +2456,24 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
     }
 
+    /**
+     * Limits the IO rate of every large merge of this shard to {@code mbPerSec}.
+     */
+    public void setMergeIORateLimit(double mbPerSec) {
+        final Engine engine = getEngineOrNull();
+        if (engine != null) {
+            engine.setMergeIORateLimit(mbPerSec);
+        }
+    }
+
+    /**
+     * Returns the number of running merges of this shard that are large enough to be IO throttled.
+     */
+    public int getLargeMergeCount() {
+        final Engine engine = getEngineOrNull();
+        return engine == null ? 0 : engine.getLargeMergeCount();
+    }
+
     private void handleRefreshException(Exception e) {
         if (e instanceof AlreadyClosedException) {
             // ignore
@@ -3769,10 +3861,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
                 setRefreshPending(engine);
                 return false;
+            } else if (listenerNeedsRefresh == false && isBusyIndexing()) {
+                // nobody is waiting for the changes to become visible so we let them pile up into fewer, larger segments
+                // while indexing is busy. searches see the changes once the shard calms down or the max interval passed.
+                final Engine engine = getEngine();
+                engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
+                return false;
             } else {
                 if (logger.isTraceEnabled()) {
                     logger.trace("refresh with source [schedule]");
                 }
+                lastScheduledRefreshMillis = threadPool.relativeTimeInMillis();
+                writeCountAtLastScheduledRefresh = internalIndexingStats.writeCount();
                 return getEngine().maybeRefresh("schedule");
             }
         }
@@ -3781,6 +3881,29 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return false;
     }
 
+    /**
+     * Returns true if this shard should skip its scheduled refresh because it is busy indexing. That is the case if the
+     * shard is throttled because its indexing buffers use too much memory or if it executed more than
+     * {@link IndexSettings#getRefreshBusyIndexingRate()} writes per second since its last scheduled refresh. Scheduled
+     * refreshes are skipped for at most {@link IndexSettings#getRefreshMaxInterval()}.
+     */
+    final boolean isBusyIndexing() {
+        final long refreshIntervalMillis = indexSettings.getRefreshInterval().millis();
+        final long maxIntervalMillis = indexSettings.getRefreshMaxInterval().millis();
+        if (refreshIntervalMillis <= 0 || maxIntervalMillis <= refreshIntervalMillis) {
+            return false;
+        }
+        final long sinceLastRefreshMillis = threadPool.relativeTimeInMillis() - lastScheduledRefreshMillis;
+        if (sinceLastRefreshMillis >= maxIntervalMillis) {
+            return false;
+        }
+        if (getEngine().isThrottled()) {
+            return true;
+        }
+        final long writes = internalIndexingStats.writeCount() - writeCountAtLastScheduledRefresh;
+        return writes * 1000 > indexSettings.getRefreshBusyIndexingRate() * Math.max(sinceLastRefreshMillis, 1L);
+    }
+
     /**
      * Returns true if this shards is search idle
      */
@@ -32,6 +32,13 @@ final class InternalIndexingStats implements IndexingOperationListener {
         return new IndexingStats(total);
     }
 
+    /**
+     * Returns the number of index and delete operations that were executed, excluding those from recoveries.
+     */
+    long writeCount() {
+        return totalStats.indexMetric.count() + totalStats.deleteMetric.count();
+    }
+
     @Override
     public Engine.Index preIndex(ShardId shardId, Engine.Index operation) {
         if (operation.origin().isRecovery() == false) {
@@ -0,0 +1,178 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.threadpool.Scheduler.Cancellable;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPool.Names;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Shares a node wide disk bandwidth budget between the large merges of all shards on this node. Every shard schedules its merges
+ * independently, so without a shared budget a node with many shards that all merge at the same time can saturate its disks and
+ * slow down searches. Small merges are never throttled so they keep the segment counts low. While searches queue up on the
+ * search thread pool the budget is halved, and it recovers step by step once the searches catch up again.
+ */
+public class MergeBandwidthController implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(MergeBandwidthController.class);
+
+    /** The disk bandwidth all large merges on this node may use together. {@code 0}, the default, disables the budget. */
+    public static final Setting<ByteSizeValue> MAX_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.merge.max_bytes_per_sec",
+        new ByteSizeValue(0),
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /** How frequently the budget is redistributed between the running merges (default: 1 second). */
+    public static final Setting<TimeValue> INTERVAL_SETTING = Setting.positiveTimeSetting(
+        "indices.merge.interval",
+        TimeValue.timeValueSeconds(1),
+        Property.NodeScope
+    );
+
+    /** A single merge never gets less than this, same as the lower bound of Lucene's auto IO throttle. */
+    static final double MIN_MB_PER_SEC = 5.0;
+
+    /** The smallest fraction of the budget merges get while searches are queued. */
+    static final double MIN_BACKOFF = 0.125;
+
+    /** How much of the budget is given back to merges per interval without queued searches. */
+    static final double BACKOFF_RECOVERY = 0.125;
+
+    private static final EnumSet<IndexShardState> CAN_MERGE_STATES = EnumSet.of(
+        IndexShardState.RECOVERING,
+        IndexShardState.POST_RECOVERY,
+        IndexShardState.STARTED
+    );
+
+    private final ThreadPool threadPool;
+    private final Iterable<IndexShard> indexShards;
+    private final Cancellable scheduler;
+
+    private volatile long maxBytesPerSec;
+    /** The fraction of the budget that merges currently get, lowered while searches are queued. */
+    private double backoff = 1.0;
+    /** Whether the shards were limited in the last round and need to be released once the budget is disabled. */
+    private boolean limited;
+
+    MergeBandwidthController(
+        Settings settings,
+        ClusterSettings clusterSettings,
+        ThreadPool threadPool,
+        Iterable<IndexShard> indexShards
+    ) {
+        this.threadPool = threadPool;
+        this.indexShards = indexShards;
+        this.maxBytesPerSec = MAX_BYTES_PER_SEC_SETTING.get(settings).getBytes();
+        clusterSettings.addSettingsUpdateConsumer(MAX_BYTES_PER_SEC_SETTING, this::setMaxBytesPerSec);
+        TimeValue interval = INTERVAL_SETTING.get(settings);
+        this.scheduler = scheduleTask(threadPool, interval);
+    }
+
+    protected Cancellable scheduleTask(ThreadPool threadPool, TimeValue interval) {
+        // it's fine to run it on the scheduler thread, no busy work
+        return threadPool.scheduleWithFixedDelay(this::distributeBudget, interval, Names.SAME);
+    }
+
+    private void setMaxBytesPerSec(ByteSizeValue maxBytesPerSec) {
+        this.maxBytesPerSec = maxBytesPerSec.getBytes();
+    }
+
+    @Override
+    public void close() {
+        scheduler.cancel();
+    }
+
+    protected List<IndexShard> availableShards() {
+        List<IndexShard> availableShards = new ArrayList<>();
+        for (IndexShard shard : indexShards) {
+            if (CAN_MERGE_STATES.contains(shard.state())) {
+                availableShards.add(shard);
+            }
+        }
+        return availableShards;
+    }
+
+    /** returns true if searches are waiting for a thread of the search thread pool */
+    protected boolean searchesQueued() {
+        final ExecutorService executor = threadPool.executor(Names.SEARCH);
+        return executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).getQueue().isEmpty() == false;
+    }
+
+    /**
+     * Splits the budget evenly between the large merges that are currently running on this node.
+     */
+    synchronized void distributeBudget() {
+        final long budget = maxBytesPerSec;
+        final List<IndexShard> shards = availableShards();
+        if (budget <= 0) {
+            if (limited) {
+                limited = false;
+                backoff = 1.0;
+                for (IndexShard shard : shards) {
+                    setMergeIORateLimit(shard, Double.POSITIVE_INFINITY);
+                }
+            }
+            return;
+        }
+        limited = true;
+        if (searchesQueued()) {
+            backoff = Math.max(MIN_BACKOFF, backoff / 2);
+        } else {
+            backoff = Math.min(1.0, backoff + BACKOFF_RECOVERY);
+        }
+        int largeMerges = 0;
+        for (IndexShard shard : shards) {
+            largeMerges += getLargeMergeCount(shard);
+        }
+        final double mbPerSec = Math.max(MIN_MB_PER_SEC, budget * backoff / Math.max(1, largeMerges) / 1024 / 1024);
+        if (logger.isTraceEnabled()) {
+            logger.trace("limiting [{}] large merges to [{}] MB/sec each, backoff [{}]", largeMerges, mbPerSec, backoff);
+        }
+        for (IndexShard shard : shards) {
+            setMergeIORateLimit(shard, mbPerSec);
+        }
+    }
+
+    protected int getLargeMergeCount(IndexShard shard) {
+        return shard.getLargeMergeCount();
+    }
+
+    protected void setMergeIORateLimit(IndexShard shard, double mbPerSec) {
+        try {
+            shard.setMergeIORateLimit(mbPerSec);
+        } catch (AlreadyClosedException e) {
+            // ignore, the shard is closing
+        }
+    }
+
+    /** returns the fraction of the budget that merges currently get */
+    synchronized double backoff() {
+        return backoff;
+    }
+}
@@ -10,6 +10,7 @@ package org.elasticsearch.ingest;
 
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.util.LazyMap;
+import org.elasticsearch.common.xcontent.LazySourceMap;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.IndexFieldMapper;
@@ -54,8 +55,13 @@ public final class IngestDocument {
     private final Set<String> executedPipelines = new LinkedHashSet<>();
 
     public IngestDocument(String index, String id, String routing, Long version, VersionType versionType, Map<String, Object> source) {
-        this.sourceAndMetadata = new HashMap<>();
-        this.sourceAndMetadata.putAll(source);
+        if (source instanceof LazySourceMap) {
+            // keep the fields that are never read unparsed
+            this.sourceAndMetadata = source;
+        } else {
+            this.sourceAndMetadata = new HashMap<>();
+            this.sourceAndMetadata.putAll(source);
+        }
         this.sourceAndMetadata.put(Metadata.INDEX.getFieldName(), index);
         this.sourceAndMetadata.put(Metadata.ID.getFieldName(), id);
         if (routing != null) {
@@ -327,20 +327,24 @@ public final class RepositoryData {
      * @return List of indices that are changed but not removed
      */
     public List<IndexId> indicesToUpdateAfterRemovingSnapshot(Collection<SnapshotId> snapshotIds) {
+        final Set<SnapshotId> toRemove = new HashSet<>(snapshotIds);
         return indexSnapshots.entrySet().stream().filter(entry -> {
-            final Collection<SnapshotId> existingIds = entry.getValue();
-            if (snapshotIds.containsAll(existingIds)) {
-                return existingIds.size() > snapshotIds.size();
-            }
-            for (SnapshotId snapshotId : snapshotIds) {
-                if (entry.getValue().contains(snapshotId)) {
-                    return true;
-                }
-            }
-            return false;
+            // indices that only contain removed snapshots are removed completely rather than updated
+            final int removed = countContained(entry.getValue(), toRemove);
+            return removed > 0 && removed < entry.getValue().size();
         }).map(Map.Entry::getKey).collect(Collectors.toList());
     }
 
+    private static int countContained(List<SnapshotId> snapshotIds, Set<SnapshotId> toCount) {
+        int count = 0;
+        for (SnapshotId snapshotId : snapshotIds) {
+            if (toCount.contains(snapshotId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Returns a map of {@link IndexId} to a collection of {@link String} containing all the {@link IndexId} and the
      * {@link IndexMetadata} blob name in it that can be removed after removing the given snapshot from the repository.
@@ -351,9 +355,10 @@ public final class RepositoryData {
      */
     public Map<IndexId, Collection<String>> indexMetaDataToRemoveAfterRemovingSnapshots(Collection<SnapshotId> snapshotIds) {
         Collection<IndexId> indicesForSnapshot = indicesToUpdateAfterRemovingSnapshot(snapshotIds);
+        final Set<SnapshotId> toRemove = new HashSet<>(snapshotIds);
         final Set<String> allRemainingIdentifiers = indexMetaDataGenerations.lookup.entrySet()
             .stream()
-            .filter(e -> snapshotIds.contains(e.getKey()) == false)
+            .filter(e -> toRemove.contains(e.getKey()) == false)
             .flatMap(e -> e.getValue().values().stream())
             .map(indexMetaDataGenerations::getIndexMetaBlobId)
             .collect(Collectors.toSet());
@@ -399,10 +404,15 @@ public final class RepositoryData {
         Map<String, SnapshotDetails> newSnapshotDetails = new HashMap<>(snapshotsDetails);
         newSnapshotDetails.put(snapshotId.getUUID(), details);
         Map<IndexId, List<SnapshotId>> allIndexSnapshots = new HashMap<>(indexSnapshots);
+        Map<String, IndexId> allIndices = indices;
         for (final IndexId indexId : shardGenerations.indices()) {
             final List<SnapshotId> snapshotIds = allIndexSnapshots.get(indexId);
             if (snapshotIds == null) {
                 allIndexSnapshots.put(indexId, List.of(snapshotId));
+                if (allIndices == indices) {
+                    allIndices = new HashMap<>(indices);
+                }
+                allIndices.put(indexId.getName(), indexId);
             } else {
                 allIndexSnapshots.put(indexId, CollectionUtils.appendToCopy(snapshotIds, snapshotId));
             }
@@ -423,12 +433,14 @@ public final class RepositoryData {
             newIndexMetaGenerations = indexMetaDataGenerations.withAddedSnapshot(snapshotId, indexMetaBlobs, newIdentifiers);
         }
 
+        // only the indices of the new snapshot are updated, the rest of the instance is shared with this one
         return new RepositoryData(
             uuid,
             genId,
-            snapshots,
-            newSnapshotDetails,
-            allIndexSnapshots,
+            Collections.unmodifiableMap(snapshots),
+            Collections.unmodifiableMap(newSnapshotDetails),
+            allIndices == indices ? indices : Collections.unmodifiableMap(allIndices),
+            Collections.unmodifiableMap(allIndexSnapshots),
             ShardGenerations.builder().putAll(this.shardGenerations).putAll(shardGenerations).build(),
             newIndexMetaGenerations,
             clusterUUID
@@ -500,9 +512,10 @@ public final class RepositoryData {
      *                                changed shard indexed by its shardId
      */
     public RepositoryData removeSnapshots(final Collection<SnapshotId> snapshots, final ShardGenerations updatedShardGenerations) {
+        final Set<SnapshotId> toRemove = new HashSet<>(snapshots);
         Map<String, SnapshotId> newSnapshotIds = snapshotIds.values()
             .stream()
-            .filter(Predicate.not(snapshots::contains))
+            .filter(Predicate.not(toRemove::contains))
             .collect(Collectors.toMap(SnapshotId::getUUID, Function.identity()));
         if (newSnapshotIds.size() != snapshotIds.size() - snapshots.size()) {
             final Collection<SnapshotId> notFound = new HashSet<>(snapshots);
@@ -517,11 +530,12 @@ public final class RepositoryData {
         for (final IndexId indexId : indices.values()) {
             List<SnapshotId> snapshotIds = this.indexSnapshots.get(indexId);
             assert snapshotIds != null;
-            List<SnapshotId> remaining = new ArrayList<>(snapshotIds);
-            if (remaining.removeAll(snapshots)) {
+            List<SnapshotId> remaining = snapshotIds;
+            // only copy the snapshots of the indices that are actually affected
+            if (countContained(snapshotIds, toRemove) > 0) {
+                remaining = new ArrayList<>(snapshotIds);
+                remaining.removeIf(toRemove::contains);
                 remaining = Collections.unmodifiableList(remaining);
-            } else {
-                remaining = snapshotIds;
             }
             if (remaining.isEmpty() == false) {
                 indexSnapshots.put(indexId, remaining);
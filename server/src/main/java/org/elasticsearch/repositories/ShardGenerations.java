@@ -22,7 +22,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Represents the current {@link ShardGeneration} for each shard in a repository.
@@ -175,6 +174,12 @@ public final class ShardGenerations {
 
         private final Map<IndexId, Map<Integer, ShardGeneration>> generations = new HashMap<>();
 
+        /**
+         * Generations of indices that were added through {@link #putAll} and not modified since, these lists are reused as they are
+         * by {@link #build} so that adding a few shards to a large {@link ShardGenerations} instance doesn't rebuild all of it.
+         */
+        private final Map<IndexId, List<ShardGeneration>> unmodified = new HashMap<>();
+
         /**
          * Filters out all generations that don't belong to any of the supplied {@code indices} and prunes all {@link #DELETED_SHARD_GEN}
          * entries from the builder.
@@ -183,6 +188,12 @@ public final class ShardGenerations {
          * @return builder that contains only the given {@code indices} and no {@link #DELETED_SHARD_GEN} entries
          */
         public Builder retainIndicesAndPruneDeletes(Set<IndexId> indices) {
+            unmodified.keySet().retainAll(indices);
+            for (IndexId index : List.copyOf(unmodified.keySet())) {
+                if (unmodified.get(index).contains(DELETED_SHARD_GEN)) {
+                    materialize(index);
+                }
+            }
             generations.keySet().retainAll(indices);
             for (IndexId index : indices) {
                 final Map<Integer, ShardGeneration> shards = generations.getOrDefault(index, Collections.emptyMap());
@@ -203,6 +214,14 @@ public final class ShardGenerations {
 
         public Builder putAll(ShardGenerations shardGenerations) {
             shardGenerations.shardGenerations.forEach((indexId, gens) -> {
+                // a list that ends with a generation is exactly what build() would create from its non-null generations
+                if (gens.isEmpty() == false
+                    && gens.get(gens.size() - 1) != null
+                    && generations.containsKey(indexId) == false
+                    && unmodified.containsKey(indexId) == false) {
+                    unmodified.put(indexId, gens);
+                    return;
+                }
                 for (int i = 0; i < gens.size(); i++) {
                     final ShardGeneration gen = gens.get(i);
                     if (gen != null) {
@@ -219,23 +238,42 @@ public final class ShardGenerations {
         }
 
         public Builder put(IndexId indexId, int shardId, ShardGeneration generation) {
+            materialize(indexId);
             ShardGeneration existingGeneration = generations.computeIfAbsent(indexId, i -> new HashMap<>()).put(shardId, generation);
             assert generation != null || existingGeneration == null
                 : "must not overwrite existing generation with null generation [" + existingGeneration + "]";
             return this;
         }
 
+        /**
+         * Moves the generations of the given index from {@link #unmodified} to {@link #generations} so that they can be changed.
+         */
+        private void materialize(IndexId indexId) {
+            final List<ShardGeneration> gens = unmodified.remove(indexId);
+            if (gens != null) {
+                final Map<Integer, ShardGeneration> shards = new HashMap<>();
+                for (int i = 0; i < gens.size(); i++) {
+                    if (gens.get(i) != null) {
+                        shards.put(i, gens.get(i));
+                    }
+                }
+                generations.put(indexId, shards);
+            }
+        }
+
         public ShardGenerations build() {
-            return new ShardGenerations(generations.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> {
-                final Set<Integer> shardIds = entry.getValue().keySet();
+            final Map<IndexId, List<ShardGeneration>> result = new HashMap<>(unmodified);
+            generations.forEach((indexId, shards) -> {
+                final Set<Integer> shardIds = shards.keySet();
                 assert shardIds.isEmpty() == false;
                 final int size = shardIds.stream().mapToInt(i -> i).max().getAsInt() + 1;
                 // Create a list that can hold the highest shard id as index and leave null values for shards that don't have
                 // a map entry.
                 final ShardGeneration[] gens = new ShardGeneration[size];
-                entry.getValue().forEach((shardId, generation) -> gens[shardId] = generation);
-                return Collections.unmodifiableList(Arrays.asList(gens));
-            })));
+                shards.forEach((shardId, generation) -> gens[shardId] = generation);
+                result.put(indexId, Collections.unmodifiableList(Arrays.asList(gens)));
+            });
+            return new ShardGenerations(result);
         }
     }
 }
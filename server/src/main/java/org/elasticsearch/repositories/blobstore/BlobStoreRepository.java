@@ -52,9 +52,12 @@ import org.elasticsearch.common.blobstore.BlobMetadata;
 import org.elasticsearch.common.blobstore.BlobPath;
 import org.elasticsearch.common.blobstore.BlobStore;
 import org.elasticsearch.common.blobstore.DeleteResult;
+import org.elasticsearch.common.blobstore.MultipartBlobWrite;
 import org.elasticsearch.common.blobstore.fs.FsBlobContainer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
 import org.elasticsearch.common.io.Streams;
@@ -73,6 +76,7 @@ import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardRestoreFailedException;
@@ -127,17 +131,21 @@ import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -145,6 +153,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -231,6 +240,49 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         Setting.Property.NodeScope
     );
 
+    /**
+     * Size of the parts in which large files are uploaded concurrently to repositories that support multipart writes. Files that
+     * are smaller than {@link #MULTIPART_WRITE_MIN_PARTS} parts are uploaded with a single stream.
+     * <p>
+     * Every file that is uploaded in parts buffers up to {@link #MULTIPART_WRITE_MAX_CONCURRENCY} parts on heap and there is at most
+     * one such file per snapshot thread, so a node buffers at most {@code 4 * part size * snapshot threads} bytes: 160mb with the
+     * default of 8mb and the default maximum of 5 snapshot threads. The part size is capped at 64mb, which bounds this at 256mb per
+     * snapshot thread.
+     */
+    public static final Setting<ByteSizeValue> MULTIPART_WRITE_PART_SIZE_SETTING = Setting.byteSizeSetting(
+        "multipart_write_part_size",
+        ByteSizeValue.parseBytesSizeValue("8mb", "multipart_write_part_size"),
+        ByteSizeValue.parseBytesSizeValue("1mb", "multipart_write_part_size"),
+        ByteSizeValue.parseBytesSizeValue("64mb", "multipart_write_part_size"),
+        Setting.Property.NodeScope
+    );
+
+    static final int MULTIPART_WRITE_MIN_PARTS = 4;
+
+    /**
+     * The maximum number of parts of a single file that are buffered in memory and uploaded concurrently.
+     */
+    static final int MULTIPART_WRITE_MAX_CONCURRENCY = 4;
+
+    /*
+     * The node-local caches of each repository are bounded by their number of entries. An entry of the known data blobs holds the file
+     * metadata of a shard snapshot (name, length, checksum, writer uuid and part names) and takes roughly 500 bytes of heap, an entry of
+     * the shard snapshot statuses roughly 200 bytes. With 10,000 entries each the two caches use at most about 7mb per repository.
+     */
+    private static final int KNOWN_DATA_BLOBS_CACHE_SIZE = 10_000;
+
+    private static final int SHARD_SNAPSHOT_STATUS_CACHE_SIZE = 10_000;
+
+    private static final TimeValue SHARD_SNAPSHOT_STATUS_CACHE_EXPIRE = TimeValue.timeValueMinutes(5L);
+
+    /**
+     * Files of at least {@link #CONCURRENT_RESTORE_MAX_RANGES} ranges of this size are restored by downloading up to
+     * {@link #CONCURRENT_RESTORE_MAX_RANGES} ranges concurrently.
+     */
+    static final int CONCURRENT_RESTORE_RANGE_SIZE = ByteSizeUnit.MB.toIntBytes(8);
+
+    static final int CONCURRENT_RESTORE_MAX_RANGES = 4;
+
     /**
      * Setting to disable writing the {@code index.latest} blob which enables the contents of this repository to be used with a
      * url-repository.
@@ -370,6 +422,31 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     protected final int bufferSize;
 
+    private final int multipartWritePartSize;
+
+    /**
+     * Data blobs of the files that shard snapshots on this node recently uploaded or reused, by file name, length and checksum.
+     * Indices that share segment files with other indices, like shrunk, split and cloned indices which hard-link the files of their
+     * source shards on the same node, can copy these blobs within the repository instead of uploading the same contents again. This
+     * is only used for blob containers that support copying blobs between each other and it is only a hint, copying falls back to
+     * uploading the file if the blob was deleted in the meantime.
+     */
+    private final Cache<String, Tuple<BlobContainer, BlobStoreIndexShardSnapshot.FileInfo>> knownDataBlobs = CacheBuilder
+        .<String, Tuple<BlobContainer, BlobStoreIndexShardSnapshot.FileInfo>>builder()
+        .setMaximumWeight(KNOWN_DATA_BLOBS_CACHE_SIZE)
+        .build();
+
+    /**
+     * Status of the shard snapshots that were recently loaded from the repository, by index id, shard id and snapshot uuid. Shard snapshot
+     * blobs are never modified once written, so repeated snapshot status requests can be served from this cache rather than reading the
+     * same blobs again. Entries expire quickly so that the status of deleted snapshots isn't kept around.
+     */
+    private final Cache<String, IndexShardSnapshotStatus.Copy> shardSnapshotStatuses = CacheBuilder
+        .<String, IndexShardSnapshotStatus.Copy>builder()
+        .setMaximumWeight(SHARD_SNAPSHOT_STATUS_CACHE_SIZE)
+        .setExpireAfterWrite(SHARD_SNAPSHOT_STATUS_CACHE_EXPIRE)
+        .build();
+
     /**
      * Maximum number of snapshots that this repository can hold.
      */
@@ -400,6 +477,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         readOnly = metadata.settings().getAsBoolean(READONLY_SETTING_KEY, false);
         cacheRepositoryData = CACHE_REPOSITORY_DATA.get(metadata.settings());
         bufferSize = Math.toIntExact(BUFFER_SIZE_SETTING.get(metadata.settings()).getBytes());
+        multipartWritePartSize = Math.toIntExact(MULTIPART_WRITE_PART_SIZE_SETTING.get(metadata.settings()).getBytes());
         this.namedXContentRegistry = namedXContentRegistry;
         this.basePath = basePath;
         this.maxSnapshotCount = MAX_SNAPSHOTS_SETTING.get(metadata.settings());
@@ -2743,12 +2821,14 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         assert needsWrite || assertFileContentsMatchHash(snapshotStatus, snapshotFileInfo, store);
                     } else {
                         indexCommitPointFiles.add(existingFileInfo);
+                        rememberDataBlob(shardContainer, existingFileInfo);
                     }
                 }
             } else {
                 for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : filesFromSegmentInfos) {
                     indexTotalNumberOfFiles++;
                     indexTotalFileSize += fileInfo.length();
+                    rememberDataBlob(shardContainer, fileInfo);
                 }
                 indexCommitPointFiles = filesFromSegmentInfos;
             }
@@ -3020,7 +3100,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(),
                             snapshotFiles.indexFiles().size()
                         );
-                        final BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> files = new LinkedBlockingQueue<>(filesToRecover);
+                        // start with the largest files so that the restore doesn't end with a single large download
+                        final List<BlobStoreIndexShardSnapshot.FileInfo> sortedFiles = new ArrayList<>(filesToRecover);
+                        sortedFiles.sort(Comparator.comparingLong(BlobStoreIndexShardSnapshot.FileInfo::length).reversed());
+                        final BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> files = new LinkedBlockingQueue<>(sortedFiles);
                         final ActionListener<Void> allFilesListener = fileQueueListener(files, workers, listener.map(v -> null));
                         // restore the files from the snapshot to the Lucene store
                         for (int i = 0; i < workers; ++i) {
@@ -3069,13 +3152,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             indexOutput.writeBytes(hash.bytes, hash.offset, hash.length);
                             recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), hash.length);
                         } else {
-                            try (InputStream stream = maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
-                                @Override
-                                protected InputStream openSlice(int slice) throws IOException {
-                                    ensureNotClosing(store);
-                                    return container.readBlob(fileInfo.partName(slice));
-                                }
-                            })) {
+                            try (InputStream stream = openRestoreStream(fileInfo, store)) {
                                 final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
                                 int length;
                                 while ((length = stream.read(buffer)) > 0) {
@@ -3103,6 +3180,29 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     }
                 }
 
+                private InputStream openRestoreStream(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store) {
+                    if (fileInfo.length() >= CONCURRENT_RESTORE_RANGE_SIZE * CONCURRENT_RESTORE_MAX_RANGES
+                        && container.supportsReadBlobRange()) {
+                        // download large files with several streams so that they don't hold up the restore of the shard
+                        return new PrefetchingBlobInputStream(
+                            container,
+                            fileInfo,
+                            CONCURRENT_RESTORE_RANGE_SIZE,
+                            CONCURRENT_RESTORE_MAX_RANGES,
+                            executor,
+                            BlobStoreRepository.this::maybeRateLimitRestores,
+                            () -> ensureNotClosing(store)
+                        );
+                    }
+                    return maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
+                        @Override
+                        protected InputStream openSlice(int slice) throws IOException {
+                            ensureNotClosing(store);
+                            return container.readBlob(fileInfo.partName(slice));
+                        }
+                    });
+                }
+
                 void ensureNotClosing(final Store store) throws AlreadyClosedException {
                     assert store.refCount() > 0;
                     if (store.isClosing()) {
@@ -3177,14 +3277,28 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     @Override
     public IndexShardSnapshotStatus getShardSnapshotStatus(SnapshotId snapshotId, IndexId indexId, ShardId shardId) {
-        BlobStoreIndexShardSnapshot snapshot = loadShardSnapshot(shardContainer(indexId, shardId), snapshotId);
+        final String key = String.join("/", indexId.getId(), String.valueOf(shardId.id()), snapshotId.getUUID());
+        IndexShardSnapshotStatus.Copy status = shardSnapshotStatuses.get(key);
+        if (status == null) {
+            BlobStoreIndexShardSnapshot snapshot = loadShardSnapshot(shardContainer(indexId, shardId), snapshotId);
+            status = IndexShardSnapshotStatus.newDone(
+                snapshot.startTime(),
+                snapshot.time(),
+                snapshot.incrementalFileCount(),
+                snapshot.totalFileCount(),
+                snapshot.incrementalSize(),
+                snapshot.totalSize(),
+                null
+            ).asCopy();
+            shardSnapshotStatuses.put(key, status);
+        }
         return IndexShardSnapshotStatus.newDone(
-            snapshot.startTime(),
-            snapshot.time(),
-            snapshot.incrementalFileCount(),
-            snapshot.totalFileCount(),
-            snapshot.incrementalSize(),
-            snapshot.totalSize(),
+            status.getStartTime(),
+            status.getTotalTime(),
+            status.getIncrementalFileCount(),
+            status.getTotalFileCount(),
+            status.getIncrementalSize(),
+            status.getTotalSize(),
             null
         ); // Not adding a real generation here as it doesn't matter to callers
     }
@@ -3449,6 +3563,11 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         Store store
     ) throws IOException {
         final BlobContainer shardContainer = shardContainer(indexId, shardId);
+        if (copyKnownDataBlob(shardContainer, fileInfo)) {
+            logger.trace("[{}] [{}] copied [{}] from a known blob with the same contents", shardId, snapshotId, fileInfo.physicalName());
+            snapshotStatus.addProcessedFile(fileInfo.length());
+            return;
+        }
         final String file = fileInfo.physicalName();
         try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
             for (int i = 0; i < fileInfo.numberOfParts(); i++) {
@@ -3479,9 +3598,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 };
                 final String partName = fileInfo.partName(i);
                 logger.trace(() -> new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path()));
-                shardContainer.writeBlob(partName, inputStream, partBytes, false);
+                if (partBytes >= (long) multipartWritePartSize * MULTIPART_WRITE_MIN_PARTS && shardContainer.supportsMultipartWrites()) {
+                    writeBlobMultipart(
+                        threadPool.executor(ThreadPool.Names.SNAPSHOT),
+                        multipartWritePartSize,
+                        shardContainer,
+                        partName,
+                        inputStream,
+                        partBytes
+                    );
+                } else {
+                    shardContainer.writeBlob(partName, inputStream, partBytes, false);
+                }
             }
             Store.verify(indexInput);
+            rememberDataBlob(shardContainer, fileInfo);
             snapshotStatus.addProcessedFile(fileInfo.length());
         } catch (Exception t) {
             failStoreIfCorrupted(store, t);
@@ -3490,6 +3621,159 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    private void rememberDataBlob(BlobContainer shardContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        if (fileInfo.name().startsWith(UPLOADED_DATA_BLOB_PREFIX) && shardContainer.supportsCopyFrom(shardContainer)) {
+            knownDataBlobs.put(dataBlobKey(fileInfo.metadata()), Tuple.tuple(shardContainer, fileInfo));
+        }
+    }
+
+    /**
+     * Copies the blobs of the given file from the blobs of a known file with the same contents, see {@link #knownDataBlobs}.
+     * Returns {@code false} if the file has to be uploaded instead.
+     */
+    private boolean copyKnownDataBlob(BlobContainer shardContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        final String key = dataBlobKey(fileInfo.metadata());
+        final Tuple<BlobContainer, BlobStoreIndexShardSnapshot.FileInfo> known = knownDataBlobs.get(key);
+        if (known == null
+            || known.v2().isSame(fileInfo.metadata()) == false
+            || known.v2().numberOfParts() != fileInfo.numberOfParts()
+            || Objects.equals(known.v2().partSize(), fileInfo.partSize()) == false
+            || shardContainer.supportsCopyFrom(known.v1()) == false) {
+            return false;
+        }
+        try {
+            for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+                shardContainer.copyBlob(known.v1(), known.v2().partName(i), fileInfo.partName(i));
+            }
+        } catch (Exception e) {
+            logger.debug(
+                () -> new ParameterizedMessage(
+                    "[{}] failed to copy [{}] from [{}], uploading it instead",
+                    metadata.name(),
+                    fileInfo.physicalName(),
+                    known.v1().path()
+                ),
+                e
+            );
+            knownDataBlobs.invalidate(key, known);
+            try {
+                shardContainer.deleteBlobsIgnoringIfNotExists(
+                    IntStream.range(0, fileInfo.numberOfParts()).mapToObj(fileInfo::partName).iterator()
+                );
+            } catch (IOException inner) {
+                logger.debug(() -> new ParameterizedMessage("[{}] failed to clean up partially copied blobs", metadata.name()), inner);
+            }
+            return false;
+        }
+        rememberDataBlob(shardContainer, fileInfo);
+        return true;
+    }
+
+    private static String dataBlobKey(StoreFileMetadata metadata) {
+        return metadata.name() + '/' + metadata.length() + '/' + metadata.checksum();
+    }
+
+    /**
+     * Uploads a large blob with several concurrent part writes. The parts are read sequentially from {@code inputStream} on the
+     * current thread, so that reads stay subject to the rate limiter and checksum verification of the stream, and are handed to
+     * the snapshot pool for writing while the next part is read. At most {@link #MULTIPART_WRITE_MAX_CONCURRENCY} parts are in
+     * memory at the same time. Whenever the current thread has to wait for a part to be written it writes a queued part itself
+     * instead, it never waits on writes that haven't started yet since these might be queued behind other snapshot tasks.
+     */
+    static void writeBlobMultipart(
+        Executor executor,
+        int partSize,
+        BlobContainer container,
+        String blobName,
+        InputStream inputStream,
+        long blobSize
+    ) throws IOException {
+        final Semaphore permits = new Semaphore(MULTIPART_WRITE_MAX_CONCURRENCY);
+        final Queue<Tuple<Long, BytesReference>> queuedParts = new ConcurrentLinkedQueue<>();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        try (MultipartBlobWrite write = container.startMultipartWrite(blobName, blobSize, false)) {
+            try {
+                long position = 0L;
+                while (position < blobSize) {
+                    while (permits.tryAcquire() == false) {
+                        if (writeQueuedPart(write, queuedParts, permits, failure) == false) {
+                            // all permits are held by running writes
+                            permits.acquireUninterruptibly();
+                            break;
+                        }
+                    }
+                    final int length = Math.toIntExact(Math.min(partSize, blobSize - position));
+                    boolean queued = false;
+                    try {
+                        maybeThrowMultipartWriteFailure(failure);
+                        final byte[] buffer = new byte[length];
+                        final int read = Streams.readFully(inputStream, buffer);
+                        if (read != length) {
+                            throw new IOException("expected [" + length + "] bytes for [" + blobName + "] but only got [" + read + "]");
+                        }
+                        queuedParts.add(Tuple.tuple(position, new BytesArray(buffer)));
+                        queued = true;
+                    } finally {
+                        if (queued == false) {
+                            // the permit of a part is released by whoever writes it, or here if it never made it into the queue
+                            permits.release();
+                        }
+                    }
+                    position += length;
+                    executor.execute(() -> writeQueuedPart(write, queuedParts, permits, failure));
+                }
+                while (writeQueuedPart(write, queuedParts, permits, failure)) {
+                    // help with the remaining parts
+                }
+            } finally {
+                // parts that weren't picked up yet are dropped on failure, wait for the running ones before discarding the write
+                while (queuedParts.poll() != null) {
+                    permits.release();
+                }
+                permits.acquireUninterruptibly(MULTIPART_WRITE_MAX_CONCURRENCY);
+            }
+            maybeThrowMultipartWriteFailure(failure);
+            write.complete();
+        }
+    }
+
+    /**
+     * Writes the next queued part, if any, and releases its permit. Returns {@code false} if there was no part to write.
+     */
+    private static boolean writeQueuedPart(
+        MultipartBlobWrite write,
+        Queue<Tuple<Long, BytesReference>> queuedParts,
+        Semaphore permits,
+        AtomicReference<Exception> failure
+    ) {
+        final Tuple<Long, BytesReference> part = queuedParts.poll();
+        if (part == null) {
+            return false;
+        }
+        try {
+            if (failure.get() == null) {
+                write.writePart(part.v1(), part.v2());
+            }
+        } catch (Exception e) {
+            if (failure.compareAndSet(null, e) == false) {
+                failure.get().addSuppressed(e);
+            }
+        } finally {
+            permits.release();
+        }
+        return true;
+    }
+
+    private static void maybeThrowMultipartWriteFailure(AtomicReference<Exception> failure) throws IOException {
+        final Exception e = failure.get();
+        if (e != null) {
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("failed to write blob part", e);
+        }
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
@@ -0,0 +1,216 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads the blobs of a large file from the repository as a sequence of ranges of which up to {@code maxConcurrentRanges} are
+ * downloaded concurrently, ahead of the reader of the stream. This allows restoring a single large file with more than one stream
+ * while it is still written sequentially to the store.
+ * <p>
+ * Ranges are only claimed by tasks once they run on the executor, if the reader needs a range that no task has claimed yet it
+ * downloads the range itself rather than waiting, so it never waits for tasks that are queued behind other work on the same executor.
+ */
+final class PrefetchingBlobInputStream extends InputStream {
+
+    private final BlobContainer container;
+    private final BlobStoreIndexShardSnapshot.FileInfo fileInfo;
+    private final Executor executor;
+    private final UnaryOperator<InputStream> rateLimiter;
+    private final Runnable ensureNotCancelled;
+    private final int maxConcurrentRanges;
+    private final List<Range> ranges;
+
+    /**
+     * The index of the next range to download.
+     */
+    private final AtomicInteger nextRange = new AtomicInteger();
+
+    /**
+     * The index of the range after the one that is currently read, only accessed by the reader.
+     */
+    private int readRange;
+
+    /**
+     * The number of ranges for which a download task was handed to the executor, only accessed by the reader.
+     */
+    private int scheduledRanges;
+    private byte[] buffer;
+    private int bufferPosition;
+    private volatile boolean closed;
+
+    /**
+     * @param rangeSize           the size of the ranges to download
+     * @param maxConcurrentRanges the maximum number of ranges that are downloaded or held in memory at the same time
+     * @param rateLimiter         wraps the streams that ranges are downloaded from
+     * @param ensureNotCancelled  throws if the restore was cancelled, called before each range is downloaded
+     */
+    PrefetchingBlobInputStream(
+        BlobContainer container,
+        BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+        int rangeSize,
+        int maxConcurrentRanges,
+        Executor executor,
+        UnaryOperator<InputStream> rateLimiter,
+        Runnable ensureNotCancelled
+    ) {
+        assert rangeSize > 0 && maxConcurrentRanges > 0;
+        this.container = container;
+        this.fileInfo = fileInfo;
+        this.executor = executor;
+        this.rateLimiter = rateLimiter;
+        this.ensureNotCancelled = ensureNotCancelled;
+        this.maxConcurrentRanges = maxConcurrentRanges;
+        this.ranges = new ArrayList<>();
+        for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+            final long partBytes = fileInfo.partBytes(part);
+            for (long offset = 0L; offset < partBytes; offset += rangeSize) {
+                ranges.add(new Range(part, offset, Math.toIntExact(Math.min(rangeSize, partBytes - offset))));
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (fillBuffer() == false) {
+            return -1;
+        }
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (fillBuffer() == false) {
+            return -1;
+        }
+        final int read = Math.min(len, buffer.length - bufferPosition);
+        System.arraycopy(buffer, bufferPosition, b, off, read);
+        bufferPosition += read;
+        return read;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("stream is closed");
+        }
+        while (buffer == null || bufferPosition == buffer.length) {
+            if (readRange == ranges.size()) {
+                return false;
+            }
+            final Range range = ranges.get(readRange);
+            readRange++;
+            prefetch();
+            buffer = range.await();
+            bufferPosition = 0;
+            // the range was claimed and downloaded, release its bytes which are only referenced by the buffer from now on
+            ranges.set(readRange - 1, null);
+        }
+        return true;
+    }
+
+    /**
+     * Schedules the download of ranges up to {@link #maxConcurrentRanges} ahead of the range that is read. Only ranges that are
+     * neither claimed nor covered by an earlier task get a task of their own.
+     */
+    private void prefetch() {
+        final int limit = Math.min(readRange - 1 + maxConcurrentRanges, ranges.size());
+        for (int i = Math.max(scheduledRanges, nextRange.get()); i < limit; i++) {
+            executor.execute(() -> downloadNext(limit));
+        }
+        scheduledRanges = Math.max(scheduledRanges, limit);
+        // the range that is read now is downloaded by the reader if no task got to it yet
+        downloadNext(readRange);
+    }
+
+    private void downloadNext(int limit) {
+        int index;
+        do {
+            index = nextRange.get();
+            if (index >= limit || closed) {
+                return;
+            }
+        } while (nextRange.compareAndSet(index, index + 1) == false);
+        final Range range = ranges.get(index);
+        assert range != null : "range [" + index + "] was released before it was downloaded";
+        range.download();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private final class Range {
+        private final int part;
+        private final long offset;
+        private final int length;
+        private final PlainActionFuture<byte[]> bytes = PlainActionFuture.newFuture();
+
+        Range(int part, long offset, int length) {
+            this.part = part;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        void download() {
+            try {
+                ensureNotCancelled.run();
+            } catch (Exception e) {
+                bytes.onFailure(e);
+                return;
+            }
+            try (InputStream stream = rateLimiter.apply(container.readBlob(fileInfo.partName(part), offset, length))) {
+                final byte[] buffer = new byte[length];
+                final int read = Streams.readFully(stream, buffer);
+                if (read != length) {
+                    throw new IOException(
+                        "expected [" + length + "] bytes from [" + fileInfo.partName(part) + "] at [" + offset + "] but got [" + read + "]"
+                    );
+                }
+                bytes.onResponse(buffer);
+            } catch (Exception e) {
+                bytes.onFailure(e);
+            }
+        }
+
+        byte[] await() throws IOException {
+            try {
+                return bytes.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while reading [" + fileInfo.physicalName() + "]");
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+}
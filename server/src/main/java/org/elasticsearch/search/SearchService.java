@@ -93,6 +93,7 @@ import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
 import org.elasticsearch.search.internal.LegacyReaderContext;
+import org.elasticsearch.search.internal.PinnedReaders;
 import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
@@ -261,6 +262,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final Map<Long, ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
+    private final PinnedReaders pointInTimeReaders = new PinnedReaders();
+
     private final MultiBucketConsumerService multiBucketConsumerService;
 
     private final AtomicInteger openScrollContexts = new AtomicInteger();
@@ -284,7 +287,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.scriptService = scriptService;
         this.responseCollectorService = responseCollectorService;
         this.bigArrays = bigArrays;
-        this.queryPhase = new QueryPhase();
+        this.queryPhase = new QueryPhase(indicesService.getCompletionPrefixCache());
         this.fetchPhase = fetchPhase;
         this.multiBucketConsumerService = new MultiBucketConsumerService(
             clusterService,
@@ -938,7 +941,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 );
                 readerContext = new ReaderContext(id, indexService, shard, searcherSupplier, keepAlive.millis(), false);
                 final ReaderContext finalReaderContext = readerContext;
+                final Engine.SearcherSupplier finalSearcherSupplier = searcherSupplier;
                 searcherSupplier = null; // transfer ownership to reader context
+                readerContext.addOnClose(pointInTimeReaders.pin(finalSearcherSupplier));
                 searchOperationListener.onNewReaderContext(readerContext);
                 readerContext.addOnClose(() -> searchOperationListener.onFreeReaderContext(finalReaderContext));
                 putReaderContext(readerContext);
@@ -1405,6 +1410,21 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return this.activeReaders.size();
     }
 
+    /**
+     * Returns the number of distinct readers held open by point in time contexts. Point in times opened
+     * against the same reader of a shard count once.
+     */
+    public int getPointInTimeReaders() {
+        return pointInTimeReaders.pinnedReaders();
+    }
+
+    /**
+     * Returns the size in bytes of the segments referenced by the readers held open by point in time contexts.
+     */
+    public long getPointInTimePinnedSizeInBytes() {
+        return pointInTimeReaders.pinnedSizeInBytes();
+    }
+
     /**
      * Returns the number of scroll contexts opened on the node
      */
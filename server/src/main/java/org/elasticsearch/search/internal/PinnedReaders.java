@@ -0,0 +1,99 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.engine.Engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts for the readers that point in time contexts hold open. Point in times opened against the same reader of a shard already
+ * pin the very same segments, so readers are counted by their {@link IndexReader.CacheKey} and the count and the size of the pinned
+ * segments scale with the number of distinct readers rather than the number of open point in times. Searcher suppliers that don't
+ * expose the cache key of their reader aren't accounted for.
+ */
+public final class PinnedReaders {
+
+    private final Map<IndexReader.CacheKey, PinnedReader> readers = ConcurrentCollections.newConcurrentMap();
+    private final AtomicLong pinnedSizeInBytes = new AtomicLong();
+
+    /**
+     * Account for the reader of {@code searcherSupplier}. The returned releasable must be closed once the point in time is released.
+     */
+    public Releasable pin(Engine.SearcherSupplier searcherSupplier) {
+        final IndexReader.CacheKey key = searcherSupplier.getReaderCacheKey();
+        if (key == null) {
+            return () -> {};
+        }
+        readers.compute(key, (k, pinned) -> {
+            if (pinned == null) {
+                // the first point in time on this reader measures it, the others share the measurement
+                pinned = new PinnedReader(segmentsSizeInBytes(searcherSupplier));
+                pinnedSizeInBytes.addAndGet(pinned.sizeInBytes);
+            }
+            pinned.refCount++;
+            return pinned;
+        });
+        return Releasables.releaseOnce(() -> readers.computeIfPresent(key, (k, pinned) -> {
+            if (--pinned.refCount > 0) {
+                return pinned;
+            }
+            pinnedSizeInBytes.addAndGet(-pinned.sizeInBytes);
+            return null;
+        }));
+    }
+
+    /**
+     * The number of distinct readers held open by point in times.
+     */
+    public int pinnedReaders() {
+        return readers.size();
+    }
+
+    /**
+     * The total size of the segments referenced by the readers held open by point in times.
+     */
+    public long pinnedSizeInBytes() {
+        return pinnedSizeInBytes.get();
+    }
+
+    private static long segmentsSizeInBytes(Engine.SearcherSupplier searcherSupplier) {
+        long size = 0;
+        try (Engine.Searcher searcher = searcherSupplier.acquireSearcher("point_in_time_accounting")) {
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                try {
+                    size += Lucene.segmentReader(leaf.reader()).getSegmentInfo().sizeInBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (IllegalStateException e) {
+                    // not a segment reader, nothing to account for
+                }
+            }
+        }
+        return size;
+    }
+
+    private static final class PinnedReader {
+        private final long sizeInBytes;
+        private int refCount;
+
+        PinnedReader(long sizeInBytes) {
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+}
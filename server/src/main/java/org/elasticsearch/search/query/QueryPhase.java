@@ -25,6 +25,7 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
@@ -37,6 +38,7 @@ import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.suggest.SuggestPhase;
+import org.elasticsearch.search.suggest.completion.CompletionPrefixCache;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
@@ -61,8 +63,12 @@ public class QueryPhase {
     private final RescorePhase rescorePhase;
 
     public QueryPhase() {
+        this(null);
+    }
+
+    public QueryPhase(@Nullable CompletionPrefixCache completionPrefixCache) {
         this.aggregationPhase = new AggregationPhase();
-        this.suggestPhase = new SuggestPhase();
+        this.suggestPhase = new SuggestPhase(completionPrefixCache);
         this.rescorePhase = new RescorePhase();
     }
 
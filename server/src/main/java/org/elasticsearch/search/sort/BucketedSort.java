@@ -10,6 +10,7 @@ package org.elasticsearch.search.sort;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Scorable;
+import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.common.lucene.ScorerAware;
 import org.elasticsearch.common.util.BigArray;
 import org.elasticsearch.common.util.BigArrays;
@@ -388,6 +389,32 @@ public abstract class BucketedSort implements Releasable {
             if (false == advanceExact(doc)) {
                 return;
             }
+            collectValue(doc, bucket);
+        }
+
+        /**
+         * Collect a block of docs. {@code docs[i]} is collected into
+         * {@code buckets[i]} for each {@code i} less than {@code count}.
+         * The docs must be in non-decreasing order, just like they'd be
+         * if they were collected one at a time.
+         * <p>
+         * The default implementation just calls {@link #collect(int, long)}
+         * for each doc but the type specialized implementations load all
+         * of the sort values up front into a primitive array and then skip
+         * uncompetitive docs without calling back into the doc values.
+         * </p>
+         */
+        public void collect(int[] docs, long[] buckets, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                collect(docs[i], buckets[i]);
+            }
+        }
+
+        /**
+         * Collect the value of the doc to which we just {@link #advanceExact(int) moved}
+         * into the bucket.
+         */
+        protected final void collectValue(int doc, long bucket) throws IOException {
             long rootIndex = bucket * bucketSize;
             if (inHeapMode(bucket)) {
                 if (docBetterThan(rootIndex)) {
@@ -513,6 +540,12 @@ public abstract class BucketedSort implements Releasable {
         }
 
         protected abstract class Leaf extends BucketedSort.Leaf {
+            private double[] batchValues = new double[0];
+            private int[] batchDocs = new int[0];
+            private long[] batchBuckets = new long[0];
+            private boolean inBatch;
+            private double batchValue;
+
             protected Leaf(LeafReaderContext ctx) {
                 super(ctx);
             }
@@ -531,12 +564,55 @@ public abstract class BucketedSort implements Releasable {
 
             @Override
             protected final void setIndexToDocValue(long index) {
-                values.set(index, docValue());
+                values.set(index, currentValue());
             }
 
             @Override
             protected final boolean docBetterThan(long index) {
-                return getOrder().reverseMul() * Double.compare(docValue(), values.get(index)) < 0;
+                return getOrder().reverseMul() * Double.compare(currentValue(), values.get(index)) < 0;
+            }
+
+            /**
+             * Load all of the sort values for the block up front and then
+             * feed them into the heaps, skipping docs that can't be competitive
+             * with just a primitive comparison against the root of the heap.
+             */
+            @Override
+            public final void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (batchValues.length < count) {
+                    batchValues = new double[ArrayUtil.oversize(count, Long.BYTES)];
+                    batchDocs = new int[batchValues.length];
+                    batchBuckets = new long[batchValues.length];
+                }
+                int loaded = 0;
+                for (int i = 0; i < count; i++) {
+                    if (advanceExact(docs[i])) {
+                        batchValues[loaded] = docValue();
+                        batchDocs[loaded] = docs[i];
+                        batchBuckets[loaded] = buckets[i];
+                        loaded++;
+                    }
+                }
+                int reverseMul = getOrder().reverseMul();
+                int bucketSize = getBucketSize();
+                inBatch = true;
+                try {
+                    for (int i = 0; i < loaded; i++) {
+                        double value = batchValues[i];
+                        long bucket = batchBuckets[i];
+                        if (inHeapMode(bucket) && reverseMul * Double.compare(value, values.get(bucket * bucketSize)) >= 0) {
+                            continue;
+                        }
+                        batchValue = value;
+                        collectValue(batchDocs[i], bucket);
+                    }
+                } finally {
+                    inBatch = false;
+                }
+            }
+
+            private double currentValue() {
+                return inBatch ? batchValue : docValue();
             }
         }
     }
@@ -615,6 +691,12 @@ public abstract class BucketedSort implements Releasable {
         }
 
         protected abstract class Leaf extends BucketedSort.Leaf {
+            private float[] batchValues = new float[0];
+            private int[] batchDocs = new int[0];
+            private long[] batchBuckets = new long[0];
+            private boolean inBatch;
+            private float batchValue;
+
             protected Leaf(LeafReaderContext ctx) {
                 super(ctx);
             }
@@ -630,12 +712,60 @@ public abstract class BucketedSort implements Releasable {
 
             @Override
             protected final void setIndexToDocValue(long index) {
-                values.set(index, docValue());
+                values.set(index, currentValue());
             }
 
             @Override
             protected final boolean docBetterThan(long index) {
-                return getOrder().reverseMul() * Float.compare(docValue(), values.get(index)) < 0;
+                return getOrder().reverseMul() * Float.compare(currentValue(), values.get(index)) < 0;
+            }
+
+            /**
+             * Load all of the sort values for the block up front and then
+             * feed them into the heaps, skipping docs that can't be competitive
+             * with just a primitive comparison against the root of the heap.
+             */
+            @Override
+            public final void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (needsScores()) {
+                    // Scores are only available for the doc the scorer is positioned on.
+                    super.collect(docs, buckets, count);
+                    return;
+                }
+                if (batchValues.length < count) {
+                    batchValues = new float[ArrayUtil.oversize(count, Long.BYTES)];
+                    batchDocs = new int[batchValues.length];
+                    batchBuckets = new long[batchValues.length];
+                }
+                int loaded = 0;
+                for (int i = 0; i < count; i++) {
+                    if (advanceExact(docs[i])) {
+                        batchValues[loaded] = docValue();
+                        batchDocs[loaded] = docs[i];
+                        batchBuckets[loaded] = buckets[i];
+                        loaded++;
+                    }
+                }
+                int reverseMul = getOrder().reverseMul();
+                int bucketSize = getBucketSize();
+                inBatch = true;
+                try {
+                    for (int i = 0; i < loaded; i++) {
+                        float value = batchValues[i];
+                        long bucket = batchBuckets[i];
+                        if (inHeapMode(bucket) && reverseMul * Float.compare(value, values.get(bucket * bucketSize)) >= 0) {
+                            continue;
+                        }
+                        batchValue = value;
+                        collectValue(batchDocs[i], bucket);
+                    }
+                } finally {
+                    inBatch = false;
+                }
+            }
+
+            private float currentValue() {
+                return inBatch ? batchValue : docValue();
             }
         }
     }
@@ -703,6 +833,12 @@ public abstract class BucketedSort implements Releasable {
         }
 
         protected abstract class Leaf extends BucketedSort.Leaf {
+            private long[] batchValues = new long[0];
+            private int[] batchDocs = new int[0];
+            private long[] batchBuckets = new long[0];
+            private boolean inBatch;
+            private long batchValue;
+
             protected Leaf(LeafReaderContext ctx) {
                 super(ctx);
             }
@@ -721,12 +857,55 @@ public abstract class BucketedSort implements Releasable {
 
             @Override
             protected final void setIndexToDocValue(long index) {
-                values.set(index, docValue());
+                values.set(index, currentValue());
             }
 
             @Override
             protected final boolean docBetterThan(long index) {
-                return getOrder().reverseMul() * Long.compare(docValue(), values.get(index)) < 0;
+                return getOrder().reverseMul() * Long.compare(currentValue(), values.get(index)) < 0;
+            }
+
+            /**
+             * Load all of the sort values for the block up front and then
+             * feed them into the heaps, skipping docs that can't be competitive
+             * with just a primitive comparison against the root of the heap.
+             */
+            @Override
+            public final void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (batchValues.length < count) {
+                    batchValues = new long[ArrayUtil.oversize(count, Long.BYTES)];
+                    batchDocs = new int[batchValues.length];
+                    batchBuckets = new long[batchValues.length];
+                }
+                int loaded = 0;
+                for (int i = 0; i < count; i++) {
+                    if (advanceExact(docs[i])) {
+                        batchValues[loaded] = docValue();
+                        batchDocs[loaded] = docs[i];
+                        batchBuckets[loaded] = buckets[i];
+                        loaded++;
+                    }
+                }
+                int reverseMul = getOrder().reverseMul();
+                int bucketSize = getBucketSize();
+                inBatch = true;
+                try {
+                    for (int i = 0; i < loaded; i++) {
+                        long value = batchValues[i];
+                        long bucket = batchBuckets[i];
+                        if (inHeapMode(bucket) && reverseMul * Long.compare(value, values.get(bucket * bucketSize)) >= 0) {
+                            continue;
+                        }
+                        batchValue = value;
+                        collectValue(batchDocs[i], bucket);
+                    }
+                } finally {
+                    inBatch = false;
+                }
+            }
+
+            private long currentValue() {
+                return inBatch ? batchValue : docValue();
             }
         }
     }
@@ -9,11 +9,15 @@ package org.elasticsearch.search.suggest;
 
 import org.apache.lucene.util.CharsRefBuilder;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.CompletionFieldMapper;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.suggest.Suggest.Suggestion;
 import org.elasticsearch.search.suggest.Suggest.Suggestion.Entry;
 import org.elasticsearch.search.suggest.Suggest.Suggestion.Entry.Option;
 import org.elasticsearch.search.suggest.SuggestionSearchContext.SuggestionContext;
+import org.elasticsearch.search.suggest.completion.CompletionPrefixCache;
+import org.elasticsearch.search.suggest.completion.CompletionSuggestionContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -25,6 +29,16 @@ import java.util.Map;
  */
 public class SuggestPhase {
 
+    private final CompletionPrefixCache completionPrefixCache;
+
+    public SuggestPhase() {
+        this(null);
+    }
+
+    public SuggestPhase(@Nullable CompletionPrefixCache completionPrefixCache) {
+        this.completionPrefixCache = completionPrefixCache;
+    }
+
     public void execute(SearchContext context) {
         final SuggestionSearchContext suggest = context.suggest();
         if (suggest == null) {
@@ -37,12 +51,17 @@ public class SuggestPhase {
             for (Map.Entry<String, SuggestionSearchContext.SuggestionContext> entry : suggest.suggestions().entrySet()) {
                 SuggestionSearchContext.SuggestionContext suggestion = entry.getValue();
                 Suggester<SuggestionContext> suggester = suggestion.getSuggester();
+                if (suggestion instanceof CompletionSuggestionContext) {
+                    ((CompletionSuggestionContext) suggestion).setPrefixCache(completionPrefixCache);
+                }
+                final long startTime = System.nanoTime();
                 Suggestion<? extends Entry<? extends Option>> result = suggester.execute(
                     entry.getKey(),
                     suggestion,
                     context.searcher(),
                     spare
                 );
+                onCompletionQuery(context, suggestion, System.nanoTime() - startTime);
                 if (result != null) {
                     assert entry.getKey().equals(result.name);
                     suggestions.add(result);
@@ -54,4 +73,13 @@ public class SuggestPhase {
         }
     }
 
+    private static void onCompletionQuery(SearchContext context, SuggestionContext suggestion, long tookInNanos) {
+        if (suggestion instanceof CompletionSuggestionContext == false || context.indexShard() == null) {
+            return;
+        }
+        CompletionFieldMapper.CompletionFieldType fieldType = ((CompletionSuggestionContext) suggestion).getFieldType();
+        if (fieldType != null) {
+            context.indexShard().completionQueryStats().onQuery(fieldType.name(), tookInNanos);
+        }
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.suggest.completion;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Caches the per-segment results of completion suggestions for very short prefixes. Those prefixes are by far the
+ * most frequent when suggesting as the user types and they are also the most expensive because they visit the most
+ * paths in the FST. Results are cached per segment so a refresh only invalidates the entries of the segments that
+ * changed. Entries are keyed on the segment's reader cache key, which changes when documents are deleted, and are
+ * dropped when the segment is closed.
+ * <p>
+ * There is a single cache per node, bounded by {@link #INDICES_COMPLETION_PREFIX_CACHE_SIZE_SETTING}. The estimated size of
+ * the cached suggestions is accounted to the {@link CircuitBreaker#ACCOUNTING accounting} circuit breaker, suggestions that
+ * would trip it aren't cached.
+ */
+public final class CompletionPrefixCache
+    implements
+        RemovalListener<CompletionPrefixCache.CacheKey, CompletionPrefixCache.Value>,
+        Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_COMPLETION_PREFIX_CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+        "indices.completion.prefix_cache.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    /**
+     * Only prefixes with at most this many code points are cached.
+     */
+    static final int MAX_PREFIX_LENGTH = 3;
+    /**
+     * Only requests for at most this many suggestions per shard are cached.
+     */
+    static final int MAX_SHARD_SIZE = 100;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CacheKey.class)
+        + RamUsageEstimator.shallowSizeOfInstance(Key.class)
+        + RamUsageEstimator.shallowSizeOfInstance(Value.class);
+    private static final long LEAF_SUGGESTION_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(LeafSuggestion.class)
+        + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final boolean enabled;
+    private final Cache<CacheKey, Value> cache;
+    private final CircuitBreaker breaker;
+    /**
+     * The cached keys of every segment, used to invalidate the entries of a segment once it is closed.
+     */
+    private final Map<IndexReader.CacheKey, Set<Key>> segmentKeys = ConcurrentCollections.newConcurrentMap();
+
+    public CompletionPrefixCache(Settings settings, CircuitBreakerService circuitBreakerService) {
+        final long sizeInBytes = INDICES_COMPLETION_PREFIX_CACHE_SIZE_SETTING.get(settings).getBytes();
+        this.enabled = sizeInBytes > 0;
+        this.cache = CacheBuilder.<CacheKey, Value>builder()
+            .setMaximumWeight(sizeInBytes)
+            .weigher((k, v) -> v.ramBytesUsed)
+            .removalListener(this)
+            .build();
+        this.breaker = circuitBreakerService.getBreaker(CircuitBreaker.ACCOUNTING);
+    }
+
+    /**
+     * Is a request for this prefix cacheable at all?
+     */
+    static boolean isCacheable(String prefix, int shardSize) {
+        if (shardSize > MAX_SHARD_SIZE) {
+            return false;
+        }
+        int length = prefix.codePointCount(0, prefix.length());
+        return length > 0 && length <= MAX_PREFIX_LENGTH;
+    }
+
+    /**
+     * Get the cached suggestions for a segment or {@code null} if there aren't any.
+     */
+    List<LeafSuggestion> get(LeafReaderContext leaf, Key key) {
+        IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return null;
+        }
+        Value value = cache.get(new CacheKey(cacheHelper.getKey(), key));
+        return value == null ? null : value.suggestions;
+    }
+
+    /**
+     * Cache the suggestions for a segment. Segments without a reader cache key, for example because
+     * they filter the live docs, are never cached.
+     */
+    void put(LeafReaderContext leaf, Key key, List<LeafSuggestion> suggestions) {
+        IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+        if (enabled == false || cacheHelper == null) {
+            return;
+        }
+        final long ramBytesUsed = ramBytesUsed(key, suggestions);
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(ramBytesUsed, "completion_prefix_cache");
+        } catch (CircuitBreakingException e) {
+            // caching is best effort, the suggestions were computed already
+            return;
+        }
+        IndexReader.CacheKey segment = cacheHelper.getKey();
+        Set<Key> keys = segmentKeys.get(segment);
+        if (keys == null) {
+            keys = ConcurrentCollections.newConcurrentSet();
+            Set<Key> existing = segmentKeys.putIfAbsent(segment, keys);
+            if (existing == null) {
+                cacheHelper.addClosedListener(this::onSegmentClosed);
+            } else {
+                keys = existing;
+            }
+        }
+        keys.add(key);
+        cache.put(new CacheKey(segment, key), new Value(suggestions, ramBytesUsed));
+    }
+
+    private void onSegmentClosed(IndexReader.CacheKey segment) {
+        Set<Key> keys = segmentKeys.remove(segment);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(new CacheKey(segment, key));
+            }
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<CacheKey, Value> notification) {
+        breaker.addWithoutBreaking(-notification.getValue().ramBytesUsed);
+        if (notification.getRemovalReason() != RemovalNotification.RemovalReason.REPLACED) {
+            Set<Key> keys = segmentKeys.get(notification.getKey().segment);
+            if (keys != null) {
+                keys.remove(notification.getKey().key);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        segmentKeys.clear();
+    }
+
+    /**
+     * The number of cached entries.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    /**
+     * The estimated size of the cached entries.
+     */
+    long ramBytesUsed() {
+        return cache.weight();
+    }
+
+    /**
+     * The number of segments with cached entries.
+     */
+    int segmentCount() {
+        return segmentKeys.size();
+    }
+
+    static long ramBytesUsed(Key key, List<LeafSuggestion> suggestions) {
+        long ramBytesUsed = BASE_RAM_BYTES_USED + sizeOf(key.field) + sizeOf(key.prefix);
+        for (LeafSuggestion suggestion : suggestions) {
+            ramBytesUsed += LEAF_SUGGESTION_RAM_BYTES_USED + sizeOf(suggestion.key);
+            for (CharSequence context : suggestion.contexts) {
+                ramBytesUsed += RamUsageEstimator.NUM_BYTES_OBJECT_REF + sizeOf(context);
+            }
+        }
+        return ramBytesUsed;
+    }
+
+    private static long sizeOf(CharSequence chars) {
+        final long arrayBytes = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Character.BYTES * chars.length();
+        return RamUsageEstimator.shallowSizeOfInstance(String.class) + RamUsageEstimator.alignObjectSize(arrayBytes);
+    }
+
+    /**
+     * A suggestion from a single segment with a segment relative doc id.
+     */
+    static final class LeafSuggestion {
+        final int doc;
+        final String key;
+        final float score;
+        final List<CharSequence> contexts;
+
+        LeafSuggestion(int doc, String key, float score, List<CharSequence> contexts) {
+            this.doc = doc;
+            this.key = key;
+            this.score = score;
+            this.contexts = contexts;
+        }
+    }
+
+    static final class Key {
+        private final String field;
+        private final String prefix;
+        private final int shardSize;
+        private final boolean skipDuplicates;
+
+        Key(String field, String prefix, int shardSize, boolean skipDuplicates) {
+            this.field = field;
+            this.prefix = prefix;
+            this.shardSize = shardSize;
+            this.skipDuplicates = skipDuplicates;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return shardSize == other.shardSize
+                && skipDuplicates == other.skipDuplicates
+                && field.equals(other.field)
+                && prefix.equals(other.prefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(field, prefix, shardSize, skipDuplicates);
+        }
+    }
+
+    static final class CacheKey {
+        private final IndexReader.CacheKey segment;
+        private final Key key;
+
+        CacheKey(IndexReader.CacheKey segment, Key key) {
+            this.segment = segment;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return segment == other.segment && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(segment) + key.hashCode();
+        }
+    }
+
+    static final class Value {
+        private final List<LeafSuggestion> suggestions;
+        private final long ramBytesUsed;
+
+        Value(List<LeafSuggestion> suggestions, long ramBytesUsed) {
+            this.suggestions = suggestions;
+            this.ramBytesUsed = ramBytesUsed;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.suggest.completion;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The number of completion suggestions and the time spent executing them, per completion field.
+ */
+public final class CompletionQueryFieldStats implements Writeable {
+
+    private final Map<String, Stats> stats;
+
+    public CompletionQueryFieldStats(Map<String, Stats> stats) {
+        this.stats = new HashMap<>(Objects.requireNonNull(stats));
+    }
+
+    public CompletionQueryFieldStats(StreamInput in) throws IOException {
+        this.stats = in.readMap(StreamInput::readString, Stats::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(stats, StreamOutput::writeString, (o, s) -> s.writeTo(o));
+    }
+
+    /**
+     * Adds / merges the given stats into this stats instance
+     */
+    public void add(CompletionQueryFieldStats other) {
+        for (Map.Entry<String, Stats> entry : other.stats.entrySet()) {
+            stats.merge(entry.getKey(), entry.getValue(), Stats::add);
+        }
+    }
+
+    /**
+     * Creates a copy of this stats instance
+     */
+    public CompletionQueryFieldStats copy() {
+        return new CompletionQueryFieldStats(stats);
+    }
+
+    /**
+     * Returns the stats of the given field or {@code null} if there are none
+     */
+    public Stats get(String field) {
+        return stats.get(field);
+    }
+
+    public Map<String, Stats> asMap() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Generates x-content into the given builder for each of the fields in this stats instance
+     */
+    public void toXContent(XContentBuilder builder, String key, String countKey, String rawTimeKey, String readableTimeKey)
+        throws IOException {
+        builder.startObject(key);
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            builder.startObject(entry.getKey());
+            builder.field(countKey, entry.getValue().count);
+            builder.humanReadableField(rawTimeKey, readableTimeKey, entry.getValue().getTime());
+            builder.endObject();
+        }
+        builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompletionQueryFieldStats that = (CompletionQueryFieldStats) o;
+        return stats.equals(that.stats);
+    }
+
+    @Override
+    public int hashCode() {
+        return stats.hashCode();
+    }
+
+    /**
+     * The completion suggestion stats of a single field.
+     */
+    public static final class Stats implements Writeable {
+        private final long count;
+        private final long timeInMillis;
+
+        public Stats(long count, long timeInMillis) {
+            this.count = count;
+            this.timeInMillis = timeInMillis;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            this.count = in.readVLong();
+            this.timeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(timeInMillis);
+        }
+
+        /**
+         * The number of completion suggestions executed against the field.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * The time spent executing completion suggestions against the field.
+         */
+        public TimeValue getTime() {
+            return new TimeValue(timeInMillis);
+        }
+
+        Stats add(Stats other) {
+            return new Stats(count + other.count, timeInMillis + other.timeInMillis);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Stats that = (Stats) o;
+            return count == that.count && timeInMillis == that.timeInMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, timeInMillis);
+        }
+    }
+}
@@ -7,12 +7,14 @@
  */
 package org.elasticsearch.search.suggest.completion;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -24,16 +26,29 @@ public class CompletionStats implements Writeable, ToXContentFragment {
     private static final String SIZE_IN_BYTES = "size_in_bytes";
     private static final String SIZE = "size";
     private static final String FIELDS = "fields";
+    private static final String QUERY_TOTAL = "query_total";
+    private static final String QUERY_TIME = "query_time";
+    private static final String QUERY_TIME_IN_MILLIS = "query_time_in_millis";
+    private static final String QUERY_FIELDS = "query_fields";
 
     private long sizeInBytes;
     @Nullable
     private FieldMemoryStats fields;
+    private long queryCount;
+    private long queryTimeInMillis;
+    @Nullable
+    private CompletionQueryFieldStats queryFields;
 
     public CompletionStats() {}
 
     public CompletionStats(StreamInput in) throws IOException {
         sizeInBytes = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            queryCount = in.readVLong();
+            queryTimeInMillis = in.readVLong();
+            queryFields = in.readOptionalWriteable(CompletionQueryFieldStats::new);
+        }
     }
 
     public CompletionStats(long size, @Nullable FieldMemoryStats fields) {
@@ -41,6 +56,20 @@ public class CompletionStats implements Writeable, ToXContentFragment {
         this.fields = fields;
     }
 
+    public CompletionStats(
+        long size,
+        @Nullable FieldMemoryStats fields,
+        long queryCount,
+        long queryTimeInMillis,
+        @Nullable CompletionQueryFieldStats queryFields
+    ) {
+        this.sizeInBytes = size;
+        this.fields = fields;
+        this.queryCount = queryCount;
+        this.queryTimeInMillis = queryTimeInMillis;
+        this.queryFields = queryFields;
+    }
+
     public long getSizeInBytes() {
         return sizeInBytes;
     }
@@ -53,19 +82,51 @@ public class CompletionStats implements Writeable, ToXContentFragment {
         return fields;
     }
 
+    /**
+     * The number of completion suggestions executed.
+     */
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * The time spent executing completion suggestions.
+     */
+    public TimeValue getQueryTime() {
+        return new TimeValue(queryTimeInMillis);
+    }
+
+    /**
+     * The number of and time spent on completion suggestions per field, if field level stats were requested.
+     */
+    @Nullable
+    public CompletionQueryFieldStats getQueryFields() {
+        return queryFields;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(sizeInBytes);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(queryCount);
+            out.writeVLong(queryTimeInMillis);
+            out.writeOptionalWriteable(queryFields);
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(COMPLETION);
         builder.humanReadableField(SIZE_IN_BYTES, SIZE, getSize());
+        builder.field(QUERY_TOTAL, queryCount);
+        builder.humanReadableField(QUERY_TIME_IN_MILLIS, QUERY_TIME, getQueryTime());
         if (fields != null) {
             fields.toXContent(builder, FIELDS, SIZE_IN_BYTES, SIZE);
         }
+        if (queryFields != null) {
+            queryFields.toXContent(builder, QUERY_FIELDS, QUERY_TOTAL, QUERY_TIME_IN_MILLIS, QUERY_TIME);
+        }
         builder.endObject();
         return builder;
     }
@@ -75,12 +136,26 @@ public class CompletionStats implements Writeable, ToXContentFragment {
             return;
         }
         sizeInBytes += completion.getSizeInBytes();
-        if (completion.fields != null) {
-            if (fields == null) {
-                fields = completion.fields.copy();
+        fields = addFields(fields, completion.fields);
+        queryCount += completion.queryCount;
+        queryTimeInMillis += completion.queryTimeInMillis;
+        if (completion.queryFields != null) {
+            if (queryFields == null) {
+                queryFields = completion.queryFields.copy();
             } else {
-                fields.add(completion.fields);
+                queryFields.add(completion.queryFields);
             }
         }
     }
+
+    private static FieldMemoryStats addFields(@Nullable FieldMemoryStats current, @Nullable FieldMemoryStats other) {
+        if (other == null) {
+            return current;
+        }
+        if (current == null) {
+            return other.copy();
+        }
+        current.add(other);
+        return current;
+    }
 }
@@ -11,10 +11,13 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.suggest.document.CompletionQuery;
+import org.apache.lucene.search.suggest.document.CompletionTerms;
 import org.apache.lucene.search.suggest.document.TopSuggestDocs;
 import org.apache.lucene.search.suggest.document.TopSuggestDocsCollector;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CharsRefBuilder;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.index.mapper.CompletionFieldMapper;
@@ -22,7 +25,9 @@ import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.Suggester;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,6 +49,30 @@ public class CompletionSuggester extends Suggester<CompletionSuggestionContext>
             final CompletionFieldMapper.CompletionFieldType fieldType = suggestionContext.getFieldType();
             CompletionSuggestion completionSuggestion = emptySuggestion(name, suggestionContext, spare);
             int shardSize = suggestionContext.getShardSize() != null ? suggestionContext.getShardSize() : suggestionContext.getSize();
+            String cacheablePrefix = cacheablePrefix(suggestionContext, shardSize);
+            if (cacheablePrefix != null) {
+                CompletionPrefixCache.Key key = new CompletionPrefixCache.Key(
+                    fieldType.name(),
+                    cacheablePrefix,
+                    shardSize,
+                    suggestionContext.isSkipDuplicates()
+                );
+                for (CompletionPrefixCache.LeafSuggestion suggestion : suggestCached(searcher, suggestionContext, key, shardSize)) {
+                    if (completionSuggestion.getEntries().get(0).getOptions().size() >= suggestionContext.getSize()) {
+                        break;
+                    }
+                    Map<String, Set<String>> contexts = Collections.emptyMap();
+                    if (fieldType.hasContextMappings() && suggestion.contexts.size() > 0) {
+                        contexts = fieldType.getContextMappings().getNamedContexts(suggestion.contexts);
+                    }
+                    completionSuggestion.getEntries()
+                        .get(0)
+                        .addOption(
+                            new CompletionSuggestion.Entry.Option(suggestion.doc, new Text(suggestion.key), suggestion.score, contexts)
+                        );
+                }
+                return completionSuggestion;
+            }
             TopSuggestGroupDocsCollector collector = new TopSuggestGroupDocsCollector(shardSize, suggestionContext.isSkipDuplicates());
             suggest(searcher, suggestionContext.toQuery(), collector);
             int numResult = 0;
@@ -73,6 +102,116 @@ public class CompletionSuggester extends Suggester<CompletionSuggestionContext>
         return null;
     }
 
+    /**
+     * Returns the prefix of the suggestion if its results can be served from the {@link CompletionPrefixCache},
+     * {@code null} otherwise. Only plain prefix suggestions without fuzziness or contexts are cached.
+     */
+    private static String cacheablePrefix(CompletionSuggestionContext suggestionContext, int shardSize) {
+        if (suggestionContext.getPrefixCache() == null) {
+            return null;
+        }
+        if (suggestionContext.getRegex() != null || suggestionContext.getFuzzyOptions() != null) {
+            return null;
+        }
+        if (suggestionContext.getQueryContexts() != null && suggestionContext.getQueryContexts().isEmpty() == false) {
+            return null;
+        }
+        BytesRef prefix = suggestionContext.getPrefix() != null ? suggestionContext.getPrefix() : suggestionContext.getText();
+        if (prefix == null) {
+            return null;
+        }
+        String prefixString = prefix.utf8ToString();
+        return CompletionPrefixCache.isCacheable(prefixString, shardSize) ? prefixString : null;
+    }
+
+    /**
+     * Collect the suggestions segment by segment, reusing the cached suggestions of segments that have
+     * already been searched for this prefix, and merge them into the top {@code shardSize} suggestions.
+     */
+    private static List<CompletionPrefixCache.LeafSuggestion> suggestCached(
+        IndexSearcher searcher,
+        CompletionSuggestionContext suggestionContext,
+        CompletionPrefixCache.Key key,
+        int shardSize
+    ) throws IOException {
+        Weight weight = null;
+        List<CompletionPrefixCache.LeafSuggestion> all = new ArrayList<>();
+        for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+            // Readers that hide or wrap the field, like field level security, don't expose the completion terms directly
+            boolean cacheable = context.reader().terms(suggestionContext.getFieldType().name()) instanceof CompletionTerms;
+            List<CompletionPrefixCache.LeafSuggestion> leafSuggestions = cacheable
+                ? suggestionContext.getPrefixCache().get(context, key)
+                : null;
+            if (leafSuggestions == null) {
+                if (weight == null) {
+                    CompletionQuery query = (CompletionQuery) suggestionContext.toQuery().rewrite(searcher.getIndexReader());
+                    weight = query.createWeight(searcher, ScoreMode.COMPLETE, 1f);
+                }
+                leafSuggestions = suggestLeaf(weight, context, shardSize, suggestionContext.isSkipDuplicates());
+                if (cacheable) {
+                    suggestionContext.getPrefixCache().put(context, key, leafSuggestions);
+                }
+            }
+            for (CompletionPrefixCache.LeafSuggestion suggestion : leafSuggestions) {
+                all.add(
+                    new CompletionPrefixCache.LeafSuggestion(
+                        context.docBase + suggestion.doc,
+                        suggestion.key,
+                        suggestion.score,
+                        suggestion.contexts
+                    )
+                );
+            }
+        }
+        // Same order as TopSuggestDocs#merge: best score first, then lowest doc
+        all.sort((lhs, rhs) -> {
+            int cmp = Float.compare(rhs.score, lhs.score);
+            return cmp != 0 ? cmp : Integer.compare(lhs.doc, rhs.doc);
+        });
+        List<CompletionPrefixCache.LeafSuggestion> top = new ArrayList<>(Math.min(shardSize, all.size()));
+        Set<String> seen = suggestionContext.isSkipDuplicates() ? new HashSet<>() : null;
+        for (CompletionPrefixCache.LeafSuggestion suggestion : all) {
+            if (top.size() >= shardSize) {
+                break;
+            }
+            if (seen == null || seen.add(suggestion.key)) {
+                top.add(suggestion);
+            }
+        }
+        return top;
+    }
+
+    private static List<CompletionPrefixCache.LeafSuggestion> suggestLeaf(
+        Weight weight,
+        LeafReaderContext context,
+        int shardSize,
+        boolean skipDuplicates
+    ) throws IOException {
+        BulkScorer scorer = weight.bulkScorer(context);
+        if (scorer == null) {
+            return Collections.emptyList();
+        }
+        TopSuggestGroupDocsCollector collector = new TopSuggestGroupDocsCollector(shardSize, skipDuplicates);
+        try {
+            scorer.score(collector.getLeafCollector(context), context.reader().getLiveDocs());
+        } catch (CollectionTerminatedException e) {
+            // collection was terminated prematurely
+        }
+        TopSuggestDocs.SuggestScoreDoc[] docs = collector.get().scoreLookupDocs();
+        List<CompletionPrefixCache.LeafSuggestion> suggestions = new ArrayList<>(docs.length);
+        for (TopSuggestDocs.SuggestScoreDoc doc : docs) {
+            suggestions.add(
+                new CompletionPrefixCache.LeafSuggestion(
+                    doc.doc - context.docBase,
+                    doc.key.toString(),
+                    doc.score,
+                    List.copyOf(collector.getContexts(doc.doc))
+                )
+            );
+        }
+        return Collections.unmodifiableList(suggestions);
+    }
+
     private static void suggest(IndexSearcher searcher, CompletionQuery query, TopSuggestDocsCollector collector) throws IOException {
         query = (CompletionQuery) query.rewrite(searcher.getIndexReader());
         Weight weight = query.createWeight(searcher, collector.scoreMode(), 1f);
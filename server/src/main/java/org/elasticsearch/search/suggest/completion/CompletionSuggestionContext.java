@@ -10,6 +10,7 @@ package org.elasticsearch.search.suggest.completion;
 import org.apache.lucene.search.suggest.document.CompletionQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.mapper.CompletionFieldMapper;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
@@ -31,8 +32,9 @@ public class CompletionSuggestionContext extends SuggestionSearchContext.Suggest
     private RegexOptions regexOptions;
     private boolean skipDuplicates;
     private Map<String, List<ContextMapping.InternalQueryContext>> queryContexts = Collections.emptyMap();
+    private CompletionPrefixCache prefixCache;
 
-    CompletionFieldMapper.CompletionFieldType getFieldType() {
+    public CompletionFieldMapper.CompletionFieldType getFieldType() {
         return this.fieldType;
     }
 
@@ -72,6 +74,18 @@ public class CompletionSuggestionContext extends SuggestionSearchContext.Suggest
         return skipDuplicates;
     }
 
+    /**
+     * The node level cache for the suggestions of short prefixes, or {@code null} if suggestions aren't cached.
+     */
+    @Nullable
+    public CompletionPrefixCache getPrefixCache() {
+        return prefixCache;
+    }
+
+    public void setPrefixCache(@Nullable CompletionPrefixCache prefixCache) {
+        this.prefixCache = prefixCache;
+    }
+
     CompletionQuery toQuery() {
         CompletionFieldMapper.CompletionFieldType fieldType = getFieldType();
         final CompletionQuery query;
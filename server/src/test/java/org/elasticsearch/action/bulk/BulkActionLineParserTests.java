@@ -0,0 +1,185 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BulkActionLineParserTests extends ESTestCase {
+
+    public void testParse() {
+        BulkActionLineParser parser = new BulkActionLineParser();
+        assertTrue(parse(parser, """
+            { "index" : { "_index": "logs", "_id": "1", "routing": "r", "pipeline": "p", "require_alias": true } }\r"""));
+        assertThat(parser.action, equalTo("index"));
+        assertThat(parser.index, equalTo("logs"));
+        assertThat(parser.id, equalTo("1"));
+        assertThat(parser.routing, equalTo("r"));
+        assertThat(parser.pipeline, equalTo("p"));
+        assertThat(parser.opType, nullValue());
+        assertThat(parser.requireAlias, equalTo(Boolean.TRUE));
+        assertThat(parser.version, equalTo(Versions.MATCH_ANY));
+        assertThat(parser.versionType, equalTo(VersionType.INTERNAL));
+        String index = parser.index;
+
+        assertTrue(parse(parser, """
+            {"delete":{"_index":"logs","_id":"2","version":-3,"version_type":"external","if_seq_no":7,"if_primary_term":0}}"""));
+        assertThat(parser.action, equalTo("delete"));
+        // the index name of the previous line is reused
+        assertThat(parser.index, sameInstance(index));
+        assertThat(parser.id, equalTo("2"));
+        assertThat(parser.routing, nullValue());
+        assertThat(parser.pipeline, nullValue());
+        assertThat(parser.requireAlias, nullValue());
+        assertThat(parser.version, equalTo(-3L));
+        assertThat(parser.versionType, equalTo(VersionType.EXTERNAL));
+        assertThat(parser.ifSeqNo, equalTo(7L));
+        assertThat(parser.ifPrimaryTerm, equalTo(0L));
+
+        assertTrue(parse(parser, "{\"index\":{\"_id\":\"é\",\"op_type\":\"create\",\"retry_on_conflict\":3}}"));
+        assertThat(parser.action, equalTo("index"));
+        assertThat(parser.index, nullValue());
+        assertThat(parser.id, equalTo("é"));
+        assertThat(parser.opType, equalTo("create"));
+        assertThat(parser.retryOnConflict, equalTo(3));
+        assertThat(parser.ifSeqNo, equalTo(SequenceNumbers.UNASSIGNED_SEQ_NO));
+
+        assertTrue(parse(parser, " { \"create\" : { } } "));
+        assertThat(parser.action, equalTo("create"));
+        assertThat(parser.id, nullValue());
+    }
+
+    public void testUnsupportedLines() {
+        BulkActionLineParser parser = new BulkActionLineParser();
+        for (String line : List.of(
+            "",
+            "{}",
+            "{\"foo\":{}}",
+            "{\"index\":{}",
+            "{\"index\":{}}}",
+            "{\"index\":{}},",
+            "{\"index\":{},\"delete\":{}}",
+            "{\"index\":{\"_id\":\"1\",\"_id\":\"2\"}}",
+            "{\"index\":{\"_id\":\"a\\\"b\"}}",
+            "{\"index\":{\"_id\":1}}",
+            "{\"index\":{\"_id\":null}}",
+            "{\"index\":{\"_type\":\"_doc\"}}",
+            "{\"index\":{\"_source\":true}}",
+            "{\"index\":{\"dynamic_templates\":{}}}",
+            "{\"index\":{\"version\":1.0}}",
+            "{\"index\":{\"version\":1e3}}",
+            "{\"index\":{\"version\":01}}",
+            "{\"index\":{\"version\":\"1\"}}",
+            "{\"index\":{\"version\":12345678901234567890}}",
+            "{\"update\":{\"retry_on_conflict\":3000000000}}",
+            "{\"index\":{\"require_alias\":\"true\"}}",
+            "{\"index\":{\"_id\":\"1\",}}",
+            "{\"index\":{\"_id\":\"1\"} /* comment */ }"
+        )) {
+            assertFalse(line, parse(parser, line));
+        }
+    }
+
+    /**
+     * Lines that are parsed from the bytes must result in the same requests as lines that are parsed with a regular parser.
+     */
+    public void testSameRequestsAsSlowPath() throws IOException {
+        String fast = """
+            {"index":{"_index":"logs","_id":"1","routing":"r","pipeline":"p","if_seq_no":3,"if_primary_term":2,"require_alias":true}}
+            {"field":"value"}
+            {"create":{"_id":"2","version":4,"version_type":"external"}}
+            {"field":"value"}
+            {"update":{"_id":"3","retry_on_conflict":2}}
+            {"doc":{"field":"value"}}
+            {"delete":{"_index":"other","_id":"4"}}
+            """;
+        // adding an empty _source makes the lines go through the regular parser without changing the requests
+        String slow = fast.replace("{\"_", "{\"_source\":{},\"_");
+        assertThat(parseRequests(slow), equalTo(parseRequests(fast)));
+    }
+
+    public void testExplicitIndexNotAllowed() {
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> parser.parse(
+                new BytesArray("{\"index\":{\"_index\":\"logs\"}}\n{}\n"),
+                "foo",
+                null,
+                null,
+                null,
+                null,
+                false,
+                XContentType.JSON,
+                (indexRequest, type) -> fail(),
+                req -> fail(),
+                req -> fail()
+            )
+        );
+        assertThat(e.getMessage(), equalTo("explicit index in bulk is not allowed"));
+    }
+
+    private static boolean parse(BulkActionLineParser parser, String line) {
+        byte[] bytes = ("xx" + line + "yy").getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes, 2, bytes.length - 2);
+    }
+
+    private static List<String> parseRequests(String bulk) throws IOException {
+        List<DocWriteRequest<?>> requests = new ArrayList<>();
+        new BulkRequestParser(randomBoolean(), RestApiVersion.current()).parse(
+            new BytesArray(bulk),
+            "default",
+            null,
+            null,
+            null,
+            null,
+            true,
+            XContentType.JSON,
+            (indexRequest, type) -> requests.add(indexRequest),
+            requests::add,
+            requests::add
+        );
+        List<String> descriptions = new ArrayList<>();
+        for (DocWriteRequest<?> request : requests) {
+            StringBuilder description = new StringBuilder(request.toString());
+            description.append(" routing=").append(request.routing());
+            description.append(" version=").append(request.version()).append(' ').append(request.versionType());
+            description.append(" if_seq_no=").append(request.ifSeqNo()).append(" if_primary_term=").append(request.ifPrimaryTerm());
+            description.append(" require_alias=").append(request.isRequireAlias());
+            if (request instanceof IndexRequest) {
+                IndexRequest indexRequest = (IndexRequest) request;
+                description.append(" pipeline=").append(indexRequest.getPipeline());
+                description.append(" source=").append(indexRequest.source().utf8ToString());
+            } else if (request instanceof UpdateRequest) {
+                UpdateRequest updateRequest = (UpdateRequest) request;
+                description.append(" retry_on_conflict=").append(updateRequest.retryOnConflict());
+                description.append(" doc=").append(updateRequest.doc().source().utf8ToString());
+            }
+            descriptions.add(description.toString());
+        }
+        return descriptions;
+    }
+}
@@ -8,9 +8,12 @@
 
 package org.elasticsearch.action.search;
 
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.InnerHitBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
@@ -18,6 +21,10 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.AbstractSearchTestCase;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.InternalFilters;
+import org.elasticsearch.search.aggregations.metrics.InternalTopHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseBuilder;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -26,10 +33,12 @@ import org.hamcrest.Matchers;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -79,32 +88,33 @@ public class ExpandSearchPhaseTests extends ESTestCase {
                     assertEquals(numInnerHits, request.requests().size());
                     SearchRequest searchRequest = request.requests().get(0);
                     assertTrue(searchRequest.source().query() instanceof BoolQueryBuilder);
+                    assertThat(searchRequest.source().size(), equalTo(0));
 
-                    BoolQueryBuilder groupBuilder = (BoolQueryBuilder) searchRequest.source().query();
-                    if (collapseValue == null) {
-                        assertThat(groupBuilder.mustNot(), Matchers.contains(QueryBuilders.existsQuery("someField")));
+                    BoolQueryBuilder query = (BoolQueryBuilder) searchRequest.source().query();
+                    if (originalQuery != null) {
+                        assertThat(query.must(), Matchers.contains(QueryBuilders.termQuery("foo", "bar")));
                     } else {
-                        assertThat(groupBuilder.filter(), Matchers.contains(QueryBuilders.matchQuery("someField", "boom")));
+                        assertThat(query.must(), Matchers.empty());
                     }
-                    if (originalQuery != null) {
-                        assertThat(groupBuilder.must(), Matchers.contains(QueryBuilders.termQuery("foo", "bar")));
+                    assertThat(searchRequest.source().aggregations().count(), equalTo(1));
+                    FiltersAggregationBuilder groups = (FiltersAggregationBuilder) searchRequest.source()
+                        .aggregations()
+                        .getAggregatorFactories()
+                        .iterator()
+                        .next();
+                    assertThat(groups.filters().size(), equalTo(1));
+                    QueryBuilder groupFilter = groups.filters().get(0).filter();
+                    if (collapseValue == null) {
+                        assertThat(groupFilter, equalTo(new BoolQueryBuilder().mustNot(QueryBuilders.existsQuery("someField"))));
+                    } else {
+                        assertThat(groupFilter, equalTo(QueryBuilders.matchQuery("someField", "boom")));
                     }
                     assertArrayEquals(mockSearchPhaseContext.getRequest().indices(), searchRequest.indices());
                     assertThat(searchRequest.source().runtimeMappings(), equalTo(runtimeMappings));
 
                     List<MultiSearchResponse.Item> mSearchResponses = new ArrayList<>(numInnerHits);
                     for (int innerHitNum = 0; innerHitNum < numInnerHits; innerHitNum++) {
-                        InternalSearchResponse internalSearchResponse = new InternalSearchResponse(
-                            collapsedHits.get(innerHitNum),
-                            null,
-                            null,
-                            null,
-                            false,
-                            null,
-                            1
-                        );
-                        mockSearchPhaseContext.sendSearchResponse(internalSearchResponse, null);
-                        mSearchResponses.add(new MultiSearchResponse.Item(mockSearchPhaseContext.searchResponse.get(), null));
+                        mSearchResponses.add(new MultiSearchResponse.Item(groupedResponse(collapsedHits.get(innerHitNum)), null));
                     }
 
                     listener.onResponse(
@@ -141,8 +151,120 @@ public class ExpandSearchPhaseTests extends ESTestCase {
         }
     }
 
-    public void testFailOneItemFailsEntirePhase() throws IOException {
+    public void testInnerCollapseExpandsEachGroup() throws IOException {
+        SearchHits collapsedHits = new SearchHits(
+            new SearchHit[] { new SearchHit(2, "ID", Collections.emptyMap(), Collections.emptyMap()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+            1.0F
+        );
         AtomicBoolean executedMultiSearch = new AtomicBoolean(false);
+        MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
+        mockSearchPhaseContext.getRequest()
+            .source(
+                new SearchSourceBuilder().collapse(
+                    new CollapseBuilder("someField").setInnerHits(
+                        Arrays.asList(
+                            new InnerHitBuilder().setName("grouped"),
+                            new InnerHitBuilder().setName("collapsed").setInnerCollapse(new CollapseBuilder("otherField"))
+                        )
+                    )
+                ).postFilter(QueryBuilders.existsQuery("foo"))
+            );
+        mockSearchPhaseContext.searchTransport = new SearchTransportService(null, null, null) {
+            @Override
+            void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                assertTrue(executedMultiSearch.compareAndSet(false, true));
+                // one grouped request and then one request per group for the inner collapse
+                assertThat(request.requests().size(), equalTo(3));
+                SearchRequest grouped = request.requests().get(0);
+                assertThat(((BoolQueryBuilder) grouped.source().query()).filter(), Matchers.contains(QueryBuilders.existsQuery("foo")));
+                assertNull(grouped.source().postFilter());
+                for (SearchRequest perGroup : request.requests().subList(1, 3)) {
+                    assertThat(perGroup.source().collapse().getField(), equalTo("otherField"));
+                    assertThat(perGroup.source().postFilter(), equalTo(QueryBuilders.existsQuery("foo")));
+                }
+                listener.onResponse(
+                    new MultiSearchResponse(
+                        new MultiSearchResponse.Item[] {
+                            new MultiSearchResponse.Item(groupedResponse(collapsedHits, collapsedHits), null),
+                            new MultiSearchResponse.Item(hitsResponse(collapsedHits), null),
+                            new MultiSearchResponse.Item(hitsResponse(collapsedHits), null) },
+                        randomIntBetween(1, 10000)
+                    )
+                );
+            }
+        };
+
+        SearchHits hits = new SearchHits(
+            new SearchHit[] {
+                new SearchHit(
+                    1,
+                    "ID",
+                    Collections.singletonMap("someField", new DocumentField("someField", Collections.singletonList("a"))),
+                    Collections.emptyMap()
+                ),
+                new SearchHit(
+                    2,
+                    "ID2",
+                    Collections.singletonMap("someField", new DocumentField("someField", Collections.singletonList("b"))),
+                    Collections.emptyMap()
+                ) },
+            new TotalHits(2, TotalHits.Relation.EQUAL_TO),
+            1.0F
+        );
+        InternalSearchResponse internalSearchResponse = new InternalSearchResponse(hits, null, null, null, false, null, 1);
+        ExpandSearchPhase phase = new ExpandSearchPhase(mockSearchPhaseContext, internalSearchResponse, null);
+        phase.run();
+        mockSearchPhaseContext.assertNoFailure();
+        assertTrue(executedMultiSearch.get());
+        for (SearchHit hit : mockSearchPhaseContext.searchResponse.get().getHits().getHits()) {
+            assertSame(collapsedHits, hit.getInnerHits().get("grouped"));
+            assertSame(collapsedHits, hit.getInnerHits().get("collapsed"));
+        }
+    }
+
+    private static SearchResponse hitsResponse(SearchHits hits) {
+        InternalSearchResponse internalSearchResponse = new InternalSearchResponse(hits, null, null, null, false, null, 1);
+        return new SearchResponse(internalSearchResponse, null, 1, 1, 0, 0, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    /**
+     * Build the response to a grouped expand request where group {@code i} has the inner hits {@code groupHits[i]}.
+     */
+    private static SearchResponse groupedResponse(SearchHits... groupHits) {
+        List<InternalFilters.InternalBucket> buckets = new ArrayList<>(groupHits.length);
+        for (int i = 0; i < groupHits.length; i++) {
+            TopDocsAndMaxScore topDocs = new TopDocsAndMaxScore(
+                new TopDocs(groupHits[i].getTotalHits(), new ScoreDoc[0]),
+                groupHits[i].getMaxScore()
+            );
+            InternalTopHits topHits = new InternalTopHits(ExpandSearchPhase.TOP_HITS_AGG_NAME, 0, 3, topDocs, groupHits[i], null);
+            buckets.add(
+                new InternalFilters.InternalBucket(
+                    Integer.toString(i),
+                    groupHits[i].getTotalHits().value,
+                    InternalAggregations.from(Collections.singletonList(topHits)),
+                    false
+                )
+            );
+        }
+        InternalAggregations aggs = InternalAggregations.from(
+            Collections.singletonList(new InternalFilters(ExpandSearchPhase.GROUPS_AGG_NAME, buckets, false, null))
+        );
+        InternalSearchResponse internalSearchResponse = new InternalSearchResponse(
+            SearchHits.empty(),
+            aggs,
+            null,
+            null,
+            false,
+            null,
+            1
+        );
+        return new SearchResponse(internalSearchResponse, null, 1, 1, 0, 0, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    public void testFailOneItemFailsEntirePhase() throws IOException {
+        AtomicInteger executedMultiSearches = new AtomicInteger();
 
         SearchHits collapsedHits = new SearchHits(
             new SearchHit[] {
@@ -162,7 +284,18 @@ public class ExpandSearchPhaseTests extends ESTestCase {
         mockSearchPhaseContext.searchTransport = new SearchTransportService(null, null, null) {
             @Override
             void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
-                assertTrue(executedMultiSearch.compareAndSet(false, true));
+                if (executedMultiSearches.incrementAndGet() == 1) {
+                    // the grouped request fails and is retried with a request per group
+                    assertThat(request.requests().size(), equalTo(1));
+                    listener.onResponse(
+                        new MultiSearchResponse(
+                            new MultiSearchResponse.Item[] { new MultiSearchResponse.Item(null, new RuntimeException("grouped")) },
+                            randomIntBetween(1, 10000)
+                        )
+                    );
+                    return;
+                }
+                assertThat(request.requests().size(), equalTo(2));
                 InternalSearchResponse internalSearchResponse = new InternalSearchResponse(collapsedHits, null, null, null, false, null, 1);
                 SearchResponse searchResponse = new SearchResponse(
                     internalSearchResponse,
@@ -209,6 +342,124 @@ public class ExpandSearchPhaseTests extends ESTestCase {
         assertEquals("boom", mockSearchPhaseContext.phaseFailure.get().getMessage());
         assertNotNull(mockSearchPhaseContext.phaseFailure.get());
         assertNull(mockSearchPhaseContext.searchResponse.get());
+        assertThat(executedMultiSearches.get(), equalTo(2));
+    }
+
+    public void testLargeInnerHitsWindowExpandsEachGroup() throws IOException {
+        SearchHits collapsedHits = new SearchHits(
+            new SearchHit[] { new SearchHit(2, "ID", Collections.emptyMap(), Collections.emptyMap()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+            1.0F
+        );
+        final int from = randomIntBetween(0, 10);
+        final int size = ExpandSearchPhase.MAX_GROUPED_INNER_RESULT_WINDOW - from + randomIntBetween(1, 100);
+        AtomicBoolean executedMultiSearch = new AtomicBoolean(false);
+        MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
+        mockSearchPhaseContext.getRequest()
+            .source(
+                new SearchSourceBuilder().collapse(
+                    new CollapseBuilder("someField").setInnerHits(new InnerHitBuilder().setName("large").setFrom(from).setSize(size))
+                )
+            );
+        mockSearchPhaseContext.searchTransport = new SearchTransportService(null, null, null) {
+            @Override
+            void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                assertTrue(executedMultiSearch.compareAndSet(false, true));
+                // top_hits would reject the window so each group is expanded with a search of its own
+                assertThat(request.requests().size(), equalTo(2));
+                for (SearchRequest perGroup : request.requests()) {
+                    assertNull(perGroup.source().aggregations());
+                    assertThat(perGroup.source().from(), equalTo(from));
+                    assertThat(perGroup.source().size(), equalTo(size));
+                }
+                listener.onResponse(
+                    new MultiSearchResponse(
+                        new MultiSearchResponse.Item[] {
+                            new MultiSearchResponse.Item(hitsResponse(collapsedHits), null),
+                            new MultiSearchResponse.Item(hitsResponse(collapsedHits), null) },
+                        randomIntBetween(1, 10000)
+                    )
+                );
+            }
+        };
+
+        ExpandSearchPhase phase = new ExpandSearchPhase(mockSearchPhaseContext, twoGroupsResponse(), null);
+        phase.run();
+        mockSearchPhaseContext.assertNoFailure();
+        assertTrue(executedMultiSearch.get());
+        for (SearchHit hit : mockSearchPhaseContext.searchResponse.get().getHits().getHits()) {
+            assertSame(collapsedHits, hit.getInnerHits().get("large"));
+        }
+    }
+
+    public void testFailedGroupedExpandFallsBackToEachGroup() throws IOException {
+        SearchHits collapsedHits = new SearchHits(
+            new SearchHit[] { new SearchHit(2, "ID", Collections.emptyMap(), Collections.emptyMap()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+            1.0F
+        );
+        AtomicInteger executedMultiSearches = new AtomicInteger();
+        MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
+        mockSearchPhaseContext.getRequest()
+            .source(
+                new SearchSourceBuilder().collapse(
+                    new CollapseBuilder("someField").setInnerHits(
+                        Arrays.asList(new InnerHitBuilder().setName("failing"), new InnerHitBuilder().setName("grouped"))
+                    )
+                )
+            );
+        mockSearchPhaseContext.searchTransport = new SearchTransportService(null, null, null) {
+            @Override
+            void sendExecuteMultiSearch(MultiSearchRequest request, SearchTask task, ActionListener<MultiSearchResponse> listener) {
+                final MultiSearchResponse.Item[] items;
+                if (executedMultiSearches.incrementAndGet() == 1) {
+                    assertThat(request.requests().size(), equalTo(2));
+                    items = new MultiSearchResponse.Item[] {
+                        new MultiSearchResponse.Item(null, new IllegalArgumentException("Top hits result window is too large")),
+                        new MultiSearchResponse.Item(groupedResponse(collapsedHits, collapsedHits), null) };
+                } else {
+                    // only the failed definition is expanded again, with a search per group
+                    assertThat(request.requests().size(), equalTo(2));
+                    for (SearchRequest perGroup : request.requests()) {
+                        assertNull(perGroup.source().aggregations());
+                    }
+                    items = new MultiSearchResponse.Item[] {
+                        new MultiSearchResponse.Item(hitsResponse(collapsedHits), null),
+                        new MultiSearchResponse.Item(hitsResponse(collapsedHits), null) };
+                }
+                listener.onResponse(new MultiSearchResponse(items, randomIntBetween(1, 10000)));
+            }
+        };
+
+        ExpandSearchPhase phase = new ExpandSearchPhase(mockSearchPhaseContext, twoGroupsResponse(), null);
+        phase.run();
+        mockSearchPhaseContext.assertNoFailure();
+        assertThat(executedMultiSearches.get(), equalTo(2));
+        for (SearchHit hit : mockSearchPhaseContext.searchResponse.get().getHits().getHits()) {
+            assertSame(collapsedHits, hit.getInnerHits().get("failing"));
+            assertSame(collapsedHits, hit.getInnerHits().get("grouped"));
+        }
+    }
+
+    private static InternalSearchResponse twoGroupsResponse() {
+        SearchHits hits = new SearchHits(
+            new SearchHit[] {
+                new SearchHit(
+                    1,
+                    "ID",
+                    Collections.singletonMap("someField", new DocumentField("someField", Collections.singletonList("a"))),
+                    Collections.emptyMap()
+                ),
+                new SearchHit(
+                    2,
+                    "ID2",
+                    Collections.singletonMap("someField", new DocumentField("someField", Collections.singletonList("b"))),
+                    Collections.emptyMap()
+                ) },
+            new TotalHits(2, TotalHits.Relation.EQUAL_TO),
+            1.0F
+        );
+        return new InternalSearchResponse(hits, null, null, null, false, null, 1);
     }
 
     public void testSkipPhase() throws IOException {
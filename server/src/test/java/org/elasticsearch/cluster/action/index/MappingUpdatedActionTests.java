@@ -22,17 +22,23 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AdjustableSemaphore;
+import org.elasticsearch.discovery.MasterNotDiscoveredException;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.Mapper;
 import org.elasticsearch.index.mapper.MapperBuilderContext;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MetadataFieldMapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.mapper.RootObjectMapper;
+import org.elasticsearch.script.ScriptCompiler;
 import org.elasticsearch.test.ESTestCase;
 
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -126,6 +132,202 @@ public class MappingUpdatedActionTests extends ESTestCase {
         assertTrue(fut2.isDone());
     }
 
+    public void testPendingUpdatesAreMerged() throws Exception {
+        final RecordingMappingUpdatedAction mua = new RecordingMappingUpdatedAction();
+        List<Mapping> sentUpdates = mua.sentUpdates;
+        List<ActionListener<Void>> inFlightListeners = mua.inFlightListeners;
+        Index index = new Index("index", "uuid");
+
+        PlainActionFuture<Void> fut1 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(new Index("other", "uuid"), update(new KeywordFieldMapper.Builder("a")), fut1);
+        assertEquals(1, inFlightListeners.size());
+
+        PlainActionFuture<Void> fut2 = new PlainActionFuture<>();
+        Thread thread = new Thread(() -> mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("b")), fut2));
+        thread.start();
+        assertBusy(() -> assertEquals(1, mua.blockedThreads()));
+
+        // merged into the blocked update without blocking
+        PlainActionFuture<Void> fut3 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("c")), fut3);
+        assertEquals(1, mua.blockedThreads());
+
+        inFlightListeners.remove(0).onResponse(null);
+        assertTrue(fut1.isDone());
+        thread.join();
+
+        assertEquals(2, sentUpdates.size());
+        assertThat(sentUpdates.get(1).toString(), containsString("\"b\""));
+        assertThat(sentUpdates.get(1).toString(), containsString("\"c\""));
+        assertEquals(1, inFlightListeners.size());
+        assertFalse(fut2.isDone());
+        assertFalse(fut3.isDone());
+
+        // merged updates that the master rejects are retried one by one, using the same permit
+        inFlightListeners.remove(0).onFailure(new IllegalArgumentException("limit of total fields exceeded"));
+        assertEquals(3, sentUpdates.size());
+        assertThat(sentUpdates.get(2).toString(), containsString("\"b\""));
+        assertEquals(1, inFlightListeners.size());
+        PlainActionFuture<Void> fut4 = new PlainActionFuture<>();
+        Thread blocked = new Thread(
+            () -> mua.updateMappingOnMaster(new Index("other", "uuid"), update(new KeywordFieldMapper.Builder("d")), fut4)
+        );
+        blocked.start();
+        assertBusy(() -> assertEquals(1, mua.blockedThreads()));
+
+        inFlightListeners.remove(0).onResponse(null);
+        assertTrue(fut2.isDone());
+        assertFalse(fut3.isDone());
+        assertEquals(4, sentUpdates.size());
+        assertThat(sentUpdates.get(3).toString(), containsString("\"c\""));
+        assertEquals(1, mua.blockedThreads());
+
+        inFlightListeners.remove(0).onFailure(new IllegalArgumentException("limit of total fields exceeded"));
+        expectThrows(IllegalArgumentException.class, fut3::actionGet);
+        blocked.join();
+        assertEquals(0, mua.blockedThreads());
+        inFlightListeners.remove(0).onResponse(null);
+        assertTrue(fut4.isDone());
+    }
+
+    public void testMergedUpdatesFailTogetherIfMasterIsUnavailable() throws Exception {
+        final RecordingMappingUpdatedAction mua = new RecordingMappingUpdatedAction();
+        List<Mapping> sentUpdates = mua.sentUpdates;
+        List<ActionListener<Void>> inFlightListeners = mua.inFlightListeners;
+        Index index = new Index("index", "uuid");
+
+        mua.updateMappingOnMaster(new Index("other", "uuid"), update(new KeywordFieldMapper.Builder("a")), new PlainActionFuture<>());
+        PlainActionFuture<Void> fut1 = new PlainActionFuture<>();
+        Thread thread = new Thread(() -> mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("a")), fut1));
+        thread.start();
+        assertBusy(() -> assertEquals(1, mua.blockedThreads()));
+        PlainActionFuture<Void> fut2 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("b")), fut2);
+        // conflicts with the first update, sent after the merged one
+        PlainActionFuture<Void> fut3 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(
+            index,
+            update(new NumberFieldMapper.Builder("a", NumberFieldMapper.NumberType.LONG, ScriptCompiler.NONE, false, true)),
+            fut3
+        );
+
+        inFlightListeners.remove(0).onResponse(null);
+        thread.join();
+        assertEquals(2, sentUpdates.size());
+
+        // not retried and the conflicting update isn't sent
+        inFlightListeners.remove(0).onFailure(new MasterNotDiscoveredException());
+        assertEquals(2, sentUpdates.size());
+        expectThrows(MasterNotDiscoveredException.class, fut1::actionGet);
+        expectThrows(MasterNotDiscoveredException.class, fut2::actionGet);
+        expectThrows(MasterNotDiscoveredException.class, fut3::actionGet);
+
+        // the permit was released
+        PlainActionFuture<Void> fut4 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("c")), fut4);
+        assertEquals(1, inFlightListeners.size());
+    }
+
+    public void testConflictingUpdatesAreNotMerged() throws Exception {
+        final RecordingMappingUpdatedAction mua = new RecordingMappingUpdatedAction();
+        List<Mapping> sentUpdates = mua.sentUpdates;
+        List<ActionListener<Void>> inFlightListeners = mua.inFlightListeners;
+        Index index = new Index("index", "uuid");
+
+        mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("a")), new PlainActionFuture<>());
+        PlainActionFuture<Void> fut1 = new PlainActionFuture<>();
+        Thread thread = new Thread(() -> mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("a")), fut1));
+        thread.start();
+        assertBusy(() -> assertEquals(1, mua.blockedThreads()));
+        PlainActionFuture<Void> fut2 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(
+            index,
+            update(new NumberFieldMapper.Builder("a", NumberFieldMapper.NumberType.LONG, ScriptCompiler.NONE, false, true)),
+            fut2
+        );
+        assertEquals(1, mua.blockedThreads());
+
+        inFlightListeners.remove(0).onResponse(null);
+        thread.join();
+        assertEquals(1, inFlightListeners.size());
+        inFlightListeners.remove(0).onResponse(null);
+        assertTrue(fut1.isDone());
+        // sent separately after the first one, with the same permit
+        assertEquals(1, inFlightListeners.size());
+        assertFalse(fut2.isDone());
+        inFlightListeners.remove(0).onFailure(new IllegalArgumentException("mapper [a] cannot be changed from type [keyword] to [long]"));
+        expectThrows(IllegalArgumentException.class, fut2::actionGet);
+        assertEquals(3, sentUpdates.size());
+        assertThat(sentUpdates.get(2).toString(), containsString("long"));
+    }
+
+    public void testUpdatesThatFailToBeSentOnlyFailTheirBatch() throws Exception {
+        final RecordingMappingUpdatedAction mua = new RecordingMappingUpdatedAction();
+        Index index = new Index("index", "uuid");
+
+        mua.updateMappingOnMaster(new Index("other", "uuid"), update(new KeywordFieldMapper.Builder("a")), new PlainActionFuture<>());
+        PlainActionFuture<Void> fut1 = new PlainActionFuture<>();
+        Thread thread = new Thread(() -> mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("a")), fut1));
+        thread.start();
+        assertBusy(() -> assertEquals(1, mua.blockedThreads()));
+        // conflicts with the first update, so it is sent in a batch of its own
+        PlainActionFuture<Void> fut2 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(
+            index,
+            update(new NumberFieldMapper.Builder("a", NumberFieldMapper.NumberType.LONG, ScriptCompiler.NONE, false, true)),
+            fut2
+        );
+
+        mua.failToSend = "keyword";
+        mua.inFlightListeners.remove(0).onResponse(null);
+        thread.join();
+        IllegalStateException e = expectThrows(IllegalStateException.class, fut1::actionGet);
+        assertThat(e.getMessage(), containsString("simulated"));
+        assertEquals(1, mua.inFlightListeners.size());
+        assertThat(mua.sentUpdates.get(1).toString(), containsString("long"));
+        mua.inFlightListeners.remove(0).onResponse(null);
+        assertTrue(fut2.isDone());
+        fut2.actionGet();
+
+        // the permit was released
+        PlainActionFuture<Void> fut3 = new PlainActionFuture<>();
+        mua.updateMappingOnMaster(index, update(new KeywordFieldMapper.Builder("b")), fut3);
+        assertTrue(fut3.isDone());
+        expectThrows(IllegalStateException.class, fut3::actionGet);
+        assertEquals(0, mua.inFlightListeners.size());
+    }
+
+    /**
+     * A {@link MappingUpdatedAction} with a single in flight update that records the updates it sends instead of sending them.
+     */
+    private static class RecordingMappingUpdatedAction extends MappingUpdatedAction {
+        final List<Mapping> sentUpdates = new CopyOnWriteArrayList<>();
+        final List<ActionListener<Void>> inFlightListeners = new CopyOnWriteArrayList<>();
+        // updates that contain this string fail to be sent
+        volatile String failToSend;
+
+        RecordingMappingUpdatedAction() {
+            super(
+                Settings.builder().put(MappingUpdatedAction.INDICES_MAX_IN_FLIGHT_UPDATES_SETTING.getKey(), 1).build(),
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+            );
+        }
+
+        @Override
+        protected void sendUpdateMapping(Index index, Mapping mappingUpdate, ActionListener<Void> listener) {
+            if (failToSend != null && mappingUpdate.toString().contains(failToSend)) {
+                throw new IllegalStateException("simulated failure to send " + mappingUpdate);
+            }
+            sentUpdates.add(mappingUpdate);
+            inFlightListeners.add(listener);
+        }
+    }
+
+    private static Mapping update(Mapper.Builder field) {
+        RootObjectMapper root = new RootObjectMapper.Builder("_doc").add(field).build(MapperBuilderContext.ROOT);
+        return new Mapping(root, new MetadataFieldMapper[0], null);
+    }
+
     public void testSendUpdateMappingUsingAutoPutMappingAction() {
         DiscoveryNodes nodes = DiscoveryNodes.builder()
             .add(new DiscoveryNode("first", buildNewFakeTransportAddress(), Version.V_7_9_0))
@@ -22,6 +22,7 @@ import org.elasticsearch.test.InternalSettingsPlugin;
 import java.util.Collection;
 import java.util.Collections;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 
@@ -93,6 +94,54 @@ public class MetadataMappingServiceTests extends ESSingleNodeTestCase {
         assertThat(result.resultingState.metadata().index("test").getMappingVersion(), equalTo(1 + previousVersion));
     }
 
+    public void testConsecutiveBatchesOnDifferentStates() throws Exception {
+        final IndexService indexService = createIndex("test", client().admin().indices().prepareCreate("test").setMapping());
+        final MetadataMappingService mappingService = getInstanceFromNode(MetadataMappingService.class);
+        final ClusterService clusterService = getInstanceFromNode(ClusterService.class);
+        final ClusterState initialState = clusterService.state();
+
+        final ClusterState first = putMapping(mappingService, initialState, indexService.index(), "first");
+        final ClusterState second = putMapping(mappingService, first, indexService.index(), "second");
+        String mapping = second.metadata().index("test").mapping().source().string();
+        assertThat(mapping, containsString("first"));
+        assertThat(mapping, containsString("second"));
+
+        // the mapper service of the previous batch must not be used for a state that doesn't have its mapping
+        final ClusterState third = putMapping(mappingService, initialState, indexService.index(), "third");
+        mapping = third.metadata().index("test").mapping().source().string();
+        assertThat(mapping, not(containsString("first")));
+        assertThat(mapping, not(containsString("second")));
+        assertThat(mapping, containsString("third"));
+        assertThat(third.metadata().index("test").getMappingVersion(), equalTo(first.metadata().index("test").getMappingVersion()));
+    }
+
+    public void testCachedMapperServicesAreClearedWhenNoLongerMaster() throws Exception {
+        final IndexService indexService = createIndex("test", client().admin().indices().prepareCreate("test").setMapping());
+        final MetadataMappingService mappingService = getInstanceFromNode(MetadataMappingService.class);
+        final ClusterService clusterService = getInstanceFromNode(ClusterService.class);
+
+        putMapping(mappingService, clusterService.state(), indexService.index(), "field");
+        assertThat(mappingService.numCachedMapperServices(), equalTo(1));
+
+        mappingService.clearCachedMapperServices();
+        assertThat(mappingService.numCachedMapperServices(), equalTo(0));
+        // the next batch builds a new mapper service
+        putMapping(mappingService, clusterService.state(), indexService.index(), "other");
+        assertThat(mappingService.numCachedMapperServices(), equalTo(1));
+    }
+
+    private static ClusterState putMapping(MetadataMappingService mappingService, ClusterState state, Index index, String field)
+        throws Exception {
+        final PutMappingClusterStateUpdateRequest request = new PutMappingClusterStateUpdateRequest(
+            "{ \"properties\": { \"" + field + "\": { \"type\": \"keyword\" }}}"
+        );
+        request.indices(new Index[] { index });
+        final ClusterStateTaskExecutor.ClusterTasksResult<PutMappingClusterStateUpdateRequest> result = mappingService.putMappingExecutor
+            .execute(state, Collections.singletonList(request));
+        assertTrue(result.executionResults.values().iterator().next().isSuccess());
+        return result.resultingState;
+    }
+
     public void testMappingVersionUnchanged() throws Exception {
         final IndexService indexService = createIndex("test", client().admin().indices().prepareCreate("test").setMapping());
         final long previousVersion = indexService.getMetadata().getMappingVersion();
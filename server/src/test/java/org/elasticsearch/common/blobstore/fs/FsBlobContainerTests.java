@@ -11,6 +11,8 @@ import org.apache.lucene.mockfile.FilterFileSystemProvider;
 import org.apache.lucene.mockfile.FilterSeekableByteChannel;
 import org.apache.lucene.util.LuceneTestCase;
 import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.MultipartBlobWrite;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.core.PathUtils;
 import org.elasticsearch.core.PathUtilsForTesting;
@@ -24,12 +26,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -82,6 +89,81 @@ public class FsBlobContainerTests extends ESTestCase {
         }
     }
 
+    public void testMultipartWrite() throws Exception {
+        final Path path = PathUtils.get(createTempDir().toString());
+        final FsBlobContainer container = new FsBlobContainer(new FsBlobStore(1024, path, false), BlobPath.EMPTY, path);
+        assertTrue(container.supportsMultipartWrites());
+
+        final byte[] blobData = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final int partSize = randomIntBetween(1, blobData.length);
+        final List<Integer> positions = new ArrayList<>();
+        for (int position = 0; position < blobData.length; position += partSize) {
+            positions.add(position);
+        }
+        Collections.shuffle(positions, random());
+
+        try (MultipartBlobWrite write = container.startMultipartWrite("blob", blobData.length, true)) {
+            final Thread[] threads = new Thread[positions.size()];
+            for (int i = 0; i < threads.length; i++) {
+                final int position = positions.get(i);
+                threads[i] = new Thread(() -> {
+                    try {
+                        write.writePart(position, new BytesArray(blobData, position, Math.min(partSize, blobData.length - position)));
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertFalse(container.blobExists("blob"));
+            write.complete();
+        }
+        assertThat(container.listBlobs().keySet(), equalTo(Set.of("blob")));
+        assertArrayEquals(blobData, Files.readAllBytes(path.resolve("blob")));
+
+        try (MultipartBlobWrite write = container.startMultipartWrite("blob", 1, true)) {
+            write.writePart(0, new BytesArray(new byte[] { 1 }));
+            expectThrows(FileAlreadyExistsException.class, write::complete);
+        }
+        assertArrayEquals(blobData, Files.readAllBytes(path.resolve("blob")));
+        assertThat(container.listBlobs().keySet(), equalTo(Set.of("blob")));
+    }
+
+    public void testAbandonedMultipartWrite() throws IOException {
+        final Path path = PathUtils.get(createTempDir().toString());
+        final FsBlobContainer container = new FsBlobContainer(new FsBlobStore(1024, path, false), BlobPath.EMPTY, path);
+        try (MultipartBlobWrite write = container.startMultipartWrite("blob", 10, randomBoolean())) {
+            write.writePart(5, new BytesArray(new byte[5]));
+            expectThrows(IllegalArgumentException.class, () -> write.writePart(8, new BytesArray(new byte[5])));
+            expectThrows(IllegalStateException.class, write::complete);
+        }
+        assertThat(container.listBlobs().size(), equalTo(0));
+    }
+
+    public void testCopyBlob() throws IOException {
+        final Path path = PathUtils.get(createTempDir().toString());
+        final FsBlobStore blobStore = new FsBlobStore(1024, path, false);
+        final FsBlobContainer source = (FsBlobContainer) blobStore.blobContainer(BlobPath.EMPTY.add("source"));
+        final FsBlobContainer target = (FsBlobContainer) blobStore.blobContainer(BlobPath.EMPTY.add("target"));
+        assertTrue(target.supportsCopyFrom(source));
+        assertFalse(target.supportsCopyFrom(new FsBlobContainer(new FsBlobStore(1024, path, false), BlobPath.EMPTY, path)));
+
+        final byte[] blobData = randomByteArrayOfLength(randomIntBetween(1, 1024));
+        source.writeBlob("blob", new BytesArray(blobData), true);
+        target.copyBlob(source, "blob", "copy");
+        expectThrows(FileAlreadyExistsException.class, () -> target.copyBlob(source, "blob", "copy"));
+        expectThrows(NoSuchFileException.class, () -> target.copyBlob(source, "missing", "other"));
+
+        source.deleteBlobsIgnoringIfNotExists(List.of("blob").iterator());
+        assertThat(target.listBlobs().keySet(), equalTo(Set.of("copy")));
+        try (InputStream stream = target.readBlob("copy")) {
+            assertArrayEquals(blobData, stream.readAllBytes());
+        }
+    }
+
     public void testTempBlobName() {
         final String blobName = randomAlphaOfLengthBetween(1, 20);
         final String tempBlobName = FsBlobContainer.tempBlobName(blobName);
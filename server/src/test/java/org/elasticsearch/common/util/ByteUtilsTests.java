@@ -114,4 +114,29 @@ public class ByteUtilsTests extends ESTestCase {
         assertThat(ByteUtils.readIntLE(new byte[] { 100, 64, -30, 1, 0 }, 1), is(123456));
         assertThat(ByteUtils.readIntLE(new byte[] { -100, -64, 29, -2, -1 }, 1), is(-123456));
     }
+
+    public void testIndexOf() {
+        byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 100));
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                bytes[i] = 0;
+            }
+        }
+        int from = randomIntBetween(0, bytes.length);
+        int to = randomIntBetween(from, bytes.length);
+        assertThat(ByteUtils.indexOf(bytes, (byte) '\n', from, to), is(-1));
+        if (from < to) {
+            int marker = randomIntBetween(from, to - 1);
+            bytes[marker] = '\n';
+            assertThat(ByteUtils.indexOf(bytes, (byte) '\n', from, to), is(marker));
+            assertThat(ByteUtils.indexOf(bytes, (byte) '\n', marker + 1, to), is(-1));
+            if (marker > from) {
+                bytes[from] = '\n';
+                assertThat(ByteUtils.indexOf(bytes, (byte) '\n', from, to), is(from));
+            }
+        }
+        // high bytes must not match
+        assertThat(ByteUtils.indexOf(new byte[] { -1, -128, 10, 0, 0, 0, 0, 0, 0 }, (byte) -128, 0, 9), is(1));
+        assertThat(ByteUtils.indexOf(new byte[] { 11, 9, 0, 0, 0, 0, 0, -1, 10 }, (byte) 10, 0, 9), is(8));
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.xcontent;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+
+public class LazySourceMapTests extends ESTestCase {
+
+    private static final String SOURCE = """
+        {
+          "message": "GET /index.html HTTP/1.1",
+          "status": 200,
+          "price": 1.50,
+          "ok": true,
+          "missing": null,
+          "host": { "name": "web-01", "tags": [ "a", "b}", { "c": "]" } ] },
+          "bytes": [ 1, 2, 3 ]
+        }""";
+
+    public void testMatchesEagerlyParsedMap() {
+        boolean ordered = randomBoolean();
+        BytesReference bytes = new BytesArray(SOURCE);
+        Map<String, Object> lazy = XContentHelper.convertToLazyMap(bytes, ordered, XContentType.JSON);
+        assertThat(lazy, instanceOf(LazySourceMap.class));
+        Map<String, Object> eager = XContentHelper.convertToMap(bytes, ordered, XContentType.JSON).v2();
+        for (String key : eager.keySet()) {
+            assertThat(lazy.get(key), equalTo(eager.get(key)));
+        }
+        assertThat(lazy, equalTo(eager));
+    }
+
+    public void testOnlyParsesReadFields() {
+        LazySourceMap map = LazySourceMap.scan(new BytesArray(SOURCE), true);
+        assertThat(map.keySet(), contains("message", "status", "price", "ok", "missing", "host", "bytes"));
+        assertTrue(map.containsKey("host"));
+        assertTrue(map.isRaw("host"));
+        assertThat(map.get("status"), equalTo(200));
+        assertFalse(map.isRaw("status"));
+        assertTrue(map.isRaw("host"));
+        assertTrue(map.isRaw("message"));
+
+        assertThat(map.put("message", "changed"), equalTo("GET /index.html HTTP/1.1"));
+        assertThat(map.remove("bytes"), equalTo(List.of(1, 2, 3)));
+        assertTrue(map.isRaw("host"));
+        assertThat(map.size(), equalTo(6));
+
+        map.entrySet();
+        assertFalse(map.isRaw("host"));
+    }
+
+    public void testWritesUnreadFieldsAsTheyAre() throws IOException {
+        Map<String, Object> map = XContentHelper.convertToLazyMap(new BytesArray(SOURCE), true, XContentType.JSON);
+        map.put("status", 404);
+        map.put("added", "value");
+        map.remove("missing");
+
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        ((LazySourceMap) map).toXContent(builder, ToXContent.EMPTY_PARAMS);
+        String json = BytesReference.bytes(builder).utf8ToString();
+        // the unread number keeps its original formatting
+        assertThat(json.contains("\"price\":1.50"), equalTo(true));
+
+        Map<String, Object> expected = XContentHelper.convertToMap(new BytesArray(SOURCE), true, XContentType.JSON).v2();
+        expected.put("status", 404);
+        expected.put("added", "value");
+        expected.remove("missing");
+        assertThat(XContentHelper.convertToMap(new BytesArray(json), true, XContentType.JSON).v2(), equalTo(expected));
+
+        IndexRequest request = new IndexRequest("index").source(map, XContentType.JSON);
+        assertThat(request.sourceAsMap(), equalTo(expected));
+    }
+
+    public void testFallsBackToEagerParsing() {
+        assertThat(
+            XContentHelper.convertToLazyMap(new BytesArray("{ \"a\\\"b\": 1 }"), false, XContentType.JSON),
+            not(instanceOf(LazySourceMap.class))
+        );
+        assertThat(
+            XContentHelper.convertToLazyMap(new BytesArray("{ \"a\": /* comment */ 1 }"), false, XContentType.JSON),
+            not(instanceOf(LazySourceMap.class))
+        );
+        expectThrows(
+            Exception.class,
+            () -> XContentHelper.convertToLazyMap(new BytesArray("{ \"a\": 1, \"a\": 2 }"), false, XContentType.JSON)
+        );
+        expectThrows(
+            ElasticsearchParseException.class,
+            () -> XContentHelper.convertToLazyMap(new BytesArray("{ \"a\""), false, XContentType.JSON)
+        );
+    }
+
+    public void testInvalidValuesFailWhenRead() {
+        Map<String, Object> map = XContentHelper.convertToLazyMap(new BytesArray("{ \"a\": 1, \"b\": tru }"), false, XContentType.JSON);
+        assertThat(map.get("a"), equalTo(1));
+        expectThrows(Exception.class, () -> map.get("b"));
+    }
+}
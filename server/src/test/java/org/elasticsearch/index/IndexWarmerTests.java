@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.InternalEngineFactory;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class IndexWarmerTests extends IndexShardTestCase {
+
+    public void testCompletionWarmerLoadsCompletionFieldsOfAllSegments() throws Exception {
+        final boolean eagerLoading = randomBoolean();
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexSettings.INDEX_COMPLETION_EAGER_LOADING_SETTING.getKey(), eagerLoading)
+            .build();
+        IndexMetadata metadata = IndexMetadata.builder("test")
+            .putMapping("{ \"properties\": { \"suggest\": { \"type\": \"completion\" }, \"foo\": { \"type\": \"keyword\" }}}")
+            .settings(settings)
+            .primaryTerm(0, 1)
+            .build();
+        IndexShard shard = newShard(new ShardId(metadata.getIndex(), 0), true, "n1", metadata, null);
+        recoverShardFromStore(shard);
+        indexDoc(shard, "_doc", "0", "{\"suggest\" : \"bar\", \"foo\" : \"bar\"}");
+        shard.refresh("created segment 1");
+        indexDoc(shard, "_doc", "1", "{\"suggest\" : \"baz\"}");
+        shard.refresh("created segment 2");
+
+        final AtomicInteger loaded = new AtomicInteger();
+        final IndexWarmer.CompletionWarmer warmer = new IndexWarmer.CompletionWarmer(EsExecutors.DIRECT_EXECUTOR_SERVICE, terms -> {
+            assertThat(terms.suggester(), notNullValue());
+            loaded.incrementAndGet();
+        });
+        try (Engine.Searcher searcher = shard.acquireSearcher("test")) {
+            ElasticsearchDirectoryReader reader = ElasticsearchDirectoryReader.getElasticsearchDirectoryReader(
+                searcher.getDirectoryReader()
+            );
+            assertThat(reader.leaves().size(), greaterThan(1));
+            warmer.warmReader(shard, reader).awaitTermination();
+            // the keyword field isn't loaded
+            assertThat(loaded.get(), equalTo(eagerLoading ? reader.leaves().size() : 0));
+        }
+
+        closeShards(shard);
+    }
+
+    public void testCompletionWarmerWithoutCompletionFields() throws Exception {
+        IndexShard shard = newStartedShard(
+            true,
+            Settings.builder().put(IndexSettings.INDEX_COMPLETION_EAGER_LOADING_SETTING.getKey(), true).build(),
+            new InternalEngineFactory()
+        );
+        indexDoc(shard, "_doc", "0", "{\"foo\" : \"bar\"}");
+        shard.refresh("test");
+
+        final IndexWarmer.CompletionWarmer warmer = new IndexWarmer.CompletionWarmer(
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            terms -> fail("no completion fields to load")
+        );
+        try (Engine.Searcher searcher = shard.acquireSearcher("test")) {
+            ElasticsearchDirectoryReader reader = ElasticsearchDirectoryReader.getElasticsearchDirectoryReader(
+                searcher.getDirectoryReader()
+            );
+            assertSame(IndexWarmer.TerminationHandle.NO_WAIT, warmer.warmReader(shard, reader));
+        }
+
+        closeShards(shard);
+    }
+}
@@ -49,6 +49,18 @@ public class MergePolicySettingsTests extends ESTestCase {
         assertTrue(mp.getMergePolicy() instanceof NoMergePolicy);
     }
 
+    public void testTimeOrdered() {
+        IndexSettings indexSettings = indexSettings(Settings.EMPTY);
+        assertFalse(indexSettings.isTimeOrderedMergePolicy());
+        assertTrue(indexSettings.getMergePolicy() instanceof EsTieredMergePolicy);
+
+        indexSettings = indexSettings(
+            Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TIME_ORDERED_SETTING.getKey(), true).build()
+        );
+        assertTrue(indexSettings.isTimeOrderedMergePolicy());
+        assertTrue(indexSettings.getMergePolicy() instanceof TimeOrderedMergePolicy);
+    }
+
     public void testUpdateSettings() throws IOException {
         IndexSettings indexSettings = indexSettings(Settings.EMPTY);
         assertThat(indexSettings.getMergePolicy().getNoCFSRatio(), equalTo(0.1));
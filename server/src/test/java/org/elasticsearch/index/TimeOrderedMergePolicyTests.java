@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.BaseMergePolicyTestCase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SerialMergeScheduler;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TimeOrderedMergePolicyTests extends BaseMergePolicyTestCase {
+    private static final String TIMESTAMP = "@timestamp";
+
+    public void testMergedSegmentsDoNotOverlap() throws IOException {
+        EsTieredMergePolicy tieredMergePolicy = new EsTieredMergePolicy();
+        tieredMergePolicy.setSegmentsPerTier(2);
+        tieredMergePolicy.setMaxMergeAtOnce(2);
+        IndexWriterConfig iwc = new IndexWriterConfig().setMergePolicy(new TimeOrderedMergePolicy(tieredMergePolicy))
+            .setMergeScheduler(new SerialMergeScheduler());
+        int flushes = atLeast(20);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, iwc)) {
+            long timestamp = 0;
+            for (int i = 0; i < flushes; i++) {
+                int numDocs = randomIntBetween(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    writer.addDocument(timestampDoc(timestamp++));
+                }
+                writer.flush();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertThat(reader.leaves().size(), lessThan(flushes));
+                long previousMax = -1;
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    PointValues points = leaf.reader().getPointValues(TIMESTAMP);
+                    long min = LongPoint.decodeDimension(points.getMinPackedValue(), 0);
+                    long max = LongPoint.decodeDimension(points.getMaxPackedValue(), 0);
+                    assertThat(min, greaterThan(previousMax));
+                    assertThat(max - min + 1, equalTo((long) leaf.reader().maxDoc()));
+                    previousMax = max;
+                }
+            }
+
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertThat(reader.leaves().size(), equalTo(1));
+                NumericDocValues values = reader.leaves().get(0).reader().getNumericDocValues(TIMESTAMP);
+                long previous = -1;
+                while (values.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                    assertThat(values.longValue(), greaterThanOrEqualTo(previous));
+                    previous = values.longValue();
+                }
+                assertThat(previous, equalTo(timestamp - 1));
+            }
+        }
+    }
+
+    private static Document timestampDoc(long timestamp) {
+        Document doc = new Document();
+        doc.add(new LongPoint(TIMESTAMP, timestamp));
+        doc.add(new NumericDocValuesField(TIMESTAMP, timestamp));
+        return doc;
+    }
+
+    @Override
+    protected MergePolicy mergePolicy() {
+        EsTieredMergePolicy tieredMergePolicy = new EsTieredMergePolicy();
+        tieredMergePolicy.setSegmentsPerTier(randomIntBetween(2, 10));
+        tieredMergePolicy.setMaxMergeAtOnce(randomIntBetween(2, 10));
+        return new TimeOrderedMergePolicy(tieredMergePolicy);
+    }
+
+    @Override
+    protected void assertSegmentInfos(MergePolicy policy, SegmentInfos infos) throws IOException {}
+
+    @Override
+    protected void assertMerge(MergePolicy policy, MergePolicy.MergeSpecification merge) throws IOException {}
+}
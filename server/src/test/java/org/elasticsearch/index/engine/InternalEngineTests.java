@@ -4021,6 +4021,84 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testAppendOnlyIndexRejectsUpdatesAndDeletes() throws IOException {
+        Settings.Builder settings = Settings.builder()
+            .put(defaultSettings.getSettings())
+            .put(IndexSettings.INDEX_APPEND_ONLY_SETTING.getKey(), true);
+        final IndexMetadata indexMetadata = IndexMetadata.builder(defaultSettings.getIndexMetadata()).settings(settings).build();
+        final IndexSettings indexSettings = IndexSettingsModule.newIndexSettings(indexMetadata);
+        try (
+            Store store = createStore();
+            InternalEngine engine = createEngine(config(indexSettings, store, createTempDir(), newMergePolicy(), null))
+        ) {
+            ParsedDocument autoIdDoc = testParsedDocument("1", null, testDocumentWithTextField(), B_1, null);
+            Engine.IndexResult result = engine.index(appendOnlyPrimary(autoIdDoc, false, 1));
+            assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+
+            ParsedDocument doc = testParsedDocument("2", null, testDocumentWithTextField(), B_1, null);
+            Engine.Index create = new Engine.Index(newUid(doc), primaryTerm.get(), doc, Versions.MATCH_DELETED);
+            result = engine.index(create);
+            assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+            result = engine.index(create);
+            assertThat(result.getFailure(), instanceOf(VersionConflictEngineException.class));
+
+            result = engine.index(indexForDoc(doc));
+            assertThat(result.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+            assertThat(result.getFailure(), instanceOf(IllegalArgumentException.class));
+            assertThat(result.getFailure().getMessage(), containsString("is append-only"));
+            assertThat(result.getSeqNo(), equalTo(UNASSIGNED_SEQ_NO));
+
+            Engine.DeleteResult deleteResult = engine.delete(new Engine.Delete(doc.id(), newUid(doc), primaryTerm.get()));
+            assertThat(deleteResult.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+            assertThat(deleteResult.getFailure(), instanceOf(IllegalArgumentException.class));
+            assertThat(deleteResult.getSeqNo(), equalTo(UNASSIGNED_SEQ_NO));
+
+            engine.refresh("test");
+            try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+                assertEquals(2, searcher.count(new MatchAllDocsQuery()));
+            }
+        }
+    }
+
+    public void testAppendOnlyIndexSkipsLookupsOnReplica() throws IOException {
+        Settings.Builder settings = Settings.builder()
+            .put(defaultSettings.getSettings())
+            .put(IndexSettings.INDEX_APPEND_ONLY_SETTING.getKey(), true);
+        final IndexMetadata indexMetadata = IndexMetadata.builder(defaultSettings.getIndexMetadata()).settings(settings).build();
+        final IndexSettings indexSettings = IndexSettingsModule.newIndexSettings(indexMetadata);
+        try (
+            Store store = createStore();
+            InternalEngine engine = createEngine(config(indexSettings, store, createTempDir(), newMergePolicy(), null))
+        ) {
+            // a pending retry on the primary would disable the regular optimization on replicas
+            engine.advanceMaxSeqNoOfUpdatesOrDeletes(10);
+            ParsedDocument doc = testParsedDocument("1", null, testDocumentWithTextField(), B_1, null);
+            engine.index(appendOnlyReplica(doc, false, 1, 0));
+            assertLuceneOperations(engine, 1, 0, 0);
+            assertEquals(0, engine.getNumVersionLookups());
+
+            // delivering the same operation again is caught by its sequence number
+            engine.index(appendOnlyReplica(doc, false, 1, 0));
+            assertLuceneOperations(engine, 1, 0, 0);
+            assertEquals(0, engine.getNumVersionLookups());
+
+            // retries still have to look up the id
+            engine.index(appendOnlyReplica(doc, true, 1, 1));
+            assertLuceneOperations(engine, 1, 1, 0);
+            assertEquals(1, engine.getNumVersionLookups());
+
+            ParsedDocument otherDoc = testParsedDocument("2", null, testDocumentWithTextField(), B_1, null);
+            engine.index(appendOnlyReplica(otherDoc, false, 2, 2));
+            assertLuceneOperations(engine, 2, 1, 0);
+            assertEquals(1, engine.getNumVersionLookups());
+
+            engine.refresh("test");
+            try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+                assertEquals(2, searcher.count(new MatchAllDocsQuery()));
+            }
+        }
+    }
+
     public void testDoubleDeliveryReplica() throws IOException {
         final ParsedDocument doc = testParsedDocument(
             "1",
@@ -31,6 +31,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.nullValue;
 
 public class LiveVersionMapTests extends ESTestCase {
@@ -407,6 +409,66 @@ public class LiveVersionMapTests extends ESTestCase {
         assertEquals(0, map.getAllTombstones().size());
     }
 
+    public void testLockStripesScaleWithWriteThreads() {
+        assertEquals(LiveVersionMap.LOCK_STRIPES_PER_WRITE_THREAD, new LiveVersionMap().lockStripes());
+        assertEquals(LiveVersionMap.LOCK_STRIPES_PER_WRITE_THREAD, new LiveVersionMap(1).lockStripes());
+        assertEquals(4 * LiveVersionMap.LOCK_STRIPES_PER_WRITE_THREAD, new LiveVersionMap(4).lockStripes());
+        int writeThreads = between(1, 64);
+        int stripes = new LiveVersionMap(writeThreads).lockStripes();
+        assertEquals(1, Integer.bitCount(stripes));
+        assertThat(stripes, greaterThanOrEqualTo(writeThreads * LiveVersionMap.LOCK_STRIPES_PER_WRITE_THREAD));
+        assertThat(stripes, lessThan(2 * writeThreads * LiveVersionMap.LOCK_STRIPES_PER_WRITE_THREAD));
+    }
+
+    public void testLocksOfOtherUidsCanBeAcquiredWhileLocked() throws InterruptedException {
+        LiveVersionMap map = new LiveVersionMap(between(1, 32));
+        int mask = map.lockStripes() - 1;
+        BytesRef uid = uid(randomAlphaOfLength(10));
+        BytesRef other;
+        do {
+            other = uid(randomAlphaOfLength(10));
+        } while ((other.hashCode() & mask) == (uid.hashCode() & mask));
+        final BytesRef otherUid = other;
+        try (Releasable ignore = map.acquireLock(uid)) {
+            assertTrue(map.assertKeyedLockHeldByCurrentThread(uid));
+            AtomicBoolean locked = new AtomicBoolean();
+            Thread thread = new Thread(() -> {
+                try (Releasable ignore2 = map.acquireLock(otherUid)) {
+                    locked.set(map.assertKeyedLockHeldByCurrentThread(otherUid));
+                }
+            });
+            thread.start();
+            thread.join();
+            assertTrue(locked.get());
+        }
+    }
+
+    public void testLockOfUidOnSameStripeIsNotHeld() {
+        LiveVersionMap map = new LiveVersionMap(between(1, 32));
+        int mask = map.lockStripes() - 1;
+        BytesRef uid = uid(randomAlphaOfLength(10));
+        BytesRef other;
+        do {
+            other = uid(randomAlphaOfLength(10));
+        } while (other.equals(uid) || (other.hashCode() & mask) != (uid.hashCode() & mask));
+        final BytesRef otherUid = other;
+        try (Releasable ignore = map.acquireLock(otherUid)) {
+            map.putDeleteUnderLock(otherUid, new DeleteVersionValue(0, 0, 0, 0));
+        }
+        map.beforeRefresh(); // refresh otherwise we won't prune since it's tracked by the current map
+        map.afterRefresh(false);
+
+        try (Releasable ignore = map.acquireLock(uid)) {
+            assertTrue(map.assertKeyedLockHeldByCurrentThread(uid));
+            expectThrows(AssertionError.class, () -> map.assertKeyedLockHeldByCurrentThread(otherUid));
+            // the stripe is held for another uid so the tombstone can't be pruned
+            map.pruneTombstones(Long.MAX_VALUE, 0);
+            assertEquals(1, map.getAllTombstones().size());
+        }
+        map.pruneTombstones(Long.MAX_VALUE, 0);
+        assertEquals(0, map.getAllTombstones().size());
+    }
+
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
         final LiveVersionMap versionMap = new LiveVersionMap();
         final BytesRef uid = uid("1");
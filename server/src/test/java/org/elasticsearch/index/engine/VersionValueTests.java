@@ -21,6 +21,7 @@ public class VersionValueTests extends ESTestCase {
         }
         IndexVersionValue versionValue = new IndexVersionValue(translogLoc, randomLong(), randomLong(), randomLong());
         assertEquals(RamUsageTester.ramUsed(versionValue), versionValue.ramBytesUsed());
+        assertEquals(translogLoc, versionValue.getLocation());
     }
 
     public void testDeleteRamBytesUsed() {
@@ -3819,6 +3819,48 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(primary);
     }
 
+    public void testScheduledRefreshIsSkippedWhileBusyIndexing() throws Exception {
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexSettings.INDEX_REFRESH_MAX_INTERVAL_SETTING.getKey(), TimeValue.timeValueHours(1))
+            .put(IndexSettings.INDEX_REFRESH_BUSY_INDEXING_RATE_SETTING.getKey(), 0)
+            .build();
+        IndexMetadata metadata = IndexMetadata.builder("test")
+            .putMapping("{ \"properties\": { \"foo\":  { \"type\": \"text\"}}}")
+            .settings(settings)
+            .primaryTerm(0, 1)
+            .build();
+        IndexShard primary = newShard(new ShardId(metadata.getIndex(), 0), true, "n1", metadata, null);
+        recoverShardFromStore(primary);
+        Engine.IndexResult doc = indexDoc(primary, "_doc", "0", "{\"foo\" : \"bar\"}");
+        assertTrue(primary.isBusyIndexing());
+        assertTrue(primary.getEngine().refreshNeeded());
+        assertFalse(primary.scheduledRefresh());
+        assertTrue(primary.getEngine().refreshNeeded());
+
+        // somebody waiting for the changes to become visible always gets its refresh
+        CountDownLatch latch = new CountDownLatch(1);
+        primary.addRefreshListener(doc.getTranslogLocation(), r -> latch.countDown());
+        assertTrue(primary.scheduledRefresh());
+        latch.await();
+
+        IndexScopedSettings scopedSettings = primary.indexSettings().getScopedSettings();
+        settings = Settings.builder()
+            .put(settings)
+            .put(IndexSettings.INDEX_REFRESH_MAX_INTERVAL_SETTING.getKey(), TimeValue.MINUS_ONE)
+            .build();
+        scopedSettings.applySettings(settings);
+        indexDoc(primary, "_doc", "1", "{\"foo\" : \"bar\"}");
+        assertFalse(primary.isBusyIndexing());
+        assertTrue(primary.scheduledRefresh());
+        try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+            assertEquals(2, searcher.getIndexReader().numDocs());
+        }
+        closeShards(primary);
+    }
+
     public void testRefreshIsNeededWithRefreshListeners() throws IOException, InterruptedException {
         Settings settings = Settings.builder()
             .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
@@ -11,16 +11,26 @@ import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.FieldMemoryStatsTests;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.search.suggest.completion.CompletionQueryFieldStats;
 import org.elasticsearch.search.suggest.completion.CompletionStats;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class CompletionsStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         FieldMemoryStats map = randomBoolean() ? null : FieldMemoryStatsTests.randomFieldMemoryStats();
-        CompletionStats stats = new CompletionStats(randomNonNegativeLong(), map);
+        CompletionQueryFieldStats queryFields = randomBoolean() ? null : randomQueryFieldStats();
+        CompletionStats stats = new CompletionStats(
+            randomNonNegativeLong(),
+            map,
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            queryFields
+        );
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         StreamInput input = out.bytes().streamInput();
@@ -28,5 +38,38 @@ public class CompletionsStatsTests extends ESTestCase {
         assertEquals(-1, input.read());
         assertEquals(stats.getSizeInBytes(), read.getSizeInBytes());
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getQueryCount(), read.getQueryCount());
+        assertEquals(stats.getQueryTime(), read.getQueryTime());
+        assertEquals(stats.getQueryFields(), read.getQueryFields());
+    }
+
+    public void testAdd() {
+        CompletionStats stats = new CompletionStats(1, null, 2, 3, null);
+        CompletionQueryFieldStats queryFields = randomQueryFieldStats();
+        stats.add(new CompletionStats(10, null, 20, 30, queryFields));
+        assertEquals(11, stats.getSizeInBytes());
+        assertEquals(22, stats.getQueryCount());
+        assertEquals(33, stats.getQueryTime().millis());
+        assertEquals(queryFields, stats.getQueryFields());
+
+        stats.add(
+            new CompletionStats(0, null, 1, 1, new CompletionQueryFieldStats(Map.of("field", new CompletionQueryFieldStats.Stats(1, 2))))
+        );
+        CompletionQueryFieldStats.Stats previous = queryFields.get("field");
+        CompletionQueryFieldStats.Stats fieldStats = stats.getQueryFields().get("field");
+        assertEquals(previous == null ? 1 : previous.getCount() + 1, fieldStats.getCount());
+        assertEquals(previous == null ? 2 : previous.getTime().millis() + 2, fieldStats.getTime().millis());
+    }
+
+    private static CompletionQueryFieldStats randomQueryFieldStats() {
+        Map<String, CompletionQueryFieldStats.Stats> stats = new HashMap<>();
+        int numFields = randomIntBetween(0, 5);
+        for (int i = 0; i < numFields; i++) {
+            stats.put(
+                randomFrom("field", randomAlphaOfLength(10)),
+                new CompletionQueryFieldStats.Stats(randomNonNegativeLong() / 2, randomNonNegativeLong() / 2)
+            );
+        }
+        return new CompletionQueryFieldStats(stats);
     }
 }
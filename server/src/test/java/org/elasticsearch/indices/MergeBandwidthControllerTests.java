@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.threadpool.Scheduler.Cancellable;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class MergeBandwidthControllerTests extends IndexShardTestCase {
+
+    static class MockController extends MergeBandwidthController {
+
+        // How many large merges each shard is currently running
+        final Map<IndexShard, Integer> largeMerges = new HashMap<>();
+
+        // The last rate limit each shard was given
+        final Map<IndexShard, Double> rateLimits = new HashMap<>();
+
+        boolean searchesQueued;
+
+        MockController(Settings settings, ClusterSettings clusterSettings) {
+            super(settings, clusterSettings, null, List.of());
+        }
+
+        @Override
+        protected List<IndexShard> availableShards() {
+            return new ArrayList<>(largeMerges.keySet());
+        }
+
+        @Override
+        protected boolean searchesQueued() {
+            return searchesQueued;
+        }
+
+        @Override
+        protected int getLargeMergeCount(IndexShard shard) {
+            return largeMerges.get(shard);
+        }
+
+        @Override
+        protected void setMergeIORateLimit(IndexShard shard, double mbPerSec) {
+            rateLimits.put(shard, mbPerSec);
+        }
+
+        @Override
+        protected Cancellable scheduleTask(ThreadPool threadPool, TimeValue interval) {
+            return null;
+        }
+
+        void assertRateLimit(IndexShard shard, double expectedMBPerSec) {
+            assertThat(rateLimits.get(shard), equalTo(expectedMBPerSec));
+        }
+    }
+
+    private static ClusterSettings clusterSettings() {
+        return new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+    }
+
+    public void testDisabledByDefault() throws IOException {
+        MockController controller = new MockController(Settings.EMPTY, clusterSettings());
+        IndexShard shard = newStartedShard();
+        controller.largeMerges.put(shard, 2);
+        controller.distributeBudget();
+        assertTrue(controller.rateLimits.isEmpty());
+        closeShards(shard);
+    }
+
+    public void testBudgetIsSplitBetweenLargeMerges() throws IOException {
+        MockController controller = new MockController(
+            Settings.builder().put(MergeBandwidthController.MAX_BYTES_PER_SEC_SETTING.getKey(), "120mb").build(),
+            clusterSettings()
+        );
+        IndexShard shard0 = newStartedShard();
+        IndexShard shard1 = newStartedShard();
+        controller.largeMerges.put(shard0, 2);
+        controller.largeMerges.put(shard1, 1);
+        controller.distributeBudget();
+        controller.assertRateLimit(shard0, 40.0);
+        controller.assertRateLimit(shard1, 40.0);
+
+        // no large merges left, the next one may use the whole budget
+        controller.largeMerges.put(shard0, 0);
+        controller.largeMerges.put(shard1, 0);
+        controller.distributeBudget();
+        controller.assertRateLimit(shard0, 120.0);
+        controller.assertRateLimit(shard1, 120.0);
+
+        // a single merge never gets less than the minimum rate
+        controller.largeMerges.put(shard0, 100);
+        controller.distributeBudget();
+        controller.assertRateLimit(shard0, MergeBandwidthController.MIN_MB_PER_SEC);
+        closeShards(shard0, shard1);
+    }
+
+    public void testBackoffWhileSearchesAreQueued() throws IOException {
+        MockController controller = new MockController(
+            Settings.builder().put(MergeBandwidthController.MAX_BYTES_PER_SEC_SETTING.getKey(), "160mb").build(),
+            clusterSettings()
+        );
+        IndexShard shard = newStartedShard();
+        controller.largeMerges.put(shard, 1);
+
+        controller.searchesQueued = true;
+        controller.distributeBudget();
+        assertThat(controller.backoff(), equalTo(0.5));
+        controller.assertRateLimit(shard, 80.0);
+        for (int i = 0; i < 10; i++) {
+            controller.distributeBudget();
+        }
+        assertThat(controller.backoff(), equalTo(MergeBandwidthController.MIN_BACKOFF));
+        controller.assertRateLimit(shard, 20.0);
+
+        controller.searchesQueued = false;
+        controller.distributeBudget();
+        assertThat(controller.backoff(), equalTo(MergeBandwidthController.MIN_BACKOFF + MergeBandwidthController.BACKOFF_RECOVERY));
+        controller.assertRateLimit(shard, 40.0);
+        for (int i = 0; i < 10; i++) {
+            controller.distributeBudget();
+        }
+        assertThat(controller.backoff(), equalTo(1.0));
+        controller.assertRateLimit(shard, 160.0);
+        closeShards(shard);
+    }
+
+    public void testDisablingTheBudgetReleasesShards() throws IOException {
+        ClusterSettings clusterSettings = clusterSettings();
+        MockController controller = new MockController(
+            Settings.builder().put(MergeBandwidthController.MAX_BYTES_PER_SEC_SETTING.getKey(), "100mb").build(),
+            clusterSettings
+        );
+        IndexShard shard = newStartedShard();
+        controller.largeMerges.put(shard, 1);
+        controller.distributeBudget();
+        controller.assertRateLimit(shard, 100.0);
+
+        clusterSettings.applySettings(Settings.builder().put(MergeBandwidthController.MAX_BYTES_PER_SEC_SETTING.getKey(), "0b").build());
+        controller.distributeBudget();
+        controller.assertRateLimit(shard, Double.POSITIVE_INFINITY);
+
+        // released only once
+        controller.rateLimits.clear();
+        controller.distributeBudget();
+        assertTrue(controller.rateLimits.isEmpty());
+        closeShards(shard);
+    }
+}
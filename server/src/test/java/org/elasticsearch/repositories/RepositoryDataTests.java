@@ -130,6 +130,74 @@ public class RepositoryDataTests extends ESTestCase {
         assertEquals(repositoryData.getGenId(), newRepoData.getGenId());
     }
 
+    public void testIncrementalUpdatesMatchParsedRepositoryData() throws IOException {
+        RepositoryData repositoryData = generateRandomRepoData().withClusterUuid(UUIDs.randomBase64UUID(random()));
+        final ShardGenerations.Builder builder = ShardGenerations.builder();
+        final IndexId newIndex = new IndexId(randomAlphaOfLength(8), UUIDs.randomBase64UUID(random()));
+        builder.put(newIndex, 0, ShardGeneration.newGeneration(random()));
+        final IndexId existingIndex = randomFrom(repositoryData.getIndices().values());
+        builder.put(existingIndex, 0, ShardGeneration.newGeneration(random()));
+        final SnapshotId newSnapshot = new SnapshotId(randomAlphaOfLength(7), UUIDs.randomBase64UUID(random()));
+        repositoryData = repositoryData.addSnapshot(
+            newSnapshot,
+            new RepositoryData.SnapshotDetails(SnapshotState.SUCCESS, Version.CURRENT, 1L, 2L, randomAlphaOfLength(10)),
+            builder.build(),
+            null,
+            null
+        );
+        assertThat(repositoryData.getIndices().get(newIndex.getName()), equalTo(newIndex));
+        assertRoundTrips(repositoryData);
+
+        final List<SnapshotId> toRemove = randomSubsetOf(List.copyOf(repositoryData.getSnapshotIds()));
+        final ShardGenerations.Builder updatedGenerations = ShardGenerations.builder();
+        updatedGenerations.put(existingIndex, 0, ShardGeneration.newGeneration(random()));
+        RepositoryData removed = repositoryData.removeSnapshots(toRemove, updatedGenerations.build());
+        for (IndexId indexId : removed.getIndices().values()) {
+            for (SnapshotId snapshotId : toRemove) {
+                assertFalse(removed.getSnapshots(indexId).contains(snapshotId));
+            }
+        }
+        assertRoundTrips(removed);
+    }
+
+    public void testShardGenerationsBuilderReusesUnchangedIndices() {
+        final IndexId unchanged = new IndexId("unchanged", UUIDs.randomBase64UUID(random()));
+        final IndexId updated = new IndexId("updated", UUIDs.randomBase64UUID(random()));
+        final IndexId deleted = new IndexId("deleted", UUIDs.randomBase64UUID(random()));
+        final ShardGenerations existing = ShardGenerations.builder()
+            .put(unchanged, 0, ShardGeneration.newGeneration(random()))
+            .put(unchanged, 2, ShardGeneration.newGeneration(random()))
+            .put(updated, 0, ShardGeneration.newGeneration(random()))
+            .put(deleted, 0, ShardGeneration.newGeneration(random()))
+            .build();
+        final ShardGeneration newGeneration = ShardGeneration.newGeneration(random());
+        final ShardGenerations result = ShardGenerations.builder()
+            .putAll(existing)
+            .putAll(
+                ShardGenerations.builder()
+                    .put(updated, 1, newGeneration)
+                    .put(deleted, 0, ShardGenerations.DELETED_SHARD_GEN)
+                    .build()
+            )
+            .retainIndicesAndPruneDeletes(Set.of(unchanged, updated, deleted))
+            .build();
+        assertSame(existing.getGens(unchanged), result.getGens(unchanged));
+        assertThat(result.getGens(unchanged).get(1), equalTo(null));
+        assertThat(result.getGens(updated), equalTo(List.of(existing.getShardGen(updated, 0), newGeneration)));
+        assertThat(result.indices(), containsInAnyOrder(unchanged, updated));
+    }
+
+    private void assertRoundTrips(RepositoryData repositoryData) throws IOException {
+        XContentBuilder builder = JsonXContent.contentBuilder();
+        repositoryData.snapshotsToXContent(builder, Version.CURRENT);
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, BytesReference.bytes(builder))) {
+            RepositoryData parsed = RepositoryData.snapshotsFromXContent(parser, repositoryData.getGenId(), false);
+            assertEquals(parsed, repositoryData);
+            assertEquals(parsed.getIndices(), repositoryData.getIndices());
+            assertEquals(parsed.shardGenerations(), repositoryData.shardGenerations());
+        }
+    }
+
     public void testInitIndices() {
         final int numSnapshots = randomIntBetween(1, 30);
         final Map<String, SnapshotId> snapshotIds = new HashMap<>(numSnapshots);
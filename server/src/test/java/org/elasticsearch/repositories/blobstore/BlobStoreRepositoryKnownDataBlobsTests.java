@@ -0,0 +1,222 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.BlobStore;
+import org.elasticsearch.common.blobstore.support.FilterBlobContainer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.RepositoryPlugin;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.fs.FsRepository;
+import org.elasticsearch.snapshots.SnapshotState;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Tests that {@link BlobStoreRepository} copies the data blobs of files it recently uploaded instead of uploading the same files again.
+ */
+public class BlobStoreRepositoryKnownDataBlobsTests extends ESSingleNodeTestCase {
+
+    private static final String REPO_TYPE = "countingFs";
+    private static final String REPO_NAME = "test-repo";
+
+    // the blob operations of all repositories, reset before every test
+    private static final AtomicInteger uploadedDataBlobs = new AtomicInteger();
+    private static final AtomicInteger copiedDataBlobs = new AtomicInteger();
+    private static final AtomicInteger failedCopies = new AtomicInteger();
+    private static volatile boolean failCopies;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return Collections.singletonList(CountingFsRepositoryPlugin.class);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        resetCounters();
+        failCopies = false;
+    }
+
+    public void testIdenticalFilesAreCopiedInsteadOfUploaded() {
+        final int numDocs = createRepositoryAndSnapshotSourceIndex();
+        final int uploadedBySourceSnapshot = uploadedDataBlobs.get();
+        assertThat(uploadedBySourceSnapshot, greaterThan(0));
+        assertThat(copiedDataBlobs.get(), equalTo(0));
+
+        // the restored index has the same files as the source index
+        restore("source-snap", "copy");
+        resetCounters();
+        assertThat(snapshot("copy-snap", "copy"), equalTo(SnapshotState.SUCCESS));
+        assertThat(uploadedDataBlobs.get(), equalTo(0));
+        assertThat(copiedDataBlobs.get(), equalTo(uploadedBySourceSnapshot));
+
+        assertAcked(client().admin().indices().prepareDelete("copy"));
+        restore("copy-snap", "copy");
+        assertHitCount(client().prepareSearch("copy").setSize(0).get(), numDocs);
+    }
+
+    public void testFilesAreUploadedIfCopyFails() {
+        final int numDocs = createRepositoryAndSnapshotSourceIndex();
+        final int uploadedBySourceSnapshot = uploadedDataBlobs.get();
+        assertThat(uploadedBySourceSnapshot, greaterThan(0));
+
+        restore("source-snap", "copy");
+        resetCounters();
+        failCopies = true;
+        assertThat(snapshot("copy-snap", "copy"), equalTo(SnapshotState.SUCCESS));
+        assertThat(failedCopies.get(), greaterThan(0));
+        assertThat(copiedDataBlobs.get(), equalTo(0));
+        assertThat(uploadedDataBlobs.get(), equalTo(uploadedBySourceSnapshot));
+
+        assertAcked(client().admin().indices().prepareDelete("copy"));
+        restore("copy-snap", "copy");
+        assertHitCount(client().prepareSearch("copy").setSize(0).get(), numDocs);
+    }
+
+    private static void resetCounters() {
+        uploadedDataBlobs.set(0);
+        copiedDataBlobs.set(0);
+        failedCopies.set(0);
+    }
+
+    private int createRepositoryAndSnapshotSourceIndex() {
+        assertAcked(
+            client().admin()
+                .cluster()
+                .preparePutRepository(REPO_NAME)
+                .setType(REPO_TYPE)
+                .setSettings(Settings.builder().put("location", ESIntegTestCase.randomRepoPath(node().settings())))
+        );
+        createIndex("source");
+        final int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("source").setId(Integer.toString(i)).setSource("field", randomAlphaOfLength(10)).get();
+        }
+        client().admin().indices().prepareFlush("source").get();
+        assertThat(snapshot("source-snap", "source"), equalTo(SnapshotState.SUCCESS));
+        return numDocs;
+    }
+
+    private SnapshotState snapshot(String snapshotName, String index) {
+        return client().admin()
+            .cluster()
+            .prepareCreateSnapshot(REPO_NAME, snapshotName)
+            .setWaitForCompletion(true)
+            .setIndices(index)
+            .get()
+            .getSnapshotInfo()
+            .state();
+    }
+
+    private void restore(String snapshotName, String targetIndex) {
+        final RestoreSnapshotResponse restoreSnapshotResponse = client().admin()
+            .cluster()
+            .prepareRestoreSnapshot(REPO_NAME, snapshotName)
+            .setRenamePattern(".+")
+            .setRenameReplacement(targetIndex)
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen(targetIndex);
+    }
+
+    public static class CountingFsRepositoryPlugin extends Plugin implements RepositoryPlugin {
+
+        @Override
+        public Map<String, Repository.Factory> getRepositories(
+            Environment env,
+            NamedXContentRegistry namedXContentRegistry,
+            ClusterService clusterService,
+            BigArrays bigArrays,
+            RecoverySettings recoverySettings
+        ) {
+            return Collections.singletonMap(
+                REPO_TYPE,
+                (metadata) -> new FsRepository(metadata, env, namedXContentRegistry, clusterService, bigArrays, recoverySettings) {
+                    @Override
+                    protected BlobStore createBlobStore() throws Exception {
+                        final BlobStore delegate = super.createBlobStore();
+                        return new BlobStore() {
+                            @Override
+                            public BlobContainer blobContainer(BlobPath path) {
+                                return new CountingBlobContainer(delegate.blobContainer(path));
+                            }
+
+                            @Override
+                            public void close() throws IOException {
+                                delegate.close();
+                            }
+                        };
+                    }
+                }
+            );
+        }
+    }
+
+    private static class CountingBlobContainer extends FilterBlobContainer {
+
+        private final BlobContainer delegate;
+
+        CountingBlobContainer(BlobContainer delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected BlobContainer wrapChild(BlobContainer child) {
+            return new CountingBlobContainer(child);
+        }
+
+        @Override
+        public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists) throws IOException {
+            if (blobName.startsWith(BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX)) {
+                uploadedDataBlobs.incrementAndGet();
+            }
+            super.writeBlob(blobName, inputStream, blobSize, failIfAlreadyExists);
+        }
+
+        @Override
+        public boolean supportsCopyFrom(BlobContainer sourceContainer) {
+            return sourceContainer instanceof CountingBlobContainer
+                && delegate.supportsCopyFrom(((CountingBlobContainer) sourceContainer).delegate);
+        }
+
+        @Override
+        public void copyBlob(BlobContainer sourceContainer, String sourceBlobName, String blobName) throws IOException {
+            if (failCopies) {
+                failedCopies.incrementAndGet();
+                throw new IOException("simulated failure copying [" + sourceBlobName + "] to [" + blobName + "]");
+            }
+            delegate.copyBlob(((CountingBlobContainer) sourceContainer).delegate, sourceBlobName, blobName);
+            copiedDataBlobs.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.BlobStore;
+import org.elasticsearch.common.blobstore.MultipartBlobWrite;
+import org.elasticsearch.common.blobstore.fs.FsBlobContainer;
+import org.elasticsearch.common.blobstore.support.FilterBlobContainer;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.RepositoryPlugin;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.fs.FsRepository;
+import org.elasticsearch.snapshots.SnapshotState;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the concurrent upload of large files by {@link BlobStoreRepository} to repositories that support multipart writes.
+ */
+public class BlobStoreRepositoryMultipartWriteTests extends ESSingleNodeTestCase {
+
+    private static final String REPO_TYPE = "multipartTrackingFs";
+    private static final String INDEX_NAME = "test-idx";
+
+    // the state of the multipart writes of all repositories, reset before every test
+    private static final AtomicInteger startedWrites = new AtomicInteger();
+    private static final AtomicInteger completedWrites = new AtomicInteger();
+    private static final AtomicInteger abandonedWrites = new AtomicInteger();
+    private static final AtomicInteger partsWrittenByReadingThread = new AtomicInteger();
+    private static final AtomicInteger partsWrittenByOtherThreads = new AtomicInteger();
+    private static final AtomicInteger maxConcurrentPartWrites = new AtomicInteger();
+    private static volatile boolean failPartWrites;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return Collections.singletonList(TrackingFsRepositoryPlugin.class);
+    }
+
+    @Override
+    protected Settings nodeSettings() {
+        return Settings.builder().put(super.nodeSettings()).put("thread_pool.snapshot.max", 5).build();
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        startedWrites.set(0);
+        completedWrites.set(0);
+        abandonedWrites.set(0);
+        partsWrittenByReadingThread.set(0);
+        partsWrittenByOtherThreads.set(0);
+        maxConcurrentPartWrites.set(0);
+        failPartWrites = false;
+    }
+
+    public void testSnapshotAndRestoreWithMultipartWrites() throws Exception {
+        final int numDocs = createIndexWithLargeSegment();
+        final String repositoryName = createRepository();
+
+        assertThat(createSnapshot(repositoryName, "test-snap").getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        assertThat(startedWrites.get(), greaterThan(0));
+        assertThat(completedWrites.get(), equalTo(startedWrites.get()));
+        assertThat(abandonedWrites.get(), equalTo(0));
+        assertThat(maxConcurrentPartWrites.get(), lessThanOrEqualTo(BlobStoreRepository.MULTIPART_WRITE_MAX_CONCURRENCY));
+
+        restoreAndAssertDocs(repositoryName, "test-snap", numDocs);
+    }
+
+    public void testReadingThreadWritesPartsIfSnapshotPoolIsBusy() throws Exception {
+        final int numDocs = createIndexWithLargeSegment();
+        final String repositoryName = createRepository();
+
+        // leave a single snapshot thread so that the part writes queue up behind the upload of the file itself
+        final ThreadPool threadPool = getInstanceFromNode(ThreadPool.class);
+        final int blockedThreads = threadPool.info(ThreadPool.Names.SNAPSHOT).getMax() - 1;
+        final CountDownLatch blocked = new CountDownLatch(blockedThreads);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < blockedThreads; i++) {
+            threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(() -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        try {
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            assertThat(createSnapshot(repositoryName, "test-snap").getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        } finally {
+            release.countDown();
+        }
+        assertThat(startedWrites.get(), greaterThan(0));
+        assertThat(completedWrites.get(), equalTo(startedWrites.get()));
+        assertThat(partsWrittenByReadingThread.get(), greaterThan(BlobStoreRepository.MULTIPART_WRITE_MAX_CONCURRENCY));
+        assertThat(partsWrittenByOtherThreads.get(), equalTo(0));
+
+        restoreAndAssertDocs(repositoryName, "test-snap", numDocs);
+    }
+
+    public void testFailedPartWritesAbandonTheBlob() throws Exception {
+        final int numDocs = createIndexWithLargeSegment();
+        final String repositoryName = createRepository();
+
+        failPartWrites = true;
+        final CreateSnapshotResponse failedSnapshot = createSnapshot(repositoryName, "failed-snap");
+        assertThat(failedSnapshot.getSnapshotInfo().state(), equalTo(SnapshotState.PARTIAL));
+        assertThat(failedSnapshot.getSnapshotInfo().failedShards(), equalTo(1));
+        assertThat(startedWrites.get(), greaterThan(0));
+        assertThat(completedWrites.get(), equalTo(0));
+        assertThat(abandonedWrites.get(), equalTo(startedWrites.get()));
+        assertThat(maxConcurrentPartWrites.get(), lessThanOrEqualTo(BlobStoreRepository.MULTIPART_WRITE_MAX_CONCURRENCY));
+        assertThat(temporaryBlobs(repositoryName), empty());
+
+        // all permits and buffers of the failed write were released, so the next snapshot of the file goes through
+        failPartWrites = false;
+        assertThat(createSnapshot(repositoryName, "test-snap").getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        assertThat(completedWrites.get(), greaterThan(0));
+        assertThat(temporaryBlobs(repositoryName), empty());
+
+        restoreAndAssertDocs(repositoryName, "test-snap", numDocs);
+    }
+
+    public void testFailedPartWriteWithRemainingParts() throws Exception {
+        final int partSize = randomIntBetween(1, 16);
+        final int numParts = randomIntBetween(BlobStoreRepository.MULTIPART_WRITE_MAX_CONCURRENCY * 2, 20);
+        final int failingPart = randomIntBetween(0, numParts / 2);
+        final byte[] blob = randomByteArrayOfLength(partSize * numParts);
+        final CountingMultipartBlobWrite write = new CountingMultipartBlobWrite(partSize * failingPart);
+
+        final ExecutionException e = expectThrows(
+            ExecutionException.class,
+            () -> writeBlobMultipartInBackground(partSize, write, new ByteArrayInputStream(blob), blob.length)
+        );
+        assertThat(e.getCause(), instanceOf(IOException.class));
+        assertThat(e.getCause().getMessage(), containsString("simulated failure writing part"));
+        assertFalse(write.completed);
+        assertTrue(write.closed);
+    }
+
+    public void testInputStreamFailsPartWay() throws Exception {
+        final int partSize = randomIntBetween(1, 16);
+        final int numParts = randomIntBetween(BlobStoreRepository.MULTIPART_WRITE_MAX_CONCURRENCY * 2, 20);
+        final byte[] blob = randomByteArrayOfLength(partSize * numParts);
+        final int failAt = randomIntBetween(0, blob.length - 1);
+        final InputStream inputStream = new FilterInputStream(new ByteArrayInputStream(blob)) {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                maybeFail(1);
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                maybeFail(len);
+                final int read = super.read(b, off, len);
+                position += Math.max(read, 0);
+                return read;
+            }
+
+            private void maybeFail(int len) throws IOException {
+                if (position + len > failAt) {
+                    throw new IOException("simulated failure reading at [" + failAt + "]");
+                }
+            }
+        };
+        final CountingMultipartBlobWrite write = new CountingMultipartBlobWrite(-1L);
+
+        final ExecutionException e = expectThrows(
+            ExecutionException.class,
+            () -> writeBlobMultipartInBackground(partSize, write, inputStream, blob.length)
+        );
+        assertThat(e.getCause(), instanceOf(IOException.class));
+        assertThat(e.getCause().getMessage(), containsString("simulated failure reading"));
+        assertFalse(write.completed);
+        assertTrue(write.closed);
+    }
+
+    /**
+     * Writes the blob on another thread so that a write that never returns fails the test rather than hanging it.
+     */
+    private void writeBlobMultipartInBackground(int partSize, MultipartBlobWrite write, InputStream inputStream, long blobSize)
+        throws Exception {
+        final BlobContainer container = mock(BlobContainer.class);
+        when(container.startMultipartWrite(anyString(), anyLong(), anyBoolean())).thenReturn(write);
+        final ThreadPool threadPool = getInstanceFromNode(ThreadPool.class);
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        threadPool.generic()
+            .execute(
+                ActionRunnable.run(
+                    future,
+                    () -> BlobStoreRepository.writeBlobMultipart(
+                        threadPool.executor(ThreadPool.Names.SNAPSHOT),
+                        partSize,
+                        container,
+                        "blob",
+                        inputStream,
+                        blobSize
+                    )
+                )
+            );
+        future.get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates an index with a single segment whose stored fields are large enough to be uploaded in parts.
+     */
+    private int createIndexWithLargeSegment() {
+        assertAcked(client().admin().indices().prepareCreate(INDEX_NAME).setMapping("blob", "type=binary"));
+        final int numDocs = randomIntBetween(5, 8);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex(INDEX_NAME).setId(Integer.toString(i)).setSource("blob", randomByteArrayOfLength(1 << 20)).get();
+        }
+        client().admin().indices().prepareFlush(INDEX_NAME).get();
+        return numDocs;
+    }
+
+    private String createRepository() {
+        final String repositoryName = "test-repo";
+        assertAcked(
+            client().admin()
+                .cluster()
+                .preparePutRepository(repositoryName)
+                .setType(REPO_TYPE)
+                .setSettings(
+                    Settings.builder()
+                        .put("location", ESIntegTestCase.randomRepoPath(node().settings()))
+                        .put(BlobStoreRepository.MULTIPART_WRITE_PART_SIZE_SETTING.getKey(), "1mb")
+                )
+        );
+        return repositoryName;
+    }
+
+    private CreateSnapshotResponse createSnapshot(String repositoryName, String snapshotName) {
+        return client().admin()
+            .cluster()
+            .prepareCreateSnapshot(repositoryName, snapshotName)
+            .setWaitForCompletion(true)
+            .setIndices(INDEX_NAME)
+            .get();
+    }
+
+    private void restoreAndAssertDocs(String repositoryName, String snapshotName, int numDocs) {
+        assertAcked(client().admin().indices().prepareDelete(INDEX_NAME));
+        final RestoreSnapshotResponse restoreSnapshotResponse = client().admin()
+            .cluster()
+            .prepareRestoreSnapshot(repositoryName, snapshotName)
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen(INDEX_NAME);
+        assertHitCount(client().prepareSearch(INDEX_NAME).setSize(0).get(), numDocs);
+    }
+
+    private List<Path> temporaryBlobs(String repositoryName) throws IOException {
+        final Path location = Path.of(
+            client().admin().cluster().prepareGetRepositories(repositoryName).get().repositories().get(0).settings().get("location")
+        );
+        try (Stream<Path> files = Files.walk(location)) {
+            return files.filter(file -> FsBlobContainer.isTempBlobName(file.getFileName().toString())).collect(Collectors.toList());
+        }
+    }
+
+    public static class TrackingFsRepositoryPlugin extends Plugin implements RepositoryPlugin {
+
+        @Override
+        public Map<String, Repository.Factory> getRepositories(
+            Environment env,
+            NamedXContentRegistry namedXContentRegistry,
+            ClusterService clusterService,
+            BigArrays bigArrays,
+            RecoverySettings recoverySettings
+        ) {
+            return Collections.singletonMap(
+                REPO_TYPE,
+                (metadata) -> new FsRepository(metadata, env, namedXContentRegistry, clusterService, bigArrays, recoverySettings) {
+                    @Override
+                    protected BlobStore createBlobStore() throws Exception {
+                        final BlobStore delegate = super.createBlobStore();
+                        return new BlobStore() {
+                            @Override
+                            public BlobContainer blobContainer(BlobPath path) {
+                                return new TrackingBlobContainer(delegate.blobContainer(path));
+                            }
+
+                            @Override
+                            public void close() throws IOException {
+                                delegate.close();
+                            }
+                        };
+                    }
+                }
+            );
+        }
+    }
+
+    private static class TrackingBlobContainer extends FilterBlobContainer {
+
+        private final BlobContainer delegate;
+
+        TrackingBlobContainer(BlobContainer delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected BlobContainer wrapChild(BlobContainer child) {
+            return new TrackingBlobContainer(child);
+        }
+
+        @Override
+        public boolean supportsMultipartWrites() {
+            return delegate.supportsMultipartWrites();
+        }
+
+        @Override
+        public MultipartBlobWrite startMultipartWrite(String blobName, long blobSize, boolean failIfAlreadyExists) throws IOException {
+            startedWrites.incrementAndGet();
+            return new TrackingMultipartBlobWrite(delegate.startMultipartWrite(blobName, blobSize, failIfAlreadyExists));
+        }
+    }
+
+    private static class CountingMultipartBlobWrite implements MultipartBlobWrite {
+
+        private final long failingPosition;
+        private volatile boolean completed;
+        private volatile boolean closed;
+
+        CountingMultipartBlobWrite(long failingPosition) {
+            this.failingPosition = failingPosition;
+        }
+
+        @Override
+        public void writePart(long position, BytesReference bytes) throws IOException {
+            if (position == failingPosition) {
+                throw new IOException("simulated failure writing part at [" + position + "]");
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class TrackingMultipartBlobWrite implements MultipartBlobWrite {
+
+        private final MultipartBlobWrite delegate;
+        // the thread that reads the file, see BlobStoreRepository#writeBlobMultipart
+        private final Thread readingThread = Thread.currentThread();
+        private final AtomicInteger concurrentPartWrites = new AtomicInteger();
+        private volatile boolean completed;
+
+        TrackingMultipartBlobWrite(MultipartBlobWrite delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void writePart(long position, BytesReference bytes) throws IOException {
+            final int concurrent = concurrentPartWrites.incrementAndGet();
+            maxConcurrentPartWrites.accumulateAndGet(concurrent, Math::max);
+            try {
+                if (Thread.currentThread() == readingThread) {
+                    partsWrittenByReadingThread.incrementAndGet();
+                } else {
+                    partsWrittenByOtherThreads.incrementAndGet();
+                }
+                if (failPartWrites) {
+                    throw new IOException("simulated failure writing part at [" + position + "]");
+                }
+                delegate.writePart(position, bytes);
+            } finally {
+                concurrentPartWrites.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void complete() throws IOException {
+            delegate.complete();
+            completed = true;
+            completedWrites.incrementAndGet();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (completed == false) {
+                abandonedWrites.incrementAndGet();
+            }
+            delegate.close();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
+import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.indices.recovery.RecoverySettings;
@@ -53,9 +54,12 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 
 /**
  * This class tests the behavior of {@link BlobStoreRepository} when it
@@ -214,6 +218,49 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         }
     }
 
+    public void testShardSnapshotStatusIsCached() throws IOException {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        IndexShard shard = newShard(shardId, true);
+        try {
+            recoverShardFromStore(shard);
+            final int numDocs = scaledRandomIntBetween(1, 100);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+            }
+            flushShard(shard, false);
+
+            final BlobStoreRepository repository = (BlobStoreRepository) createRepository();
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            assertNotNull(snapshotShard(shard, snapshot, repository));
+
+            final SnapshotId snapshotId = snapshot.getSnapshotId();
+            final IndexShardSnapshotStatus.Copy status = repository.getShardSnapshotStatus(snapshotId, indexId, shardId).asCopy();
+            assertThat(status.getStage(), equalTo(IndexShardSnapshotStatus.Stage.DONE));
+            assertThat(status.getTotalFileCount(), greaterThan(0));
+
+            // the status is served from the cache once the shard snapshot blob was read
+            final String shardSnapshotBlob = String.format(Locale.ROOT, BlobStoreRepository.SNAPSHOT_NAME_FORMAT, "_uuid");
+            repository.shardContainer(indexId, 0).deleteBlobsIgnoringIfNotExists(List.of(shardSnapshotBlob).iterator());
+            final IndexShardSnapshotStatus.Copy cachedStatus = repository.getShardSnapshotStatus(snapshotId, indexId, shardId).asCopy();
+            assertThat(cachedStatus.getStartTime(), equalTo(status.getStartTime()));
+            assertThat(cachedStatus.getTotalTime(), equalTo(status.getTotalTime()));
+            assertThat(cachedStatus.getIncrementalFileCount(), equalTo(status.getIncrementalFileCount()));
+            assertThat(cachedStatus.getTotalFileCount(), equalTo(status.getTotalFileCount()));
+            assertThat(cachedStatus.getIncrementalSize(), equalTo(status.getIncrementalSize()));
+            assertThat(cachedStatus.getTotalSize(), equalTo(status.getTotalSize()));
+        } finally {
+            if (shard != null && shard.state() != IndexShardState.CLOSED) {
+                try {
+                    shard.close("test", false);
+                } finally {
+                    IOUtils.close(shard.store());
+                }
+            }
+        }
+    }
+
     /** Create a {@link Repository} with a random name **/
     private Repository createRepository() {
         Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
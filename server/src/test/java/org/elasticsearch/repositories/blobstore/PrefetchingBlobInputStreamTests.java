@@ -0,0 +1,179 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class PrefetchingBlobInputStreamTests extends ESTestCase {
+
+    public void testReadsAllParts() throws IOException {
+        final BlobContainer container = new FsBlobStore(1024, createTempDir(), false).blobContainer(BlobPath.EMPTY);
+        final byte[] data = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = writeFile(container, data);
+
+        final int rangeSize = randomIntBetween(1, 4096);
+        final int maxConcurrentRanges = randomIntBetween(1, 8);
+        final AtomicInteger downloading = new AtomicInteger();
+        final Executor executor = randomFrom(
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            // the reader has to download all ranges itself if the tasks never run
+            r -> {},
+            r -> new Thread(r).start()
+        );
+        try (
+            InputStream stream = new PrefetchingBlobInputStream(
+                container,
+                fileInfo,
+                rangeSize,
+                maxConcurrentRanges,
+                executor,
+                in -> {
+                    assertThat(downloading.incrementAndGet(), lessThanOrEqualTo(maxConcurrentRanges));
+                    return new CountingInputStream(in, downloading);
+                },
+                () -> {}
+            )
+        ) {
+            final byte[] read = new byte[data.length];
+            int pos = 0;
+            while (pos < data.length) {
+                if (randomBoolean()) {
+                    read[pos++] = (byte) stream.read();
+                } else {
+                    final int n = stream.read(read, pos, randomIntBetween(1, data.length - pos));
+                    assertThat(n, lessThanOrEqualTo(rangeSize));
+                    pos += n;
+                }
+            }
+            assertThat(stream.read(), equalTo(-1));
+            assertArrayEquals(data, read);
+        }
+    }
+
+    public void testFailsOnMissingBlob() throws IOException {
+        final BlobContainer container = new FsBlobStore(1024, createTempDir(), false).blobContainer(BlobPath.EMPTY);
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
+            "__missing",
+            new StoreFileMetadata("_0.cfs", 100, "checksum", Version.LATEST.toString()),
+            null
+        );
+        try (
+            InputStream stream = new PrefetchingBlobInputStream(container, fileInfo, 10, 2, r -> new Thread(r).start(), in -> in, () -> {})
+        ) {
+            expectThrows(NoSuchFileException.class, stream::read);
+        }
+    }
+
+    public void testSchedulesOnlyMissingRanges() throws IOException {
+        final BlobContainer container = new FsBlobStore(1024, createTempDir(), false).blobContainer(BlobPath.EMPTY);
+        final byte[] data = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = writeFile(container, data);
+        final int rangeSize = randomIntBetween(1, 4096);
+        final AtomicInteger scheduled = new AtomicInteger();
+        final Executor executor = randomFrom(EsExecutors.DIRECT_EXECUTOR_SERVICE, r -> new Thread(r).start());
+        int ranges = 0;
+        for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+            ranges += Math.toIntExact((fileInfo.partBytes(i) + rangeSize - 1) / rangeSize);
+        }
+        final Executor countingExecutor = r -> {
+            scheduled.incrementAndGet();
+            executor.execute(r);
+        };
+        try (
+            InputStream stream = new PrefetchingBlobInputStream(
+                container,
+                fileInfo,
+                rangeSize,
+                randomIntBetween(1, 8),
+                countingExecutor,
+                in -> in,
+                () -> {}
+            )
+        ) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+        // at most one task per range, rather than one per range and range boundary
+        assertThat(scheduled.get(), lessThanOrEqualTo(ranges));
+    }
+
+    public void testStopsDownloadingOnceCancelled() throws IOException {
+        final BlobContainer container = new FsBlobStore(1024, createTempDir(), false).blobContainer(BlobPath.EMPTY);
+        final byte[] data = randomByteArrayOfLength(randomIntBetween(100, 1 << 16));
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = writeFile(container, data);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final AtomicInteger downloaded = new AtomicInteger();
+        try (
+            InputStream stream = new PrefetchingBlobInputStream(container, fileInfo, 10, randomIntBetween(1, 8), r -> {}, in -> {
+                downloaded.incrementAndGet();
+                return in;
+            }, () -> {
+                if (cancelled.get()) {
+                    throw new AlreadyClosedException("store is closing");
+                }
+            })
+        ) {
+            assertThat(stream.read(), equalTo(data[0] & 0xFF));
+            cancelled.set(true);
+            final int downloadedBeforeCancellation = downloaded.get();
+            expectThrows(AlreadyClosedException.class, () -> stream.skip(data.length));
+            assertThat(downloaded.get(), equalTo(downloadedBeforeCancellation));
+        }
+    }
+
+    private static BlobStoreIndexShardSnapshot.FileInfo writeFile(BlobContainer container, byte[] data) throws IOException {
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
+            "__blob",
+            new StoreFileMetadata("_0.cfs", data.length, "checksum", Version.LATEST.toString()),
+            randomBoolean() ? null : new ByteSizeValue(randomIntBetween(1, data.length))
+        );
+        int offset = 0;
+        for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+            final int length = Math.toIntExact(fileInfo.partBytes(i));
+            container.writeBlob(fileInfo.partName(i), new BytesArray(data, offset, length), true);
+            offset += length;
+        }
+        return fileInfo;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicInteger downloading;
+
+        CountingInputStream(InputStream in, AtomicInteger downloading) {
+            super(in);
+            this.downloading = downloading;
+        }
+
+        @Override
+        public void close() throws IOException {
+            downloading.decrementAndGet();
+            super.close();
+        }
+    }
+}
@@ -133,6 +133,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.mock;
 
@@ -1527,6 +1528,38 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertTrue(searchService.freeReaderContext(future.actionGet()));
     }
 
+    public void testOpenReaderContextAccountsPinnedReaders() {
+        createIndex("index");
+        SearchService searchService = getInstanceFromNode(SearchService.class);
+        ShardId shardId = new ShardId(resolveIndex("index"), 0);
+        client().prepareIndex("index").setId("0").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        List<ShardSearchContextId> ids = new ArrayList<>();
+        int numContexts = between(2, 5);
+        for (int i = 0; i < numContexts; i++) {
+            PlainActionFuture<ShardSearchContextId> future = new PlainActionFuture<>();
+            searchService.openReaderContext(shardId, TimeValue.timeValueMinutes(between(1, 10)), future);
+            ids.add(future.actionGet());
+        }
+        assertThat(searchService.getActiveContexts(), equalTo(numContexts));
+        assertThat(searchService.getPointInTimeReaders(), equalTo(1));
+        final long pinnedSizeInBytes = searchService.getPointInTimePinnedSizeInBytes();
+        assertThat(pinnedSizeInBytes, greaterThan(0L));
+
+        client().prepareIndex("index").setId("1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        PlainActionFuture<ShardSearchContextId> future = new PlainActionFuture<>();
+        searchService.openReaderContext(shardId, TimeValue.timeValueMinutes(between(1, 10)), future);
+        ids.add(future.actionGet());
+        assertThat(searchService.getActiveContexts(), equalTo(numContexts + 1));
+        assertThat(searchService.getPointInTimeReaders(), equalTo(2));
+        assertThat(searchService.getPointInTimePinnedSizeInBytes(), greaterThan(pinnedSizeInBytes));
+
+        for (ShardSearchContextId id : ids) {
+            assertTrue(searchService.freeReaderContext(id));
+        }
+        assertThat(searchService.getPointInTimeReaders(), equalTo(0));
+        assertThat(searchService.getPointInTimePinnedSizeInBytes(), equalTo(0L));
+    }
+
     public void testCancelQueryPhaseEarly() throws Exception {
         createIndex("index");
         final MockSearchService service = (MockSearchService) getInstanceFromNode(SearchService.class);
@@ -308,6 +308,63 @@ public abstract class BucketedSortTestCase<T extends BucketedSort> extends ESTes
         }
     }
 
+    public void testBatchedMatchesOneAtATime() throws IOException {
+        double[] values = new double[5000];
+        int[] extraValues = new int[values.length];
+        for (int v = 0; v < values.length; v++) {
+            values[v] = randomValue();
+            extraValues[v] = v;
+        }
+
+        int buckets = between(1, 100);
+        int bucketSize = between(1, 10);
+        SortOrder order = randomFrom(SortOrder.values());
+        int[] docs = new int[values.length * buckets];
+        long[] bucketOrds = new long[docs.length];
+        int count = 0;
+        for (int doc = 0; doc < values.length; doc++) {
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                if (randomBoolean()) {
+                    docs[count] = doc;
+                    bucketOrds[count] = bucket;
+                    count++;
+                }
+            }
+        }
+
+        try (
+            Extra expectedExtra = new Extra(bigArrays(), extraValues);
+            T expected = build(order, bucketSize, expectedExtra, values);
+            Extra batchedExtra = new Extra(bigArrays(), extraValues);
+            T batched = build(order, bucketSize, batchedExtra, values)
+        ) {
+            BucketedSort.Leaf expectedLeaf = expected.forLeaf(null);
+            for (int i = 0; i < count; i++) {
+                expectedLeaf.collect(docs[i], bucketOrds[i]);
+            }
+
+            BucketedSort.Leaf batchedLeaf = batched.forLeaf(null);
+            int[] docsBlock = new int[between(1, 1000)];
+            long[] bucketsBlock = new long[docsBlock.length];
+            int start = 0;
+            while (start < count) {
+                int blockSize = Math.min(between(1, docsBlock.length), count - start);
+                System.arraycopy(docs, start, docsBlock, 0, blockSize);
+                System.arraycopy(bucketOrds, start, bucketsBlock, 0, blockSize);
+                batchedLeaf.collect(docsBlock, bucketsBlock, blockSize);
+                start += blockSize;
+            }
+
+            for (int bucket = 0; bucket <= buckets; bucket++) {
+                assertThat(
+                    "Bucket " + bucket,
+                    batched.getValues(bucket, batchedExtra.valueBuilder()),
+                    equalTo(expected.getValues(bucket, expectedExtra.valueBuilder()))
+                );
+            }
+        }
+    }
+
     protected BigArrays bigArrays() {
         return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
     }
@@ -0,0 +1,202 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.suggest.completion;
+
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.suggest.document.Completion90PostingsFormat;
+import org.apache.lucene.search.suggest.document.SuggestField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.CharsRefBuilder;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.CompletionFieldMapper;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class CompletionPrefixCacheTests extends ESTestCase {
+
+    private static final String FIELD = "suggest";
+
+    public void testCachedSuggestionsAreEqualToUncachedSuggestions() throws IOException {
+        final CompletionPrefixCache cache = new CompletionPrefixCache(Settings.EMPTY, newBreakerService());
+        try (Directory directory = newDirectory(); IndexWriter writer = newWriter(directory)) {
+            final int numSegments = randomIntBetween(1, 4);
+            final List<Integer> weights = shuffledWeights(numSegments * 50);
+            for (int i = 0; i < numSegments; i++) {
+                indexSuggestions(writer, weights.subList(i * 50, i * 50 + randomIntBetween(1, 50)));
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                for (int i = 0; i < 20; i++) {
+                    final String prefix = randomFrom("a", "ab", "abc", "b", "ba", "bab", "c", "x");
+                    final int size = randomIntBetween(1, 10);
+                    final boolean skipDuplicates = randomBoolean();
+                    final List<String> expected = suggest(searcher, prefix, size, skipDuplicates, null);
+                    // the first request fills the cache and the second one is served from it
+                    assertThat(suggest(searcher, prefix, size, skipDuplicates, cache), equalTo(expected));
+                    assertThat(suggest(searcher, prefix, size, skipDuplicates, cache), equalTo(expected));
+                }
+                assertThat(cache.count(), greaterThan(0));
+            }
+        }
+    }
+
+    public void testEntriesAreInvalidatedWhenSegmentIsClosed() throws IOException {
+        final CircuitBreakerService breakerService = newBreakerService();
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.ACCOUNTING);
+        final CompletionPrefixCache cache = new CompletionPrefixCache(Settings.EMPTY, breakerService);
+        try (Directory directory = newDirectory(); IndexWriter writer = newWriter(directory)) {
+            final List<Integer> weights = shuffledWeights(20);
+            indexSuggestions(writer, weights.subList(0, 10));
+            final DirectoryReader first = DirectoryReader.open(directory);
+            suggest(new IndexSearcher(first), "a", 5, false, cache);
+            assertThat(cache.segmentCount(), equalTo(1));
+            assertThat(cache.count(), equalTo(1));
+
+            indexSuggestions(writer, weights.subList(10, 20));
+            final DirectoryReader second = DirectoryReader.openIfChanged(first);
+            first.close();
+            // the first segment is still open and its entry is reused
+            suggest(new IndexSearcher(second), "a", 5, false, cache);
+            assertThat(cache.segmentCount(), equalTo(2));
+            assertThat(cache.count(), equalTo(2));
+            assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+
+            writer.forceMerge(1);
+            writer.commit();
+            final DirectoryReader merged = DirectoryReader.openIfChanged(second);
+            second.close();
+            assertThat(cache.segmentCount(), equalTo(0));
+            assertThat(cache.count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+
+            suggest(new IndexSearcher(merged), "a", 5, false, cache);
+            assertThat(cache.count(), equalTo(1));
+            merged.close();
+            assertThat(cache.count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+        }
+    }
+
+    public void testCacheSizeIsBounded() throws IOException {
+        final CircuitBreakerService breakerService = newBreakerService();
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.ACCOUNTING);
+        final CompletionPrefixCache cache = new CompletionPrefixCache(
+            Settings.builder().put(CompletionPrefixCache.INDICES_COMPLETION_PREFIX_CACHE_SIZE_SETTING.getKey(), "2kb").build(),
+            breakerService
+        );
+        try (Directory directory = newDirectory(); IndexWriter writer = newWriter(directory)) {
+            indexSuggestions(writer, shuffledWeights(50));
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                for (char c = 'a'; c <= 'z'; c++) {
+                    suggest(searcher, String.valueOf(c), 10, false, cache);
+                    assertThat(cache.ramBytesUsed(), lessThanOrEqualTo(2048L));
+                    assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+                }
+            }
+            cache.close();
+            assertThat(cache.count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+        }
+    }
+
+    private static CircuitBreakerService newBreakerService() {
+        return new HierarchyCircuitBreakerService(
+            Settings.builder().put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false).build(),
+            Collections.emptyList(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+    }
+
+    private static IndexWriter newWriter(Directory directory) throws IOException {
+        final IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+        final PostingsFormat postingsFormat = new Completion90PostingsFormat();
+        indexWriterConfig.setCodec(new Lucene90Codec() {
+            @Override
+            public PostingsFormat getPostingsFormatForField(String field) {
+                return postingsFormat; // all fields are suggest fields
+            }
+        });
+        // every batch of suggestions is a segment of its own
+        indexWriterConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+        return new IndexWriter(directory, indexWriterConfig);
+    }
+
+    /**
+     * Unique weights so that the order of the suggestions doesn't depend on how ties are broken.
+     */
+    private static List<Integer> shuffledWeights(int count) {
+        final List<Integer> weights = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            weights.add(i);
+        }
+        Collections.shuffle(weights, random());
+        return weights;
+    }
+
+    private static void indexSuggestions(IndexWriter writer, List<Integer> weights) throws IOException {
+        for (int weight : weights) {
+            final Document document = new Document();
+            // a small alphabet so that suggestions share prefixes and have duplicates
+            final String suggestion = randomFrom("a", "ab", "abc", "abcd", "b", "ba", "bab", "c") + randomFrom("", "x", "y");
+            document.add(new SuggestField(FIELD, suggestion, weight));
+            writer.addDocument(document);
+        }
+        writer.commit();
+    }
+
+    private static List<String> suggest(
+        IndexSearcher searcher,
+        String prefix,
+        int size,
+        boolean skipDuplicates,
+        CompletionPrefixCache cache
+    ) throws IOException {
+        final CompletionSuggestionContext context = new CompletionSuggestionContext(null);
+        context.setFieldType(new CompletionFieldMapper.CompletionFieldType(FIELD, Lucene.KEYWORD_ANALYZER, Map.of()));
+        context.setField(FIELD);
+        context.setText(new BytesRef(prefix));
+        context.setPrefix(new BytesRef(prefix));
+        context.setSize(size);
+        context.setSkipDuplicates(skipDuplicates);
+        context.setPrefixCache(cache);
+        final CompletionSuggestion suggestion = (CompletionSuggestion) CompletionSuggester.INSTANCE.execute(
+            "test",
+            context,
+            searcher,
+            new CharsRefBuilder()
+        );
+        final List<String> options = new ArrayList<>();
+        for (CompletionSuggestion.Entry.Option option : suggestion.getEntries().get(0).getOptions()) {
+            options.add(option.getDoc().doc + ":" + option.getText() + ":" + option.getScore());
+        }
+        return options;
+    }
+}
@@ -61,10 +61,20 @@ import static org.elasticsearch.xpack.analytics.topmetrics.TopMetricsAggregation
  * some way to pick which document's metrics to use for the sort.
  */
 class TopMetricsAggregator extends NumericMetricsAggregator.MultiValue {
+    /**
+     * The number of docs to buffer before handing them to the sort.
+     */
+    static final int BATCH_SIZE = 1024;
+
     private final int size;
     private final BucketedSort sort;
     private final Metrics metrics;
 
+    private BucketedSort.Leaf pendingLeaf;
+    private int[] pendingDocs;
+    private long[] pendingBuckets;
+    private int pendingCount;
+
     TopMetricsAggregator(
         String name,
         AggregationContext context,
@@ -123,21 +133,63 @@ class TopMetricsAggregator extends NumericMetricsAggregator.MultiValue {
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         assert sub.isNoop() : "Expected noop but was " + sub.toString();
 
+        flushPending();
         BucketedSort.Leaf leafSort = sort.forLeaf(ctx);
 
+        if (scoreMode().needsScores()) {
+            // Scores are only available for the current doc so we can't buffer
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    leafSort.collect(doc, bucket);
+                }
+
+                @Override
+                public void setScorer(Scorable s) throws IOException {
+                    leafSort.setScorer(s);
+                }
+            };
+        }
+
+        /*
+         * Buffer up a block of docs and hand them to the sort all at once
+         * so it can load the sort values together and skip uncompetitive
+         * docs without bouncing through the doc values for each one.
+         */
+        if (pendingDocs == null) {
+            pendingDocs = new int[BATCH_SIZE];
+            pendingBuckets = new long[BATCH_SIZE];
+        }
+        pendingLeaf = leafSort;
         return new LeafBucketCollector() {
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                leafSort.collect(doc, bucket);
-            }
-
-            @Override
-            public void setScorer(Scorable s) throws IOException {
-                leafSort.setScorer(s);
+                pendingDocs[pendingCount] = doc;
+                pendingBuckets[pendingCount] = bucket;
+                pendingCount++;
+                if (pendingCount == BATCH_SIZE) {
+                    flushPending();
+                }
             }
         };
     }
 
+    @Override
+    protected void doPostCollection() throws IOException {
+        flushPending();
+        pendingLeaf = null;
+    }
+
+    /**
+     * Send any buffered docs to the sort.
+     */
+    private void flushPending() throws IOException {
+        if (pendingCount > 0) {
+            pendingLeaf.collect(pendingDocs, pendingBuckets, pendingCount);
+            pendingCount = 0;
+        }
+    }
+
     @Override
     public InternalAggregation buildAggregation(long bucket) throws IOException {
         List<InternalTopMetrics.TopMetric> topMetrics = sort.getValues(bucket, metrics.resultBuilder(sort.getFormat()));
@@ -584,6 +584,11 @@ public class EncryptedRepository extends BlobStoreRepository {
             throw new UnsupportedOperationException("Not yet implemented");
         }
 
+        @Override
+        public boolean supportsReadBlobRange() {
+            return false;
+        }
+
         /**
          * Reads the blob content from the input stream and writes it to the container in a new blob with the given name.
          * If {@code failIfAlreadyExists} is {@code true} and a blob with the same name already exists, the write operation will fail;
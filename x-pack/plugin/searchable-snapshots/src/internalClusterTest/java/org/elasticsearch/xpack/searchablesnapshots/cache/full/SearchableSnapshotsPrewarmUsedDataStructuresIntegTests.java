@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.full;
+
+import org.elasticsearch.action.admin.indices.stats.FieldUsageShardResponse;
+import org.elasticsearch.action.admin.indices.stats.FieldUsageStatsAction;
+import org.elasticsearch.action.admin.indices.stats.FieldUsageStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.FieldUsageStatsResponse;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.search.stats.FieldUsageStats.UsageContext;
+import org.elasticsearch.xpack.core.searchablesnapshots.MountSearchableSnapshotRequest.Storage;
+import org.elasticsearch.xpack.searchablesnapshots.BaseSearchableSnapshotsIntegTestCase;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+
+public class SearchableSnapshotsPrewarmUsedDataStructuresIntegTests extends BaseSearchableSnapshotsIntegTestCase {
+
+    public void testMountedIndexPrewarmsDataStructuresUsedByExistingIndex() throws Exception {
+        final String indexName = randomAlphaOfLength(10).toLowerCase(Locale.ROOT);
+        final String repositoryName = randomAlphaOfLength(10).toLowerCase(Locale.ROOT);
+        final String snapshotName = randomAlphaOfLength(10).toLowerCase(Locale.ROOT);
+        final String mountedIndexName = "mounted-" + indexName;
+
+        createRepository(repositoryName, "fs");
+        createAndPopulateIndex(indexName, Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0));
+        createSnapshot(repositoryName, snapshotName, List.of(indexName));
+
+        // searches on the index record which of its data structures were used
+        client().prepareSearch(indexName).setQuery(matchQuery("foo", "bar")).get();
+        final Set<UsageContext> usedDataStructures = usedDataStructures(indexName);
+        assertThat(usedDataStructures, hasItem(UsageContext.TERMS));
+
+        mountSnapshot(repositoryName, snapshotName, indexName, mountedIndexName, Settings.EMPTY, Storage.FULL_COPY);
+        ensureGreen(mountedIndexName);
+        assertThat(Set.copyOf(prewarmUsedDataStructures(mountedIndexName)), equalTo(usedDataStructures));
+    }
+
+    public void testMountedIndexPrewarmsAllFilesIfFieldUsageStatsAreUnavailable() throws Exception {
+        final String indexName = randomAlphaOfLength(10).toLowerCase(Locale.ROOT);
+        final String repositoryName = randomAlphaOfLength(10).toLowerCase(Locale.ROOT);
+        final String snapshotName = randomAlphaOfLength(10).toLowerCase(Locale.ROOT);
+        final String mountedIndexName = "mounted-" + indexName;
+
+        createRepository(repositoryName, "fs");
+        createAndPopulateIndex(indexName, Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0));
+        createSnapshot(repositoryName, snapshotName, List.of(indexName));
+        client().prepareSearch(indexName).setQuery(matchQuery("foo", "bar")).get();
+
+        // the field usage stats of a closed index can't be retrieved, which must not fail the mount
+        assertAcked(client().admin().indices().prepareClose(indexName));
+        mountSnapshot(repositoryName, snapshotName, indexName, mountedIndexName, Settings.EMPTY, Storage.FULL_COPY);
+        ensureGreen(mountedIndexName);
+        assertThat(prewarmUsedDataStructures(mountedIndexName), is(empty()));
+    }
+
+    private static Set<UsageContext> usedDataStructures(String indexName) {
+        final FieldUsageStatsResponse response = client().execute(FieldUsageStatsAction.INSTANCE, new FieldUsageStatsRequest(indexName))
+            .actionGet();
+        final Set<UsageContext> usedDataStructures = EnumSet.noneOf(UsageContext.class);
+        for (List<FieldUsageShardResponse> shardResponses : response.getStats().values()) {
+            for (FieldUsageShardResponse shardResponse : shardResponses) {
+                usedDataStructures.addAll(shardResponse.getStats().total().keySet());
+            }
+        }
+        return usedDataStructures;
+    }
+
+    private static List<UsageContext> prewarmUsedDataStructures(String indexName) {
+        final Settings settings = client().admin().indices().prepareGetSettings(indexName).get().getIndexToSettings().get(indexName);
+        return SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING.get(settings);
+    }
+}
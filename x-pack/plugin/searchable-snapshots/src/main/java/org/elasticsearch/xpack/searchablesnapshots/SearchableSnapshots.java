@@ -46,6 +46,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.engine.ReadOnlyEngine;
 import org.elasticsearch.index.engine.frozen.FrozenEngine;
+import org.elasticsearch.index.search.stats.FieldUsageStats.UsageContext;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.indices.SystemIndexDescriptor;
@@ -186,6 +187,14 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         Setting.Property.IndexScope,
         Setting.Property.NotCopyableOnResize
     );
+    // The data structures that were used by searches on the index before it was mounted, their files are prewarmed first
+    public static final Setting<List<UsageContext>> SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING = Setting.listSetting(
+        "index.store.snapshot.cache.prewarm.used_data_structures",
+        Collections.emptyList(),
+        value -> UsageContext.valueOf(value.toUpperCase(Locale.ROOT)),
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
     // The file extensions that are excluded from the cache
     public static final Setting<List<String>> SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING = Setting.listSetting(
         "index.store.snapshot.cache.excluded_file_types",
@@ -291,6 +300,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             SNAPSHOT_INDEX_ID_SETTING,
             SNAPSHOT_CACHE_ENABLED_SETTING,
             SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING,
+            SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING,
             SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING,
             SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING,
             DELETE_SEARCHABLE_SNAPSHOT_ON_INDEX_DELETION,
@@ -307,9 +317,11 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING,
+            FrozenCacheService.SHARED_CACHE_COALESCING_GAP_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_MAX_FREQ_SETTING,
             FrozenCacheService.SHARED_CACHE_DECAY_INTERVAL_SETTING,
             FrozenCacheService.SHARED_CACHE_MIN_TIME_DELTA_SETTING,
+            BlobStoreCacheService.SNAPSHOT_BLOB_CACHE_FRONT_CACHE_SIZE_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_INTERVAL_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_KEEP_ALIVE_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_BATCH_SIZE_SETTING,
@@ -342,6 +354,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             this.frozenCacheService.set(frozenCacheService);
             components.add(cacheService);
             final BlobStoreCacheService blobStoreCacheService = new BlobStoreCacheService(
+                settings,
                 clusterService,
                 client,
                 SNAPSHOT_BLOB_CACHE_INDEX
@@ -7,11 +7,16 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.action;
 
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.StepListener;
 import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotRequest;
 import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.admin.indices.stats.FieldUsageShardResponse;
+import org.elasticsearch.action.admin.indices.stats.FieldUsageStatsAction;
+import org.elasticsearch.action.admin.indices.stats.FieldUsageStatsRequest;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.master.TransportMasterNodeAction;
 import org.elasticsearch.client.Client;
@@ -29,6 +34,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.search.stats.FieldUsageStats.UsageContext;
 import org.elasticsearch.indices.ShardLimitValidator;
 import org.elasticsearch.indices.SystemIndices;
 import org.elasticsearch.license.XPackLicenseState;
@@ -48,6 +54,7 @@ import org.elasticsearch.xpack.searchablesnapshots.allocation.SearchableSnapshot
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -55,11 +62,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.IndexModule.INDEX_RECOVERY_TYPE_SETTING;
 import static org.elasticsearch.index.IndexModule.INDEX_STORE_TYPE_SETTING;
 import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.SEARCHABLE_SNAPSHOT_STORE_TYPE;
 import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.isSearchableSnapshotStore;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING;
 
 /**
  * Action that mounts a snapshot as a searchable snapshot, by converting the mount request into a restore request with specific settings
@@ -251,31 +260,85 @@ public class TransportMountSearchableSnapshotAction extends TransportMasterNodeA
                 dataTierAllocationSetting.get(indexSettings);
             }
 
-            client.admin()
-                .cluster()
-                .restoreSnapshot(
-                    new RestoreSnapshotRequest(repoName, snapName)
-                        // Restore the single index specified
-                        .indices(indexName)
-                        // Always rename it to the desired mounted index name
-                        .renamePattern(".+")
-                        .renameReplacement(mountedIndexName)
-                        // Pass through index settings, adding the index-level settings required to use searchable snapshots
-                        .indexSettings(indexSettings)
-                        // Pass through ignored index settings
-                        .ignoreIndexSettings(ignoreIndexSettings.toArray(new String[0]))
-                        // Don't include global state
-                        .includeGlobalState(false)
-                        // Don't include aliases
-                        .includeAliases(false)
-                        // Pass through the wait-for-completion flag
-                        .waitForCompletion(request.waitForCompletion())
-                        // Pass through the master-node timeout
-                        .masterNodeTimeout(request.masterNodeTimeout())
-                        // Fail the restore if the snapshot found above is swapped out from under us before the restore happens
-                        .snapshotUuid(snapshotId.getUUID()),
-                    listener
-                );
+            final StepListener<Settings> usedDataStructuresListener = new StepListener<>();
+            getUsedDataStructures(state, request, indexMetadata, indexSettings, usedDataStructuresListener);
+            usedDataStructuresListener.whenComplete(
+                usedDataStructures -> client.admin()
+                    .cluster()
+                    .restoreSnapshot(
+                        new RestoreSnapshotRequest(repoName, snapName)
+                            // Restore the single index specified
+                            .indices(indexName)
+                            // Always rename it to the desired mounted index name
+                            .renamePattern(".+")
+                            .renameReplacement(mountedIndexName)
+                            // Pass through index settings, adding the index-level settings required to use searchable snapshots
+                            // and the data structures to prewarm first
+                            .indexSettings(Settings.builder().put(indexSettings).put(usedDataStructures))
+                            // Pass through ignored index settings
+                            .ignoreIndexSettings(ignoreIndexSettings.toArray(new String[0]))
+                            // Don't include global state
+                            .includeGlobalState(false)
+                            // Don't include aliases
+                            .includeAliases(false)
+                            // Pass through the wait-for-completion flag
+                            .waitForCompletion(request.waitForCompletion())
+                            // Pass through the master-node timeout
+                            .masterNodeTimeout(request.masterNodeTimeout())
+                            // Fail the restore if the snapshot found above is swapped out from under us before the restore happens
+                            .snapshotUuid(snapshotId.getUUID()),
+                        listener
+                    ),
+                listener::onFailure
+            );
         }, listener::onFailure), threadPool.executor(ThreadPool.Names.SNAPSHOT_META), null);
     }
+
+    /**
+     * Collects the data structures that searches used on the index that was snapshotted if it still exists in the cluster, so that the
+     * files holding them are prewarmed first once the index is mounted. Completes with no settings if the data structures to prewarm
+     * are already set or cannot be determined.
+     */
+    private void getUsedDataStructures(
+        ClusterState state,
+        MountSearchableSnapshotRequest request,
+        IndexMetadata snapshotIndexMetadata,
+        Settings indexSettings,
+        ActionListener<Settings> listener
+    ) {
+        final String settingKey = SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING.getKey();
+        final IndexMetadata sourceIndexMetadata = state.metadata().index(snapshotIndexMetadata.getIndex().getName());
+        if (request.storage() != MountSearchableSnapshotRequest.Storage.FULL_COPY
+            || indexSettings.hasValue(settingKey)
+            || snapshotIndexMetadata.getSettings().hasValue(settingKey)
+            || sourceIndexMetadata == null
+            || sourceIndexMetadata.getIndexUUID().equals(snapshotIndexMetadata.getIndexUUID()) == false) {
+            listener.onResponse(Settings.EMPTY);
+            return;
+        }
+        final String sourceIndexName = sourceIndexMetadata.getIndex().getName();
+        client.execute(FieldUsageStatsAction.INSTANCE, new FieldUsageStatsRequest(sourceIndexName), ActionListener.wrap(response -> {
+            final Set<UsageContext> usedDataStructures = EnumSet.noneOf(UsageContext.class);
+            for (List<FieldUsageShardResponse> shardResponses : response.getStats().values()) {
+                for (FieldUsageShardResponse shardResponse : shardResponses) {
+                    usedDataStructures.addAll(shardResponse.getStats().total().keySet());
+                }
+            }
+            if (usedDataStructures.isEmpty()) {
+                listener.onResponse(Settings.EMPTY);
+            } else {
+                listener.onResponse(
+                    Settings.builder()
+                        .putList(
+                            settingKey,
+                            usedDataStructures.stream().map(usage -> usage.name().toLowerCase(Locale.ROOT)).collect(Collectors.toList())
+                        )
+                        .build()
+                );
+            }
+        }, e -> {
+            logger.debug(() -> new ParameterizedMessage("failed to retrieve field usage stats of index [{}]", sourceIndexName), e);
+            listener.onResponse(Settings.EMPTY);
+        }));
+    }
 }
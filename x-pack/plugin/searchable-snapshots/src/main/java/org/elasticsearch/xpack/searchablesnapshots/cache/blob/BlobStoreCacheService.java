@@ -15,10 +15,15 @@ import org.elasticsearch.ElasticsearchTimeoutException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
-import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.client.Client;
@@ -29,10 +34,15 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.common.util.concurrent.RunOnce;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.LuceneFilesExtensions;
 import org.elasticsearch.node.NodeClosedException;
@@ -45,6 +55,11 @@ import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -69,18 +84,55 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
 
     static final int MAX_IN_FLIGHT_CACHE_FILLS = Integer.MAX_VALUE;
 
+    /**
+     * The maximum number of cached blobs that are indexed with a single bulk request.
+     */
+    static final int MAX_CACHE_FILLS_PER_BULK = 100;
+
+    /**
+     * The maximum number of bulk requests of cache fills that are in flight at the same time, so that a slow bulk request doesn't hold
+     * back all other cache fills.
+     */
+    static final int MAX_CONCURRENT_BULKS = 4;
+
+    /**
+     * The size of the node-local cache of the blobs that were recently read from or written to the blob store cache index. Lookups that
+     * are served from this cache never reach the index, which avoids a flood of small get requests when many shards are opened at once.
+     */
+    public static final Setting<ByteSizeValue> SNAPSHOT_BLOB_CACHE_FRONT_CACHE_SIZE_SETTING = Setting.byteSizeSetting(
+        "searchable_snapshots.blob_cache.front_cache.size",
+        new ByteSizeValue(16L, ByteSizeUnit.MB),
+        Setting.Property.NodeScope
+    );
+
     private final ClusterService clusterService;
     private final Semaphore inFlightCacheFills;
     private final AtomicBoolean closed;
     private final Client client;
     private final String index;
+    private final Cache<String, CachedBlob> frontCache;
+
+    /**
+     * The lookups of cached blobs that are executed as part of a multi-get, other lookups of the same blobs wait for them to complete.
+     */
+    private final Map<String, ListenableFuture<CachedBlob>> ongoingLookups = ConcurrentCollections.newConcurrentMap();
+
+    /**
+     * The cache fills that are waiting for a bulk request in flight to complete, so that they can be indexed with the next one.
+     */
+    private final Deque<PendingCacheFill> pendingCacheFills = new ArrayDeque<>(); // guarded by this
+    private int bulksInFlight; // guarded by this
 
-    public BlobStoreCacheService(ClusterService clusterService, Client client, String index) {
+    public BlobStoreCacheService(Settings settings, ClusterService clusterService, Client client, String index) {
         this.client = new OriginSettingClient(client, SEARCHABLE_SNAPSHOTS_ORIGIN);
         this.inFlightCacheFills = new Semaphore(MAX_IN_FLIGHT_CACHE_FILLS);
         this.closed = new AtomicBoolean(false);
         this.clusterService = clusterService;
         this.index = index;
+        this.frontCache = CacheBuilder.<String, CachedBlob>builder()
+            .setMaximumWeight(SNAPSHOT_BLOB_CACHE_FRONT_CACHE_SIZE_SETTING.get(settings).getBytes())
+            .weigher((id, cachedBlob) -> cachedBlob.length())
+            .build();
     }
 
     @Override
@@ -116,7 +168,9 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
     }
 
     @Override
-    protected void doClose() {}
+    protected void doClose() {
+        frontCache.invalidateAll();
+    }
 
     public CachedBlob get(
         final String repository,
@@ -163,62 +217,180 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
             listener.onResponse(CachedBlob.CACHE_NOT_READY);
             return;
         }
-        final GetRequest request = new GetRequest(index).id(generateId(repository, snapshotId, indexId, shardId, name, range));
+        final String id = generateId(repository, snapshotId, indexId, shardId, name, range);
+        final CachedBlob frontCachedBlob = frontCache.get(id);
+        if (frontCachedBlob != null && hasRange(frontCachedBlob, range)) {
+            logger.trace("front cache hit: [{}]", id);
+            listener.onResponse(frontCachedBlob);
+            return;
+        }
+        final ListenableFuture<CachedBlob> ongoingLookup = ongoingLookups.get(id);
+        if (ongoingLookup != null) {
+            ongoingLookup.addListener(new ActionListener<>() {
+                @Override
+                public void onResponse(CachedBlob cachedBlob) {
+                    if (cachedBlob == CachedBlob.CACHE_MISS || cachedBlob == CachedBlob.CACHE_NOT_READY || hasRange(cachedBlob, range)) {
+                        listener.onResponse(cachedBlob);
+                    } else {
+                        listener.onResponse(CachedBlob.CACHE_MISS);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    // the prefetch failed, look the blob up on its own
+                    innerGetAsync(id, range, listener);
+                }
+            });
+            return;
+        }
+        innerGetAsync(id, range, listener);
+    }
+
+    private void innerGetAsync(final String id, final ByteRange range, final ActionListener<CachedBlob> listener) {
+        final GetRequest request = new GetRequest(index).id(id);
         innerGet(request, new ActionListener<>() {
             @Override
             public void onResponse(GetResponse response) {
-                if (response.isExists()) {
-                    logger.debug("cache hit : [{}]", request.id());
-                    assert response.isSourceEmpty() == false;
-
-                    final CachedBlob cachedBlob = CachedBlob.fromSource(response.getSource());
-                    assert assertDocId(response, repository, snapshotId, indexId, shardId, name, range);
-                    if (cachedBlob.from() != range.start() || cachedBlob.to() != range.end()) {
-                        // expected range in cache might differ with the returned cached blob; this can happen if the range to put in cache
-                        // is changed between versions or through the index setting. In this case we assume it is a cache miss to force the
-                        // blob to be cached again
-                        listener.onResponse(CachedBlob.CACHE_MISS);
-                    } else {
-                        listener.onResponse(cachedBlob);
+                listener.onResponse(toCachedBlob(response, id, range));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                listener.onResponse(onLookupFailure(e));
+            }
+        });
+    }
+
+    /**
+     * Looks up the cached blobs of several files of a shard with a single multi-get request, typically when the shard is opened, and keeps
+     * them in the node-local cache so that the lookups of the individual files that follow don't reach the blob store cache index.
+     *
+     * @param ranges the names of the files with the ranges of their cached blobs
+     */
+    public void prefetchAsync(
+        final String repository,
+        final SnapshotId snapshotId,
+        final IndexId indexId,
+        final ShardId shardId,
+        final Map<String, ByteRange> ranges
+    ) {
+        if (closed.get()) {
+            logger.debug("skipping prefetch of cached blobs from system index [{}], service is closed", index);
+            return;
+        }
+        final MultiGetRequest request = new MultiGetRequest();
+        final List<Tuple<ByteRange, ListenableFuture<CachedBlob>>> lookups = new ArrayList<>();
+        for (Map.Entry<String, ByteRange> entry : ranges.entrySet()) {
+            final ByteRange range = entry.getValue();
+            final String id = generateId(repository, snapshotId, indexId, shardId, entry.getKey(), range);
+            if (frontCache.get(id) != null) {
+                continue;
+            }
+            final ListenableFuture<CachedBlob> lookup = new ListenableFuture<>();
+            if (ongoingLookups.putIfAbsent(id, lookup) == null) {
+                request.add(index, id);
+                lookups.add(Tuple.tuple(range, lookup));
+            }
+        }
+        if (lookups.isEmpty()) {
+            return;
+        }
+        logger.trace("prefetching [{}] cached blobs of shard {}", lookups.size(), shardId);
+        final ActionListener<MultiGetResponse> listener = new ActionListener<>() {
+            @Override
+            public void onResponse(MultiGetResponse response) {
+                final MultiGetItemResponse[] items = response.getResponses();
+                assert items.length == lookups.size() : items.length + " vs " + lookups.size();
+                for (int i = 0; i < items.length; i++) {
+                    final MultiGetItemResponse item = items[i];
+                    // other lookups of the same blob are waiting for this one so it must always complete
+                    final ListenableFuture<CachedBlob> lookup = lookups.get(i).v2();
+                    try {
+                        if (item.isFailed()) {
+                            onPrefetchFailure(item.getId(), lookup, item.getFailure().getFailure());
+                        } else {
+                            completeLookup(item.getId(), lookup, toCachedBlob(item.getResponse(), item.getId(), lookups.get(i).v1()));
+                        }
+                    } catch (Exception e) {
+                        onPrefetchFailure(item.getId(), lookup, e);
                     }
-                } else {
-                    logger.debug("cache miss: [{}]", request.id());
-                    listener.onResponse(CachedBlob.CACHE_MISS);
                 }
             }
 
             @Override
             public void onFailure(Exception e) {
-                // In case the blob cache system index is unavailable, we indicate it's not ready and move on. We do not fail the request:
-                // a failure here is not fatal since the data exists in the blob store, so we can simply indicate the cache is not ready.
-                if (isExpectedCacheGetException(e)) {
-                    logger.debug(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
-                } else {
-                    logger.warn(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
-                    assert false : e;
+                for (int i = 0; i < lookups.size(); i++) {
+                    onPrefetchFailure(request.getItems().get(i).id(), lookups.get(i).v2(), e);
                 }
-                listener.onResponse(CachedBlob.CACHE_NOT_READY);
             }
-        });
+        };
+        try {
+            innerMultiGet(request, listener);
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    private void completeLookup(String id, ListenableFuture<CachedBlob> lookup, CachedBlob cachedBlob) {
+        final boolean removed = ongoingLookups.remove(id, lookup);
+        assert removed : "lookup of [" + id + "] is not ongoing";
+        lookup.onResponse(cachedBlob);
+    }
+
+    /**
+     * Prefetching is only an optimization, so whatever made it fail the blob is treated as a cache miss of the prefetch and the lookups
+     * that are waiting for it look the blob up on their own.
+     */
+    private void onPrefetchFailure(String id, ListenableFuture<CachedBlob> lookup, Exception e) {
+        logger.debug(() -> new ParameterizedMessage("failed to prefetch cached blob [{}] from system index [{}]", id, index), e);
+        final boolean removed = ongoingLookups.remove(id, lookup);
+        assert removed : "lookup of [" + id + "] is not ongoing";
+        lookup.onFailure(e);
+    }
+
+    private CachedBlob toCachedBlob(GetResponse response, String id, ByteRange range) {
+        if (response.isExists()) {
+            logger.debug("cache hit : [{}]", id);
+            assert response.isSourceEmpty() == false;
+            assert response.getId().equals(id) : "Expected a cached blob document with id [" + id + "] but got [" + response.getId() + ']';
+
+            final CachedBlob cachedBlob = CachedBlob.fromSource(response.getSource());
+            if (hasRange(cachedBlob, range) == false) {
+                // expected range in cache might differ with the returned cached blob; this can happen if the range to put in cache
+                // is changed between versions or through the index setting. In this case we assume it is a cache miss to force the
+                // blob to be cached again
+                return CachedBlob.CACHE_MISS;
+            }
+            frontCache.put(id, cachedBlob);
+            return cachedBlob;
+        } else {
+            logger.debug("cache miss: [{}]", id);
+            return CachedBlob.CACHE_MISS;
+        }
+    }
+
+    private static boolean hasRange(CachedBlob cachedBlob, ByteRange range) {
+        return cachedBlob.from() == range.start() && cachedBlob.to() == range.end();
+    }
+
+    private CachedBlob onLookupFailure(Exception e) {
+        // In case the blob cache system index is unavailable, we indicate it's not ready and move on. We do not fail the request:
+        // a failure here is not fatal since the data exists in the blob store, so we can simply indicate the cache is not ready.
+        if (isExpectedCacheGetException(e)) {
+            logger.debug(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
+        } else {
+            logger.warn(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
+        }
+        return CachedBlob.CACHE_NOT_READY;
     }
 
     protected void innerGet(final GetRequest request, final ActionListener<GetResponse> listener) {
         client.get(request, listener);
     }
 
-    private static boolean assertDocId(
-        final GetResponse response,
-        final String repository,
-        final SnapshotId snapshotId,
-        final IndexId indexId,
-        final ShardId shardId,
-        final String name,
-        final ByteRange range
-    ) {
-        final String expectedId = generateId(repository, snapshotId, indexId, shardId, name, range);
-        assert response.getId().equals(expectedId)
-            : "Expected a cached blob document with id [" + expectedId + "] but got [" + response.getId() + ']';
-        return true;
+    protected void innerMultiGet(final MultiGetRequest request, final ActionListener<MultiGetResponse> listener) {
+        client.multiGet(request, listener);
     }
 
     private static boolean isExpectedCacheGetException(Exception e) {
@@ -271,21 +443,21 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
                     listener.onFailure(new IllegalStateException("Blob cache service is closed"));
                     return;
                 }
+                // the blob can be read from the node-local cache right away, even before it is indexed
+                frontCache.put(id, cachedBlob);
                 final ActionListener<Void> wrappedListener = ActionListener.runAfter(listener, release);
-                innerPut(request, new ActionListener<>() {
-                    @Override
-                    public void onResponse(IndexResponse indexResponse) {
-                        logger.trace("cache fill ({}): [{}]", indexResponse.status(), request.id());
-                        wrappedListener.onResponse(null);
+                final boolean sendBulk;
+                synchronized (this) {
+                    pendingCacheFills.add(new PendingCacheFill(request, wrappedListener));
+                    sendBulk = bulksInFlight < MAX_CONCURRENT_BULKS;
+                    if (sendBulk) {
+                        bulksInFlight++;
                     }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        logger.debug(new ParameterizedMessage("failure in cache fill: [{}]", request.id()), e);
-                        wrappedListener.onFailure(e);
-                    }
-                });
+                }
                 submitted = true;
+                if (sendBulk) {
+                    sendNextBulk();
+                }
             } finally {
                 if (submitted == false) {
                     release.run();
@@ -297,8 +469,62 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
         }
     }
 
-    protected void innerPut(final IndexRequest request, final ActionListener<IndexResponse> listener) {
-        client.index(request, listener);
+    /**
+     * Indexes the pending cache fills with a bulk request. At most {@link #MAX_CONCURRENT_BULKS} bulk requests are in flight at a time and
+     * the cache fills that are added in the meantime are indexed with the next one, so that many concurrent cache fills result in few bulk
+     * requests.
+     */
+    private void sendNextBulk() {
+        final List<PendingCacheFill> cacheFills = new ArrayList<>();
+        synchronized (this) {
+            assert bulksInFlight > 0 && bulksInFlight <= MAX_CONCURRENT_BULKS : bulksInFlight;
+            while (cacheFills.size() < MAX_CACHE_FILLS_PER_BULK && pendingCacheFills.isEmpty() == false) {
+                cacheFills.add(pendingCacheFills.poll());
+            }
+            if (cacheFills.isEmpty()) {
+                bulksInFlight--;
+                return;
+            }
+        }
+        final BulkRequest request = new BulkRequest();
+        for (PendingCacheFill cacheFill : cacheFills) {
+            request.add(cacheFill.request);
+        }
+        final ActionListener<BulkResponse> listener = ActionListener.runAfter(new ActionListener<>() {
+            @Override
+            public void onResponse(BulkResponse bulkResponse) {
+                for (BulkItemResponse item : bulkResponse.getItems()) {
+                    final PendingCacheFill cacheFill = cacheFills.get(item.getItemId());
+                    if (item.isFailed()) {
+                        onCacheFillFailure(cacheFill, item.getFailure().getCause());
+                    } else {
+                        logger.trace("cache fill ({}): [{}]", item.status(), cacheFill.request.id());
+                        cacheFill.listener.onResponse(null);
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (PendingCacheFill cacheFill : cacheFills) {
+                    onCacheFillFailure(cacheFill, e);
+                }
+            }
+        }, this::sendNextBulk);
+        try {
+            innerBulk(request, listener);
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    private static void onCacheFillFailure(PendingCacheFill cacheFill, Exception e) {
+        logger.debug(new ParameterizedMessage("failure in cache fill: [{}]", cacheFill.request.id()), e);
+        cacheFill.listener.onFailure(e);
+    }
+
+    protected void innerBulk(final BulkRequest request, final ActionListener<BulkResponse> listener) {
+        client.bulk(request, listener);
     }
 
     protected static String generateId(
@@ -351,6 +577,16 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
         return ByteRange.of(0L, Math.min(fileLength, DEFAULT_CACHED_BLOB_SIZE));
     }
 
+    private static class PendingCacheFill {
+        private final IndexRequest request;
+        private final ActionListener<Void> listener;
+
+        PendingCacheFill(IndexRequest request, ActionListener<Void> listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+
     protected boolean useLegacyCachedBlobSizes() {
         final Version minNodeVersion = clusterService.state().nodes().getMinNodeVersion();
         return minNodeVersion.before(OLD_CACHED_BLOB_SIZE_VERSION);
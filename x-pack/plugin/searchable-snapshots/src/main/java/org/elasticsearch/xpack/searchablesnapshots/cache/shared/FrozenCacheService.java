@@ -9,10 +9,12 @@ package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.Assertions;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.StepListener;
+import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.cluster.routing.allocation.DataTier;
@@ -40,13 +42,17 @@ import org.elasticsearch.xpack.searchablesnapshots.cache.common.SparseFileTracke
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
@@ -80,6 +86,18 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    /**
+     * Missing ranges of a region that are at most this many bytes apart are fetched with a single read from the blob store, which also
+     * fetches the bytes in between again. Fewer and larger reads are usually faster because of the latency of each request.
+     */
+    public static final Setting<ByteSizeValue> SHARED_CACHE_COALESCING_GAP_SIZE_SETTING = Setting.byteSizeSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "coalescing_gap_size",
+        ByteSizeValue.ofMb(1L),
+        ByteSizeValue.ZERO,
+        ByteSizeValue.ofBytes(Long.MAX_VALUE),
+        Setting.Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> SHARED_CACHE_REGION_SIZE_SETTING = new Setting<>(
         SHARED_CACHE_SETTINGS_PREFIX + "region_size",
         SHARED_CACHE_RANGE_SIZE_SETTING,
@@ -242,6 +260,7 @@ public class FrozenCacheService implements Releasable {
     private final long regionSize;
     private final ByteSizeValue rangeSize;
     private final ByteSizeValue recoveryRangeSize;
+    private final long coalescingGapSize;
 
     private final int numRegions;
     private final ConcurrentLinkedQueue<Integer> freeRegions = new ConcurrentLinkedQueue<>();
@@ -261,6 +280,15 @@ public class FrozenCacheService implements Releasable {
 
     private final LongAdder evictCount = new LongAdder();
 
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder readaheadCount = new LongAdder();
+    private final LongAdder readaheadHitCount = new LongAdder();
+
+    // set once the regions are persisted on close, after which free regions must not be handed out for other files any more
+    private volatile boolean closed;
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public FrozenCacheService(NodeEnvironment environment, Settings settings, ThreadPool threadPool) {
         this.currentTimeSupplier = threadPool::relativeTimeInMillis;
@@ -295,10 +323,12 @@ public class FrozenCacheService implements Releasable {
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        restoreRegions();
         decayTask = new CacheDecayTask(threadPool, SHARED_CACHE_DECAY_INTERVAL_SETTING.get(settings));
         decayTask.rescheduleIfNecessary();
         this.rangeSize = SHARED_CACHE_RANGE_SIZE_SETTING.get(settings);
         this.recoveryRangeSize = SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING.get(settings);
+        this.coalescingGapSize = SHARED_CACHE_COALESCING_GAP_SIZE_SETTING.get(settings).getBytes();
     }
 
     static long calculateCacheSize(Settings settings, long totalFsSize) {
@@ -411,6 +441,16 @@ public class FrozenCacheService implements Releasable {
                         throw new AlreadyClosedException("no free region found");
                     }
                 }
+                if (closed) {
+                    // the region may still be recorded as holding the data of another file in the persisted state
+                    synchronized (this) {
+                        if (entry.chunk.forceEvict()) {
+                            unlink(entry);
+                            keyMapping.remove(regionKey, entry);
+                        }
+                    }
+                    throw new AlreadyClosedException("shared cache is closed");
+                }
             } else {
                 // check if we need to promote item
                 synchronized (this) {
@@ -445,7 +485,11 @@ public class FrozenCacheService implements Releasable {
             writeCount.sum(),
             writeBytes.sum(),
             readCount.sum(),
-            readBytes.sum()
+            readBytes.sum(),
+            hitCount.sum(),
+            missCount.sum(),
+            readaheadCount.sum(),
+            readaheadHitCount.sum()
         );
     }
 
@@ -600,8 +644,108 @@ public class FrozenCacheService implements Releasable {
 
     @Override
     public void close() {
-        sharedBytes.decRef();
         decayTask.close();
+        persistRegions();
+        sharedBytes.decRef();
+    }
+
+    /**
+     * Restores the regions that were persisted by the previous instance of the shared cache on this node, if the shared cache file
+     * was kept and the regions still have the same layout.
+     */
+    private void restoreRegions() {
+        final Path directory = sharedBytes.getDirectory();
+        if (directory == null) {
+            return;
+        }
+        final SharedCacheState state;
+        try {
+            state = SharedCacheState.readAndDelete(directory);
+        } catch (Exception e) {
+            logger.warn(new ParameterizedMessage("failed to read the persisted regions of the shared cache in [{}]", directory), e);
+            return;
+        }
+        if (state == null) {
+            return;
+        }
+        if (sharedBytes.isExistingCacheFile() == false || state.regionSize != regionSize || state.numRegions != numRegions) {
+            logger.info(
+                "discarding [{}] persisted regions of the shared cache, the size of the cache or of its regions changed",
+                state.regions.size()
+            );
+            return;
+        }
+        final Set<Integer> restoredRegions = new HashSet<>();
+        final long now = currentTimeSupplier.getAsLong();
+        for (SharedCacheState.Region persisted : state.regions) {
+            final RegionKey regionKey = new RegionKey(persisted.cacheKey, persisted.region);
+            if (persisted.sharedBytesPos < 0
+                || persisted.sharedBytesPos >= numRegions
+                || persisted.length > regionSize
+                || restoredRegions.contains(persisted.sharedBytesPos)
+                || keyMapping.containsKey(regionKey)) {
+                assert false : "invalid persisted region " + regionKey + " at [" + persisted.sharedBytesPos + "]";
+                continue;
+            }
+            final CacheFileRegion region;
+            try {
+                region = new CacheFileRegion(regionKey, persisted.length, persisted.completedRanges);
+            } catch (IllegalArgumentException e) {
+                logger.warn(new ParameterizedMessage("failed to restore the persisted region {} of the shared cache", regionKey), e);
+                continue;
+            }
+            region.sharedBytesPos = persisted.sharedBytesPos;
+            assert regionOwners[region.sharedBytesPos].compareAndSet(null, region);
+            final Entry<CacheFileRegion> entry = new Entry<>(region, now);
+            keyMapping.put(regionKey, entry);
+            synchronized (this) {
+                pushEntryToBack(entry);
+            }
+            restoredRegions.add(region.sharedBytesPos);
+        }
+        freeRegions.removeIf(restoredRegions::contains);
+        logger.info("restored [{}] persisted regions of the shared cache", restoredRegions.size());
+    }
+
+    /**
+     * Persists the regions of the shared cache along with the ranges of data they hold, so that they can be restored when the node
+     * is restarted. Regions are not handed out to other files once they are persisted.
+     */
+    private void persistRegions() {
+        final Path directory = sharedBytes.getDirectory();
+        if (directory == null) {
+            return;
+        }
+        final List<SharedCacheState.Region> regions = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Entry<CacheFileRegion> entry : keyMapping.values()) {
+                final CacheFileRegion region = entry.chunk;
+                final int sharedBytesPos = region.sharedBytesPos;
+                if (sharedBytesPos == -1 || region.isEvicted()) {
+                    continue;
+                }
+                final SortedSet<ByteRange> completedRanges = region.tracker.getCompletedRanges();
+                if (completedRanges.isEmpty() == false) {
+                    regions.add(
+                        new SharedCacheState.Region(
+                            sharedBytesPos,
+                            region.regionKey.file,
+                            region.regionKey.region,
+                            region.tracker.getLength(),
+                            completedRanges
+                        )
+                    );
+                }
+            }
+        }
+        try {
+            sharedBytes.syncAndKeepOnClose();
+            new SharedCacheState(regionSize, numRegions, regions).write(directory);
+            logger.debug("persisted [{}] regions of the shared cache", regions.size());
+        } catch (Exception e) {
+            logger.warn(new ParameterizedMessage("failed to persist the regions of the shared cache in [{}]", directory), e);
+        }
     }
 
     class CacheDecayTask extends AbstractAsyncTask {
@@ -677,10 +821,17 @@ public class FrozenCacheService implements Releasable {
         final SparseFileTracker tracker;
         volatile int sharedBytesPos = -1;
 
+        // whether this region was populated by a readahead and not read since
+        private final AtomicBoolean readahead = new AtomicBoolean();
+
         CacheFileRegion(RegionKey regionKey, long regionSize) {
+            this(regionKey, regionSize, Collections.emptySortedSet());
+        }
+
+        CacheFileRegion(RegionKey regionKey, long regionSize, SortedSet<ByteRange> completedRanges) {
             this.regionKey = regionKey;
             assert regionSize > 0L;
-            tracker = new SparseFileTracker("file", regionSize);
+            tracker = new SparseFileTracker("file", regionSize, completedRanges);
         }
 
         public long physicalStartOffset() {
@@ -757,43 +908,104 @@ public class FrozenCacheService implements Releasable {
                 listener.whenComplete(integer -> fileChannel.decRef(), e -> fileChannel.decRef());
                 final ActionListener<Void> rangeListener = rangeListener(rangeToRead, reader, listener, fileChannel);
                 final List<SparseFileTracker.Gap> gaps = tracker.waitForRange(rangeToWrite, rangeToRead, rangeListener);
+                if (gaps.isEmpty()) {
+                    hitCount.increment();
+                } else {
+                    missCount.increment();
+                }
+                if (readahead.get() && readahead.compareAndSet(true, false)) {
+                    readaheadHitCount.increment();
+                }
+                fillGaps(gaps, writer, executor, fileChannel);
+            } catch (Exception e) {
+                releaseAndFail(listener, decrementRef, e);
+            }
+            return listener;
+        }
 
-                for (SparseFileTracker.Gap gap : gaps) {
-                    executor.execute(new AbstractRunnable() {
-
-                        @Override
-                        protected void doRun() throws Exception {
-                            if (CacheFileRegion.this.tryIncRef() == false) {
-                                throw new AlreadyClosedException("Cache file channel has been released and closed");
-                            }
-                            try {
-                                ensureOpen();
-                                final long start = gap.start();
-                                assert regionOwners[sharedBytesPos].get() == CacheFileRegion.this;
-                                writer.fillCacheRange(
-                                    fileChannel,
-                                    physicalStartOffset() + gap.start(),
-                                    gap.start(),
-                                    gap.end() - gap.start(),
-                                    progress -> gap.onProgress(start + progress)
-                                );
-                                writeCount.increment();
-                            } finally {
-                                decRef();
-                            }
+        /**
+         * Populates the given range of this region without reading it, completing the listener once the range is available. Used
+         * for readahead, so it doesn't count as a read of the region.
+         */
+        void populate(
+            final ByteRange rangeToWrite,
+            final RangeMissingHandler writer,
+            final Executor executor,
+            final ActionListener<Void> listener
+        ) {
+            Releasable decrementRef = null;
+            try {
+                ensureOpen();
+                incRef();
+                decrementRef = Releasables.releaseOnce(this::decRef);
+                ensureOpen();
+                final SharedBytes.IO fileChannel = sharedBytes.getFileChannel(sharedBytesPos);
+                final Releasable release = Releasables.wrap(decrementRef, fileChannel::decRef);
+                final List<SparseFileTracker.Gap> gaps = tracker.waitForRange(
+                    rangeToWrite,
+                    rangeToWrite,
+                    ActionListener.runBefore(listener, release::close)
+                );
+                if (gaps.isEmpty() == false) {
+                    readahead.set(true);
+                    readaheadCount.increment();
+                }
+                fillGaps(gaps, writer, executor, fileChannel);
+            } catch (Exception e) {
+                Releasables.closeExpectNoException(decrementRef);
+                listener.onFailure(e);
+            }
+        }
+
+        /**
+         * Fills the given gaps, which are sorted, with one write per group of gaps that are at most {@link #coalescingGapSize} apart.
+         * The bytes between the gaps of a group are written again, which is safe since they are the same bytes of the same file.
+         */
+        private void fillGaps(List<SparseFileTracker.Gap> gaps, RangeMissingHandler writer, Executor executor, SharedBytes.IO fileChannel) {
+            int groupStart = 0;
+            while (groupStart < gaps.size()) {
+                int groupEnd = groupStart + 1;
+                while (groupEnd < gaps.size() && gaps.get(groupEnd).start() - gaps.get(groupEnd - 1).end() <= coalescingGapSize) {
+                    groupEnd++;
+                }
+                final List<SparseFileTracker.Gap> group = gaps.subList(groupStart, groupEnd);
+                groupStart = groupEnd;
+                executor.execute(new AbstractRunnable() {
+
+                    @Override
+                    protected void doRun() throws Exception {
+                        if (CacheFileRegion.this.tryIncRef() == false) {
+                            throw new AlreadyClosedException("Cache file channel has been released and closed");
+                        }
+                        try {
+                            ensureOpen();
+                            final long start = group.get(0).start();
+                            final long end = group.get(group.size() - 1).end();
+                            assert regionOwners[sharedBytesPos].get() == CacheFileRegion.this;
+                            writer.fillCacheRange(
+                                fileChannel,
+                                physicalStartOffset() + start,
+                                start,
+                                end - start,
+                                new GapsProgressUpdater(group, start)
+                            );
+                            writeCount.increment();
+                        } finally {
+                            decRef();
+                        }
+                        for (SparseFileTracker.Gap gap : group) {
                             gap.onCompletion();
                         }
+                    }
 
-                        @Override
-                        public void onFailure(Exception e) {
+                    @Override
+                    public void onFailure(Exception e) {
+                        for (SparseFileTracker.Gap gap : group) {
                             gap.onFailure(e);
                         }
-                    });
-                }
-            } catch (Exception e) {
-                releaseAndFail(listener, decrementRef, e);
+                    }
+                });
             }
-            return listener;
         }
 
         private ActionListener<Void> rangeListener(
@@ -908,6 +1120,45 @@ public class FrozenCacheService implements Releasable {
             return stepListener;
         }
 
+        /**
+         * Populates the given range of the file in the cache without reading it, for instance to read ahead of a sequential reader.
+         * The listener is completed once all regions of the range are populated or failed to be populated.
+         */
+        public void populate(
+            final ByteRange rangeToWrite,
+            final RangeMissingHandler writer,
+            final Executor executor,
+            final ActionListener<Void> listener
+        ) {
+            final int startRegion = getRegion(rangeToWrite.start());
+            final int endRegion = getEndingRegion(rangeToWrite.end());
+            final GroupedActionListener<Void> regionsListener = new GroupedActionListener<>(
+                listener.map(ignored -> null),
+                endRegion - startRegion + 1
+            );
+            final long writeStart = rangeToWrite.start();
+            for (int region = startRegion; region <= endRegion; region++) {
+                final ByteRange subRangeToWrite = mapSubRangeToRegion(rangeToWrite, region);
+                if (subRangeToWrite.length() == 0L) {
+                    regionsListener.onResponse(null);
+                    continue;
+                }
+                final CacheFileRegion fileRegion;
+                try {
+                    fileRegion = get(cacheKey, length, region);
+                } catch (Exception e) {
+                    regionsListener.onFailure(e);
+                    continue;
+                }
+                final long writeOffset = writeStart - getRegionStart(region);
+                fileRegion.populate(subRangeToWrite, (channel, channelPos, relativePos, len, progressUpdater) -> {
+                    assert regionOwners[fileRegion.sharedBytesPos].get() == fileRegion;
+                    assert channelPos >= fileRegion.physicalStartOffset() && channelPos + len <= fileRegion.physicalEndOffset();
+                    writer.fillCacheRange(channel, channelPos, relativePos - writeOffset, len, progressUpdater);
+                }, executor, regionsListener);
+            }
+        }
+
         @Override
         public String toString() {
             return "FrozenCacheFile{" + "cacheKey=" + cacheKey + ", length=" + length + '}';
@@ -931,9 +1182,47 @@ public class FrozenCacheService implements Releasable {
             throws IOException;
     }
 
+    /**
+     * Reports the progress of a write that starts at {@code start} to each of the sorted gaps it covers.
+     */
+    private static final class GapsProgressUpdater implements Consumer<Long> {
+
+        private final List<SparseFileTracker.Gap> gaps;
+        private final long start;
+        private int currentGap;
+        private long lastPosition;
+
+        GapsProgressUpdater(List<SparseFileTracker.Gap> gaps, long start) {
+            this.gaps = gaps;
+            this.start = start;
+            this.lastPosition = start;
+        }
+
+        @Override
+        public void accept(Long progress) {
+            final long position = start + progress;
+            if (position <= lastPosition) {
+                return;
+            }
+            lastPosition = position;
+            while (currentGap < gaps.size()) {
+                final SparseFileTracker.Gap gap = gaps.get(currentGap);
+                if (position <= gap.start()) {
+                    return;
+                }
+                if (position < gap.end()) {
+                    gap.onProgress(position);
+                    return;
+                }
+                gap.onProgress(gap.end());
+                currentGap++;
+            }
+        }
+    }
+
     public static class Stats {
 
-        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
 
         private final int numberOfRegions;
         private final long size;
@@ -943,6 +1232,10 @@ public class FrozenCacheService implements Releasable {
         private final long writeBytes;
         private final long readCount;
         private final long readBytes;
+        private final long hitCount;
+        private final long missCount;
+        private final long readaheadCount;
+        private final long readaheadHitCount;
 
         private Stats(
             int numberOfRegions,
@@ -952,7 +1245,11 @@ public class FrozenCacheService implements Releasable {
             long writeCount,
             long writeBytes,
             long readCount,
-            long readBytes
+            long readBytes,
+            long hitCount,
+            long missCount,
+            long readaheadCount,
+            long readaheadHitCount
         ) {
             this.numberOfRegions = numberOfRegions;
             this.size = size;
@@ -962,6 +1259,10 @@ public class FrozenCacheService implements Releasable {
             this.writeBytes = writeBytes;
             this.readCount = readCount;
             this.readBytes = readBytes;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.readaheadCount = readaheadCount;
+            this.readaheadHitCount = readaheadHitCount;
         }
 
         public int getNumberOfRegions() {
@@ -995,5 +1296,33 @@ public class FrozenCacheService implements Releasable {
         public long getReadBytes() {
             return readBytes;
         }
+
+        /**
+         * @return the number of region reads that were fully served by data that was already in the cache or being fetched
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * @return the number of region reads that had to fetch data from the blob store
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * @return the number of regions that were populated ahead of sequential reads
+         */
+        public long getReadaheadCount() {
+            return readaheadCount;
+        }
+
+        /**
+         * @return the number of regions populated ahead of sequential reads that were read afterwards
+         */
+        public long getReadaheadHitCount() {
+            return readaheadHitCount;
+        }
     }
 }
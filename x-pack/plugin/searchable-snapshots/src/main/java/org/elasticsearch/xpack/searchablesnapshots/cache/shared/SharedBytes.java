@@ -48,6 +48,11 @@ public class SharedBytes extends AbstractRefCounted {
     private final FileChannel fileChannel;
     private final Path path;
 
+    // whether the cache file already existed with the expected size, in which case its content may be reused
+    private final boolean existingCacheFile;
+    // whether the cache file is kept on close, because its content was persisted
+    private volatile boolean keepCacheFile;
+
     private final IntConsumer writeBytes;
     private final IntConsumer readBytes;
 
@@ -57,8 +62,10 @@ public class SharedBytes extends AbstractRefCounted {
         this.regionSize = regionSize;
         final long fileSize = numRegions * regionSize;
         Path cacheFile = null;
+        boolean existingCacheFile = false;
         if (fileSize > 0) {
             cacheFile = findCacheSnapshotCacheFilePath(environment, fileSize);
+            existingCacheFile = Files.exists(cacheFile) && Files.size(cacheFile) == fileSize;
             Preallocate.preallocate(cacheFile, fileSize);
             this.fileChannel = FileChannel.open(cacheFile, OPEN_OPTIONS);
             assert this.fileChannel.size() == fileSize : "expected file size " + fileSize + " but was " + fileChannel.size();
@@ -66,9 +73,11 @@ public class SharedBytes extends AbstractRefCounted {
             this.fileChannel = null;
             for (Path path : environment.nodeDataPaths()) {
                 Files.deleteIfExists(path.resolve(CACHE_FILE_NAME));
+                SharedCacheState.delete(path);
             }
         }
         this.path = cacheFile;
+        this.existingCacheFile = existingCacheFile;
         this.writeBytes = writeBytes;
         this.readBytes = readBytes;
     }
@@ -96,10 +105,33 @@ public class SharedBytes extends AbstractRefCounted {
         }
     }
 
+    /**
+     * @return the directory of the cache file, or {@code null} if there is no cache file
+     */
+    Path getDirectory() {
+        return path == null ? null : path.getParent();
+    }
+
+    /**
+     * @return whether the cache file existed with the expected size before this instance was created, so it may hold cached data
+     */
+    boolean isExistingCacheFile() {
+        return existingCacheFile;
+    }
+
+    /**
+     * Syncs the content of the cache file to disk and keeps the cache file when this instance is closed.
+     */
+    void syncAndKeepOnClose() throws IOException {
+        assert fileChannel != null;
+        fileChannel.force(false);
+        keepCacheFile = true;
+    }
+
     @Override
     protected void closeInternal() {
         try {
-            IOUtils.close(fileChannel, path == null ? null : () -> Files.deleteIfExists(path));
+            IOUtils.close(fileChannel, path == null || keepCacheFile ? null : () -> Files.deleteIfExists(path));
         } catch (IOException e) {
             logger.warn("Failed to clean up shared bytes file", e);
         }
@@ -0,0 +1,166 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The regions of the shared cache file and the ranges of data they hold, written next to the shared cache file when the node shuts
+ * down cleanly so that the cached data survive a restart of the node.
+ * <p>
+ * The state is only valid for the content of the shared cache file at the time of the shutdown. It is deleted as soon as it is read
+ * so if the node crashes afterwards the shared cache starts empty on the next start rather than trusting regions that may have been
+ * reused for other files in the meantime.
+ */
+final class SharedCacheState {
+
+    static final String STATE_FILE_NAME = "shared_snapshot_cache.state";
+
+    private static final String CODEC_NAME = "shared_snapshot_cache_state";
+    private static final int VERSION_START = 0;
+    private static final int VERSION_CURRENT = VERSION_START;
+
+    final long regionSize;
+    final int numRegions;
+    final List<Region> regions;
+
+    SharedCacheState(long regionSize, int numRegions, List<Region> regions) {
+        this.regionSize = regionSize;
+        this.numRegions = numRegions;
+        this.regions = Collections.unmodifiableList(regions);
+    }
+
+    /**
+     * Atomically writes the state to the given directory, the content of the shared cache file must have been synced to disk before.
+     */
+    void write(Path directory) throws IOException {
+        final String tempFileName = STATE_FILE_NAME + ".tmp";
+        Files.deleteIfExists(directory.resolve(tempFileName));
+        try (Directory dir = new NIOFSDirectory(directory)) {
+            try (IndexOutput output = dir.createOutput(tempFileName, IOContext.DEFAULT)) {
+                CodecUtil.writeHeader(output, CODEC_NAME, VERSION_CURRENT);
+                output.writeVLong(regionSize);
+                output.writeVInt(numRegions);
+                output.writeVInt(regions.size());
+                for (Region region : regions) {
+                    region.write(output);
+                }
+                CodecUtil.writeFooter(output);
+            }
+            dir.sync(Collections.singleton(tempFileName));
+        }
+        Files.move(directory.resolve(tempFileName), directory.resolve(STATE_FILE_NAME), StandardCopyOption.ATOMIC_MOVE);
+        IOUtils.fsync(directory, true);
+    }
+
+    /**
+     * Reads and deletes the state in the given directory, if any.
+     *
+     * @return the state or {@code null} if there is none
+     */
+    static SharedCacheState readAndDelete(Path directory) throws IOException {
+        final Path stateFile = directory.resolve(STATE_FILE_NAME);
+        if (Files.exists(stateFile) == false) {
+            return null;
+        }
+        try (Directory dir = new NIOFSDirectory(directory)) {
+            try (ChecksumIndexInput input = dir.openChecksumInput(STATE_FILE_NAME, IOContext.READONCE)) {
+                CodecUtil.checkHeader(input, CODEC_NAME, VERSION_START, VERSION_CURRENT);
+                final long regionSize = input.readVLong();
+                final int numRegions = input.readVInt();
+                final int count = input.readVInt();
+                final List<Region> regions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    regions.add(Region.read(input));
+                }
+                CodecUtil.checkFooter(input);
+                return new SharedCacheState(regionSize, numRegions, regions);
+            }
+        } finally {
+            Files.deleteIfExists(stateFile);
+            IOUtils.fsync(directory, true);
+        }
+    }
+
+    static void delete(Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(STATE_FILE_NAME));
+    }
+
+    /**
+     * A region of the shared cache file that holds the data of a region of a file.
+     */
+    static final class Region {
+
+        final int sharedBytesPos;
+        final CacheKey cacheKey;
+        final int region;
+        final long length;
+        final SortedSet<ByteRange> completedRanges;
+
+        Region(int sharedBytesPos, CacheKey cacheKey, int region, long length, SortedSet<ByteRange> completedRanges) {
+            this.sharedBytesPos = sharedBytesPos;
+            this.cacheKey = cacheKey;
+            this.region = region;
+            this.length = length;
+            this.completedRanges = completedRanges;
+        }
+
+        private void write(IndexOutput output) throws IOException {
+            output.writeVInt(sharedBytesPos);
+            output.writeString(cacheKey.getSnapshotUUID());
+            output.writeString(cacheKey.getSnapshotIndexName());
+            final ShardId shardId = cacheKey.getShardId();
+            output.writeString(shardId.getIndexName());
+            output.writeString(shardId.getIndex().getUUID());
+            output.writeVInt(shardId.id());
+            output.writeString(cacheKey.getFileName());
+            output.writeVInt(region);
+            output.writeVLong(length);
+            output.writeVInt(completedRanges.size());
+            for (ByteRange range : completedRanges) {
+                output.writeVLong(range.start());
+                output.writeVLong(range.end());
+            }
+        }
+
+        private static Region read(ChecksumIndexInput input) throws IOException {
+            final int sharedBytesPos = input.readVInt();
+            final String snapshotUUID = input.readString();
+            final String snapshotIndexName = input.readString();
+            final ShardId shardId = new ShardId(input.readString(), input.readString(), input.readVInt());
+            final CacheKey cacheKey = new CacheKey(snapshotUUID, snapshotIndexName, shardId, input.readString());
+            final int region = input.readVInt();
+            final long length = input.readVLong();
+            final int numRanges = input.readVInt();
+            final SortedSet<ByteRange> completedRanges = new TreeSet<>();
+            for (int i = 0; i < numRanges; i++) {
+                completedRanges.add(ByteRange.of(input.readVLong(), input.readVLong()));
+            }
+            return new Region(sharedBytesPos, cacheKey, region, length, completedRanges);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.search.stats.FieldUsageStats.UsageContext;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
@@ -71,8 +72,11 @@ import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -93,6 +97,7 @@ import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SN
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_ID_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_NAME_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_REPOSITORY_NAME_SETTING;
@@ -129,6 +134,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     private final CacheService cacheService;
     private final boolean useCache;
     private final boolean prewarmCache;
+    private final Set<UsageContext> prewarmUsedDataStructures;
     private final Set<String> excludedFileTypes;
     private final long uncachedChunkSize; // if negative use BlobContainer#readBlobPreferredLength, see #getUncachedChunkSize()
     private final Path cacheDir;
@@ -177,6 +183,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         this.useCache = SNAPSHOT_CACHE_ENABLED_SETTING.get(indexSettings);
         this.partial = SNAPSHOT_PARTIAL_SETTING.get(indexSettings);
         this.prewarmCache = partial == false && useCache ? SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.get(indexSettings) : false;
+        this.prewarmUsedDataStructures = Set.copyOf(SNAPSHOT_CACHE_PREWARM_USED_DATA_STRUCTURES_SETTING.get(indexSettings));
         this.excludedFileTypes = new HashSet<>(SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING.get(indexSettings));
         this.uncachedChunkSize = SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING.get(indexSettings).getBytes();
         this.blobStoreCacheMaxLength = SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING.get(indexSettings);
@@ -229,6 +236,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                     cleanExistingRegularShardFiles();
                     waitForPendingEvictions();
                     this.recoveryState = (SearchableSnapshotRecoveryState) snapshotRecoveryState;
+                    prefetchCachedBlobs();
                     prewarmCache(preWarmListener);
                 }
             }
@@ -483,6 +491,28 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         cacheService.waitForCacheFilesEvictionIfNeeded(snapshotId.getUUID(), indexId.getName(), shardId);
     }
 
+    /**
+     * Looks up the cached blobs of all the files that are read through the cache at once, before Lucene opens them one by one.
+     */
+    private void prefetchCachedBlobs() {
+        if (useCache == false) {
+            return;
+        }
+        final Map<String, ByteRange> ranges = new HashMap<>();
+        for (BlobStoreIndexShardSnapshot.FileInfo file : snapshot().indexFiles()) {
+            if (file.metadata().hashEqualsContents() || isExcludedFromCache(file.physicalName())) {
+                continue;
+            }
+            final ByteRange range = getBlobCacheByteRange(file.physicalName(), file.length());
+            if (range.isEmpty() == false) {
+                ranges.put(file.physicalName(), range);
+            }
+        }
+        if (ranges.isEmpty() == false) {
+            blobStoreCacheService.prefetchAsync(repository, snapshotId, indexId, shardId, ranges);
+        }
+    }
+
     private void prewarmCache(ActionListener<Void> listener) {
         if (prewarmCache == false) {
             recoveryState.setPreWarmComplete();
@@ -498,7 +528,9 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
             listener.onResponse(null);
         }, listener::onFailure), snapshot().totalFileCount());
 
-        for (BlobStoreIndexShardSnapshot.FileInfo file : snapshot().indexFiles()) {
+        final List<BlobStoreIndexShardSnapshot.FileInfo> files = new ArrayList<>(snapshot().indexFiles());
+        files.sort(Comparator.comparingInt(file -> prewarmPriority(file.physicalName(), prewarmUsedDataStructures)));
+        for (BlobStoreIndexShardSnapshot.FileInfo file : files) {
             boolean hashEqualsContents = file.metadata().hashEqualsContents();
             if (hashEqualsContents || isExcludedFromCache(file.physicalName())) {
                 if (hashEqualsContents) {
@@ -571,6 +603,57 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         }
     }
 
+    // the data structures that the files with a given extension hold
+    private static final Map<String, Set<UsageContext>> DATA_STRUCTURES_BY_EXTENSION = Map.ofEntries(
+        Map.entry("tim", Set.of(UsageContext.TERMS)),
+        Map.entry("tip", Set.of(UsageContext.TERMS)),
+        Map.entry("tmd", Set.of(UsageContext.TERMS)),
+        Map.entry("doc", Set.of(UsageContext.POSTINGS, UsageContext.FREQS)),
+        Map.entry("pos", Set.of(UsageContext.POSITIONS)),
+        Map.entry("pay", Set.of(UsageContext.OFFSETS, UsageContext.PAYLOADS)),
+        Map.entry("dvd", Set.of(UsageContext.DOC_VALUES)),
+        Map.entry("dvm", Set.of(UsageContext.DOC_VALUES)),
+        Map.entry("nvd", Set.of(UsageContext.NORMS)),
+        Map.entry("nvm", Set.of(UsageContext.NORMS)),
+        Map.entry("kdd", Set.of(UsageContext.POINTS)),
+        Map.entry("kdi", Set.of(UsageContext.POINTS)),
+        Map.entry("kdm", Set.of(UsageContext.POINTS)),
+        Map.entry("dim", Set.of(UsageContext.POINTS)),
+        Map.entry("dii", Set.of(UsageContext.POINTS)),
+        Map.entry("vec", Set.of(UsageContext.KNN_VECTORS)),
+        Map.entry("vem", Set.of(UsageContext.KNN_VECTORS)),
+        Map.entry("vex", Set.of(UsageContext.KNN_VECTORS)),
+        Map.entry("fdt", Set.of(UsageContext.STORED_FIELDS)),
+        Map.entry("fdx", Set.of(UsageContext.STORED_FIELDS)),
+        Map.entry("fdm", Set.of(UsageContext.STORED_FIELDS)),
+        Map.entry("tvd", Set.of(UsageContext.TERM_VECTORS)),
+        Map.entry("tvx", Set.of(UsageContext.TERM_VECTORS)),
+        Map.entry("tvm", Set.of(UsageContext.TERM_VECTORS))
+    );
+
+    /**
+     * Returns the priority of a file when prewarming, files with a lower priority are prewarmed first. The files of the data structures
+     * that were used by searches before the index was mounted come first after the segment metadata files, and stored fields and term
+     * vectors that were not used come last since they are usually only needed for the few documents that are returned.
+     */
+    static int prewarmPriority(String fileName, Set<UsageContext> usedDataStructures) {
+        final String extension = IndexFileNames.getExtension(fileName);
+        final Set<UsageContext> dataStructures = extension == null ? null : DATA_STRUCTURES_BY_EXTENSION.get(extension);
+        if (dataStructures == null) {
+            // segment metadata files, compound files...
+            return 0;
+        }
+        for (UsageContext dataStructure : dataStructures) {
+            if (usedDataStructures.contains(dataStructure)) {
+                return 1;
+            }
+        }
+        if (dataStructures.contains(UsageContext.STORED_FIELDS) || dataStructures.contains(UsageContext.TERM_VECTORS)) {
+            return 3;
+        }
+        return 2;
+    }
+
     private void prewarmNext(final Executor executor, final BlockingQueue<Tuple<ActionListener<Void>, CheckedRunnable<Exception>>> queue) {
         try {
             final Tuple<ActionListener<Void>, CheckedRunnable<Exception>> next = queue.poll(0L, TimeUnit.MILLISECONDS);
@@ -14,6 +14,7 @@ import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.StepListener;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
@@ -40,6 +41,11 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
 
     private final FrozenCacheFile frozenCacheFile;
 
+    // tracks the sequential reads of this instance to read ahead of them, see #maybeReadAhead
+    private long lastReadEnd = -1L;
+    private long sequentialReadStart = -1L;
+    private long readaheadEnd = -1L;
+
     public FrozenIndexInput(
         String name,
         SearchableSnapshotDirectory directory,
@@ -139,6 +145,7 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
             assert rangeToWrite.start() <= position && position + length <= rangeToWrite.end()
                 : "[" + position + "-" + (position + length) + "] vs " + rangeToWrite;
             final ByteRange rangeToRead = ByteRange.of(position, position + length);
+            maybeReadAhead(rangeToWrite, rangeToRead);
 
             final StepListener<Integer> populateCacheFuture = frozenCacheFile.populateAndRead(
                 rangeToWrite,
@@ -176,6 +183,40 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         }
     }
 
+    /**
+     * Populates the range that follows {@code rangeToWrite} in the cache in the background if this input is read sequentially, so
+     * that sequential reads like merges or scrolls don't have to wait for the blob store every time they reach the next range. The
+     * reads are considered sequential once they covered half of a range without seeking.
+     */
+    private void maybeReadAhead(ByteRange rangeToWrite, ByteRange rangeToRead) {
+        if (rangeToRead.start() != lastReadEnd) {
+            sequentialReadStart = rangeToRead.start();
+        }
+        lastReadEnd = rangeToRead.end();
+        if (rangeToRead.end() - sequentialReadStart < getDefaultRangeSize() / 2
+            || rangeToWrite.end() >= fileInfo.length()
+            || rangeToWrite.end() < readaheadEnd) {
+            return;
+        }
+        final ByteRange rangeToReadAhead = computeRange(rangeToWrite.end());
+        readaheadEnd = rangeToReadAhead.end();
+        logger.trace("readahead [{}] from [{}]", rangeToReadAhead, this);
+        frozenCacheFile.populate(
+            rangeToReadAhead,
+            (channel, channelPos, relativePos, len, progressUpdater) -> {
+                final long startTimeNanos = stats.currentTimeNanos();
+                try (InputStream input = openInputStreamFromBlobStore(rangeToReadAhead.start() + relativePos, len)) {
+                    writeCacheFile(channel, input, channelPos, relativePos, len, progressUpdater, startTimeNanos);
+                }
+            },
+            directory.cacheFetchAsyncExecutor(),
+            ActionListener.wrap(
+                ignored -> {},
+                e -> logger.debug(new ParameterizedMessage("failed to read ahead [{}] from [{}]", rangeToReadAhead, this), e)
+            )
+        );
+    }
+
     private static int positionalWrite(SharedBytes.IO fc, long start, ByteBuffer byteBuffer) throws IOException {
         assert assertCurrentThreadMayWriteCacheFile();
         byteBuffer.flip();
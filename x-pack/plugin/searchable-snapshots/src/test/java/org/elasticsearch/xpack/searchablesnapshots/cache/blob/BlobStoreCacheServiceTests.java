@@ -7,33 +7,52 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.cache.blob;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkAction;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetAction;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
-import org.elasticsearch.action.index.IndexAction;
-import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.get.MultiGetAction;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.get.GetResult;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 import org.junit.After;
 import org.junit.Before;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
@@ -46,6 +65,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BlobStoreCacheServiceTests extends ESTestCase {
@@ -100,7 +121,7 @@ public class BlobStoreCacheServiceTests extends ESTestCase {
             return null;
         }).when(mockClient).execute(eq(GetAction.INSTANCE), any(GetRequest.class), any(ActionListener.class));
 
-        BlobStoreCacheService blobCacheService = new BlobStoreCacheService(null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX);
+        BlobStoreCacheService blobCacheService = new BlobStoreCacheService(Settings.EMPTY, null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX);
         blobCacheService.start();
 
         PlainActionFuture<CachedBlob> future = PlainActionFuture.newFuture();
@@ -117,22 +138,13 @@ public class BlobStoreCacheServiceTests extends ESTestCase {
     @SuppressWarnings("unchecked")
     public void testPutWhenServiceNotStarted() {
         doAnswer(invocation -> {
-            final IndexRequest request = (IndexRequest) invocation.getArguments()[1];
-            final ActionListener<IndexResponse> listener = (ActionListener<IndexResponse>) invocation.getArguments()[2];
-            listener.onResponse(
-                new IndexResponse(
-                    new ShardId(request.index(), "_uuid", 0),
-                    request.id(),
-                    UNASSIGNED_SEQ_NO,
-                    UNASSIGNED_PRIMARY_TERM,
-                    request.version(),
-                    true
-                )
-            );
+            final BulkRequest request = (BulkRequest) invocation.getArguments()[1];
+            final ActionListener<BulkResponse> listener = (ActionListener<BulkResponse>) invocation.getArguments()[2];
+            listener.onResponse(bulkResponse(request));
             return null;
-        }).when(mockClient).execute(eq(IndexAction.INSTANCE), any(IndexRequest.class), any(ActionListener.class));
+        }).when(mockClient).execute(eq(BulkAction.INSTANCE), any(BulkRequest.class), any(ActionListener.class));
 
-        BlobStoreCacheService blobCacheService = new BlobStoreCacheService(null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX);
+        BlobStoreCacheService blobCacheService = new BlobStoreCacheService(Settings.EMPTY, null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX);
         blobCacheService.start();
 
         PlainActionFuture<Void> future = PlainActionFuture.newFuture();
@@ -153,24 +165,20 @@ public class BlobStoreCacheServiceTests extends ESTestCase {
         final CountDownLatch latch = new CountDownLatch(1);
 
         doAnswer(invocation -> {
-            final IndexRequest request = (IndexRequest) invocation.getArguments()[1];
-            final ActionListener<IndexResponse> listener = (ActionListener<IndexResponse>) invocation.getArguments()[2];
+            final BulkRequest request = (BulkRequest) invocation.getArguments()[1];
+            final ActionListener<BulkResponse> listener = (ActionListener<BulkResponse>) invocation.getArguments()[2];
             latch.await();
             Thread.sleep(randomLongBetween(100L, 3000L));
-            listener.onResponse(
-                new IndexResponse(
-                    new ShardId(request.index(), "_uuid", 0),
-                    request.id(),
-                    UNASSIGNED_SEQ_NO,
-                    UNASSIGNED_PRIMARY_TERM,
-                    request.version(),
-                    true
-                )
-            );
+            listener.onResponse(bulkResponse(request));
             return null;
-        }).when(mockClient).execute(eq(IndexAction.INSTANCE), any(IndexRequest.class), any(ActionListener.class));
+        }).when(mockClient).execute(eq(BulkAction.INSTANCE), any(BulkRequest.class), any(ActionListener.class));
 
-        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX);
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(
+            Settings.EMPTY,
+            null,
+            mockClient,
+            SNAPSHOT_BLOB_CACHE_INDEX
+        );
         blobCacheService.start();
 
         assertThat(blobCacheService.getInFlightCacheFills(), equalTo(0));
@@ -194,4 +202,191 @@ public class BlobStoreCacheServiceTests extends ESTestCase {
         assertTrue(blobCacheService.waitForInFlightCacheFillsToComplete(30L, TimeUnit.SECONDS));
         assertTrue(futures.stream().allMatch(Future::isDone));
     }
+
+    @SuppressWarnings("unchecked")
+    public void testCacheFillsAreBatched() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Integer> bulkSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            final BulkRequest request = (BulkRequest) invocation.getArguments()[1];
+            final ActionListener<BulkResponse> listener = (ActionListener<BulkResponse>) invocation.getArguments()[2];
+            bulkSizes.add(request.numberOfActions());
+            threadPool.generic().execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                listener.onResponse(bulkResponse(request));
+            });
+            return null;
+        }).when(mockClient).execute(eq(BulkAction.INSTANCE), any(BulkRequest.class), any(ActionListener.class));
+
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(
+            Settings.EMPTY,
+            null,
+            mockClient,
+            SNAPSHOT_BLOB_CACHE_INDEX
+        );
+        blobCacheService.start();
+
+        final int nbCacheFills = randomIntBetween(2, 3 * BlobStoreCacheService.MAX_CACHE_FILLS_PER_BULK);
+        final List<PlainActionFuture<Void>> futures = new ArrayList<>(nbCacheFills);
+        for (int i = 0; i < nbCacheFills; i++) {
+            final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+            blobCacheService.putAsync(repository, snapshotId, indexId, shardId, "file_" + i, range, BytesArray.EMPTY, 0L, future);
+            futures.add(future);
+        }
+        // the first cache fills are sent right away, the others wait for them to complete
+        final int concurrentBulks = Math.min(nbCacheFills, BlobStoreCacheService.MAX_CONCURRENT_BULKS);
+        assertThat(bulkSizes, equalTo(Collections.nCopies(concurrentBulks, 1)));
+        latch.countDown();
+
+        for (PlainActionFuture<Void> future : futures) {
+            assertThat(future.actionGet(), nullValue());
+        }
+        assertThat(bulkSizes.stream().mapToInt(Integer::intValue).sum(), equalTo(nbCacheFills));
+        final int maxBulkSize = BlobStoreCacheService.MAX_CACHE_FILLS_PER_BULK;
+        assertThat(bulkSizes.size(), equalTo(concurrentBulks + (nbCacheFills - concurrentBulks + maxBulkSize - 1) / maxBulkSize));
+        assertTrue(blobCacheService.waitForInFlightCacheFillsToComplete(30L, TimeUnit.SECONDS));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testLookupsAreServedFromFrontCache() {
+        final BytesReference content = new BytesArray(randomByteArrayOfLength(Math.toIntExact(range.length())));
+        final AtomicInteger multiGets = new AtomicInteger();
+        doAnswer(invocation -> {
+            final MultiGetRequest request = (MultiGetRequest) invocation.getArguments()[1];
+            final ActionListener<MultiGetResponse> listener = (ActionListener<MultiGetResponse>) invocation.getArguments()[2];
+            multiGets.incrementAndGet();
+            final List<MultiGetItemResponse> responses = new ArrayList<>();
+            for (MultiGetRequest.Item item : request.getItems()) {
+                final CachedBlob cachedBlob = new CachedBlob(
+                    Instant.now(),
+                    Version.CURRENT,
+                    repository,
+                    fileName,
+                    BlobStoreCacheService.generatePath(snapshotId, indexId, shardId),
+                    content,
+                    range.start()
+                );
+                final BytesReference source;
+                try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+                    source = BytesReference.bytes(cachedBlob.toXContent(builder, ToXContent.EMPTY_PARAMS));
+                }
+                final GetResult result = new GetResult(
+                    item.index(),
+                    item.id(),
+                    UNASSIGNED_SEQ_NO,
+                    UNASSIGNED_PRIMARY_TERM,
+                    1L,
+                    true,
+                    source,
+                    emptyMap(),
+                    emptyMap()
+                );
+                responses.add(new MultiGetItemResponse(new GetResponse(result), null));
+            }
+            listener.onResponse(new MultiGetResponse(responses.toArray(new MultiGetItemResponse[0])));
+            return null;
+        }).when(mockClient).execute(eq(MultiGetAction.INSTANCE), any(MultiGetRequest.class), any(ActionListener.class));
+
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(
+            Settings.EMPTY,
+            null,
+            mockClient,
+            SNAPSHOT_BLOB_CACHE_INDEX
+        );
+        blobCacheService.start();
+
+        blobCacheService.prefetchAsync(repository, snapshotId, indexId, shardId, Map.of(fileName, range));
+        assertThat(multiGets.get(), equalTo(1));
+        // blobs that are already in the front cache are not looked up again
+        blobCacheService.prefetchAsync(repository, snapshotId, indexId, shardId, Map.of(fileName, range));
+        assertThat(multiGets.get(), equalTo(1));
+
+        final PlainActionFuture<CachedBlob> future = PlainActionFuture.newFuture();
+        blobCacheService.getAsync(repository, snapshotId, indexId, shardId, fileName, range, future);
+        final CachedBlob cachedBlob = future.actionGet();
+        assertThat(cachedBlob.from(), equalTo(range.start()));
+        assertThat(cachedBlob.to(), equalTo(range.end()));
+        assertThat(cachedBlob.bytes(), equalTo(content));
+
+        // blobs that are put in the cache can be read back without reaching the index
+        final ByteRange otherRange = ByteRange.of(0L, between(1, 1024));
+        final BytesReference otherContent = new BytesArray(randomByteArrayOfLength(Math.toIntExact(otherRange.length())));
+        final ActionListener<Void> putListener = ActionListener.wrap(() -> {});
+        blobCacheService.putAsync(repository, snapshotId, indexId, shardId, "other", otherRange, otherContent, 0L, putListener);
+        final PlainActionFuture<CachedBlob> otherFuture = PlainActionFuture.newFuture();
+        blobCacheService.getAsync(repository, snapshotId, indexId, shardId, "other", otherRange, otherFuture);
+        assertThat(otherFuture.actionGet().bytes(), equalTo(otherContent));
+
+        verify(mockClient, never()).execute(eq(GetAction.INSTANCE), any(GetRequest.class), any(ActionListener.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testLookupsFallBackToGetIfPrefetchFails() {
+        final AtomicReference<ActionListener<MultiGetResponse>> multiGetListener = new AtomicReference<>();
+        doAnswer(invocation -> {
+            assertTrue(multiGetListener.compareAndSet(null, (ActionListener<MultiGetResponse>) invocation.getArguments()[2]));
+            return null;
+        }).when(mockClient).execute(eq(MultiGetAction.INSTANCE), any(MultiGetRequest.class), any(ActionListener.class));
+        final AtomicInteger gets = new AtomicInteger();
+        doAnswer(invocation -> {
+            final GetRequest request = (GetRequest) invocation.getArguments()[1];
+            final ActionListener<GetResponse> listener = (ActionListener<GetResponse>) invocation.getArguments()[2];
+            gets.incrementAndGet();
+            listener.onResponse(
+                new GetResponse(
+                    new GetResult(
+                        request.index(),
+                        request.id(),
+                        UNASSIGNED_SEQ_NO,
+                        UNASSIGNED_PRIMARY_TERM,
+                        request.version(),
+                        false,
+                        BytesArray.EMPTY,
+                        emptyMap(),
+                        emptyMap()
+                    )
+                )
+            );
+            return null;
+        }).when(mockClient).execute(eq(GetAction.INSTANCE), any(GetRequest.class), any(ActionListener.class));
+
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(
+            Settings.EMPTY,
+            null,
+            mockClient,
+            SNAPSHOT_BLOB_CACHE_INDEX
+        );
+        blobCacheService.start();
+
+        blobCacheService.prefetchAsync(repository, snapshotId, indexId, shardId, Map.of(fileName, range));
+        final PlainActionFuture<CachedBlob> future = PlainActionFuture.newFuture();
+        blobCacheService.getAsync(repository, snapshotId, indexId, shardId, fileName, range, future);
+        assertFalse(future.isDone());
+        assertThat(gets.get(), equalTo(0));
+
+        // an unexpected failure of the prefetch is not a failure of the lookups that wait for it
+        multiGetListener.get().onFailure(new IllegalStateException("simulated"));
+        assertThat(future.actionGet(), equalTo(CachedBlob.CACHE_MISS));
+        assertThat(gets.get(), equalTo(1));
+    }
+
+    private static BulkResponse bulkResponse(BulkRequest request) {
+        final List<BulkItemResponse> responses = new ArrayList<>();
+        for (DocWriteRequest<?> docWriteRequest : request.requests()) {
+            final IndexResponse indexResponse = new IndexResponse(
+                new ShardId(docWriteRequest.index(), "_uuid", 0),
+                docWriteRequest.id(),
+                UNASSIGNED_SEQ_NO,
+                UNASSIGNED_PRIMARY_TERM,
+                docWriteRequest.version(),
+                true
+            );
+            responses.add(BulkItemResponse.success(responses.size(), DocWriteRequest.OpType.INDEX, indexResponse));
+        }
+        return new BulkResponse(responses.toArray(new BulkItemResponse[0]), 0L);
+    }
 }
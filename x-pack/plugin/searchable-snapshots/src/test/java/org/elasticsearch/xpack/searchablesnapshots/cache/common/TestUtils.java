@@ -10,8 +10,15 @@ import org.apache.lucene.mockfile.FilterFileChannel;
 import org.apache.lucene.mockfile.FilterFileSystemProvider;
 import org.apache.lucene.mockfile.FilterPath;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.client.Client;
@@ -23,6 +30,7 @@ import org.elasticsearch.common.blobstore.DeleteResult;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
 import org.elasticsearch.core.CheckedConsumer;
@@ -316,7 +324,7 @@ public final class TestUtils {
     public static class NoopBlobStoreCacheService extends BlobStoreCacheService {
 
         public NoopBlobStoreCacheService() {
-            super(null, mock(Client.class), SNAPSHOT_BLOB_CACHE_INDEX);
+            super(Settings.EMPTY, null, mock(Client.class), SNAPSHOT_BLOB_CACHE_INDEX);
         }
 
         @Override
@@ -330,8 +338,13 @@ public final class TestUtils {
         }
 
         @Override
-        protected void innerPut(IndexRequest request, ActionListener<IndexResponse> listener) {
-            listener.onFailure(new IndexNotFoundException(request.index()));
+        protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+            listener.onFailure(new IndexNotFoundException(SNAPSHOT_BLOB_CACHE_INDEX));
+        }
+
+        @Override
+        protected void innerBulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+            listener.onFailure(new IndexNotFoundException(SNAPSHOT_BLOB_CACHE_INDEX));
         }
 
         @Override
@@ -345,7 +358,7 @@ public final class TestUtils {
         private final ConcurrentHashMap<String, BytesArray> blobs = new ConcurrentHashMap<>();
 
         public SimpleBlobStoreCacheService() {
-            super(null, mock(Client.class), SNAPSHOT_BLOB_CACHE_INDEX);
+            super(Settings.EMPTY, null, mock(Client.class), SNAPSHOT_BLOB_CACHE_INDEX);
         }
 
         @Override
@@ -355,37 +368,42 @@ public final class TestUtils {
 
         @Override
         protected void innerGet(GetRequest request, ActionListener<GetResponse> listener) {
-            final BytesArray bytes = blobs.get(request.id());
-            listener.onResponse(
-                new GetResponse(
-                    new GetResult(
-                        request.index(),
-                        request.id(),
-                        UNASSIGNED_SEQ_NO,
-                        UNASSIGNED_PRIMARY_TERM,
-                        0L,
-                        bytes != null,
-                        bytes,
-                        null,
-                        null
-                    )
-                )
+            listener.onResponse(get(request.index(), request.id()));
+        }
+
+        @Override
+        protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+            final List<MultiGetItemResponse> responses = new ArrayList<>();
+            for (MultiGetRequest.Item item : request.getItems()) {
+                responses.add(new MultiGetItemResponse(get(item.index(), item.id()), null));
+            }
+            listener.onResponse(new MultiGetResponse(responses.toArray(new MultiGetItemResponse[0])));
+        }
+
+        private GetResponse get(String index, String id) {
+            final BytesArray bytes = blobs.get(id);
+            return new GetResponse(
+                new GetResult(index, id, UNASSIGNED_SEQ_NO, UNASSIGNED_PRIMARY_TERM, 0L, bytes != null, bytes, null, null)
             );
         }
 
         @Override
-        protected void innerPut(IndexRequest request, ActionListener<IndexResponse> listener) {
-            final BytesArray bytesArray = blobs.put(request.id(), new BytesArray(request.source().toBytesRef(), true));
-            listener.onResponse(
-                new IndexResponse(
-                    new ShardId(request.index(), "_na", 0),
-                    request.id(),
+        protected void innerBulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+            final List<BulkItemResponse> responses = new ArrayList<>();
+            for (DocWriteRequest<?> docWriteRequest : request.requests()) {
+                final IndexRequest indexRequest = (IndexRequest) docWriteRequest;
+                final BytesArray bytesArray = blobs.put(indexRequest.id(), new BytesArray(indexRequest.source().toBytesRef(), true));
+                final IndexResponse indexResponse = new IndexResponse(
+                    new ShardId(indexRequest.index(), "_na", 0),
+                    indexRequest.id(),
                     UNASSIGNED_SEQ_NO,
                     UNASSIGNED_PRIMARY_TERM,
                     0L,
                     bytesArray == null
-                )
-            );
+                );
+                responses.add(BulkItemResponse.success(responses.size(), DocWriteRequest.OpType.INDEX, indexResponse));
+            }
+            listener.onResponse(new BulkResponse(responses.toArray(new BulkItemResponse[0]), 0L));
         }
     }
 
@@ -7,6 +7,9 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
 
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.StepListener;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -29,9 +32,12 @@ import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService.CacheFileRegion;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.node.Node.NODE_NAME_SETTING;
@@ -91,6 +97,158 @@ public class FrozenCacheServiceTests extends ESTestCase {
         }
     }
 
+    public void testReadaheadStats() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(500)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final FrozenCacheService.FrozenCacheFile cacheFile = cacheService.getFrozenCacheFile(generateCacheKey(), size(250));
+            final Executor executor = taskQueue.getThreadPool().executor(ThreadPool.Names.GENERIC);
+            final FrozenCacheService.RangeMissingHandler writer = (channel, channelPos, relPos, length, progressUpdater) -> progressUpdater
+                .accept(length);
+
+            // read ahead the second region
+            final PlainActionFuture<Void> readahead = PlainActionFuture.newFuture();
+            cacheFile.populate(ByteRange.of(size(100), size(200)), writer, executor, readahead);
+            assertFalse(readahead.isDone());
+            taskQueue.runAllRunnableTasks();
+            assertTrue(readahead.isDone());
+            readahead.actionGet();
+            assertThat(cacheService.getStats().getReadaheadCount(), equalTo(1L));
+            assertThat(cacheService.getStats().getReadaheadHitCount(), equalTo(0L));
+
+            // populating it again is a no-op
+            cacheFile.populate(ByteRange.of(size(100), size(200)), writer, executor, ActionListener.wrap(() -> {}));
+            assertThat(cacheService.getStats().getReadaheadCount(), equalTo(1L));
+
+            // reading the readahead region is a hit
+            cacheFile.populateAndRead(
+                ByteRange.of(size(100), size(200)),
+                ByteRange.of(size(150), size(151)),
+                (channel, channelPos, relativePos, length) -> Math.toIntExact(length),
+                writer,
+                executor
+            );
+            taskQueue.runAllRunnableTasks();
+            assertThat(cacheService.getStats().getHitCount(), equalTo(1L));
+            assertThat(cacheService.getStats().getMissCount(), equalTo(0L));
+            assertThat(cacheService.getStats().getReadaheadHitCount(), equalTo(1L));
+
+            // reading the first region is a miss
+            cacheFile.populateAndRead(
+                ByteRange.of(0L, size(100)),
+                ByteRange.of(0L, 1L),
+                (channel, channelPos, relativePos, length) -> Math.toIntExact(length),
+                writer,
+                executor
+            );
+            taskQueue.runAllRunnableTasks();
+            assertThat(cacheService.getStats().getHitCount(), equalTo(1L));
+            assertThat(cacheService.getStats().getMissCount(), equalTo(1L));
+            assertThat(cacheService.getStats().getReadaheadHitCount(), equalTo(1L));
+        }
+    }
+
+    public void testRestoresPersistedRegions() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(500)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings))) {
+            final CacheKey cacheKey = generateCacheKey();
+            final int sharedBytesPos;
+            try (FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())) {
+                final CacheFileRegion region = cacheService.get(cacheKey, size(250), 1);
+                region.populateAndRead(
+                    ByteRange.of(0L, size(10)),
+                    ByteRange.of(0L, size(10)),
+                    (channel, channelPos, relativePos, length) -> Math.toIntExact(length),
+                    (channel, channelPos, relativePos, length, progressUpdater) -> progressUpdater.accept(length),
+                    taskQueue.getThreadPool().executor(ThreadPool.Names.GENERIC)
+                );
+                taskQueue.runAllRunnableTasks();
+                // regions without data are not persisted
+                cacheService.get(cacheKey, size(250), 2);
+                sharedBytesPos = region.sharedBytesPos;
+            }
+
+            try (FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())) {
+                // the persisted state is consumed when it is read so that it is not trusted again if the node crashes
+                assertFalse(Files.exists(environment.nodeDataPaths()[0].resolve(SharedCacheState.STATE_FILE_NAME)));
+                assertEquals(4, cacheService.freeRegionCount());
+                final CacheFileRegion region = cacheService.get(cacheKey, size(250), 1);
+                assertEquals(sharedBytesPos, region.sharedBytesPos);
+                assertEquals(size(100), region.tracker.getLength());
+                assertThat(region.tracker.getCompletedRanges(), equalTo(Set.of(ByteRange.of(0L, size(10)))));
+                assertEquals(4, cacheService.freeRegionCount());
+            }
+        }
+    }
+
+    public void testCoalescesNearbyGaps() throws IOException {
+        final boolean coalesce = randomBoolean();
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(500)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(
+                FrozenCacheService.SHARED_CACHE_COALESCING_GAP_SIZE_SETTING.getKey(),
+                new ByteSizeValue(coalesce ? size(10) : size(10) - 1).getStringRep()
+            )
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheFileRegion region = cacheService.get(generateCacheKey(), size(250), 0);
+            final Executor executor = taskQueue.getThreadPool().executor(ThreadPool.Names.GENERIC);
+            final FrozenCacheService.RangeAvailableHandler reader = (channel, channelPos, relativePos, length) -> Math.toIntExact(length);
+            final List<ByteRange> writes = new ArrayList<>();
+            final FrozenCacheService.RangeMissingHandler writer = (channel, channelPos, relativePos, length, progressUpdater) -> {
+                writes.add(ByteRange.of(relativePos, relativePos + length));
+                for (long progress = SharedBytes.PAGE_SIZE; progress <= length; progress += SharedBytes.PAGE_SIZE) {
+                    progressUpdater.accept(progress);
+                }
+            };
+            for (ByteRange range : List.of(ByteRange.of(size(10), size(20)), ByteRange.of(size(30), size(40)))) {
+                region.populateAndRead(range, range, reader, writer, executor);
+            }
+            taskQueue.runAllRunnableTasks();
+            writes.clear();
+
+            final StepListener<Integer> listener = region.populateAndRead(
+                ByteRange.of(0L, size(100)),
+                ByteRange.of(0L, size(100)),
+                reader,
+                writer,
+                executor
+            );
+            taskQueue.runAllRunnableTasks();
+            assertThat(listener.result(), equalTo(Math.toIntExact(size(100))));
+            if (coalesce) {
+                assertThat(writes, equalTo(List.of(ByteRange.of(0L, size(100)))));
+            } else {
+                assertThat(
+                    writes,
+                    equalTo(List.of(ByteRange.of(0L, size(10)), ByteRange.of(size(20), size(30)), ByteRange.of(size(40), size(100))))
+                );
+            }
+            assertThat(region.tracker.getCompletedRanges(), equalTo(Set.of(ByteRange.of(0L, size(100)))));
+        }
+    }
+
     public void testAutoEviction() throws IOException {
         Settings settings = Settings.builder()
             .put(NODE_NAME_SETTING.getKey(), "node")
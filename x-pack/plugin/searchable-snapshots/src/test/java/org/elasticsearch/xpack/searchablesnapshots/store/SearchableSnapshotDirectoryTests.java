@@ -68,6 +68,7 @@ import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.search.stats.FieldUsageStats.UsageContext;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
@@ -828,6 +829,28 @@ public class SearchableSnapshotDirectoryTests extends AbstractSearchableSnapshot
         }
     }
 
+    public void testPrewarmPriority() {
+        final Set<UsageContext> used = Set.of(UsageContext.DOC_VALUES, UsageContext.POINTS);
+        // metadata and compound files come first whatever the data structures that were used
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("segments_3", used), equalTo(0));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.si", used), equalTo(0));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.cfs", used), equalTo(0));
+        // then the files of data structures that were used
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.dvd", used), equalTo(1));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0_Lucene90_0.dvm", used), equalTo(1));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.kdd", used), equalTo(1));
+        // then the files of other data structures
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.tim", used), equalTo(2));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.nvd", used), equalTo(2));
+        // and stored fields and term vectors last
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.fdt", used), equalTo(3));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.tvd", used), equalTo(3));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.fdt", Set.of(UsageContext.STORED_FIELDS)), equalTo(1));
+        // without usage information all data structures have the same priority
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.tim", Set.of()), equalTo(2));
+        assertThat(SearchableSnapshotDirectory.prewarmPriority("_0.dvd", Set.of()), equalTo(2));
+    }
+
     public void testRecoveryStateIsKeptOpenAfterPreWarmFailures() throws Exception {
         FileSystem fileSystem = PathUtils.getDefaultFileSystem();
         FaultyReadsFileSystem disruptFileSystemProvider = new FaultyReadsFileSystem(fileSystem);
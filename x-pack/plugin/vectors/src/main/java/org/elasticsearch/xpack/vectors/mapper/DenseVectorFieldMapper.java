@@ -101,7 +101,7 @@ public class DenseVectorFieldMapper extends FieldMapper implements PerFieldKnnVe
             "index_options",
             false,
             () -> null,
-            (n, c, o) -> o == null ? null : parseIndexOptions(n, o),
+            (n, c, o) -> o == null ? null : parseIndexOptions(n, o, c.indexVersionCreated()),
             m -> toType(m).indexOptions
         );
         private final Parameter<Map<String, String>> meta = Parameter.metaParam();
@@ -168,10 +168,20 @@ public class DenseVectorFieldMapper extends FieldMapper implements PerFieldKnnVe
     }
 
     private static class HnswIndexOptions extends IndexOptions {
+        /**
+         * The largest number of neighbors per node we accept. Every graph node stores its neighbors on heap while the graph is
+         * built, so very large values quickly make indexing and merging run out of memory without improving recall.
+         */
+        static final int MAX_M = 512;
+        /**
+         * The largest number of candidates to track while building the graph. Build time grows linearly with this value.
+         */
+        static final int MAX_EF_CONSTRUCTION = 3200;
+
         private final int m;
         private final int efConstruction;
 
-        static IndexOptions parseIndexOptions(String fieldName, Map<String, ?> indexOptionsMap) {
+        static IndexOptions parseIndexOptions(String fieldName, Map<String, ?> indexOptionsMap, Version indexVersionCreated) {
             Object mNode = indexOptionsMap.remove("m");
             Object efConstructionNode = indexOptionsMap.remove("ef_construction");
             if (mNode == null) {
@@ -182,6 +192,22 @@ public class DenseVectorFieldMapper extends FieldMapper implements PerFieldKnnVe
             }
             int m = XContentMapValues.nodeIntegerValue(mNode);
             int efConstruction = XContentMapValues.nodeIntegerValue(efConstructionNode);
+            // indices created before these bounds were enforced must keep loading their mappings
+            boolean validate = indexVersionCreated.onOrAfter(Version.V_8_1_0);
+            if (validate && (m < 1 || m > MAX_M)) {
+                throw new MapperParsingException(
+                    "[index_options] of type [hnsw] requires [m] to be in the range [1, " + MAX_M + "] but was [" + m + "]"
+                );
+            }
+            if (validate && (efConstruction < m || efConstruction > MAX_EF_CONSTRUCTION)) {
+                throw new MapperParsingException(
+                    "[index_options] of type [hnsw] requires [ef_construction] to be in the range [m, "
+                        + MAX_EF_CONSTRUCTION
+                        + "] but was ["
+                        + efConstruction
+                        + "]"
+                );
+            }
             MappingParser.checkNoRemainingFields(fieldName, indexOptionsMap);
             return new HnswIndexOptions(m, efConstruction);
         }
@@ -501,7 +527,7 @@ public class DenseVectorFieldMapper extends FieldMapper implements PerFieldKnnVe
         }
     }
 
-    private static IndexOptions parseIndexOptions(String fieldName, Object propNode) {
+    private static IndexOptions parseIndexOptions(String fieldName, Object propNode, Version indexVersionCreated) {
         @SuppressWarnings("unchecked")
         Map<String, ?> indexOptionsMap = (Map<String, ?>) propNode;
         Object typeNode = indexOptionsMap.remove("type");
@@ -510,7 +536,7 @@ public class DenseVectorFieldMapper extends FieldMapper implements PerFieldKnnVe
         }
         String type = XContentMapValues.nodeStringValue(typeNode);
         if (type.equals("hnsw")) {
-            return HnswIndexOptions.parseIndexOptions(fieldName, indexOptionsMap);
+            return HnswIndexOptions.parseIndexOptions(fieldName, indexOptionsMap, indexVersionCreated);
         } else {
             throw new MapperParsingException("Unknown vector index options type [" + type + "] for field [" + fieldName + "]");
         }
@@ -326,6 +326,45 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
             )
         );
         assertThat(e.getMessage(), containsString("[index_options] of type [hnsw] requires field [ef_construction] to be configured"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createDocumentMapper(
+                fieldMapping(
+                    b -> b.field("type", "dense_vector")
+                        .field("dims", 3)
+                        .field("similarity", "l2_norm")
+                        .field("index", true)
+                        .startObject("index_options")
+                        .field("type", "hnsw")
+                        .field("m", 0)
+                        .field("ef_construction", 100)
+                        .endObject()
+                )
+            )
+        );
+        assertThat(e.getMessage(), containsString("[index_options] of type [hnsw] requires [m] to be in the range [1, 512] but was [0]"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createDocumentMapper(
+                fieldMapping(
+                    b -> b.field("type", "dense_vector")
+                        .field("dims", 3)
+                        .field("similarity", "l2_norm")
+                        .field("index", true)
+                        .startObject("index_options")
+                        .field("type", "hnsw")
+                        .field("m", 32)
+                        .field("ef_construction", 16)
+                        .endObject()
+                )
+            )
+        );
+        assertThat(
+            e.getMessage(),
+            containsString("[index_options] of type [hnsw] requires [ef_construction] to be in the range [m, 3200] but was [16]")
+        );
     }
 
     public void testAddDocumentsToIndexBefore_V_7_5_0() throws Exception {